@@ -1,31 +1,57 @@
 package com.teamhub;
 
+import com.mongodb.ConnectionString;
+import com.teamhub.common.migration.Migration;
+import com.teamhub.common.migration.MigrationRunner;
+import com.teamhub.common.mongo.IndexManager;
+import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.StorageBackend;
+import com.teamhub.common.mongo.TenantMover;
+import com.teamhub.common.mongo.TenantRouter;
+import com.teamhub.common.mongo.WriteCoalescer;
 import com.teamhub.config.AppConfig;
+import com.teamhub.handlers.AdminHandler;
 import com.teamhub.handlers.AnalyticsHandler;
 import com.teamhub.handlers.BillingHandler;
 import com.teamhub.handlers.MemberHandler;
 import com.teamhub.handlers.OrganizationHandler;
 import com.teamhub.handlers.ProjectHandler;
+import com.teamhub.handlers.SessionHandler;
 import com.teamhub.handlers.TaskHandler;
 import com.teamhub.managers.AnalyticsManager;
 import com.teamhub.managers.BillingManager;
+import com.teamhub.managers.ExpansionManager;
 import com.teamhub.managers.MemberManager;
 import com.teamhub.managers.NotificationManager;
 import com.teamhub.managers.OrganizationManager;
+import com.teamhub.managers.PermissionManager;
 import com.teamhub.managers.ProjectManager;
+import com.teamhub.managers.ProjectMembershipManager;
 import com.teamhub.managers.TaskManager;
+import com.teamhub.managers.TokenRevocationManager;
+import com.teamhub.managers.UsageReconciler;
 import com.teamhub.middleware.AuthHandler;
+import com.teamhub.middleware.AuthorizationHandler;
 import com.teamhub.middleware.ErrorHandler;
+import com.teamhub.middleware.OperatorAuthHandler;
 import com.teamhub.middleware.SecurityHeaderHandler;
+import com.teamhub.migrations.DateFieldMigration;
+import com.teamhub.migrations.ProjectMembershipMigration;
+import com.teamhub.migrations.TaskOrganizationBackfill;
 import com.teamhub.repositories.AnalyticsRepository;
 import com.teamhub.repositories.BillingPlanRepository;
 import com.teamhub.repositories.MemberRepository;
 import com.teamhub.repositories.OrganizationRepository;
+import com.teamhub.repositories.ProjectMembershipRepository;
 import com.teamhub.repositories.ProjectRepository;
+import com.teamhub.repositories.RevokedTokenRepository;
+import com.teamhub.repositories.TaskArchiveRepository;
 import com.teamhub.repositories.TaskRepository;
 import com.teamhub.routes.ApiRouter;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.MongoClient;
 import io.vertx.ext.web.Router;
@@ -34,46 +60,79 @@ import io.vertx.ext.web.handler.CorsHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class MainVerticle extends AbstractVerticle {
 
     private static final Logger logger = LoggerFactory.getLogger(MainVerticle.class);
 
-    private MongoClient mongoClient;
+    private final List<MongoClient> mongoClients = new ArrayList<>();
+    private StorageBackend storage;
+    private WriteCoalescer writeCoalescer;
 
     @Override
     public void start(Promise<Void> startPromise) {
-        // Create MongoClient
-        JsonObject mongoConfig = new JsonObject()
-                .put("connection_string", AppConfig.MONGO_CONNECTION_STRING)
-                .put("db_name", AppConfig.MONGO_DATABASE);
-        mongoClient = MongoClient.createShared(vertx, mongoConfig);
+        storage = StorageBackend.named(AppConfig.STORAGE_BACKEND);
+        TenantRouter tenantRouter = connectClusters(vertx, storage, AppConfig.MONGO_CLUSTERS, mongoClients);
+        MongoClient mongoClient = tenantRouter.defaultClient();
 
         // Create repositories
-        ProjectRepository projectRepository = new ProjectRepository(mongoClient);
-        TaskRepository taskRepository = new TaskRepository(mongoClient);
-        MemberRepository memberRepository = new MemberRepository(mongoClient);
+        ProjectRepository projectRepository = new ProjectRepository(tenantRouter);
+        writeCoalescer = new WriteCoalescer(vertx);
+        TaskRepository taskRepository = new TaskRepository(tenantRouter, writeCoalescer);
+        TaskArchiveRepository taskArchiveRepository = new TaskArchiveRepository(tenantRouter, taskRepository);
+        MemberRepository memberRepository = new MemberRepository(tenantRouter);
+        ProjectMembershipRepository projectMembershipRepository = new ProjectMembershipRepository(tenantRouter);
         OrganizationRepository organizationRepository = new OrganizationRepository(mongoClient);
         BillingPlanRepository billingPlanRepository = new BillingPlanRepository(mongoClient);
-        AnalyticsRepository analyticsRepository = new AnalyticsRepository(mongoClient);
+        AnalyticsRepository analyticsRepository = new AnalyticsRepository(tenantRouter);
+        RevokedTokenRepository revokedTokenRepository = new RevokedTokenRepository(mongoClient);
 
         // Create managers
+        PermissionManager permissionManager = new PermissionManager(vertx, memberRepository);
         BillingManager billingManager = new BillingManager(billingPlanRepository, organizationRepository, memberRepository, projectRepository);
-        MemberManager memberManager = new MemberManager(memberRepository, billingManager);
-        ProjectManager projectManager = new ProjectManager(projectRepository, billingManager, memberManager);
-        TaskManager taskManager = new TaskManager(taskRepository, projectManager);
+        ProjectMembershipMigration membershipMigration = new ProjectMembershipMigration(projectMembershipRepository);
+        ProjectMembershipManager membershipManager = new ProjectMembershipManager(vertx, projectMembershipRepository,
+                projectRepository, memberRepository, membershipMigration);
+        MemberManager memberManager = new MemberManager(memberRepository, billingManager, permissionManager,
+                membershipManager);
+        ProjectManager projectManager = new ProjectManager(projectRepository, billingManager, memberManager,
+                membershipManager, taskArchiveRepository);
+        TaskOrganizationBackfill taskOrganizationBackfill = new TaskOrganizationBackfill(projectRepository);
+        TaskManager taskManager = new TaskManager(taskRepository, projectManager, membershipManager,
+                taskOrganizationBackfill);
         OrganizationManager organizationManager = new OrganizationManager(organizationRepository);
         AnalyticsManager analyticsManager = new AnalyticsManager(analyticsRepository, projectRepository, taskRepository, memberRepository);
+        ExpansionManager expansionManager = new ExpansionManager(memberRepository, projectRepository);
         NotificationManager notificationManager = new NotificationManager();
+        TokenRevocationManager tokenRevocationManager = new TokenRevocationManager(vertx, revokedTokenRepository);
+        UsageReconciler usageReconciler = new UsageReconciler(vertx, organizationRepository, billingManager);
+        List<MongoRepository> repositories = List.of(projectRepository, taskRepository, taskArchiveRepository,
+                memberRepository, projectMembershipRepository, organizationRepository, billingPlanRepository,
+                revokedTokenRepository);
+        IndexManager indexManager = new IndexManager(tenantRouter, repositories);
+        List<Migration> migrations = new ArrayList<>();
+        migrations.add(taskOrganizationBackfill);
+        migrations.add(membershipMigration);
+        for (MongoRepository repository : repositories) {
+            migrations.add(new DateFieldMigration(repository));
+        }
+        MigrationRunner migrationRunner = new MigrationRunner(vertx, mongoClient, migrations);
+        TenantMover tenantMover = new TenantMover(vertx, tenantRouter, repositories);
 
         // Create handlers
-        ProjectHandler projectHandler = new ProjectHandler(projectManager);
-        TaskHandler taskHandler = new TaskHandler(taskManager);
+        ProjectHandler projectHandler = new ProjectHandler(projectManager, expansionManager);
+        TaskHandler taskHandler = new TaskHandler(taskManager, expansionManager);
         MemberHandler memberHandler = new MemberHandler(memberManager);
         OrganizationHandler organizationHandler = new OrganizationHandler(organizationManager);
         AnalyticsHandler analyticsHandler = new AnalyticsHandler(analyticsManager);
         BillingHandler billingHandler = new BillingHandler(billingManager);
+        SessionHandler sessionHandler = new SessionHandler(tokenRevocationManager);
+        AdminHandler adminHandler = new AdminHandler(indexManager, migrationRunner, tenantMover);
 
         // Create router
         Router router = Router.router(vertx);
@@ -91,7 +150,8 @@ public class MainVerticle extends AbstractVerticle {
                 .allowedHeader("Authorization")
                 .allowedHeader("Accept"));
         router.route().handler(BodyHandler.create());
-        router.route().handler(new AuthHandler());
+        router.route().handler(new AuthHandler(tokenRevocationManager));
+        router.route().handler(new AuthorizationHandler(permissionManager));
 
         // Error handler
         router.route().failureHandler(new ErrorHandler());
@@ -111,31 +171,105 @@ public class MainVerticle extends AbstractVerticle {
         // Mount API routes
         Router apiRouter = Router.router(vertx);
         ApiRouter apiRouterSetup = new ApiRouter(projectHandler, taskHandler, memberHandler,
-                organizationHandler, analyticsHandler, billingHandler);
+                organizationHandler, analyticsHandler, billingHandler, sessionHandler);
         apiRouterSetup.mount(apiRouter);
         router.route("/api/v1/*").subRouter(apiRouter);
 
-        // Start HTTP server
-        vertx.createHttpServer()
-                .requestHandler(router)
-                .listen(AppConfig.SERVER_PORT)
+        // Mount platform operator routes, which report across organizations
+        Router operatorRouter = Router.router(vertx);
+        operatorRouter.route().handler(new OperatorAuthHandler(AppConfig.OPERATOR_KEY_SHA256));
+        adminHandler.mount(operatorRouter);
+        router.route("/admin/v1/*").subRouter(operatorRouter);
+
+        // Load token revocations, then start HTTP server
+        tokenRevocationManager.start()
+                // Unique indexes are what keeps emails, slugs and keys unique, so they must be in place first
+                .compose(v -> indexManager.ensureUniqueIndexes())
+                .compose(v -> vertx.createHttpServer()
+                        .requestHandler(router)
+                        .listen(AppConfig.SERVER_PORT))
                 .onSuccess(server -> {
-                    logger.info("TeamHub API started on port {}", server.actualPort());
+                    logger.info("TeamHub API started on port {} ({} storage)", server.actualPort(),
+                            AppConfig.STORAGE_BACKEND);
                     startPromise.complete();
+                    // Other index builds are not waited for, so a large collection never delays startup
+                    indexManager.ensureIndexes()
+                            .onSuccess(report -> logger.info("Index check complete: {}", report.encode()))
+                            .onFailure(err -> logger.error("Index check failed", err));
+                    migrationRunner.start()
+                            .onSuccess(v -> logger.info("All migrations complete"))
+                            .onFailure(err -> logger.error("Migration runner stopped", err));
+                    usageReconciler.start();
                 })
                 .onFailure(err -> {
-                    logger.error("Failed to start HTTP server", err);
+                    logger.error("Failed to start", err);
                     startPromise.fail(err);
                 });
     }
 
-    @Override
-    public void stop(Promise<Void> stopPromise) {
-        if (mongoClient != null) {
-            mongoClient.close().onComplete(ar -> stopPromise.complete());
+    /**
+     * Creates MongoClients for the default cluster and for each of {@code extraClusters} (name to
+     * connection string) that large organizations can be moved to, and an analytics client per cluster
+     * with its own pool for reporting reads from secondaries. Every client is added to {@code opened}.
+     */
+    static TenantRouter connectClusters(Vertx vertx, StorageBackend storage, Map<String, String> extraClusters,
+                                        List<MongoClient> opened) {
+        Map<String, MongoClient> clusters = new LinkedHashMap<>();
+        clusters.put(TenantRouter.DEFAULT_CLUSTER, storage.createClient(vertx, new JsonObject()
+                .put("connection_string", AppConfig.MONGO_CONNECTION_STRING)
+                .put("db_name", AppConfig.MONGO_DATABASE), MongoClient.DEFAULT_POOL_NAME));
+        extraClusters.forEach((name, connectionString) ->
+                clusters.put(name, storage.createClient(vertx, new JsonObject()
+                        .put("connection_string", connectionString)
+                        .put("db_name", AppConfig.MONGO_DATABASE), "teamhub-" + name)));
+        Map<String, MongoClient> analyticsClients = new LinkedHashMap<>();
+        analyticsClients.put(TenantRouter.DEFAULT_CLUSTER,
+                analyticsClient(vertx, storage, AppConfig.MONGO_CONNECTION_STRING, TenantRouter.DEFAULT_CLUSTER));
+        extraClusters.forEach((name, connectionString) ->
+                analyticsClients.put(name, analyticsClient(vertx, storage, connectionString, name)));
+        opened.addAll(clusters.values());
+        opened.addAll(analyticsClients.values());
+        return new TenantRouter(vertx, clusters, analyticsClients);
+    }
+
+    /**
+     * A client for the cluster at {@code connectionString} that prefers secondaries no more than
+     * {@link AppConfig#MONGO_ANALYTICS_MAX_STALENESS_SECONDS} behind and has its own, smaller pool. The
+     * options go in the connection string, since the client ignores pool and read preference config
+     * keys when one is given.
+     */
+    private static MongoClient analyticsClient(Vertx vertx, StorageBackend storage, String connectionString,
+                                               String cluster) {
+        return storage.createClient(vertx, new JsonObject()
+                .put("connection_string", analyticsConnectionString(connectionString))
+                .put("db_name", AppConfig.MONGO_DATABASE), "teamhub-analytics-" + cluster);
+    }
+
+    /**
+     * {@code connectionString} with the analytics read preference and pool size appended to its
+     * options. Options start with "?" right after the path ("/teamhub?" or "/?"), so a bare host list
+     * gets the "/" first. The result is parsed by the driver, so a malformed one fails at startup.
+     */
+    static String analyticsConnectionString(String connectionString) {
+        String options = "readPreference=secondaryPreferred"
+                + "&maxStalenessSeconds=" + AppConfig.MONGO_ANALYTICS_MAX_STALENESS_SECONDS
+                + "&maxPoolSize=" + AppConfig.MONGO_ANALYTICS_POOL_SIZE;
+        String separator;
+        if (connectionString.contains("?")) {
+            separator = connectionString.endsWith("?") || connectionString.endsWith("&") ? "" : "&";
         } else {
-            stopPromise.complete();
+            int hosts = connectionString.indexOf("://") + 3;
+            separator = connectionString.indexOf('/', hosts) >= 0 ? "?" : "/?";
         }
+        return new ConnectionString(connectionString + separator + options).getConnectionString();
+    }
+
+    @Override
+    public void stop(Promise<Void> stopPromise) {
+        // Queued task updates go out before the clients close
+        Future<Void> flushed = writeCoalescer != null ? writeCoalescer.close() : Future.succeededFuture();
+        flushed.eventually(() -> Future.join(mongoClients.stream().map(MongoClient::close).toList()))
+                .onComplete(ar -> stopPromise.complete());
     }
 
     public static void main(String[] args) {
@@ -8,6 +8,7 @@ public enum ErrorCode {
     BAD_REQUEST("Bad request", 400),
     CONFLICT("Conflict", 409),
     INTERNAL_ERROR("Internal server error", 500),
+    SERVICE_UNAVAILABLE("Service unavailable", 503),
     VALIDATION_ERROR("Validation error", 422);
 
     private final String message;
@@ -0,0 +1,82 @@
+package com.teamhub.common.expand;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.config.AppConfig;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parsed {@code expand} query parameter: a tree of relation names, where {@code project.createdBy}
+ * expands a task's project and, inside it, the project's creator. Paths deeper than
+ * {@link AppConfig#EXPAND_MAX_DEPTH} are rejected.
+ */
+public final class ExpandSpec {
+
+    public static final ExpandSpec NONE = new ExpandSpec(Map.of());
+
+    private final Map<String, ExpandSpec> children;
+
+    private ExpandSpec(Map<String, ExpandSpec> children) {
+        this.children = children;
+    }
+
+    /**
+     * Parses a comma-separated list of dotted relation paths. A null or blank value expands nothing.
+     */
+    public static ExpandSpec parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        Map<String, Object> tree = new LinkedHashMap<>();
+        for (String path : value.split(",")) {
+            String trimmed = path.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] segments = trimmed.split("\\.", -1);
+            if (segments.length > AppConfig.EXPAND_MAX_DEPTH) {
+                throw new AppException(ErrorCode.VALIDATION_ERROR,
+                        "Expansion '" + trimmed + "' is deeper than " + AppConfig.EXPAND_MAX_DEPTH + " levels");
+            }
+            Map<String, Object> node = tree;
+            for (String segment : segments) {
+                if (segment.isBlank()) {
+                    throw new AppException(ErrorCode.VALIDATION_ERROR, "Invalid expansion: '" + trimmed + "'");
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> child = (Map<String, Object>) node.computeIfAbsent(segment, k -> new LinkedHashMap<>());
+                node = child;
+            }
+        }
+        return of(tree);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ExpandSpec of(Map<String, Object> tree) {
+        if (tree.isEmpty()) {
+            return NONE;
+        }
+        Map<String, ExpandSpec> children = new LinkedHashMap<>();
+        tree.forEach((name, subtree) -> children.put(name, of((Map<String, Object>) subtree)));
+        return new ExpandSpec(Collections.unmodifiableMap(children));
+    }
+
+    public boolean isEmpty() {
+        return children.isEmpty();
+    }
+
+    public Set<String> relations() {
+        return children.keySet();
+    }
+
+    /**
+     * The expansions to apply inside the given relation's entities.
+     */
+    public ExpandSpec child(String relation) {
+        return children.getOrDefault(relation, NONE);
+    }
+}
@@ -0,0 +1,60 @@
+package com.teamhub.common.migration;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+
+import java.util.List;
+
+/**
+ * A versioned, batched change to the documents of one collection, run by {@link MigrationRunner}.
+ *
+ * The runner walks documents matching {@link #filter()} in _id order and hands each batch to
+ * {@link #apply(List)}. Operations should be conditional on the state they read (for example, include
+ * the old value in the update filter), so a document changed by a foreground write in the meantime is
+ * left alone rather than overwritten.
+ */
+public interface Migration {
+
+    /**
+     * Unique, sortable version identifier such as {@code 0003-task-priority-default}. Migrations run in
+     * ID order and each is recorded under its ID once complete.
+     */
+    String id();
+
+    String description();
+
+    String collection();
+
+    /**
+     * Documents that still need migrating. Need not be indexed: the runner scans by _id range.
+     */
+    JsonObject filter();
+
+    /**
+     * Fields {@link #apply(List)} needs, or null for whole documents.
+     */
+    default JsonObject projection() {
+        return null;
+    }
+
+    /**
+     * Builds the writes for one batch. Documents that need no change simply produce no operation.
+     * Must not write anything itself: dry runs call it too.
+     */
+    Future<List<BulkOperation>> apply(List<JsonObject> batch);
+
+    /**
+     * Writes whatever the batch's operations depend on outside {@link #collection()}, before they are
+     * applied. Only called for real runs, so it is where side effects belong.
+     */
+    default Future<Void> prepare(List<JsonObject> batch) {
+        return Future.succeededFuture();
+    }
+
+    /**
+     * Called once the migration is recorded as complete, on whichever node observes it.
+     */
+    default void onComplete() {
+    }
+}
@@ -0,0 +1,376 @@
+package com.teamhub.common.migration;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.MongoErrors;
+import com.teamhub.config.AppConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs {@link Migration}s online, one at a time in ID order, on a single node of the cluster.
+ *
+ * Each migration's state lives in the {@code schema_migrations} collection under its ID. A node takes a
+ * time-limited lease on the record before working on it and renews the lease with every checkpoint, so
+ * only one node migrates at a time and a crashed node's work is picked up once its lease expires.
+ * Documents are read in _id order, {@link AppConfig#MIGRATION_BATCH_SIZE} at a time, and the last _id of
+ * each batch is checkpointed, so a restart resumes where the previous run stopped. Batches are paced to
+ * {@link AppConfig#MIGRATION_MAX_DOCS_PER_SECOND} to leave the database to foreground traffic.
+ *
+ * Reaching the end of the collection ends a pass. If documents still match the filter (for example ones
+ * written by nodes not yet upgraded, or with _ids below the checkpoint) another pass starts from the
+ * beginning; a pass that changes nothing completes the migration, since another would not either.
+ *
+ * Nodes that do not hold the lease poll until the migration is complete, then call
+ * {@link Migration#onComplete()} themselves.
+ */
+public class MigrationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigrationRunner.class);
+
+    static final String COLLECTION = "schema_migrations";
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private final Vertx vertx;
+    private final MongoClient mongoClient;
+    private final List<Migration> migrations;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+    private final Map<String, Double> docsPerSecond = new ConcurrentHashMap<>();
+
+    public MigrationRunner(Vertx vertx, MongoClient mongoClient, List<Migration> migrations) {
+        this.vertx = vertx;
+        this.mongoClient = mongoClient;
+        this.migrations = migrations.stream().sorted(Comparator.comparing(Migration::id)).toList();
+    }
+
+    /**
+     * Runs every migration to completion. The returned future completes once all of them are complete,
+     * whether this node ran them or not.
+     */
+    public Future<Void> start() {
+        return runFrom(0);
+    }
+
+    public boolean isComplete(String migrationId) {
+        return completed.contains(migrationId);
+    }
+
+    private Future<Void> runFrom(int index) {
+        if (index >= migrations.size()) {
+            return Future.succeededFuture();
+        }
+        Migration migration = migrations.get(index);
+        return mongoClient.findOne(COLLECTION, new JsonObject().put("_id", migration.id()), null)
+                .compose(record -> {
+                    if (record != null && Status.COMPLETED.name().equals(record.getString("status"))) {
+                        markComplete(migration);
+                        return Future.succeededFuture(true);
+                    }
+                    return acquire(migration).compose(leased -> {
+                        if (leased == null) {
+                            logger.debug("Migration {} is leased by another node", migration.id());
+                            return Future.succeededFuture(false);
+                        }
+                        logger.info("Running migration {}: {}", migration.id(), migration.description());
+                        return runBatches(migration, leased.getValue("lastId"), leased.getLong("passModified", 0L))
+                                .recover(err -> recordFailure(migration, err));
+                    });
+                })
+                .compose(done -> done
+                        ? runFrom(index + 1)
+                        : delay(AppConfig.MIGRATION_POLL_MS).compose(v -> runFrom(index)));
+    }
+
+    /**
+     * Takes or renews the lease on the migration's record, creating it if needed. Completes with the
+     * record, or null if another node holds the lease.
+     */
+    private Future<JsonObject> acquire(Migration migration) {
+        JsonObject query = new JsonObject()
+                .put("_id", migration.id())
+                .put("status", new JsonObject().put("$ne", Status.COMPLETED.name()))
+                .put("$or", new JsonArray()
+                        .add(new JsonObject().put("leaseOwner", (Object) null))
+                        .add(new JsonObject().put("leaseOwner", nodeId))
+                        .add(new JsonObject().put("leaseExpiresAt", new JsonObject()
+                                .put("$lt", MongoDates.toBson(Instant.now())))));
+        JsonObject update = new JsonObject()
+                .put("$set", new JsonObject()
+                        .put("description", migration.description())
+                        .put("collection", migration.collection())
+                        .put("status", Status.RUNNING.name())
+                        .put("leaseOwner", nodeId)
+                        .put("leaseExpiresAt", leaseExpiry())
+                        .put("updatedAt", MongoDates.now()))
+                .put("$setOnInsert", new JsonObject()
+                        .put("pass", 1)
+                        .put("processed", 0L)
+                        .put("modified", 0L)
+                        .put("passModified", 0L)
+                        .put("startedAt", MongoDates.now()))
+                .put("$unset", new JsonObject().put("error", ""));
+        UpdateOptions options = new UpdateOptions().setUpsert(true).setReturningNewDocument(true);
+        return mongoClient.findOneAndUpdateWithOptions(COLLECTION, query, update, new FindOptions(), options)
+                // The record exists but did not match: completed, or leased elsewhere
+                .recover(err -> MongoErrors.isDuplicateKey(err) ? Future.succeededFuture(null) : Future.failedFuture(err));
+    }
+
+    private Future<Boolean> runBatches(Migration migration, Object lastId, long passModified) {
+        long started = System.currentTimeMillis();
+        return readBatch(migration, lastId, AppConfig.MIGRATION_BATCH_SIZE).compose(docs -> {
+            if (docs.isEmpty()) {
+                return endPass(migration, passModified);
+            }
+            Object nextId = docs.get(docs.size() - 1).getValue("_id");
+            return migration.apply(docs)
+                    .compose(operations -> migration.prepare(docs).map(operations))
+                    .compose(operations -> write(migration, operations))
+                    .compose(modified -> checkpoint(migration, nextId, docs.size(), modified).compose(held -> {
+                        if (!held) {
+                            logger.warn("Lost the lease on migration {}; another node will resume it", migration.id());
+                            return Future.succeededFuture(false);
+                        }
+                        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+                        docsPerSecond.put(migration.id(), docs.size() * 1000.0 / elapsed);
+                        long pause = docs.size() * 1000L / AppConfig.MIGRATION_MAX_DOCS_PER_SECOND - elapsed;
+                        long total = passModified + modified;
+                        if (docs.size() < AppConfig.MIGRATION_BATCH_SIZE) {
+                            return endPass(migration, total);
+                        }
+                        return delay(pause).compose(v -> runBatches(migration, nextId, total));
+                    }));
+        });
+    }
+
+    private Future<List<JsonObject>> readBatch(Migration migration, Object lastId, int limit) {
+        JsonObject query = lastId == null
+                ? migration.filter()
+                : new JsonObject().put("$and", new JsonArray()
+                        .add(migration.filter())
+                        .add(new JsonObject().put("_id", new JsonObject().put("$gt", lastId))));
+        FindOptions options = new FindOptions()
+                .setSort(new JsonObject().put("_id", 1))
+                .setLimit(limit);
+        if (migration.projection() != null) {
+            options.setFields(migration.projection());
+        }
+        return mongoClient.findWithOptions(migration.collection(), query, options);
+    }
+
+    private Future<Long> write(Migration migration, List<BulkOperation> operations) {
+        if (operations.isEmpty()) {
+            return Future.succeededFuture(0L);
+        }
+        return mongoClient.bulkWriteWithOptions(migration.collection(), operations, new BulkWriteOptions(false))
+                .map(result -> result == null ? 0L : result.getModifiedCount());
+    }
+
+    /**
+     * Records progress and renews the lease. Completes with false if the lease was lost.
+     */
+    private Future<Boolean> checkpoint(Migration migration, Object lastId, int processed, long modified) {
+        JsonObject update = new JsonObject()
+                .put("$set", new JsonObject()
+                        .put("lastId", lastId)
+                        .put("leaseExpiresAt", leaseExpiry())
+                        .put("updatedAt", MongoDates.now()))
+                .put("$inc", new JsonObject()
+                        .put("processed", (long) processed)
+                        .put("modified", modified)
+                        .put("passModified", modified));
+        return mongoClient.updateCollection(COLLECTION, leaseQuery(migration), update)
+                .map(result -> result != null && result.getDocMatched() > 0);
+    }
+
+    private Future<Boolean> endPass(Migration migration, long passModified) {
+        return mongoClient.findOne(migration.collection(), migration.filter(), new JsonObject().put("_id", 1))
+                .compose(remaining -> {
+                    if (remaining == null || passModified == 0) {
+                        if (remaining != null) {
+                            logger.warn("Migration {} complete; some documents still match and cannot be migrated",
+                                    migration.id());
+                        }
+                        return complete(migration);
+                    }
+                    JsonObject update = new JsonObject()
+                            .put("$set", new JsonObject()
+                                    .put("lastId", (Object) null)
+                                    .put("passModified", 0L)
+                                    .put("leaseExpiresAt", leaseExpiry())
+                                    .put("updatedAt", MongoDates.now()))
+                            .put("$inc", new JsonObject().put("pass", 1));
+                    return mongoClient.updateCollection(COLLECTION, leaseQuery(migration), update)
+                            .compose(result -> result != null && result.getDocMatched() > 0
+                                    ? runBatches(migration, null, 0L)
+                                    : Future.succeededFuture(false));
+                });
+    }
+
+    private Future<Boolean> complete(Migration migration) {
+        JsonObject now = MongoDates.now();
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("status", Status.COMPLETED.name())
+                .put("leaseOwner", (Object) null)
+                .put("leaseExpiresAt", (Object) null)
+                .put("completedAt", now)
+                .put("updatedAt", now.copy()));
+        return mongoClient.updateCollection(COLLECTION, leaseQuery(migration), update).map(result -> {
+            if (result == null || result.getDocMatched() == 0) {
+                return false;
+            }
+            logger.info("Migration {} complete", migration.id());
+            markComplete(migration);
+            return true;
+        });
+    }
+
+    private Future<Boolean> recordFailure(Migration migration, Throwable err) {
+        logger.error("Migration {} failed; retrying in {} ms", migration.id(), AppConfig.MIGRATION_POLL_MS, err);
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("status", Status.FAILED.name())
+                .put("error", String.valueOf(err.getMessage()))
+                .put("leaseOwner", (Object) null)
+                .put("leaseExpiresAt", (Object) null)
+                .put("updatedAt", MongoDates.now()));
+        return mongoClient.updateCollection(COLLECTION, leaseQuery(migration), update)
+                .otherwise(e -> null)
+                .map(result -> false);
+    }
+
+    private void markComplete(Migration migration) {
+        docsPerSecond.remove(migration.id());
+        if (completed.add(migration.id())) {
+            migration.onComplete();
+        }
+    }
+
+    /**
+     * IDs of registered migrations not yet recorded as complete. Read from the records rather than this
+     * node's view, which lags behind them until {@link #start()} has caught up.
+     */
+    public Future<List<String>> pending() {
+        JsonObject query = new JsonObject().put("status", Status.COMPLETED.name());
+        return mongoClient.findWithOptions(COLLECTION, query, new FindOptions().setFields(new JsonObject().put("_id", 1)))
+                .map(records -> {
+                    Set<String> done = new HashSet<>();
+                    records.forEach(record -> done.add(record.getString("_id")));
+                    return migrations.stream().map(Migration::id).filter(id -> !done.contains(id)).toList();
+                });
+    }
+
+    /**
+     * Reports every registered migration's state, including ones that have not started yet.
+     */
+    public Future<JsonArray> progress() {
+        return mongoClient.find(COLLECTION, new JsonObject()).map(records -> {
+            Map<String, JsonObject> byId = new HashMap<>();
+            for (JsonObject record : records) {
+                byId.put(record.getString("_id"), record);
+            }
+            JsonArray result = new JsonArray();
+            for (Migration migration : migrations) {
+                JsonObject record = byId.getOrDefault(migration.id(), new JsonObject());
+                JsonObject entry = new JsonObject()
+                        .put("id", migration.id())
+                        .put("description", migration.description())
+                        .put("collection", migration.collection())
+                        .put("status", record.getString("status", Status.PENDING.name()))
+                        .put("pass", record.getInteger("pass", 0))
+                        .put("processed", record.getLong("processed", 0L))
+                        .put("modified", record.getLong("modified", 0L))
+                        .put("lastId", record.getValue("lastId"))
+                        .put("leaseOwner", record.getString("leaseOwner"))
+                        .put("startedAt", MongoDates.toIso(record.getValue("startedAt")))
+                        .put("updatedAt", MongoDates.toIso(record.getValue("updatedAt")))
+                        .put("completedAt", MongoDates.toIso(record.getValue("completedAt")))
+                        .put("error", record.getString("error"));
+                Double rate = docsPerSecond.get(migration.id());
+                if (rate != null) {
+                    entry.put("docsPerSecond", Math.round(rate));
+                }
+                result.add(entry);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Reads up to maxDocs matching documents and reports how many the migration would write, without
+     * writing anything or touching its record. Only counts are returned: the documents span every
+     * organization.
+     */
+    public Future<JsonObject> dryRun(String migrationId, int maxDocs) {
+        Migration migration = migrations.stream()
+                .filter(m -> m.id().equals(migrationId))
+                .findFirst()
+                .orElse(null);
+        if (migration == null) {
+            return Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Migration not found"));
+        }
+        JsonObject result = new JsonObject()
+                .put("id", migration.id())
+                .put("scanned", 0)
+                .put("wouldModify", 0);
+        return dryRunBatches(migration, null, maxDocs, result);
+    }
+
+    private Future<JsonObject> dryRunBatches(Migration migration, Object lastId, int remaining, JsonObject result) {
+        int limit = Math.min(remaining, AppConfig.MIGRATION_BATCH_SIZE);
+        if (limit <= 0) {
+            return Future.succeededFuture(result);
+        }
+        return readBatch(migration, lastId, limit).compose(docs -> {
+            if (docs.isEmpty()) {
+                return Future.succeededFuture(result);
+            }
+            return migration.apply(docs).compose(operations -> {
+                result.put("scanned", result.getInteger("scanned") + docs.size());
+                result.put("wouldModify", result.getInteger("wouldModify") + operations.size());
+                if (docs.size() < limit) {
+                    return Future.succeededFuture(result);
+                }
+                return dryRunBatches(migration, docs.get(docs.size() - 1).getValue("_id"),
+                        remaining - docs.size(), result);
+            });
+        });
+    }
+
+    private JsonObject leaseQuery(Migration migration) {
+        return new JsonObject().put("_id", migration.id()).put("leaseOwner", nodeId);
+    }
+
+    private JsonObject leaseExpiry() {
+        return MongoDates.toBson(Instant.now().plusMillis(AppConfig.MIGRATION_LEASE_MS));
+    }
+
+    private Future<Void> delay(long millis) {
+        Promise<Void> promise = Promise.promise();
+        vertx.setTimer(Math.max(1, millis), id -> promise.complete());
+        return promise.future();
+    }
+}
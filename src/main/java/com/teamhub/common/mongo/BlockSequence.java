@@ -0,0 +1,115 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Hands out numbers from stored counters without a round trip per number (hi/lo allocation). Each node
+ * reserves a block of {@code blockSize} numbers from a counter with one write and serves them from
+ * memory, lock-free, until the block runs out; concurrent callers share a single reservation.
+ *
+ * Numbers are unique but neither gapless nor ordered across nodes: a block's unused numbers are lost
+ * when the node stops or forgets the counter, and two nodes serve their blocks side by side.
+ */
+public class BlockSequence {
+
+    private final int blockSize;
+    private final int maxCounters;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    private final Map<String, Future<Block>> reservations = new ConcurrentHashMap<>();
+
+    /**
+     * Numbers {@code first..last} of one counter; {@code next} runs past {@code last} once it is used up.
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long last;
+
+        Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+
+    /**
+     * @param maxCounters how many counters to hold blocks for; beyond that, blocks are dropped (and
+     *                    their remaining numbers skipped) to make room
+     */
+    public BlockSequence(int blockSize, int maxCounters) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be at least 1");
+        }
+        this.blockSize = blockSize;
+        this.maxCounters = maxCounters;
+    }
+
+    /**
+     * The next number of {@code counter}. When this node has none left, {@code reserve} is called
+     * with the block size and must atomically add it to the stored counter, completing with the new
+     * value: the block is the numbers after the old value up to and including the new one.
+     */
+    public Future<Long> next(String counter, IntFunction<Future<Long>> reserve) {
+        Block block = blocks.get(counter);
+        if (block != null) {
+            long number = block.next.getAndIncrement();
+            if (number <= block.last) {
+                return Future.succeededFuture(number);
+            }
+        }
+        return refill(counter, block, reserve).compose(refilled -> next(counter, reserve));
+    }
+
+    /**
+     * Drops this node's block for {@code counter}, e.g. once the counter is deleted.
+     */
+    public void forget(String counter) {
+        blocks.remove(counter);
+    }
+
+    private Future<Block> refill(String counter, Block exhausted, IntFunction<Future<Long>> reserve) {
+        Promise<Block> promise = Promise.promise();
+        Future<Block> pending = reservations.putIfAbsent(counter, promise.future());
+        if (pending != null) {
+            return pending;
+        }
+        // Another caller's reservation may have landed between reading the block and getting here
+        Block current = blocks.get(counter);
+        if (current != exhausted) {
+            reservations.remove(counter, promise.future());
+            promise.complete(current);
+            return promise.future();
+        }
+        reserve.apply(blockSize).onComplete(reserved -> {
+            if (reserved.succeeded()) {
+                long last = reserved.result();
+                if (blocks.size() >= maxCounters && !blocks.containsKey(counter)) {
+                    makeRoom();
+                }
+                blocks.put(counter, new Block(last - blockSize + 1, last));
+            }
+            reservations.remove(counter, promise.future());
+            promise.handle(reserved.map(last -> blocks.get(counter)));
+        });
+        return promise.future();
+    }
+
+    /**
+     * Drops used-up blocks, or an arbitrary one if none is used up.
+     */
+    private void makeRoom() {
+        blocks.values().removeIf(block -> block.next.get() > block.last);
+        if (blocks.size() >= maxCounters) {
+            Iterator<String> counters = blocks.keySet().iterator();
+            if (counters.hasNext()) {
+                counters.next();
+                counters.remove();
+            }
+        }
+    }
+}
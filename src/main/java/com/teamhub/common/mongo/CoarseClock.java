@@ -0,0 +1,52 @@
+package com.teamhub.common.mongo;
+
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+/**
+ * Wall clock truncated to a fixed resolution that caches the {@link Instant} and its ISO-8601 form
+ * for the current tick. Writes landing in the same tick share one formatted timestamp instead of
+ * each calling {@code Instant.now()} and formatting it again.
+ */
+public final class CoarseClock {
+
+    private record Tick(long index, Instant instant, String iso) {
+    }
+
+    private final long resolutionMillis;
+    private final LongSupplier millisSource;
+    private volatile Tick tick = new Tick(Long.MIN_VALUE, Instant.EPOCH, Instant.EPOCH.toString());
+
+    public CoarseClock(long resolutionMillis) {
+        this(resolutionMillis, System::currentTimeMillis);
+    }
+
+    CoarseClock(long resolutionMillis, LongSupplier millisSource) {
+        if (resolutionMillis < 1) {
+            throw new IllegalArgumentException("resolutionMillis must be positive");
+        }
+        this.resolutionMillis = resolutionMillis;
+        this.millisSource = millisSource;
+    }
+
+    public Instant instant() {
+        return current().instant();
+    }
+
+    public String iso() {
+        return current().iso();
+    }
+
+    private Tick current() {
+        long index = millisSource.getAsLong() / resolutionMillis;
+        Tick cached = tick;
+        if (cached.index() == index) {
+            return cached;
+        }
+        // Racing threads may both format the same tick; the result is identical, so last write wins
+        Instant instant = Instant.ofEpochMilli(index * resolutionMillis);
+        Tick fresh = new Tick(index, instant, instant.toString());
+        tick = fresh;
+        return fresh;
+    }
+}
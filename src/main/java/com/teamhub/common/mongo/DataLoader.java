@@ -0,0 +1,102 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.config.AppConfig;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces {@link #load} calls made during the same event-loop tick into one
+ * {@link MongoRepository#findByIds} query, and memoizes results for the loader's lifetime.
+ *
+ * Meant to live for a single request (see {@link DataLoaders#forRequest}), so memoized documents are
+ * never older than the request and writes made by other requests are picked up on the next one.
+ * Completes with null for documents that are missing or soft-deleted.
+ */
+public class DataLoader {
+
+    private final Context context;
+    private final MongoRepository repository;
+    private final String organizationId;
+    private final Map<String, Future<JsonObject>> loaded = new HashMap<>();
+    private Map<String, Promise<JsonObject>> pending = new LinkedHashMap<>();
+
+    /**
+     * Loads from {@code organizationId}'s cluster; the organization routes the queries and does not
+     * filter them.
+     */
+    public DataLoader(Context context, MongoRepository repository, String organizationId) {
+        this.context = context;
+        this.repository = repository;
+        this.organizationId = organizationId;
+    }
+
+    public synchronized Future<JsonObject> load(String id) {
+        Future<JsonObject> existing = loaded.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        Promise<JsonObject> promise = Promise.promise();
+        loaded.put(id, promise.future());
+        if (pending.isEmpty()) {
+            // Runs after the current tick, by which time every load issued in it has been queued
+            context.runOnContext(v -> dispatch());
+        }
+        pending.put(id, promise);
+        return promise.future();
+    }
+
+    /**
+     * Loads several documents, completing with a list that lines up with {@code ids} (null for missing ones).
+     */
+    public Future<List<JsonObject>> loadMany(List<String> ids) {
+        List<Future<JsonObject>> futures = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            futures.add(load(id));
+        }
+        return Future.all(futures).map(all -> {
+            List<JsonObject> docs = new ArrayList<>(ids.size());
+            for (Future<JsonObject> future : futures) {
+                docs.add(future.result());
+            }
+            return docs;
+        });
+    }
+
+    private void dispatch() {
+        Map<String, Promise<JsonObject>> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        List<String> ids = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < ids.size(); from += AppConfig.DATA_LOADER_MAX_BATCH_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + AppConfig.DATA_LOADER_MAX_BATCH_SIZE));
+            repository.findByIds(chunk, organizationId).onComplete(ar -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    Promise<JsonObject> promise = batch.get(chunk.get(i));
+                    if (ar.succeeded()) {
+                        promise.complete(ar.result().get(i));
+                    } else {
+                        forget(chunk.get(i));
+                        promise.fail(ar.cause());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Failed loads are not memoized, so a later load of the same ID queries again.
+     */
+    private synchronized void forget(String id) {
+        loaded.remove(id);
+    }
+}
@@ -0,0 +1,41 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.Context;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link DataLoader}s of one request, one per repository, created on first use. Handlers get the
+ * request's instance with {@link #forRequest} and pass it to managers, so every lookup made while
+ * serving the request shares the same batches and memoized documents. Lookups go to the cluster of
+ * the caller's organization.
+ */
+public class DataLoaders {
+
+    private static final String CONTEXT_KEY = "dataLoaders";
+
+    private final Context context;
+    private final String organizationId;
+    private final Map<String, DataLoader> loaders = new HashMap<>();
+
+    public DataLoaders(Context context, String organizationId) {
+        this.context = context;
+        this.organizationId = organizationId;
+    }
+
+    public static DataLoaders forRequest(RoutingContext ctx) {
+        DataLoaders loaders = ctx.get(CONTEXT_KEY);
+        if (loaders == null) {
+            loaders = new DataLoaders(ctx.vertx().getOrCreateContext(), ctx.get("organizationId"));
+            ctx.put(CONTEXT_KEY, loaders);
+        }
+        return loaders;
+    }
+
+    public synchronized DataLoader of(MongoRepository repository) {
+        return loaders.computeIfAbsent(repository.getCollectionName(),
+                name -> new DataLoader(context, repository, organizationId));
+    }
+}
@@ -0,0 +1,107 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The API fields to read and serialize, from the {@code fields} query parameter. Pushed down to Mongo
+ * as a projection ({@code FindOptions.setFields}) so unrequested fields are never transferred, and
+ * passed to the models' {@code toJson} so they are never copied either.
+ *
+ * API field names match document field names, except {@code id}, which is {@code _id} in Mongo and
+ * is always included.
+ */
+public final class FieldSet {
+
+    /**
+     * Every field; applies no projection.
+     */
+    public static final FieldSet ALL = new FieldSet(null);
+
+    private static final String ID = "id";
+
+    private final Set<String> fields;
+    private final JsonObject projection;
+
+    private FieldSet(Set<String> fields) {
+        this.fields = fields == null ? null : Collections.unmodifiableSet(fields);
+        this.projection = fields == null ? null : buildProjection(fields);
+    }
+
+    public static FieldSet of(String... fields) {
+        Set<String> set = new LinkedHashSet<>();
+        set.add(ID);
+        Collections.addAll(set, fields);
+        return new FieldSet(set);
+    }
+
+    /**
+     * Parses a comma-separated field list, checked against {@code allowed}. A missing parameter means
+     * {@code defaults}; {@code *} means every field.
+     */
+    public static FieldSet parse(String value, List<String> allowed, FieldSet defaults) {
+        if (value == null || value.isBlank()) {
+            return defaults;
+        }
+        if (value.trim().equals("*")) {
+            return ALL;
+        }
+        Set<String> set = new LinkedHashSet<>();
+        set.add(ID);
+        for (String field : value.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(trimmed)) {
+                throw new AppException(ErrorCode.VALIDATION_ERROR,
+                        "Unknown field '" + trimmed + "'; allowed: " + String.join(", ", allowed));
+            }
+            set.add(trimmed);
+        }
+        return new FieldSet(set);
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * This set plus {@code extra}, e.g. fields the server needs for access checks or pagination.
+     */
+    public FieldSet with(Collection<String> extra) {
+        if (fields == null || fields.containsAll(extra)) {
+            return this;
+        }
+        Set<String> set = new LinkedHashSet<>(fields);
+        set.addAll(extra);
+        return new FieldSet(set);
+    }
+
+    public FieldSet with(String... extra) {
+        return with(List.of(extra));
+    }
+
+    /**
+     * The Mongo projection for this set, or null to fetch whole documents. Built once and shared by
+     * every query using this set: never modify it.
+     */
+    public JsonObject projection() {
+        return projection;
+    }
+
+    private static JsonObject buildProjection(Set<String> fields) {
+        JsonObject projection = new JsonObject();
+        for (String field : fields) {
+            projection.put(ID.equals(field) ? "_id" : field, 1);
+        }
+        return projection;
+    }
+}
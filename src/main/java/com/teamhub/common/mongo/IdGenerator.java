@@ -0,0 +1,20 @@
+package com.teamhub.common.mongo;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Produces {@code _id} values for {@link MongoRepository#insert}.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * Driver-style ObjectId hex strings, as used before ids were generated here.
+     */
+    IdGenerator OBJECT_ID = tenant -> new ObjectId().toHexString();
+
+    /**
+     * @param tenant the owning tenant (organization) ID, or null for documents that have none
+     */
+    String nextId(String tenant);
+}
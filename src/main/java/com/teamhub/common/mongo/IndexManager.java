@@ -0,0 +1,289 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Creates the indexes each repository declares and reports drift against what exists.
+ *
+ * Missing indexes are created; indexes whose definition differs from the declaration, and indexes
+ * nobody declares, are only reported. Dropping or rebuilding an index on a large collection is an
+ * operational decision and is never done automatically. The one exception is a TTL index whose only
+ * difference is its expiry, which {@code collMod} changes in place without a rebuild.
+ *
+ * Unique indexes are the only guard against duplicates (nothing reads ahead to check), so
+ * {@link #ensureUniqueIndexes()} is run before serving traffic and fails if any cannot be put in place.
+ *
+ * Tenant-scoped collections are checked on every cluster known to the {@link TenantRouter}, since any
+ * of them may hold an organization's data; their entries for clusters other than the default one are
+ * reported under {@code <cluster>/<collection>}.
+ */
+public class IndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexManager.class);
+
+    private static final String ID_INDEX = "_id_";
+
+    private final TenantRouter router;
+    private final List<MongoRepository> repositories;
+
+    public IndexManager(MongoClient mongoClient, List<MongoRepository> repositories) {
+        this(TenantRouter.single(mongoClient), repositories);
+    }
+
+    public IndexManager(TenantRouter router, List<MongoRepository> repositories) {
+        this.router = router;
+        this.repositories = repositories;
+    }
+
+    /**
+     * Ensures declared indexes exist on every collection and returns a per-collection report of
+     * created, drifted and undeclared indexes.
+     */
+    public Future<JsonObject> ensureIndexes() {
+        JsonObject report = new JsonObject();
+        Future<Void> chain = Future.succeededFuture();
+        for (Map.Entry<String, MongoClient> cluster : router.clusters().entrySet()) {
+            for (MongoRepository repository : repositoriesOn(cluster.getKey())) {
+                chain = chain.compose(v -> ensureCollection(cluster.getValue(), repository.getCollectionName(),
+                        repository.indexes()).map(collectionReport -> {
+                            report.put(reportKey(cluster.getKey(), repository), collectionReport);
+                            return null;
+                        }));
+            }
+        }
+        return chain.map(v -> report);
+    }
+
+    /**
+     * Creates the declared unique indexes that are missing, on every cluster, and fails if one cannot be
+     * created (typically because duplicates already exist) or exists with a different definition, such
+     * as without {@code unique}. Either has to be fixed by hand: remove the duplicates, drop the index if
+     * it exists, and restart.
+     */
+    public Future<Void> ensureUniqueIndexes() {
+        List<String> problems = new ArrayList<>();
+        Future<Void> chain = Future.succeededFuture();
+        for (Map.Entry<String, MongoClient> cluster : router.clusters().entrySet()) {
+            for (MongoRepository repository : repositoriesOn(cluster.getKey())) {
+                List<IndexSpec> unique = repository.indexes().stream().filter(IndexSpec::isUnique).toList();
+                if (unique.isEmpty()) {
+                    continue;
+                }
+                String collection = reportKey(cluster.getKey(), repository);
+                chain = chain.compose(v -> ensureUnique(cluster.getValue(), repository.getCollectionName(), unique)
+                        .map(failed -> {
+                            failed.forEach(problem -> problems.add(collection + "." + problem));
+                            return null;
+                        }));
+            }
+        }
+        return chain.compose(v -> problems.isEmpty()
+                ? Future.succeededFuture()
+                : Future.failedFuture(new IllegalStateException("Unique indexes not in place: " + problems)));
+    }
+
+    /**
+     * Completes with a description of each of {@code unique} that is not in place.
+     */
+    private Future<List<String>> ensureUnique(MongoClient mongoClient, String collection, List<IndexSpec> unique) {
+        return listIndexes(mongoClient, collection).compose(existing -> {
+            Map<String, JsonObject> byName = new HashMap<>();
+            for (int i = 0; i < existing.size(); i++) {
+                JsonObject index = existing.getJsonObject(i);
+                byName.put(index.getString("name"), index);
+            }
+            List<Future<String>> checks = new ArrayList<>();
+            for (IndexSpec spec : unique) {
+                JsonObject current = byName.get(spec.getName());
+                if (current == null) {
+                    logger.info("Creating unique index {}.{}", collection, spec.getName());
+                    checks.add(mongoClient.createIndexWithOptions(collection, spec.getKeys(), spec.toOptions())
+                            .map((String) null)
+                            .recover(err -> {
+                                logger.error("Failed to create unique index {}.{}: {}",
+                                        collection, spec.getName(), err.getMessage());
+                                return Future.succeededFuture(spec.getName() + " (could not be created: "
+                                        + err.getMessage() + ")");
+                            }));
+                } else if (!spec.matches(current)) {
+                    logger.error("Unique index {}.{} exists with a different definition: {}",
+                            collection, spec.getName(), current.encode());
+                    checks.add(Future.succeededFuture(spec.getName() + " (exists with a different definition)"));
+                }
+            }
+            return Future.all(checks).map(all -> all.<String>list().stream().filter(Objects::nonNull).toList());
+        });
+    }
+
+    private Future<JsonObject> ensureCollection(MongoClient mongoClient, String collection, List<IndexSpec> declared) {
+        return listIndexes(mongoClient, collection).compose(existing -> {
+            Map<String, JsonObject> byName = new HashMap<>();
+            for (int i = 0; i < existing.size(); i++) {
+                JsonObject index = existing.getJsonObject(i);
+                byName.put(index.getString("name"), index);
+            }
+
+            JsonArray created = new JsonArray();
+            JsonArray updated = new JsonArray();
+            JsonArray drifted = new JsonArray();
+            List<Future<Void>> creations = new ArrayList<>();
+            for (IndexSpec spec : declared) {
+                JsonObject current = byName.remove(spec.getName());
+                if (current == null) {
+                    created.add(spec.getName());
+                    creations.add(mongoClient.createIndexWithOptions(collection, spec.getKeys(), spec.toOptions())
+                            .onFailure(err -> logger.error("Failed to create index {}.{}: {}",
+                                    collection, spec.getName(), err.getMessage())));
+                } else if (spec.getExpireAfterSeconds() != null && current.containsKey("expireAfterSeconds")
+                        && spec.matchesIgnoringExpiry(current) && !spec.matches(current)) {
+                    updated.add(spec.getName());
+                    creations.add(updateExpiry(mongoClient, collection, spec));
+                } else if (!spec.matches(current)) {
+                    drifted.add(new JsonObject()
+                            .put("name", spec.getName())
+                            .put("expected", spec.getKeys())
+                            .put("actual", current.getJsonObject("key")));
+                    logger.warn("Index drift on {}.{}: expected {} (unique={}, partial={}), found {}",
+                            collection, spec.getName(), spec.getKeys().encode(), spec.isUnique(),
+                            spec.getPartialFilter(), current.encode());
+                }
+            }
+
+            byName.remove(ID_INDEX);
+            JsonArray undeclared = new JsonArray();
+            byName.keySet().forEach(name -> {
+                undeclared.add(name);
+                logger.warn("Undeclared index on {}: {}", collection, name);
+            });
+
+            if (!created.isEmpty()) {
+                logger.info("Creating indexes on {}: {}", collection, created.encode());
+            }
+
+            return Future.join(creations).transform(ar -> Future.succeededFuture(new JsonObject()
+                    .put("created", created)
+                    .put("updated", updated)
+                    .put("drifted", drifted)
+                    .put("undeclared", undeclared)
+                    .put("failed", !ar.succeeded())));
+        });
+    }
+
+    private Future<Void> updateExpiry(MongoClient mongoClient, String collection, IndexSpec spec) {
+        logger.info("Changing expiry of {}.{} to {}s", collection, spec.getName(), spec.getExpireAfterSeconds());
+        JsonObject command = new JsonObject()
+                .put("collMod", collection)
+                .put("index", new JsonObject()
+                        .put("name", spec.getName())
+                        .put("expireAfterSeconds", spec.getExpireAfterSeconds()));
+        return mongoClient.runCommand("collMod", command)
+                .onFailure(err -> logger.error("Failed to change expiry of {}.{}: {}",
+                        collection, spec.getName(), err.getMessage()))
+                .mapEmpty();
+    }
+
+    /**
+     * Reports, per collection, declared indexes that do not exist, existing indexes with no recorded
+     * use, and each index's access count from {@code $indexStats}. Counters are per mongod and reset on
+     * restart, so "unused" is only meaningful relative to each entry's {@code since}.
+     */
+    public Future<JsonObject> usageReport() {
+        JsonObject report = new JsonObject();
+        Future<Void> chain = Future.succeededFuture();
+        for (Map.Entry<String, MongoClient> cluster : router.clusters().entrySet()) {
+            for (MongoRepository repository : repositoriesOn(cluster.getKey())) {
+                chain = chain.compose(v -> collectionUsage(cluster.getValue(), repository.getCollectionName(),
+                        repository.indexes()).map(collectionReport -> {
+                            report.put(reportKey(cluster.getKey(), repository), collectionReport);
+                            return null;
+                        }));
+            }
+        }
+        return chain.map(v -> report);
+    }
+
+    private List<MongoRepository> repositoriesOn(String cluster) {
+        if (TenantRouter.DEFAULT_CLUSTER.equals(cluster)) {
+            return repositories;
+        }
+        return repositories.stream().filter(MongoRepository::isTenantScoped).toList();
+    }
+
+    private static String reportKey(String cluster, MongoRepository repository) {
+        return TenantRouter.DEFAULT_CLUSTER.equals(cluster)
+                ? repository.getCollectionName()
+                : cluster + "/" + repository.getCollectionName();
+    }
+
+    private Future<JsonObject> collectionUsage(MongoClient mongoClient, String collection, List<IndexSpec> declared) {
+        return indexStats(mongoClient, collection).map(stats -> {
+            Set<String> existing = new HashSet<>();
+            JsonArray unused = new JsonArray();
+            JsonArray indexes = new JsonArray();
+            for (JsonObject stat : stats) {
+                String name = stat.getString("name");
+                JsonObject accesses = stat.getJsonObject("accesses", new JsonObject());
+                long ops = accesses.getLong("ops", 0L);
+                existing.add(name);
+                indexes.add(new JsonObject()
+                        .put("name", name)
+                        .put("ops", ops)
+                        .put("since", accesses.getValue("since")));
+                if (ops == 0 && !ID_INDEX.equals(name)) {
+                    unused.add(name);
+                }
+            }
+
+            JsonArray missing = new JsonArray();
+            JsonArray undeclared = new JsonArray();
+            declared.stream()
+                    .map(IndexSpec::getName)
+                    .filter(name -> !existing.contains(name))
+                    .forEach(missing::add);
+            Set<String> declaredNames = new HashSet<>();
+            declared.forEach(spec -> declaredNames.add(spec.getName()));
+            existing.stream()
+                    .filter(name -> !ID_INDEX.equals(name) && !declaredNames.contains(name))
+                    .sorted()
+                    .forEach(undeclared::add);
+
+            return new JsonObject()
+                    .put("missing", missing)
+                    .put("unused", unused)
+                    .put("undeclared", undeclared)
+                    .put("indexes", indexes);
+        });
+    }
+
+    private Future<List<JsonObject>> indexStats(MongoClient mongoClient, String collection) {
+        Promise<List<JsonObject>> promise = Promise.promise();
+        List<JsonObject> results = new ArrayList<>();
+        JsonArray pipeline = new JsonArray().add(new JsonObject().put("$indexStats", new JsonObject()));
+
+        mongoClient.aggregate(collection, pipeline)
+                .handler(results::add)
+                .endHandler(v -> promise.complete(results))
+                .exceptionHandler(promise::fail);
+
+        return promise.future();
+    }
+
+    private Future<JsonArray> listIndexes(MongoClient mongoClient, String collection) {
+        // listIndexes fails with NamespaceNotFound before the collection's first write
+        return mongoClient.listIndexes(collection).recover(err -> Future.succeededFuture(new JsonArray()));
+    }
+}
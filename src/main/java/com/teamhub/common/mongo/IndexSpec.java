@@ -0,0 +1,146 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.IndexOptions;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Declaration of an index a repository's queries rely on. Repositories list these next to the
+ * queries that use them; {@link IndexManager} creates missing ones at startup and reports drift.
+ */
+public final class IndexSpec {
+
+    /**
+     * Partial filter shared by every index that only serves soft-delete-aware queries.
+     */
+    public static final JsonObject NOT_DELETED = new JsonObject().put("deletedAt", (Object) null);
+
+    /**
+     * Partial filter matching only tombstones, i.e. documents whose {@code deletedAt} is a date.
+     */
+    public static final JsonObject DELETED = new JsonObject()
+            .put("deletedAt", new JsonObject().put("$type", "date"));
+
+    private final String name;
+    private final JsonObject keys;
+    private final boolean unique;
+    private final JsonObject partialFilter;
+    private final Long expireAfterSeconds;
+
+    private IndexSpec(String name, JsonObject keys, boolean unique, JsonObject partialFilter,
+                      Long expireAfterSeconds) {
+        this.name = name;
+        this.keys = keys;
+        this.unique = unique;
+        this.partialFilter = partialFilter;
+        this.expireAfterSeconds = expireAfterSeconds;
+    }
+
+    public static IndexSpec of(String name, JsonObject keys) {
+        return new IndexSpec(name, keys, false, null, null);
+    }
+
+    public IndexSpec unique() {
+        return new IndexSpec(name, keys, true, partialFilter, expireAfterSeconds);
+    }
+
+    /**
+     * Only index documents matching the filter. Queries must include the same predicate to use it.
+     */
+    public IndexSpec partial(JsonObject filter) {
+        return new IndexSpec(name, keys, unique, filter, expireAfterSeconds);
+    }
+
+    public IndexSpec notDeleted() {
+        return partial(NOT_DELETED);
+    }
+
+    /**
+     * Makes this a TTL index: Mongo deletes documents once the indexed date is {@code seconds} old.
+     * The key must be a single date field.
+     */
+    public IndexSpec expireAfter(long seconds) {
+        return new IndexSpec(name, keys, unique, partialFilter, seconds);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public JsonObject getKeys() {
+        return keys;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public JsonObject getPartialFilter() {
+        return partialFilter;
+    }
+
+    public Long getExpireAfterSeconds() {
+        return expireAfterSeconds;
+    }
+
+    public IndexOptions toOptions() {
+        IndexOptions options = new IndexOptions()
+                .name(name)
+                .unique(unique);
+        if (partialFilter != null) {
+            options.partialFilterExpression(partialFilter);
+        }
+        if (expireAfterSeconds != null) {
+            options.expireAfter(expireAfterSeconds, TimeUnit.SECONDS);
+        }
+        return options;
+    }
+
+    /**
+     * Compares against an entry from {@code listIndexes}. Key order is significant.
+     */
+    public boolean matches(JsonObject existing) {
+        return matchesIgnoringExpiry(existing) && sameExpiry(existing);
+    }
+
+    /**
+     * Same as {@link #matches}, but ignores the TTL, which can be changed in place with {@code collMod}.
+     */
+    public boolean matchesIgnoringExpiry(JsonObject existing) {
+        JsonObject existingKeys = existing.getJsonObject("key", new JsonObject());
+        if (!sameKeys(keys, existingKeys)) {
+            return false;
+        }
+        if (unique != existing.getBoolean("unique", false)) {
+            return false;
+        }
+        JsonObject existingFilter = existing.getJsonObject("partialFilterExpression");
+        return partialFilter == null ? existingFilter == null : partialFilter.equals(existingFilter);
+    }
+
+    private boolean sameExpiry(JsonObject existing) {
+        Long existingExpiry = existing.getLong("expireAfterSeconds");
+        return Objects.equals(expireAfterSeconds, existingExpiry);
+    }
+
+    private static boolean sameKeys(JsonObject expected, JsonObject actual) {
+        if (!expected.fieldNames().stream().toList().equals(actual.fieldNames().stream().toList())) {
+            return false;
+        }
+        for (String field : expected.fieldNames()) {
+            Object a = expected.getValue(field);
+            Object b = actual.getValue(field);
+            // listIndexes may report numeric directions as doubles
+            if (a instanceof Number na && b instanceof Number nb) {
+                if (na.intValue() != nb.intValue()) {
+                    return false;
+                }
+            } else if (a == null ? b != null : !a.equals(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A sort on one field with {@code _id} as a tiebreaker, so ordering is total and keyset-resumable.
+ * Repositories keep these as constants; the sort document is built once and shared by every query.
+ */
+public final class KeysetSort {
+
+    private final String field;
+    private final int direction;
+    private final JsonObject spec;
+
+    private KeysetSort(String field, int direction) {
+        this.field = field;
+        this.direction = direction;
+        JsonObject spec = new JsonObject().put(field, direction);
+        if (!"_id".equals(field)) {
+            spec.put("_id", direction);
+        }
+        this.spec = spec;
+    }
+
+    public static KeysetSort of(String field, int direction) {
+        return new KeysetSort(field, direction);
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public int direction() {
+        return direction;
+    }
+
+    /**
+     * The sort document. Shared: never modify it.
+     */
+    public JsonObject spec() {
+        return spec;
+    }
+}
@@ -0,0 +1,97 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.config.AppConfig;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Conversion between the ISO-8601 strings the API speaks and the BSON dates stored in Mongo.
+ *
+ * The Vert.x Mongo client writes {@code {"$date": "<ISO-8601>"}} as a BSON date and reads BSON dates
+ * back in the same shape. Documents written before timestamps were stored as dates still hold plain
+ * strings, so every read accepts both.
+ */
+public final class MongoDates {
+
+    private static final CoarseClock CLOCK = new CoarseClock(AppConfig.TIMESTAMP_RESOLUTION_MS);
+
+    private MongoDates() {
+        // Utility class
+    }
+
+    /**
+     * The current time as a BSON date, from the shared coarse clock.
+     */
+    public static JsonObject now() {
+        return new JsonObject().put("$date", CLOCK.iso());
+    }
+
+    public static JsonObject toBson(Instant instant) {
+        return instant == null ? null : new JsonObject().put("$date", instant.toString());
+    }
+
+    /**
+     * Parses an API date into a BSON date. Accepts an instant or offset date-time, or a calendar date,
+     * which is taken as midnight UTC. Null and blank give null.
+     */
+    public static JsonObject parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return toBson(parseInstant(value));
+    }
+
+    public static Instant parseInstant(String value) {
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR, "Invalid date: " + value);
+        }
+    }
+
+    /**
+     * Renders a stored timestamp (BSON date, legacy ISO string, or null) in the API's ISO-8601 form.
+     */
+    public static String toIso(Object stored) {
+        Instant instant = toInstant(stored);
+        return instant == null ? (stored instanceof String s ? s : null) : instant.toString();
+    }
+
+    /**
+     * Renders a stored calendar date. Values at midnight UTC, which is how date-only input is stored,
+     * come back as {@code yyyy-MM-dd}; anything else as a full instant.
+     */
+    public static String toIsoDate(Object stored) {
+        Instant instant = toInstant(stored);
+        if (instant == null) {
+            return stored instanceof String s ? s : null;
+        }
+        if (instant.getEpochSecond() % 86_400 == 0 && instant.getNano() == 0) {
+            return LocalDate.ofInstant(instant, ZoneOffset.UTC).toString();
+        }
+        return instant.toString();
+    }
+
+    private static Instant toInstant(Object stored) {
+        if (stored instanceof JsonObject json && json.containsKey("$date")) {
+            Object date = json.getValue("$date");
+            if (date instanceof Number millis) {
+                return Instant.ofEpochMilli(millis.longValue());
+            }
+            if (date instanceof String iso) {
+                return OffsetDateTime.parse(iso).toInstant();
+            }
+        }
+        return null;
+    }
+}
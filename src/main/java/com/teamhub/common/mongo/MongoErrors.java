@@ -0,0 +1,24 @@
+package com.teamhub.common.mongo;
+
+import com.mongodb.MongoException;
+
+public final class MongoErrors {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private MongoErrors() {
+        // Utility class
+    }
+
+    /**
+     * True if the failure is a unique index violation, however the driver wrapped it.
+     */
+    public static boolean isDuplicateKey(Throwable err) {
+        for (Throwable t = err; t != null; t = t.getCause()) {
+            if (t instanceof MongoException mongo && mongo.getCode() == DUPLICATE_KEY) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a Mongo filter in place. Each query owns a single {@link JsonObject} that the soft-delete
+ * predicate, the repository's conditions and (for keyset pages) the seek clause are all written into,
+ * so the filter handed to the driver is never copied on the way down.
+ *
+ * A query is single-use: {@link MongoRepository} may add to it, so build a fresh one per call.
+ */
+public final class MongoQuery {
+
+    private static final String DELETED_AT = "deletedAt";
+
+    private final JsonObject filter = new JsonObject();
+
+    private MongoQuery() {
+    }
+
+    /**
+     * Matches documents that are not soft-deleted.
+     */
+    public static MongoQuery live() {
+        MongoQuery query = new MongoQuery();
+        query.filter.put(DELETED_AT, (Object) null);
+        return query;
+    }
+
+    /**
+     * Matches documents whether or not they are soft-deleted.
+     */
+    public static MongoQuery anyState() {
+        return new MongoQuery();
+    }
+
+    public static MongoQuery byId(String id) {
+        return live().eq("_id", id);
+    }
+
+    public MongoQuery eq(String field, Object value) {
+        filter.put(field, value);
+        return this;
+    }
+
+    public MongoQuery in(String field, List<?> values) {
+        filter.put(field, new JsonObject().put("$in", values));
+        return this;
+    }
+
+    public MongoQuery gt(String field, Object value) {
+        filter.put(field, new JsonObject().put("$gt", value));
+        return this;
+    }
+
+    public MongoQuery gte(String field, Object value) {
+        filter.put(field, new JsonObject().put("$gte", value));
+        return this;
+    }
+
+    /**
+     * Inclusive range on {@code field}.
+     */
+    public MongoQuery between(String field, Object from, Object to) {
+        filter.put(field, new JsonObject().put("$gte", from).put("$lte", to));
+        return this;
+    }
+
+    /**
+     * Case-insensitive regex match.
+     */
+    public MongoQuery matchesIgnoreCase(String field, String pattern) {
+        filter.put(field, new JsonObject().put("$regex", pattern).put("$options", "i"));
+        return this;
+    }
+
+    /**
+     * Adds every condition of {@code predicate}, which is read but not modified.
+     */
+    public MongoQuery all(JsonObject predicate) {
+        filter.getMap().putAll(predicate.getMap());
+        return this;
+    }
+
+    /**
+     * Adds {@code condition} on {@code field}, ANDed with any condition the field already has rather
+     * than replacing it (as {@link #eq} would).
+     */
+    public MongoQuery and(String field, Object condition) {
+        if (!filter.containsKey(field)) {
+            filter.put(field, condition);
+            return this;
+        }
+        Object existing = filter.remove(field);
+        addAnd(new JsonObject().put(field, existing));
+        addAnd(new JsonObject().put(field, condition));
+        return this;
+    }
+
+    /**
+     * Requires one of {@code clauses} to match. A second call is ANDed with the first rather than
+     * replacing it.
+     */
+    public MongoQuery or(JsonArray clauses) {
+        Object existing = filter.remove("$or");
+        if (existing == null) {
+            filter.put("$or", clauses);
+        } else {
+            addAnd(new JsonObject().put("$or", existing));
+            addAnd(new JsonObject().put("$or", clauses));
+        }
+        return this;
+    }
+
+    // A fresh array each time, since an existing one may belong to a predicate given to all()
+    private void addAnd(JsonObject clause) {
+        JsonArray existing = filter.getJsonArray("$and");
+        List<Object> clauses = existing == null ? new ArrayList<>() : new ArrayList<>(existing.getList());
+        clauses.add(clause);
+        filter.put("$and", new JsonArray(clauses));
+    }
+
+    /**
+     * The filter document itself, not a copy.
+     */
+    public JsonObject toJson() {
+        return filter;
+    }
+}
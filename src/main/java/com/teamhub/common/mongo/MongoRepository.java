@@ -1,69 +1,422 @@
 package com.teamhub.common.mongo;
 
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.config.AppConfig;
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
 
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public abstract class MongoRepository {
 
+    /**
+     * Incremented by every update. Documents that predate it have no such field, which counts as 0.
+     */
+    public static final String VERSION_FIELD = "version";
+
+    /**
+     * Newest first, by creation time. Not by {@code _id} alone, although new IDs are time-ordered:
+     * documents created before that keep IDs such as {@code task_001}, which sort above every
+     * generated one.
+     */
+    protected static final KeysetSort NEWEST = KeysetSort.of("createdAt", -1);
+
+    /**
+     * The default cluster's client, for collections that are not partitioned by tenant. Tenant-scoped
+     * repositories resolve theirs per call with {@link #client} and {@link #writeClient}.
+     */
     protected final MongoClient mongoClient;
+    protected final TenantRouter router;
     protected final String collectionName;
+    private final IdGenerator idGenerator;
 
     protected MongoRepository(MongoClient mongoClient, String collectionName) {
-        this.mongoClient = mongoClient;
+        this(TenantRouter.single(mongoClient), collectionName);
+    }
+
+    protected MongoRepository(TenantRouter router, String collectionName) {
+        this(router, collectionName, TimeOrderedIdGenerator.instance());
+    }
+
+    protected MongoRepository(TenantRouter router, String collectionName, IdGenerator idGenerator) {
+        this.router = router;
+        this.mongoClient = router.defaultClient();
         this.collectionName = collectionName;
+        this.idGenerator = idGenerator;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    /**
+     * Indexes this repository's queries depend on. Declared next to the queries that use them and
+     * created at startup by {@link IndexManager}.
+     */
+    public List<IndexSpec> indexes() {
+        return List.of();
+    }
+
+    /**
+     * TTL index that hard-deletes soft-deleted documents {@link AppConfig#SOFT_DELETE_RETENTION_DAYS}
+     * after their deletion. It only holds tombstones, so live documents never enter it. Repositories
+     * whose tombstones nothing refers to once retention has passed list it in {@link #indexes()}.
+     */
+    protected IndexSpec deletedExpiry() {
+        return IndexSpec.of(collectionName + "_deleted_ttl", new JsonObject().put("deletedAt", 1))
+                .partial(IndexSpec.DELETED)
+                .expireAfter(TimeUnit.DAYS.toSeconds(AppConfig.SOFT_DELETE_RETENTION_DAYS));
+    }
+
+    /**
+     * Fields stored as BSON dates. {@link com.teamhub.migrations.DateFieldMigration} converts legacy string values of these.
+     */
+    public List<String> dateFields() {
+        return List.of("createdAt", "updatedAt", "deletedAt");
+    }
+
+    /**
+     * Field holding the owning tenant's ID, which new IDs are tagged with; null if documents have none.
+     */
+    protected String tenantField() {
+        return null;
+    }
+
+    /**
+     * Whether documents belong to an organization, and so live on whichever cluster {@link TenantRouter}
+     * assigns it. Other collections always live on the default cluster.
+     */
+    public boolean isTenantScoped() {
+        return tenantField() != null;
+    }
+
+    /**
+     * The client holding the organization's documents. {@code organizationId} is ignored for
+     * collections that are not tenant-scoped, and required for those that are.
+     */
+    protected Future<MongoClient> client(String organizationId) {
+        return isTenantScoped() ? router.client(organizationId) : Future.succeededFuture(mongoClient);
+    }
+
+    /**
+     * Same as {@link #client}, but fails while the organization is being moved to another cluster.
+     */
+    protected Future<MongoClient> writeClient(String organizationId) {
+        return isTenantScoped() ? router.writeClient(organizationId) : Future.succeededFuture(mongoClient);
+    }
+
+    /**
+     * Same as {@link #client}, but for reporting reads that may lag writes; see
+     * {@link TenantRouter#analyticsClient}. Non-tenant collections are read from the primary as usual.
+     */
+    protected Future<MongoClient> analyticsClient(String organizationId) {
+        return isTenantScoped() ? router.analyticsClient(organizationId) : Future.succeededFuture(mongoClient);
     }
 
     /**
-     * Adds the soft-delete filter to any query: only return documents where deletedAt is null.
+     * A new {@code _id} for a document of {@code tenant}, for writes that build documents themselves
+     * (e.g. upserts) instead of going through {@link #insert}.
      */
-    protected JsonObject withNotDeleted(JsonObject query) {
-        return query.copy().put("deletedAt", (Object) null);
+    protected String nextId(String tenant) {
+        return idGenerator.nextId(tenant);
+    }
+
+    /**
+     * Batches {@link #updateCoalesced} writes; null (the default) sends each on its own.
+     */
+    protected WriteCoalescer coalescer() {
+        return null;
+    }
+
+    /**
+     * Message for the CONFLICT error raised when a write violates one of this repository's unique indexes.
+     */
+    protected String duplicateKeyMessage() {
+        return "Resource already exists";
     }
 
     public Future<JsonObject> findById(String id) {
-        JsonObject query = withNotDeleted(new JsonObject().put("_id", id));
-        return mongoClient.findOne(collectionName, query, null);
+        return findById(id, FieldSet.ALL);
+    }
+
+    public Future<JsonObject> findById(String id, FieldSet fields) {
+        return findById(id, null, fields);
+    }
+
+    public Future<JsonObject> findById(String id, String organizationId) {
+        return findById(id, organizationId, FieldSet.ALL);
+    }
+
+    /**
+     * Reads the document from the organization's cluster. The organization only routes the read; it
+     * is not part of the filter, so callers still check ownership.
+     */
+    public Future<JsonObject> findById(String id, String organizationId, FieldSet fields) {
+        return client(organizationId).compose(client ->
+                client.findOne(collectionName, MongoQuery.byId(id).toJson(), fields.projection()));
     }
 
-    public Future<List<JsonObject>> findAll(JsonObject query, JsonObject sort, int skip, int limit) {
-        JsonObject safeQuery = withNotDeleted(query);
+    /**
+     * Fetches several documents in one {@code $in} query. The result lines up with {@code ids}: one entry
+     * per ID, in the same order, null where the document is missing or soft-deleted. Prefer
+     * {@link DataLoader} when the IDs are gathered from several places while serving a request.
+     */
+    public Future<List<JsonObject>> findByIds(List<String> ids, String organizationId) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+        MongoQuery query = MongoQuery.live().in("_id", ids.stream().distinct().toList());
+        return client(organizationId).compose(client -> client.find(collectionName, query.toJson())).map(docs -> {
+            Map<String, JsonObject> byId = new HashMap<>();
+            for (JsonObject doc : docs) {
+                byId.put(doc.getString("_id"), doc);
+            }
+            List<JsonObject> ordered = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                ordered.add(byId.get(id));
+            }
+            return ordered;
+        });
+    }
+
+    /**
+     * Runs {@code query} on the organization's cluster; {@code organizationId} may be null for
+     * collections that are not tenant-scoped.
+     */
+    public Future<List<JsonObject>> findAll(String organizationId, MongoQuery query, JsonObject sort, int skip,
+                                            int limit) {
+        return findAll(organizationId, query, sort, skip, limit, null);
+    }
+
+    /**
+     * Same as {@link #findAll(String, MongoQuery, JsonObject, int, int)} but forces the named index, for
+     * query shapes where several declared indexes share a prefix and the planner may pick the wrong one.
+     */
+    public Future<List<JsonObject>> findAll(String organizationId, MongoQuery query, JsonObject sort, int skip,
+                                            int limit, String hint) {
+        return findAll(organizationId, query, sort, skip, limit, hint, FieldSet.ALL);
+    }
+
+    public Future<List<JsonObject>> findAll(String organizationId, MongoQuery query, JsonObject sort, int skip,
+                                            int limit, String hint, FieldSet fields) {
         FindOptions options = new FindOptions()
                 .setSort(sort)
                 .setSkip(skip)
                 .setLimit(limit);
-        return mongoClient.findWithOptions(collectionName, safeQuery, options);
+        JsonObject projection = fields.projection();
+        if (projection != null) {
+            options.setFields(projection);
+        }
+        if (hint != null) {
+            options.setHintString(hint);
+        }
+        return client(organizationId).compose(client ->
+                client.findWithOptions(collectionName, query.toJson(), options));
+    }
+
+    /**
+     * Keyset (seek) pagination: returns up to {@code limit} documents in {@code sort} order that come
+     * strictly after {@code after}, or the first page when it is null. Unlike skip-based paging, cost
+     * does not grow with depth and pages stay stable under inserts.
+     */
+    public Future<KeysetPage<JsonObject>> findAfter(String organizationId, MongoQuery query, KeysetSort sort,
+                                                    PageCursor after, int limit) {
+        return findAfter(organizationId, query, sort, after, limit, null);
     }
 
-    public Future<Long> count(JsonObject query) {
-        JsonObject safeQuery = withNotDeleted(query);
-        return mongoClient.count(collectionName, safeQuery);
+    public Future<KeysetPage<JsonObject>> findAfter(String organizationId, MongoQuery query, KeysetSort sort,
+                                                    PageCursor after, int limit, String hint) {
+        return findAfter(organizationId, query, sort, after, limit, hint, FieldSet.ALL);
     }
 
+    /**
+     * Same as {@link #findAfter(String, MongoQuery, KeysetSort, PageCursor, int, String)}, reading only
+     * {@code fields} (plus the sort field, which the next cursor is built from).
+     */
+    public Future<KeysetPage<JsonObject>> findAfter(String organizationId, MongoQuery query, KeysetSort sort,
+                                                    PageCursor after, int limit, String hint, FieldSet fields) {
+        String sortField = sort.field();
+        if (after != null) {
+            if (!sortField.equals(after.getSortField())) {
+                return Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST,
+                        "Pagination cursor does not match this listing"));
+            }
+            String op = sort.direction() < 0 ? "$lt" : "$gt";
+            if (sortField.equals("_id")) {
+                // ANDed, so a filter on _id (e.g. findByIds' $in) still applies
+                query.and("_id", new JsonObject().put(op, after.getId()));
+            } else {
+                query.or(new JsonArray()
+                        .add(new JsonObject().put(sortField, new JsonObject().put(op, after.getSortValue())))
+                        .add(new JsonObject()
+                                .put(sortField, after.getSortValue())
+                                .put("_id", new JsonObject().put(op, after.getId()))));
+            }
+        }
+
+        FindOptions options = new FindOptions()
+                .setSort(sort.spec())
+                .setLimit(limit + 1);
+        JsonObject projection = (sortField.equals("_id") ? fields : fields.with(sortField)).projection();
+        if (projection != null) {
+            options.setFields(projection);
+        }
+        if (hint != null) {
+            options.setHintString(hint);
+        }
+        return client(organizationId).compose(client ->
+                client.findWithOptions(collectionName, query.toJson(), options)).map(docs -> {
+            if (docs.size() <= limit) {
+                return new KeysetPage<>(docs, null);
+            }
+            List<JsonObject> page = docs.subList(0, limit);
+            return new KeysetPage<>(page, PageCursor.after(page.get(limit - 1), sortField).encode());
+        });
+    }
+
+    public Future<Long> count(String organizationId, MongoQuery query) {
+        return client(organizationId).compose(client -> client.count(collectionName, query.toJson()));
+    }
+
+    /**
+     * Same as {@link #count}, but read through the analytics client, so the result may lag recent writes.
+     * For figures that are only displayed; never for limit checks or counter corrections.
+     */
+    public Future<Long> countFromSecondary(String organizationId, MongoQuery query) {
+        return analyticsClient(organizationId).compose(client -> client.count(collectionName, query.toJson()));
+    }
+
+    /**
+     * Inserts the document, generating its {@code _id} unless it already has one, and completes with the ID.
+     * Tenant-scoped documents go to the cluster of the organization in their {@link #tenantField}.
+     */
     public Future<String> insert(JsonObject document) {
-        document.put("createdAt", Instant.now().toString());
-        document.put("updatedAt", Instant.now().toString());
+        JsonObject now = MongoDates.now();
+        document.put("createdAt", now);
+        document.put("updatedAt", now.copy());
         document.put("deletedAt", (Object) null);
-        return mongoClient.insert(collectionName, document);
+        String tenant = isTenantScoped() ? document.getString(tenantField()) : null;
+        String id = document.getString("_id");
+        if (id == null) {
+            id = idGenerator.nextId(tenant);
+            document.put("_id", id);
+        }
+        String insertedId = id;
+        return writeClient(tenant)
+                .compose(client -> client.insert(collectionName, document))
+                .map(generated -> insertedId)
+                .recover(this::translateDuplicateKey);
     }
 
     public Future<Void> update(String id, JsonObject update) {
-        JsonObject query = withNotDeleted(new JsonObject().put("_id", id));
-        JsonObject updateDoc = new JsonObject().put("$set",
-                update.copy().put("updatedAt", Instant.now().toString()));
-        return mongoClient.updateCollection(collectionName, query, updateDoc)
-                .mapEmpty();
+        return update(id, null, update);
     }
 
-    public Future<Void> softDelete(String id) {
-        JsonObject query = new JsonObject().put("_id", id);
-        JsonObject update = new JsonObject().put("$set",
-                new JsonObject().put("deletedAt", Instant.now().toString()));
-        return mongoClient.updateCollection(collectionName, query, update)
+    public Future<Void> update(String id, String organizationId, JsonObject update) {
+        return writeClient(organizationId)
+                .compose(client -> client.updateCollection(collectionName, MongoQuery.byId(id).toJson(),
+                        versionedSet(update)))
+                .recover(this::translateDuplicateKey)
                 .mapEmpty();
     }
+
+    public Future<JsonObject> updateAndGet(String id, JsonObject predicate, JsonObject update, Long expectedVersion) {
+        return updateAndGet(id, null, predicate, update, expectedVersion);
+    }
+
+    /**
+     * Sets the given fields on a live document and returns the document as updated, in one round trip.
+     *
+     * {@code predicate} is added to the filter, so ownership and state checks (for example the owning
+     * organization) hold atomically with the write. When {@code expectedVersion} is non-null the write
+     * only applies if the stored version still equals it. Completes with null when nothing matched; the
+     * caller can then read the document to tell a missing, foreign or concurrently modified one apart.
+     */
+    public Future<JsonObject> updateAndGet(String id, String organizationId, JsonObject predicate, JsonObject update,
+                                           Long expectedVersion) {
+        return updateAndGet(id, organizationId, predicate, MongoUpdate.create().setAll(update), expectedVersion);
+    }
+
+    /**
+     * Same as {@link #updateAndGet(String, String, JsonObject, JsonObject, Long)}, for updates that do
+     * more than set fields (e.g. unset them or add to and remove from arrays).
+     */
+    public Future<JsonObject> updateAndGet(String id, String organizationId, JsonObject predicate, MongoUpdate update,
+                                           Long expectedVersion) {
+        MongoQuery query = updateFilter(id, predicate, expectedVersion);
+        return writeClient(organizationId)
+                .compose(client -> client.findOneAndUpdateWithOptions(collectionName, query.toJson(),
+                        versioned(update), new FindOptions(), new UpdateOptions().setReturningNewDocument(true)))
+                .recover(this::translateDuplicateKey);
+    }
+
+    /**
+     * Same as {@link #updateAndGet(String, String, JsonObject, JsonObject, Long)}, but completes with
+     * whether the update applied instead of the document. Repositories with a {@link #coalescer()} send
+     * it in a bulk write together with other updates queued around the same time.
+     */
+    public Future<Boolean> updateCoalesced(String id, String organizationId, JsonObject predicate, JsonObject update,
+                                           Long expectedVersion) {
+        JsonObject filter = updateFilter(id, predicate, expectedVersion).toJson();
+        WriteCoalescer coalescer = coalescer();
+        return writeClient(organizationId)
+                .compose(client -> coalescer != null
+                        ? coalescer.update(client, collectionName, id, filter, versionedSet(update))
+                        : client.updateCollection(collectionName, filter, versionedSet(update))
+                                .map(result -> result != null && result.getDocMatched() > 0))
+                .recover(this::translateDuplicateKey);
+    }
+
+    private static MongoQuery updateFilter(String id, JsonObject predicate, Long expectedVersion) {
+        MongoQuery query = MongoQuery.live().all(predicate).eq("_id", id);
+        if (expectedVersion != null) {
+            query.eq(VERSION_FIELD, expectedVersion == 0 ? null : expectedVersion);
+        }
+        return query;
+    }
+
+    /**
+     * Unique indexes, not prior reads, guard against duplicates; their violations surface as CONFLICT.
+     */
+    private <T> Future<T> translateDuplicateKey(Throwable err) {
+        if (MongoErrors.isDuplicateKey(err)) {
+            return Future.failedFuture(new AppException(ErrorCode.CONFLICT, duplicateKeyMessage()));
+        }
+        return Future.failedFuture(err);
+    }
+
+    private static JsonObject versionedSet(JsonObject update) {
+        return versioned(MongoUpdate.create().setAll(update));
+    }
+
+    private static JsonObject versioned(MongoUpdate update) {
+        return update
+                .set("updatedAt", MongoDates.now())
+                .incVersion()
+                .toJson();
+    }
+
+    public Future<Boolean> softDelete(String id) {
+        return softDelete(id, null);
+    }
+
+    /**
+     * Marks the document deleted. Completes with true only for the call that actually deleted it, so
+     * callers can release resources exactly once even when deletes race.
+     */
+    public Future<Boolean> softDelete(String id, String organizationId) {
+        JsonObject update = MongoUpdate.create().set("deletedAt", MongoDates.now()).toJson();
+        return writeClient(organizationId)
+                .compose(client -> client.updateCollection(collectionName, MongoQuery.byId(id).toJson(), update))
+                .map(result -> result != null && result.getDocModified() > 0);
+    }
 }
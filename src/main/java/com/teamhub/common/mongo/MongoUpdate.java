@@ -0,0 +1,134 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Builds a Mongo update document. Fields given to {@link #setAll} are copied shallowly into the
+ * {@code $set} stage rather than deep-copying the caller's document, and the common version bump is
+ * a shared fragment.
+ */
+public final class MongoUpdate {
+
+    // Shared across updates: never modified
+    private static final JsonObject INC_VERSION = new JsonObject().put(MongoRepository.VERSION_FIELD, 1);
+
+    private JsonObject set;
+    private JsonObject unset;
+    private JsonObject inc;
+    private JsonObject max;
+    private JsonObject addToSet;
+    private JsonObject pull;
+    private boolean incVersion;
+
+    private MongoUpdate() {
+    }
+
+    public static MongoUpdate create() {
+        return new MongoUpdate();
+    }
+
+    public MongoUpdate set(String field, Object value) {
+        if (set == null) {
+            set = new JsonObject();
+        }
+        set.put(field, value);
+        return this;
+    }
+
+    /**
+     * Sets every field of {@code fields}, which is read but not modified.
+     */
+    public MongoUpdate setAll(JsonObject fields) {
+        if (set == null) {
+            set = new JsonObject();
+        }
+        set.getMap().putAll(fields.getMap());
+        return this;
+    }
+
+    public MongoUpdate unset(String field) {
+        if (unset == null) {
+            unset = new JsonObject();
+        }
+        unset.put(field, "");
+        return this;
+    }
+
+    /**
+     * Adds each of {@code values} to the array {@code field} unless it already holds it.
+     */
+    public MongoUpdate addToSet(String field, JsonArray values) {
+        if (addToSet == null) {
+            addToSet = new JsonObject();
+        }
+        addToSet.put(field, new JsonObject().put("$each", values));
+        return this;
+    }
+
+    /**
+     * Removes every occurrence of each of {@code values} from the array {@code field}.
+     */
+    public MongoUpdate pull(String field, JsonArray values) {
+        if (pull == null) {
+            pull = new JsonObject();
+        }
+        pull.put(field, new JsonObject().put("$in", values));
+        return this;
+    }
+
+    public MongoUpdate inc(String field, long amount) {
+        if (inc == null) {
+            inc = new JsonObject();
+        }
+        inc.put(field, amount);
+        return this;
+    }
+
+    /**
+     * Raises {@code field} to {@code value}; leaves it alone if it is already at least that.
+     */
+    public MongoUpdate max(String field, Object value) {
+        if (max == null) {
+            max = new JsonObject();
+        }
+        max.put(field, value);
+        return this;
+    }
+
+    /**
+     * Increments {@link MongoRepository#VERSION_FIELD}.
+     */
+    public MongoUpdate incVersion() {
+        incVersion = true;
+        return this;
+    }
+
+    public JsonObject toJson() {
+        JsonObject update = new JsonObject();
+        if (set != null) {
+            update.put("$set", set);
+        }
+        if (unset != null) {
+            update.put("$unset", unset);
+        }
+        if (addToSet != null) {
+            update.put("$addToSet", addToSet);
+        }
+        if (pull != null) {
+            update.put("$pull", pull);
+        }
+        if (max != null) {
+            update.put("$max", max);
+        }
+        if (inc != null) {
+            if (incVersion) {
+                inc.put(MongoRepository.VERSION_FIELD, 1);
+            }
+            update.put("$inc", inc);
+        } else if (incVersion) {
+            update.put("$inc", INC_VERSION);
+        }
+        return update;
+    }
+}
@@ -0,0 +1,81 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor: the sort key and _id of the last document on the previous page.
+ * Clients only ever see the encoded form and pass it back unchanged.
+ */
+public final class PageCursor {
+
+    private final String sortField;
+    private final Object sortValue;
+    private final String id;
+
+    public PageCursor(String sortField, Object sortValue, String id) {
+        this.sortField = sortField;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * Build the cursor that resumes after the given document.
+     */
+    public static PageCursor after(JsonObject document, String sortField) {
+        return new PageCursor(sortField, document.getValue(sortField), document.getString("_id"));
+    }
+
+    public String getSortField() {
+        return sortField;
+    }
+
+    public Object getSortValue() {
+        return sortValue;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String encode() {
+        JsonObject json = new JsonObject()
+                .put("k", sortField)
+                .put("v", sortValue)
+                .put("id", id);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(json.encode().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String encoded) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(encoded);
+            JsonObject json = new JsonObject(new String(bytes, StandardCharsets.UTF_8));
+            String sortField = json.getString("k");
+            String id = json.getString("id");
+            Object sortValue = json.getValue("v");
+            if (sortField == null || id == null || !isSortValue(sortValue)) {
+                throw new AppException(ErrorCode.BAD_REQUEST, "Invalid pagination cursor");
+            }
+            return new PageCursor(sortField, sortValue, id);
+        } catch (IllegalArgumentException | DecodeException | ClassCastException e) {
+            throw new AppException(ErrorCode.BAD_REQUEST, "Invalid pagination cursor");
+        }
+    }
+
+    /**
+     * Whether {@code value} can be a document's sort key: a scalar or a date ({@code {"$date": "..."}}).
+     * The value is put into the seek filter as is, so anything else could smuggle in a query operator.
+     */
+    private static boolean isSortValue(Object value) {
+        if (value instanceof JsonObject date) {
+            return date.size() == 1 && date.getValue("$date") instanceof String;
+        }
+        return value == null || value instanceof String || value instanceof Number || value instanceof Boolean;
+    }
+}
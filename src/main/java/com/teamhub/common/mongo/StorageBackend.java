@@ -0,0 +1,43 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.mongo.memory.InMemoryMongoClient;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+
+/**
+ * Where the application's data lives. Repositories, {@link TenantRouter}, {@link IndexManager},
+ * {@link TenantMover} and the migrations only talk to {@link MongoClient}, so a backend is a factory
+ * for clients; {@link com.teamhub.config.AppConfig#STORAGE_BACKEND} picks one at startup.
+ */
+@FunctionalInterface
+public interface StorageBackend {
+
+    /**
+     * Mongo, through the Vert.x driver.
+     */
+    StorageBackend MONGO = MongoClient::createShared;
+
+    /**
+     * An in-process store (see {@link InMemoryMongoClient}) for benchmarks and tests. Data is lost when
+     * the JVM exits.
+     */
+    StorageBackend MEMORY = InMemoryMongoClient::createShared;
+
+    /**
+     * A client for the database {@code config} describes, with the same keys and pool sharing by
+     * {@code dataSourceName} as {@link MongoClient#createShared(Vertx, JsonObject, String)}.
+     */
+    MongoClient createClient(Vertx vertx, JsonObject config, String dataSourceName);
+
+    /**
+     * The backend called {@code name}: "mongo" or "memory".
+     */
+    static StorageBackend named(String name) {
+        return switch (name) {
+            case "mongo" -> MONGO;
+            case "memory" -> MEMORY;
+            default -> throw new IllegalArgumentException("Unknown storage backend: " + name);
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.config.AppConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves an organization's documents to another cluster with a batched copy and a cutover.
+ *
+ * The organization is first routed as {@link TenantRouter.State#MOVING}, so every node refuses its
+ * writes while reads carry on against the source. After waiting out the route cache TTL (for nodes
+ * that missed the invalidation broadcast), each tenant-scoped collection is copied in {@code _id}
+ * order, {@link AppConfig#TENANT_MOVE_BATCH_SIZE} documents at a time, soft-deleted ones included.
+ * The route is then pointed at the target and the source copies are deleted in batches. The
+ * organization cannot write for the duration of the copy.
+ *
+ * A failed copy routes the organization back to the source, which still holds everything; running
+ * the move again first clears whatever the failed attempt left on the target. Moves need every
+ * document to carry its organizationId, so they are refused while any does not.
+ */
+public class TenantMover {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantMover.class);
+
+    private static final JsonObject ID_ORDER = new JsonObject().put("_id", 1);
+    private static final JsonObject ID_ONLY = new JsonObject().put("_id", 1);
+
+    private final Vertx vertx;
+    private final TenantRouter router;
+    private final List<MongoRepository> repositories;
+    private final long drainMillis;
+
+    public TenantMover(Vertx vertx, TenantRouter router, List<MongoRepository> repositories) {
+        this(vertx, router, repositories, AppConfig.TENANT_ROUTE_CACHE_TTL_MS);
+    }
+
+    /**
+     * {@code drainMillis} is how long to wait between freezing writes and copying; it only needs to be
+     * shorter than the route cache TTL when every node is known to have received the invalidation.
+     */
+    public TenantMover(Vertx vertx, TenantRouter router, List<MongoRepository> repositories, long drainMillis) {
+        this.vertx = vertx;
+        this.router = router;
+        this.repositories = repositories.stream().filter(MongoRepository::isTenantScoped).toList();
+        this.drainMillis = drainMillis;
+    }
+
+    /**
+     * Moves the organization to {@code targetCluster}. Completes with the number of documents copied
+     * per collection, and whether the source copies were deleted.
+     */
+    public Future<JsonObject> move(String organizationId, String targetCluster) {
+        MongoClient target;
+        try {
+            target = router.cluster(targetCluster);
+        } catch (AppException e) {
+            return Future.failedFuture(e);
+        }
+        return router.clusterOf(organizationId).compose(sourceCluster -> {
+            if (sourceCluster.equals(targetCluster)) {
+                return Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST,
+                        "Organization is already on cluster " + targetCluster));
+            }
+            MongoClient source = router.cluster(sourceCluster);
+            logger.info("Moving organization {} from cluster {} to {}", organizationId, sourceCluster, targetCluster);
+            return checkStamped(source)
+                    .compose(v -> router.setRoute(organizationId, sourceCluster, TenantRouter.State.MOVING))
+                    .compose(v -> delay(drainMillis))
+                    .compose(v -> copyAll(organizationId, source, target))
+                    .compose(copied -> router.setRoute(organizationId, targetCluster, TenantRouter.State.ACTIVE)
+                            .map(copied))
+                    .recover(err -> {
+                        logger.error("Moving organization {} failed; routing it back to {}",
+                                organizationId, sourceCluster, err);
+                        return router.setRoute(organizationId, sourceCluster, TenantRouter.State.ACTIVE)
+                                .transform(ar -> Future.failedFuture(err));
+                    })
+                    .compose(copied -> deleteAll(organizationId, source)
+                            .map(v -> true)
+                            .otherwise(err -> {
+                                // The organization is already served from the target; leftovers only take space
+                                logger.warn("Organization {} moved, but its documents on {} were not all deleted",
+                                        organizationId, sourceCluster, err);
+                                return false;
+                            })
+                            .map(cleaned -> {
+                                logger.info("Moved organization {} to cluster {}: {}",
+                                        organizationId, targetCluster, copied.encode());
+                                return new JsonObject()
+                                        .put("cluster", targetCluster)
+                                        .put("copied", copied)
+                                        .put("sourceDeleted", cleaned);
+                            }));
+        });
+    }
+
+    /**
+     * Fails if any live document lacks its tenant field, since it would be left behind.
+     */
+    private Future<Void> checkStamped(MongoClient source) {
+        List<Future<Long>> counts = new ArrayList<>();
+        for (MongoRepository repository : repositories) {
+            counts.add(source.count(repository.getCollectionName(),
+                    MongoQuery.live().eq(repository.tenantField(), null).toJson()));
+        }
+        return Future.all(counts).compose(all -> {
+            for (int i = 0; i < repositories.size(); i++) {
+                long unstamped = counts.get(i).result();
+                if (unstamped > 0) {
+                    return Future.failedFuture(new AppException(ErrorCode.CONFLICT, unstamped + " documents in "
+                            + repositories.get(i).getCollectionName() + " have no "
+                            + repositories.get(i).tenantField() + " yet; retry once they are backfilled"));
+                }
+            }
+            return Future.succeededFuture();
+        });
+    }
+
+    private Future<JsonObject> copyAll(String organizationId, MongoClient source, MongoClient target) {
+        JsonObject copied = new JsonObject();
+        Future<Void> chain = Future.succeededFuture();
+        for (MongoRepository repository : repositories) {
+            String collection = repository.getCollectionName();
+            JsonObject owned = new JsonObject().put(repository.tenantField(), organizationId);
+            chain = chain
+                    .compose(v -> target.removeDocuments(collection, owned))
+                    .compose(v -> copy(source, target, collection, repository.tenantField(), organizationId, null, 0))
+                    .map(count -> {
+                        copied.put(collection, count);
+                        return null;
+                    });
+        }
+        return chain.map(v -> copied);
+    }
+
+    private Future<Long> copy(MongoClient source, MongoClient target, String collection, String tenantField,
+                              String organizationId, String lastId, long copied) {
+        return readBatch(source, collection, tenantField, organizationId, lastId, null).compose(docs -> {
+            if (docs.isEmpty()) {
+                return Future.succeededFuture(copied);
+            }
+            List<BulkOperation> operations = new ArrayList<>(docs.size());
+            for (JsonObject doc : docs) {
+                JsonObject byId = new JsonObject().put("_id", doc.getValue("_id"));
+                operations.add(BulkOperation.createReplace(byId, doc, true));
+            }
+            String nextId = docs.get(docs.size() - 1).getString("_id");
+            long total = copied + docs.size();
+            return target.bulkWriteWithOptions(collection, operations, new BulkWriteOptions(false)).compose(result ->
+                    docs.size() < AppConfig.TENANT_MOVE_BATCH_SIZE
+                            ? Future.succeededFuture(total)
+                            : copy(source, target, collection, tenantField, organizationId, nextId, total));
+        });
+    }
+
+    private Future<Void> deleteAll(String organizationId, MongoClient source) {
+        Future<Void> chain = Future.succeededFuture();
+        for (MongoRepository repository : repositories) {
+            chain = chain.compose(v -> delete(source, repository.getCollectionName(), repository.tenantField(),
+                    organizationId));
+        }
+        return chain;
+    }
+
+    private Future<Void> delete(MongoClient source, String collection, String tenantField, String organizationId) {
+        return readBatch(source, collection, tenantField, organizationId, null, ID_ONLY).compose(docs -> {
+            if (docs.isEmpty()) {
+                return Future.succeededFuture();
+            }
+            List<String> ids = docs.stream().map(doc -> doc.getString("_id")).toList();
+            return source.removeDocuments(collection, MongoQuery.anyState().in("_id", ids).toJson()).compose(result ->
+                    docs.size() < AppConfig.TENANT_MOVE_BATCH_SIZE
+                            ? Future.succeededFuture()
+                            : delete(source, collection, tenantField, organizationId));
+        });
+    }
+
+    private Future<List<JsonObject>> readBatch(MongoClient client, String collection, String tenantField,
+                                               String organizationId, String lastId, JsonObject fields) {
+        MongoQuery query = MongoQuery.anyState().eq(tenantField, organizationId);
+        if (lastId != null) {
+            query.gt("_id", lastId);
+        }
+        FindOptions options = new FindOptions()
+                .setSort(ID_ORDER)
+                .setLimit(AppConfig.TENANT_MOVE_BATCH_SIZE);
+        if (fields != null) {
+            options.setFields(fields);
+        }
+        return client.findWithOptions(collection, query.toJson(), options);
+    }
+
+    private Future<Void> delay(long millis) {
+        Promise<Void> promise = Promise.promise();
+        vertx.setTimer(Math.max(1, millis), id -> promise.complete());
+        return promise.future();
+    }
+}
@@ -0,0 +1,205 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.config.AppConfig;
+import com.teamhub.utils.ExpiringCache;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves the Mongo cluster holding an organization's data, so large tenants can live on their own
+ * cluster while everyone else shares the default one.
+ *
+ * Routes are stored in the {@value #COLLECTION} collection on the default cluster, one document per
+ * organization that does not live there, and cached per node for
+ * {@link AppConfig#TENANT_ROUTE_CACHE_TTL_MS}. Route changes evict locally and broadcast the eviction
+ * to other nodes. With only the default cluster configured the table is never read.
+ *
+ * Each cluster can also have an analytics client, for reporting reads that tolerate replication lag
+ * and should stay off the primary and its connection pool. Clusters without one fall back to their
+ * regular client.
+ */
+public class TenantRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantRouter.class);
+
+    public static final String DEFAULT_CLUSTER = "default";
+    public static final String COLLECTION = "tenant_routes";
+    public static final String INVALIDATION_ADDRESS = "teamhub.tenantRoutes.invalidate";
+
+    public enum State {
+        /**
+         * Reads and writes go to the route's cluster.
+         */
+        ACTIVE,
+        /**
+         * The organization is being copied off the route's cluster: reads still go there, writes are refused.
+         */
+        MOVING
+    }
+
+    private record Route(String cluster, State state) {
+    }
+
+    private static final Route DEFAULT_ROUTE = new Route(DEFAULT_CLUSTER, State.ACTIVE);
+
+    private final Vertx vertx;
+    private final Map<String, MongoClient> clusters;
+    private final Map<String, MongoClient> analyticsClients;
+    private final ExpiringCache<String, Route> cache =
+            new ExpiringCache<>(AppConfig.TENANT_ROUTE_CACHE_TTL_MS, AppConfig.TENANT_ROUTE_CACHE_MAX_ENTRIES);
+
+    /**
+     * {@code clusters} maps cluster names to their clients and must include {@link #DEFAULT_CLUSTER}.
+     */
+    public TenantRouter(Vertx vertx, Map<String, MongoClient> clusters) {
+        this(vertx, clusters, Map.of());
+    }
+
+    /**
+     * {@code analyticsClients} maps cluster names to the clients their reporting reads go to.
+     */
+    public TenantRouter(Vertx vertx, Map<String, MongoClient> clusters, Map<String, MongoClient> analyticsClients) {
+        if (!clusters.containsKey(DEFAULT_CLUSTER)) {
+            throw new IllegalArgumentException("No '" + DEFAULT_CLUSTER + "' cluster configured");
+        }
+        if (!clusters.keySet().containsAll(analyticsClients.keySet())) {
+            throw new IllegalArgumentException("Analytics clients configured for unknown clusters: "
+                    + analyticsClients.keySet());
+        }
+        this.vertx = vertx;
+        this.clusters = Collections.unmodifiableMap(new LinkedHashMap<>(clusters));
+        this.analyticsClients = Map.copyOf(analyticsClients);
+        if (vertx != null) {
+            vertx.eventBus().<JsonObject>consumer(INVALIDATION_ADDRESS, msg ->
+                    cache.invalidate(msg.body().getString("organizationId")));
+        }
+    }
+
+    /**
+     * A router that sends every organization to one client, for single-cluster deployments and tests.
+     */
+    public static TenantRouter single(MongoClient mongoClient) {
+        return new TenantRouter(null, Map.of(DEFAULT_CLUSTER, mongoClient));
+    }
+
+    public MongoClient defaultClient() {
+        return clusters.get(DEFAULT_CLUSTER);
+    }
+
+    /**
+     * Every configured cluster by name, the default one included.
+     */
+    public Map<String, MongoClient> clusters() {
+        return clusters;
+    }
+
+    public MongoClient cluster(String name) {
+        MongoClient client = clusters.get(name);
+        if (client == null) {
+            throw new AppException(ErrorCode.BAD_REQUEST, "Unknown cluster: " + name);
+        }
+        return client;
+    }
+
+    /**
+     * The client to read the organization's data with.
+     */
+    public Future<MongoClient> client(String organizationId) {
+        return route(organizationId).map(route -> clusters.get(route.cluster()));
+    }
+
+    /**
+     * The client for reporting reads of the organization's data. These may lag its writes by up to the
+     * client's max staleness, so never use it where a request has to see its own writes.
+     */
+    public Future<MongoClient> analyticsClient(String organizationId) {
+        return route(organizationId).map(route ->
+                analyticsClients.getOrDefault(route.cluster(), clusters.get(route.cluster())));
+    }
+
+    /**
+     * The client to write the organization's data with. Fails with SERVICE_UNAVAILABLE while the
+     * organization is being moved, so no write lands on a cluster that is being copied from.
+     */
+    public Future<MongoClient> writeClient(String organizationId) {
+        return route(organizationId).compose(route -> route.state() == State.MOVING
+                ? Future.failedFuture(new AppException(ErrorCode.SERVICE_UNAVAILABLE,
+                        "Organization data is being moved; retry shortly"))
+                : Future.succeededFuture(clusters.get(route.cluster())));
+    }
+
+    /**
+     * The name of the cluster currently holding the organization's data.
+     */
+    public Future<String> clusterOf(String organizationId) {
+        return route(organizationId).map(Route::cluster);
+    }
+
+    /**
+     * Points the organization at {@code cluster}, bypassing the cache, and evicts the cached route on
+     * every node. Routing to the default cluster while active removes the route altogether.
+     */
+    public Future<Void> setRoute(String organizationId, String cluster, State state) {
+        if (!clusters.containsKey(cluster)) {
+            return Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST, "Unknown cluster: " + cluster));
+        }
+        MongoClient table = defaultClient();
+        JsonObject query = new JsonObject().put("_id", organizationId);
+        Future<?> write = DEFAULT_CLUSTER.equals(cluster) && state == State.ACTIVE
+                ? table.removeDocument(COLLECTION, query)
+                : table.updateCollectionWithOptions(COLLECTION, query, MongoUpdate.create()
+                        .set("cluster", cluster)
+                        .set("state", state.name())
+                        .set("updatedAt", MongoDates.now())
+                        .toJson(), new UpdateOptions().setUpsert(true));
+        return write.map(result -> {
+            invalidate(organizationId);
+            logger.info("Routed organization {} to cluster {} ({})", organizationId, cluster, state);
+            return null;
+        });
+    }
+
+    /**
+     * Evicts the cached route on this node and every other node listening on the event bus.
+     */
+    public void invalidate(String organizationId) {
+        cache.invalidate(organizationId);
+        if (vertx != null) {
+            vertx.eventBus().publish(INVALIDATION_ADDRESS, new JsonObject().put("organizationId", organizationId));
+        }
+    }
+
+    private Future<Route> route(String organizationId) {
+        if (organizationId == null) {
+            return Future.failedFuture(new IllegalArgumentException("Tenant-scoped access without an organizationId"));
+        }
+        if (clusters.size() == 1) {
+            return Future.succeededFuture(DEFAULT_ROUTE);
+        }
+        return cache.get(organizationId, () -> defaultClient()
+                .findOne(COLLECTION, new JsonObject().put("_id", organizationId), null).compose(doc -> {
+                    Route route = doc == null
+                            ? DEFAULT_ROUTE
+                            : new Route(doc.getString("cluster"),
+                                    State.valueOf(doc.getString("state", State.ACTIVE.name())));
+                    if (!clusters.containsKey(route.cluster())) {
+                        logger.error("Organization {} is routed to unconfigured cluster {}", organizationId,
+                                route.cluster());
+                        return Future.failedFuture(new AppException(ErrorCode.INTERNAL_ERROR,
+                                "Organization is routed to an unknown cluster"));
+                    }
+                    return Future.succeededFuture(route);
+                }));
+    }
+}
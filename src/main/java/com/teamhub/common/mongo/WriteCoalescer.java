@@ -0,0 +1,203 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.config.AppConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Group commit for single-document updates: updates queued within
+ * {@link AppConfig#WRITE_COALESCE_WINDOW_MS} of each other, up to {@link AppConfig#WRITE_COALESCE_MAX_OPS},
+ * go to Mongo as one unordered {@code bulkWrite}, and each caller's future completes with whether its
+ * own update matched. Used through {@link MongoRepository#updateCoalesced} by callers that do not need
+ * the updated document back.
+ *
+ * Each (client, collection) pair has at most one bulk write in flight; updates queued meanwhile are
+ * sent as soon as it completes. A batch never holds two updates to the same document: the later one
+ * waits for the next batch, so successive updates to a document apply in the order they were queued.
+ *
+ * Bulk write results only carry totals, so every update also pushes its own ID onto the document's
+ * {@link #WRITE_ID_FIELD}, which keeps the last {@link AppConfig#WRITE_COALESCE_RECENT_WRITE_IDS}; when a
+ * batch matched fewer documents than it held, the IDs are read back to tell which updates applied.
+ * Keeping several rather than the latest one means an update that applied is still recognized after
+ * another node's update to the same document lands in between.
+ */
+public class WriteCoalescer {
+
+    /**
+     * The IDs of the most recent coalesced updates to the document, oldest first.
+     */
+    public static final String WRITE_ID_FIELD = "recentWriteIds";
+
+    private static final JsonObject WRITE_ID_ONLY = new JsonObject().put(WRITE_ID_FIELD, 1);
+
+    private final Vertx vertx;
+    private final long windowMs;
+    private final int maxOps;
+    private final Map<Target, Queue> queues = new HashMap<>();
+    private boolean closing;
+
+    private record Target(MongoClient client, String collection) {
+    }
+
+    private record Write(String id, String writeId, BulkOperation operation, Promise<Boolean> promise) {
+    }
+
+    private static final class Batch {
+        final List<Write> writes = new ArrayList<>();
+        final Set<String> ids = new HashSet<>();
+    }
+
+    private static final class Queue {
+        final Deque<Batch> batches = new ArrayDeque<>();
+        boolean inFlight;
+        long timerId = -1;
+        Promise<Void> drained;
+    }
+
+    public WriteCoalescer(Vertx vertx) {
+        this(vertx, AppConfig.WRITE_COALESCE_WINDOW_MS, AppConfig.WRITE_COALESCE_MAX_OPS);
+    }
+
+    public WriteCoalescer(Vertx vertx, long windowMs, int maxOps) {
+        this.vertx = vertx;
+        this.windowMs = windowMs;
+        this.maxOps = maxOps;
+    }
+
+    /**
+     * Queues {@code update} of the document matching {@code filter}, whose {@code _id} is {@code id}.
+     * Completes with true if it matched, false if not, and fails if the bulk write it went out in did.
+     */
+    public Future<Boolean> update(MongoClient client, String collection, String id, JsonObject filter,
+                                  JsonObject update) {
+        String writeId = TimeOrderedIdGenerator.instance().nextId(null);
+        JsonObject stamped = update.copy();
+        JsonObject push = stamped.getJsonObject("$push", new JsonObject());
+        stamped.put("$push", push.copy().put(WRITE_ID_FIELD, new JsonObject()
+                .put("$each", new JsonArray().add(writeId))
+                .put("$slice", -AppConfig.WRITE_COALESCE_RECENT_WRITE_IDS)));
+        Write write = new Write(id, writeId, BulkOperation.createUpdate(filter, stamped), Promise.promise());
+
+        synchronized (this) {
+            Target target = new Target(client, collection);
+            Queue queue = queues.computeIfAbsent(target, t -> new Queue());
+            Batch batch = queue.batches.peekLast();
+            if (batch == null || batch.writes.size() >= maxOps || batch.ids.contains(id)) {
+                batch = new Batch();
+                queue.batches.addLast(batch);
+            }
+            batch.writes.add(write);
+            batch.ids.add(id);
+            schedule(target, queue);
+        }
+        return write.promise().future();
+    }
+
+    /**
+     * Sends everything still queued without waiting out the window, and completes once every bulk write
+     * has finished. Updates queued afterwards are sent straight away. Call before closing the clients.
+     */
+    public Future<Void> close() {
+        List<Future<Void>> drained = new ArrayList<>();
+        synchronized (this) {
+            closing = true;
+            queues.forEach((target, queue) -> {
+                if (queue.inFlight || !queue.batches.isEmpty()) {
+                    if (queue.drained == null) {
+                        queue.drained = Promise.promise();
+                    }
+                    drained.add(queue.drained.future());
+                    flush(target, queue);
+                }
+            });
+        }
+        return Future.join(drained).mapEmpty();
+    }
+
+    private void schedule(Target target, Queue queue) {
+        if (queue.inFlight) {
+            // Sent when the write in flight completes
+            return;
+        }
+        if (closing || queue.batches.peekFirst().writes.size() >= maxOps || queue.batches.size() > 1) {
+            flush(target, queue);
+        } else if (queue.timerId < 0) {
+            queue.timerId = vertx.setTimer(windowMs, t -> {
+                synchronized (this) {
+                    queue.timerId = -1;
+                    flush(target, queue);
+                }
+            });
+        }
+    }
+
+    private void flush(Target target, Queue queue) {
+        if (queue.inFlight) {
+            return;
+        }
+        if (queue.timerId >= 0) {
+            vertx.cancelTimer(queue.timerId);
+            queue.timerId = -1;
+        }
+        Batch batch = queue.batches.pollFirst();
+        if (batch == null) {
+            if (queue.drained != null) {
+                queue.drained.tryComplete();
+                queue.drained = null;
+            }
+            return;
+        }
+        queue.inFlight = true;
+        List<BulkOperation> operations = batch.writes.stream().map(Write::operation).toList();
+        target.client().bulkWriteWithOptions(target.collection(), operations, new BulkWriteOptions(false))
+                .compose(result -> result.getMatchedCount() == batch.writes.size()
+                        ? Future.<Set<String>>succeededFuture(null)
+                        : appliedWriteIds(target, batch))
+                .onComplete(ar -> {
+                    for (Write write : batch.writes) {
+                        if (ar.failed()) {
+                            write.promise().fail(ar.cause());
+                        } else {
+                            write.promise().complete(ar.result() == null || ar.result().contains(write.writeId()));
+                        }
+                    }
+                    synchronized (this) {
+                        queue.inFlight = false;
+                        // Whatever queued up meanwhile has already waited a full round trip
+                        flush(target, queue);
+                    }
+                });
+    }
+
+    /**
+     * Write IDs of the batch's updates that applied, read back from the documents they were pushed onto.
+     */
+    private Future<Set<String>> appliedWriteIds(Target target, Batch batch) {
+        JsonArray ids = new JsonArray(List.copyOf(batch.ids));
+        JsonObject byIds = new JsonObject().put("_id", new JsonObject().put("$in", ids));
+        FindOptions options = new FindOptions().setFields(WRITE_ID_ONLY);
+        return target.client().findWithOptions(target.collection(), byIds, options).map(docs -> {
+            Set<String> applied = new HashSet<>();
+            for (JsonObject doc : docs) {
+                doc.getJsonArray(WRITE_ID_FIELD, new JsonArray()).forEach(writeId -> applied.add((String) writeId));
+            }
+            return applied;
+        });
+    }
+}
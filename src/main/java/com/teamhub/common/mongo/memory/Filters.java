@@ -0,0 +1,213 @@
+package com.teamhub.common.mongo.memory;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates Mongo query filters against documents: {@code $and}, {@code $or}, {@code $nor} and the
+ * field operators the repositories use. As in Mongo, a condition on an array field matches if it
+ * matches the array or any of its elements, and null matches a missing field. Unsupported operators
+ * throw {@link IllegalArgumentException}.
+ */
+final class Filters {
+
+    private static final JsonObject EXISTS = new JsonObject().put("$exists", true);
+
+    private Filters() {
+        // Utility class
+    }
+
+    static boolean matches(JsonObject doc, JsonObject filter) {
+        if (filter == null) {
+            return true;
+        }
+        for (Map.Entry<String, Object> condition : filter) {
+            String key = condition.getKey();
+            Object value = condition.getValue();
+            boolean matched = switch (key) {
+                case "$and" -> clauses(value).stream().allMatch(clause -> matches(doc, (JsonObject) clause));
+                case "$or" -> clauses(value).stream().anyMatch(clause -> matches(doc, (JsonObject) clause));
+                case "$nor" -> clauses(value).stream().noneMatch(clause -> matches(doc, (JsonObject) clause));
+                default -> {
+                    if (key.startsWith("$")) {
+                        throw new IllegalArgumentException("Unsupported query operator " + key);
+                    }
+                    yield matchesField(doc, key, value);
+                }
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether {@code condition} (a value, or an object of operators) holds for the value at {@code path}.
+     */
+    static boolean matchesField(JsonObject doc, String path, Object condition) {
+        Object value = Values.get(doc, path);
+        if (!isOperators(condition)) {
+            return equalsOrContains(value, condition);
+        }
+        JsonObject operators = (JsonObject) condition;
+        for (Map.Entry<String, Object> operator : operators) {
+            Object operand = operator.getValue();
+            boolean matched = switch (operator.getKey()) {
+                case "$eq" -> equalsOrContains(value, operand);
+                case "$ne" -> !equalsOrContains(value, operand);
+                case "$gt" -> compares(value, operand, c -> c > 0);
+                case "$gte" -> compares(value, operand, c -> c >= 0);
+                case "$lt" -> compares(value, operand, c -> c < 0);
+                case "$lte" -> compares(value, operand, c -> c <= 0);
+                case "$in" -> in(value, operand);
+                case "$nin" -> !in(value, operand);
+                case "$exists" -> Values.has(doc, path) == Boolean.TRUE.equals(operand);
+                case "$type" -> Values.has(doc, path) && hasType(value, (String) operand);
+                case "$size" -> value instanceof JsonArray array && operand instanceof Number size
+                        && array.size() == size.intValue();
+                case "$regex" -> regex(value, (String) operand, operators.getString("$options", ""));
+                case "$options" -> true;
+                case "$not" -> !matchesField(doc, path, operand);
+                default -> throw new IllegalArgumentException("Unsupported query operator " + operator.getKey());
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether {@code element} (an array element, as {@code $pull} sees it) satisfies {@code condition}.
+     */
+    static boolean matchesValue(Object element, Object condition) {
+        return matchesField(new JsonObject().put("v", element), "v", condition);
+    }
+
+    /**
+     * Whether every document matching {@code filter} also matches {@code partial}, judged only by
+     * {@code filter} repeating each of {@code partial}'s conditions (an equality to a value also
+     * implies {@code $exists: true}). Decides if a partial index may serve a query, as Mongo's planner
+     * does.
+     */
+    static boolean implies(JsonObject filter, JsonObject partial) {
+        if (partial == null) {
+            return true;
+        }
+        for (Map.Entry<String, Object> condition : partial) {
+            if (!filter.containsKey(condition.getKey())
+                    || !sameCondition(filter.getValue(condition.getKey()), condition.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if {@code condition} is an object of query operators rather than a value to compare with.
+     */
+    static boolean isOperators(Object condition) {
+        if (!(condition instanceof JsonObject object) || object.isEmpty() || Values.date(object) != null) {
+            return false;
+        }
+        return object.fieldNames().iterator().next().startsWith("$");
+    }
+
+    private static boolean sameCondition(Object a, Object b) {
+        if (b instanceof JsonObject exists && exists.equals(EXISTS) && a != null && !isOperators(a)) {
+            return true;
+        }
+        return a instanceof JsonObject || b instanceof JsonObject ? Objects.equals(a, b) : Values.equal(a, b);
+    }
+
+    private static JsonArray clauses(Object value) {
+        if (!(value instanceof JsonArray array)) {
+            throw new IllegalArgumentException("Logical operators take an array of clauses");
+        }
+        return array;
+    }
+
+    private static boolean equalsOrContains(Object value, Object operand) {
+        if (Values.equal(value, operand)) {
+            return true;
+        }
+        if (value instanceof JsonArray array) {
+            for (Object element : array) {
+                if (Values.equal(element, operand)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean in(Object value, Object operand) {
+        if (!(operand instanceof JsonArray candidates)) {
+            throw new IllegalArgumentException("$in and $nin take an array");
+        }
+        for (Object candidate : candidates) {
+            if (equalsOrContains(value, candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Range comparisons only match values of the same type as the operand (all numbers count as one type).
+     */
+    private static boolean compares(Object value, Object operand, IntPredicate test) {
+        if (value instanceof JsonArray array) {
+            for (Object element : array) {
+                if (compares(element, operand, test)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return Values.typeRank(value) == Values.typeRank(operand) && test.test(Values.compare(value, operand));
+    }
+
+    private static boolean hasType(Object value, String type) {
+        int rank = switch (type) {
+            case "null" -> 0;
+            case "number", "int", "long", "double", "decimal" -> 1;
+            case "string" -> 2;
+            case "object" -> 3;
+            case "array" -> 4;
+            case "bool" -> 5;
+            case "date" -> 6;
+            default -> throw new IllegalArgumentException("Unsupported $type " + type);
+        };
+        if (Values.typeRank(value) == rank) {
+            return true;
+        }
+        if (value instanceof JsonArray array) {
+            for (Object element : array) {
+                if (Values.typeRank(element) == rank) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean regex(Object value, String pattern, String options) {
+        Pattern compiled = Pattern.compile(pattern, options.contains("i") ? Pattern.CASE_INSENSITIVE : 0);
+        if (value instanceof JsonArray array) {
+            for (Object element : array) {
+                if (element instanceof String text && compiled.matcher(text).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return value instanceof String text && compiled.matcher(text).find();
+    }
+}
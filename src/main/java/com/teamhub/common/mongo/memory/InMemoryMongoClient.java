@@ -0,0 +1,807 @@
+package com.teamhub.common.mongo.memory;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.AggregateOptions;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.CountOptions;
+import io.vertx.ext.mongo.CreateCollectionOptions;
+import io.vertx.ext.mongo.DistinctOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.IndexModel;
+import io.vertx.ext.mongo.IndexOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.MongoClientBulkWriteResult;
+import io.vertx.ext.mongo.MongoClientDeleteResult;
+import io.vertx.ext.mongo.MongoClientUpdateResult;
+import io.vertx.ext.mongo.MongoGridFsClient;
+import io.vertx.ext.mongo.UpdateOptions;
+import io.vertx.ext.mongo.WriteOption;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A {@link MongoClient} that keeps its data in process, for benchmarks and tests that should not
+ * need a mongod. It implements what the repositories, migrations and {@code IndexManager} use:
+ * queries with the usual operators, soft-delete filters, sorting, paging and projections; the
+ * update operators; upserts; bulk writes; unique, partial and multikey indexes (used for equality
+ * and {@code $in} on their leading field); the reporting aggregation stages; and the
+ * {@code collMod}, {@code ping} and {@code serverStatus} commands. Anything else (change streams,
+ * GridFS, update pipelines, other commands) fails.
+ *
+ * Operations run on the calling thread and complete on its context, like the driver's callbacks. See
+ * {@link MemoryCollection} for the concurrency guarantees.
+ */
+public class InMemoryMongoClient implements MongoClient {
+
+    // Databases shared by createShared, by connection string (without options) and database name
+    private static final Map<String, MemoryDatabase> SHARED = new ConcurrentHashMap<>();
+
+    private final Vertx vertx;
+    private final MemoryDatabase database;
+
+    private InMemoryMongoClient(Vertx vertx, MemoryDatabase database) {
+        this.vertx = vertx;
+        this.database = database;
+    }
+
+    /**
+     * A client on a new, empty database of its own.
+     */
+    public static InMemoryMongoClient create(Vertx vertx) {
+        return new InMemoryMongoClient(vertx, new MemoryDatabase());
+    }
+
+    /**
+     * Counterpart of {@link MongoClient#createShared(Vertx, JsonObject, String)}: clients for the same
+     * {@code connection_string} and {@code db_name} share one database, whatever their options or data
+     * source name, so an analytics client sees what its cluster's client writes. Shared databases live
+     * as long as the JVM.
+     */
+    public static MongoClient createShared(Vertx vertx, JsonObject config, String dataSourceName) {
+        String connectionString = config.getString("connection_string", "mongodb://localhost:27017");
+        int options = connectionString.indexOf('?');
+        String cluster = (options < 0 ? connectionString : connectionString.substring(0, options))
+                .replaceAll("/+$", "");
+        String key = cluster + "/" + config.getString("db_name", "default_db");
+        return new InMemoryMongoClient(vertx, SHARED.computeIfAbsent(key, k -> new MemoryDatabase()));
+    }
+
+    @Override
+    public Future<String> save(String collection, JsonObject document) {
+        return saveWithOptions(collection, document, null);
+    }
+
+    @Override
+    public Future<String> saveWithOptions(String collection, JsonObject document, WriteOption writeOption) {
+        return run(() -> {
+            if (!document.containsKey("_id")) {
+                return (String) database.collection(collection).insert(document).getValue("_id");
+            }
+            JsonObject byId = new JsonObject().put("_id", document.getValue("_id"));
+            database.collection(collection).update(byId, document, true, false);
+            return null;
+        });
+    }
+
+    @Override
+    public Future<String> insert(String collection, JsonObject document) {
+        return insertWithOptions(collection, document, null);
+    }
+
+    @Override
+    public Future<String> insertWithOptions(String collection, JsonObject document, WriteOption writeOption) {
+        return run(() -> {
+            boolean generated = !document.containsKey("_id");
+            JsonObject stored = database.collection(collection).insert(document);
+            return generated ? (String) stored.getValue("_id") : null;
+        });
+    }
+
+    @Override
+    public Future<MongoClientUpdateResult> updateCollection(String collection, JsonObject query, JsonObject update) {
+        return updateCollectionWithOptions(collection, query, update, new UpdateOptions());
+    }
+
+    @Override
+    public Future<MongoClientUpdateResult> updateCollection(String collection, JsonObject query, JsonArray update) {
+        return updateCollectionWithOptions(collection, query, update, new UpdateOptions());
+    }
+
+    @Override
+    public Future<MongoClientUpdateResult> updateCollectionWithOptions(String collection, JsonObject query,
+                                                                      JsonObject update, UpdateOptions options) {
+        return run(() -> database.collection(collection).update(query, update, options.isUpsert(), options.isMulti()));
+    }
+
+    @Override
+    public Future<MongoClientUpdateResult> updateCollectionWithOptions(String collection, JsonObject query,
+                                                                      JsonArray update, UpdateOptions options) {
+        return unsupported("update pipelines");
+    }
+
+    @Override
+    public Future<MongoClientUpdateResult> replaceDocuments(String collection, JsonObject query, JsonObject replace) {
+        return replaceDocumentsWithOptions(collection, query, replace, new UpdateOptions());
+    }
+
+    @Override
+    public Future<MongoClientUpdateResult> replaceDocumentsWithOptions(String collection, JsonObject query,
+                                                                      JsonObject replace, UpdateOptions options) {
+        return run(() -> database.collection(collection)
+                .update(query, replacement(replace), options.isUpsert(), false));
+    }
+
+    @Override
+    public Future<MongoClientBulkWriteResult> bulkWrite(String collection, List<BulkOperation> operations) {
+        return bulkWriteWithOptions(collection, operations, new BulkWriteOptions());
+    }
+
+    @Override
+    public Future<MongoClientBulkWriteResult> bulkWriteWithOptions(String collection, List<BulkOperation> operations,
+                                                                  BulkWriteOptions options) {
+        return run(() -> database.collection(collection).bulkWrite(operations, options.isOrdered()));
+    }
+
+    @Override
+    public Future<List<JsonObject>> find(String collection, JsonObject query) {
+        return findWithOptions(collection, query, new FindOptions());
+    }
+
+    @Override
+    public ReadStream<JsonObject> findBatch(String collection, JsonObject query) {
+        return findBatchWithOptions(collection, query, new FindOptions());
+    }
+
+    @Override
+    public Future<List<JsonObject>> findWithOptions(String collection, JsonObject query, FindOptions options) {
+        return run(() -> find(collection, query, options));
+    }
+
+    @Override
+    public ReadStream<JsonObject> findBatchWithOptions(String collection, JsonObject query, FindOptions options) {
+        return stream(() -> find(collection, query, options));
+    }
+
+    @Override
+    public Future<JsonObject> findOne(String collection, JsonObject query, JsonObject fields) {
+        return run(() -> {
+            List<JsonObject> found = find(collection, query, new FindOptions().setFields(fields).setLimit(1));
+            return found.isEmpty() ? null : found.get(0);
+        });
+    }
+
+    @Override
+    public Future<JsonObject> findOneAndUpdate(String collection, JsonObject query, JsonObject update) {
+        return findOneAndUpdateWithOptions(collection, query, update, new FindOptions(), new UpdateOptions());
+    }
+
+    @Override
+    public Future<JsonObject> findOneAndUpdateWithOptions(String collection, JsonObject query, JsonObject update,
+                                                          FindOptions findOptions, UpdateOptions updateOptions) {
+        return run(() -> database.collection(collection).findOneAndUpdate(query, update, findOptions,
+                updateOptions.isUpsert(), updateOptions.isReturningNewDocument()));
+    }
+
+    @Override
+    public Future<JsonObject> findOneAndReplace(String collection, JsonObject query, JsonObject replace) {
+        return findOneAndReplaceWithOptions(collection, query, replace, new FindOptions(), new UpdateOptions());
+    }
+
+    @Override
+    public Future<JsonObject> findOneAndReplaceWithOptions(String collection, JsonObject query, JsonObject replace,
+                                                           FindOptions findOptions, UpdateOptions updateOptions) {
+        return run(() -> database.collection(collection).findOneAndUpdate(query, replacement(replace), findOptions,
+                updateOptions.isUpsert(), updateOptions.isReturningNewDocument()));
+    }
+
+    @Override
+    public Future<JsonObject> findOneAndDelete(String collection, JsonObject query) {
+        return findOneAndDeleteWithOptions(collection, query, new FindOptions());
+    }
+
+    @Override
+    public Future<JsonObject> findOneAndDeleteWithOptions(String collection, JsonObject query, FindOptions findOptions) {
+        return run(() -> {
+            MemoryCollection existing = database.existing(collection);
+            List<JsonObject> deleted = existing == null
+                    ? List.of()
+                    : existing.delete(query, false, findOptions.getSort());
+            return deleted.isEmpty() ? null : MemoryCollection.project(deleted.get(0), findOptions.getFields());
+        });
+    }
+
+    @Override
+    public Future<Long> count(String collection, JsonObject query) {
+        return countWithOptions(collection, query, new CountOptions());
+    }
+
+    @Override
+    public Future<Long> countWithOptions(String collection, JsonObject query, CountOptions countOptions) {
+        return run(() -> {
+            MemoryCollection existing = database.existing(collection);
+            return existing == null ? 0L : existing.count(query);
+        });
+    }
+
+    @Override
+    public Future<MongoClientDeleteResult> removeDocuments(String collection, JsonObject query) {
+        return removeDocumentsWithOptions(collection, query, null);
+    }
+
+    @Override
+    public Future<MongoClientDeleteResult> removeDocumentsWithOptions(String collection, JsonObject query,
+                                                                     WriteOption writeOption) {
+        return run(() -> remove(collection, query, true));
+    }
+
+    @Override
+    public Future<MongoClientDeleteResult> removeDocument(String collection, JsonObject query) {
+        return removeDocumentWithOptions(collection, query, null);
+    }
+
+    @Override
+    public Future<MongoClientDeleteResult> removeDocumentWithOptions(String collection, JsonObject query,
+                                                                    WriteOption writeOption) {
+        return run(() -> remove(collection, query, false));
+    }
+
+    @Override
+    public Future<Void> createCollection(String collectionName) {
+        return createCollectionWithOptions(collectionName, new CreateCollectionOptions());
+    }
+
+    @Override
+    public Future<Void> createCollectionWithOptions(String collectionName, CreateCollectionOptions options) {
+        return run(() -> {
+            if (!database.create(collectionName)) {
+                throw new MongoException(48, "Collection already exists. NS: " + collectionName);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Future<List<String>> getCollections() {
+        return run(database::names);
+    }
+
+    @Override
+    public Future<Void> dropCollection(String collection) {
+        return run(() -> {
+            database.drop(collection);
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Void> createIndex(String collection, JsonObject key) {
+        return createIndexWithOptions(collection, key, new IndexOptions());
+    }
+
+    @Override
+    public Future<Void> createIndexWithOptions(String collection, JsonObject key, IndexOptions options) {
+        return run(() -> {
+            database.collection(collection).createIndex(key, options);
+            return null;
+        });
+    }
+
+    @Override
+    public Future<Void> createIndexes(String collection, List<IndexModel> indexes) {
+        return run(() -> {
+            MemoryCollection target = database.collection(collection);
+            indexes.forEach(index -> target.createIndex(index.getKey(),
+                    index.getOptions() != null ? index.getOptions() : new IndexOptions()));
+            return null;
+        });
+    }
+
+    @Override
+    public Future<JsonArray> listIndexes(String collection) {
+        return run(() -> existing(collection).listIndexes());
+    }
+
+    @Override
+    public Future<Void> dropIndex(String collection, String indexName) {
+        return run(() -> {
+            existing(collection).dropIndex(indexName);
+            return null;
+        });
+    }
+
+    @Override
+    public Future<JsonObject> runCommand(String commandName, JsonObject command) {
+        return run(() -> switch (commandName) {
+            case "ping" -> new JsonObject().put("ok", 1.0);
+            case "serverStatus" -> new JsonObject()
+                    .put("ok", 1.0)
+                    .put("network", new JsonObject().put("numRequests", database.requests()));
+            case "collMod" -> {
+                JsonObject index = command.getJsonObject("index", new JsonObject());
+                existing(command.getString("collMod")).setExpiry(index.getString("name"),
+                        index.getLong("expireAfterSeconds"));
+                yield new JsonObject().put("ok", 1.0);
+            }
+            default -> throw new UnsupportedOperationException(
+                    "Not supported by the in-memory backend: command " + commandName);
+        });
+    }
+
+    @Override
+    public Future<JsonArray> distinct(String collection, String fieldName, String resultClassname) {
+        return distinctWithQuery(collection, fieldName, resultClassname, new JsonObject());
+    }
+
+    @Override
+    public Future<JsonArray> distinct(String collection, String fieldName, String resultClassname,
+                                      DistinctOptions distinctOptions) {
+        return distinctWithQuery(collection, fieldName, resultClassname, new JsonObject());
+    }
+
+    @Override
+    public Future<JsonArray> distinctWithQuery(String collection, String fieldName, String resultClassname,
+                                               JsonObject query) {
+        return run(() -> distinct(collection, fieldName, query));
+    }
+
+    @Override
+    public Future<JsonArray> distinctWithQuery(String collection, String fieldName, String resultClassname,
+                                               JsonObject query, DistinctOptions distinctOptions) {
+        return distinctWithQuery(collection, fieldName, resultClassname, query);
+    }
+
+    @Override
+    public ReadStream<JsonObject> distinctBatch(String collection, String fieldName, String resultClassname) {
+        return distinctBatchWithQuery(collection, fieldName, resultClassname, new JsonObject());
+    }
+
+    @Override
+    public ReadStream<JsonObject> distinctBatch(String collection, String fieldName, String resultClassname,
+                                                DistinctOptions distinctOptions) {
+        return distinctBatchWithQuery(collection, fieldName, resultClassname, new JsonObject());
+    }
+
+    @Override
+    public ReadStream<JsonObject> distinctBatchWithQuery(String collection, String fieldName, String resultClassname,
+                                                         JsonObject query) {
+        return stream(() -> {
+            List<JsonObject> values = new ArrayList<>();
+            distinct(collection, fieldName, query).forEach(value -> values.add(new JsonObject().put(fieldName, value)));
+            return values;
+        });
+    }
+
+    @Override
+    public ReadStream<JsonObject> distinctBatchWithQuery(String collection, String fieldName, String resultClassname,
+                                                         JsonObject query, DistinctOptions distinctOptions) {
+        return distinctBatchWithQuery(collection, fieldName, resultClassname, query);
+    }
+
+    @Override
+    public ReadStream<JsonObject> distinctBatchWithQuery(String collection, String fieldName, String resultClassname,
+                                                         JsonObject query, int batchSize) {
+        return distinctBatchWithQuery(collection, fieldName, resultClassname, query);
+    }
+
+    @Override
+    public ReadStream<JsonObject> distinctBatchWithQuery(String collection, String fieldName, String resultClassname,
+                                                         JsonObject query, int batchSize,
+                                                         DistinctOptions distinctOptions) {
+        return distinctBatchWithQuery(collection, fieldName, resultClassname, query);
+    }
+
+    @Override
+    public ReadStream<JsonObject> aggregate(String collection, JsonArray pipeline) {
+        return aggregateWithOptions(collection, pipeline, new AggregateOptions());
+    }
+
+    @Override
+    public ReadStream<JsonObject> aggregateWithOptions(String collection, JsonArray pipeline, AggregateOptions options) {
+        return stream(() -> Pipeline.run(database.existing(collection), pipeline, database::existing));
+    }
+
+    @Override
+    public ReadStream<ChangeStreamDocument<JsonObject>> watch(String collection, JsonArray pipeline,
+                                                              boolean withUpdatedDoc, int batchSize) {
+        return ListReadStream.failed(vertx.getOrCreateContext(),
+                new UnsupportedOperationException("Not supported by the in-memory backend: change streams"));
+    }
+
+    @Override
+    public Future<MongoGridFsClient> createDefaultGridFsBucketService() {
+        return unsupported("GridFS");
+    }
+
+    @Override
+    public Future<MongoGridFsClient> createGridFsBucketService(String bucketName) {
+        return unsupported("GridFS");
+    }
+
+    @Override
+    public Future<Void> close() {
+        return Future.succeededFuture();
+    }
+
+    // Callback variants
+
+    @Override
+    public MongoClient save(String collection, JsonObject document, Handler<AsyncResult<String>> resultHandler) {
+        save(collection, document).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient saveWithOptions(String collection, JsonObject document, WriteOption writeOption,
+                                       Handler<AsyncResult<String>> resultHandler) {
+        saveWithOptions(collection, document, writeOption).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient insert(String collection, JsonObject document, Handler<AsyncResult<String>> resultHandler) {
+        insert(collection, document).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient insertWithOptions(String collection, JsonObject document, WriteOption writeOption,
+                                         Handler<AsyncResult<String>> resultHandler) {
+        insertWithOptions(collection, document, writeOption).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient updateCollection(String collection, JsonObject query, JsonObject update,
+                                        Handler<AsyncResult<MongoClientUpdateResult>> resultHandler) {
+        updateCollection(collection, query, update).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient updateCollection(String collection, JsonObject query, JsonArray update,
+                                        Handler<AsyncResult<MongoClientUpdateResult>> resultHandler) {
+        updateCollection(collection, query, update).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient updateCollectionWithOptions(String collection, JsonObject query, JsonObject update,
+                                                   UpdateOptions options,
+                                                   Handler<AsyncResult<MongoClientUpdateResult>> resultHandler) {
+        updateCollectionWithOptions(collection, query, update, options).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient updateCollectionWithOptions(String collection, JsonObject query, JsonArray update,
+                                                   UpdateOptions options,
+                                                   Handler<AsyncResult<MongoClientUpdateResult>> resultHandler) {
+        updateCollectionWithOptions(collection, query, update, options).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient replaceDocuments(String collection, JsonObject query, JsonObject replace,
+                                        Handler<AsyncResult<MongoClientUpdateResult>> resultHandler) {
+        replaceDocuments(collection, query, replace).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient replaceDocumentsWithOptions(String collection, JsonObject query, JsonObject replace,
+                                                   UpdateOptions options,
+                                                   Handler<AsyncResult<MongoClientUpdateResult>> resultHandler) {
+        replaceDocumentsWithOptions(collection, query, replace, options).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient bulkWrite(String collection, List<BulkOperation> operations,
+                                 Handler<AsyncResult<MongoClientBulkWriteResult>> resultHandler) {
+        bulkWrite(collection, operations).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient bulkWriteWithOptions(String collection, List<BulkOperation> operations,
+                                            BulkWriteOptions bulkWriteOptions,
+                                            Handler<AsyncResult<MongoClientBulkWriteResult>> resultHandler) {
+        bulkWriteWithOptions(collection, operations, bulkWriteOptions).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient find(String collection, JsonObject query, Handler<AsyncResult<List<JsonObject>>> resultHandler) {
+        find(collection, query).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient findWithOptions(String collection, JsonObject query, FindOptions options,
+                                       Handler<AsyncResult<List<JsonObject>>> resultHandler) {
+        findWithOptions(collection, query, options).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient findOne(String collection, JsonObject query, JsonObject fields,
+                               Handler<AsyncResult<JsonObject>> resultHandler) {
+        findOne(collection, query, fields).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient findOneAndUpdate(String collection, JsonObject query, JsonObject update,
+                                        Handler<AsyncResult<JsonObject>> resultHandler) {
+        findOneAndUpdate(collection, query, update).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient findOneAndUpdateWithOptions(String collection, JsonObject query, JsonObject update,
+                                                   FindOptions findOptions, UpdateOptions updateOptions,
+                                                   Handler<AsyncResult<JsonObject>> resultHandler) {
+        findOneAndUpdateWithOptions(collection, query, update, findOptions, updateOptions).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient findOneAndReplace(String collection, JsonObject query, JsonObject replace,
+                                         Handler<AsyncResult<JsonObject>> resultHandler) {
+        findOneAndReplace(collection, query, replace).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient findOneAndReplaceWithOptions(String collection, JsonObject query, JsonObject replace,
+                                                    FindOptions findOptions, UpdateOptions updateOptions,
+                                                    Handler<AsyncResult<JsonObject>> resultHandler) {
+        findOneAndReplaceWithOptions(collection, query, replace, findOptions, updateOptions).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient findOneAndDelete(String collection, JsonObject query,
+                                        Handler<AsyncResult<JsonObject>> resultHandler) {
+        findOneAndDelete(collection, query).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient findOneAndDeleteWithOptions(String collection, JsonObject query, FindOptions findOptions,
+                                                   Handler<AsyncResult<JsonObject>> resultHandler) {
+        findOneAndDeleteWithOptions(collection, query, findOptions).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient count(String collection, JsonObject query, Handler<AsyncResult<Long>> resultHandler) {
+        count(collection, query).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient countWithOptions(String collection, JsonObject query, CountOptions countOptions,
+                                        Handler<AsyncResult<Long>> resultHandler) {
+        countWithOptions(collection, query, countOptions).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient removeDocuments(String collection, JsonObject query,
+                                       Handler<AsyncResult<MongoClientDeleteResult>> resultHandler) {
+        removeDocuments(collection, query).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient removeDocumentsWithOptions(String collection, JsonObject query, WriteOption writeOption,
+                                                  Handler<AsyncResult<MongoClientDeleteResult>> resultHandler) {
+        removeDocumentsWithOptions(collection, query, writeOption).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient removeDocument(String collection, JsonObject query,
+                                      Handler<AsyncResult<MongoClientDeleteResult>> resultHandler) {
+        removeDocument(collection, query).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient removeDocumentWithOptions(String collection, JsonObject query, WriteOption writeOption,
+                                                 Handler<AsyncResult<MongoClientDeleteResult>> resultHandler) {
+        removeDocumentWithOptions(collection, query, writeOption).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient createCollection(String collectionName, Handler<AsyncResult<Void>> resultHandler) {
+        createCollection(collectionName).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient createCollectionWithOptions(String collectionName, CreateCollectionOptions options,
+                                                   Handler<AsyncResult<Void>> resultHandler) {
+        createCollectionWithOptions(collectionName, options).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient getCollections(Handler<AsyncResult<List<String>>> resultHandler) {
+        getCollections().onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient dropCollection(String collection, Handler<AsyncResult<Void>> resultHandler) {
+        dropCollection(collection).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient createIndex(String collection, JsonObject key, Handler<AsyncResult<Void>> resultHandler) {
+        createIndex(collection, key).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient createIndexWithOptions(String collection, JsonObject key, IndexOptions options,
+                                              Handler<AsyncResult<Void>> resultHandler) {
+        createIndexWithOptions(collection, key, options).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient createIndexes(String collection, List<IndexModel> indexes,
+                                     Handler<AsyncResult<Void>> resultHandler) {
+        createIndexes(collection, indexes).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient listIndexes(String collection, Handler<AsyncResult<JsonArray>> resultHandler) {
+        listIndexes(collection).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient dropIndex(String collection, String indexName, Handler<AsyncResult<Void>> resultHandler) {
+        dropIndex(collection, indexName).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient runCommand(String commandName, JsonObject command,
+                                  Handler<AsyncResult<JsonObject>> resultHandler) {
+        runCommand(commandName, command).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient distinct(String collection, String fieldName, String resultClassname,
+                                Handler<AsyncResult<JsonArray>> resultHandler) {
+        distinct(collection, fieldName, resultClassname).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient distinct(String collection, String fieldName, String resultClassname,
+                                DistinctOptions distinctOptions, Handler<AsyncResult<JsonArray>> resultHandler) {
+        distinct(collection, fieldName, resultClassname, distinctOptions).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient distinctWithQuery(String collection, String fieldName, String resultClassname,
+                                         JsonObject query, Handler<AsyncResult<JsonArray>> resultHandler) {
+        distinctWithQuery(collection, fieldName, resultClassname, query).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient distinctWithQuery(String collection, String fieldName, String resultClassname,
+                                         JsonObject query, DistinctOptions distinctOptions,
+                                         Handler<AsyncResult<JsonArray>> resultHandler) {
+        distinctWithQuery(collection, fieldName, resultClassname, query, distinctOptions).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient createDefaultGridFsBucketService(Handler<AsyncResult<MongoGridFsClient>> resultHandler) {
+        createDefaultGridFsBucketService().onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public MongoClient createGridFsBucketService(String bucketName,
+                                                 Handler<AsyncResult<MongoGridFsClient>> resultHandler) {
+        createGridFsBucketService(bucketName).onComplete(resultHandler);
+        return this;
+    }
+
+    @Override
+    public void close(Handler<AsyncResult<Void>> handler) {
+        close().onComplete(handler);
+    }
+
+    private List<JsonObject> find(String collection, JsonObject query, FindOptions options) {
+        MemoryCollection existing = database.existing(collection);
+        return existing == null ? new ArrayList<>() : existing.find(query, options);
+    }
+
+    private JsonArray distinct(String collection, String fieldName, JsonObject query) {
+        MemoryCollection existing = database.existing(collection);
+        return existing == null ? new JsonArray() : existing.distinct(fieldName, query);
+    }
+
+    private MongoClientDeleteResult remove(String collection, JsonObject query, boolean multi) {
+        MemoryCollection existing = database.existing(collection);
+        return new MongoClientDeleteResult(existing == null ? 0 : existing.delete(query, multi, null).size());
+    }
+
+    /**
+     * The collection, failing as Mongo does (NamespaceNotFound) if it does not exist.
+     */
+    private MemoryCollection existing(String collection) {
+        MemoryCollection existing = database.existing(collection);
+        if (existing == null) {
+            throw new MongoException(26, "ns does not exist: " + collection);
+        }
+        return existing;
+    }
+
+    private static JsonObject replacement(JsonObject replace) {
+        if (!Updates.isReplacement(replace)) {
+            throw new IllegalArgumentException("Replacement document must not contain update operators");
+        }
+        return replace;
+    }
+
+    /**
+     * Runs {@code operation} now and completes with its outcome on the caller's context.
+     */
+    private <T> Future<T> run(Supplier<T> operation) {
+        database.countRequest();
+        Context context = vertx.getOrCreateContext();
+        Promise<T> promise = Promise.promise();
+        try {
+            T result = operation.get();
+            context.runOnContext(v -> promise.complete(result));
+        } catch (RuntimeException e) {
+            context.runOnContext(v -> promise.fail(e));
+        }
+        return promise.future();
+    }
+
+    private ReadStream<JsonObject> stream(Supplier<List<JsonObject>> operation) {
+        database.countRequest();
+        Context context = vertx.getOrCreateContext();
+        try {
+            return ListReadStream.of(context, operation.get());
+        } catch (RuntimeException e) {
+            return ListReadStream.failed(context, e);
+        }
+    }
+
+    private <T> Future<T> unsupported(String feature) {
+        return Future.failedFuture(
+                new UnsupportedOperationException("Not supported by the in-memory backend: " + feature));
+    }
+}
@@ -0,0 +1,117 @@
+package com.teamhub.common.mongo.memory;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.List;
+
+/**
+ * A {@link ReadStream} over results computed up front, emitted on the caller's context once a
+ * handler is set (never during the call that sets it), honouring pause and fetch.
+ */
+final class ListReadStream<T> implements ReadStream<T> {
+
+    private final Context context;
+    private final List<T> items;
+    private final Throwable failure;
+    // Handlers may be set from another thread than the context's (e.g. a test's main thread): a
+    // drain that misses one clears scheduled first, so setting it schedules another
+    private volatile Handler<T> handler;
+    private volatile Handler<Void> endHandler;
+    private volatile Handler<Throwable> exceptionHandler;
+    private volatile long demand = Long.MAX_VALUE;
+    private volatile boolean scheduled;
+    private volatile boolean done;
+    private int next;
+
+    private ListReadStream(Context context, List<T> items, Throwable failure) {
+        this.context = context;
+        this.items = items;
+        this.failure = failure;
+    }
+
+    static <T> ListReadStream<T> of(Context context, List<T> items) {
+        return new ListReadStream<>(context, items, null);
+    }
+
+    static <T> ListReadStream<T> failed(Context context, Throwable failure) {
+        return new ListReadStream<>(context, List.of(), failure);
+    }
+
+    @Override
+    public ReadStream<T> exceptionHandler(Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        schedule();
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> handler(Handler<T> handler) {
+        this.handler = handler;
+        schedule();
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> pause() {
+        demand = 0;
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> resume() {
+        return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public ReadStream<T> fetch(long amount) {
+        demand = demand + amount < 0 ? Long.MAX_VALUE : demand + amount;
+        schedule();
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        schedule();
+        return this;
+    }
+
+    private void schedule() {
+        if (!scheduled && !done) {
+            scheduled = true;
+            context.runOnContext(v -> {
+                scheduled = false;
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        if (done) {
+            return;
+        }
+        if (failure != null) {
+            if (exceptionHandler != null) {
+                done = true;
+                exceptionHandler.handle(failure);
+            }
+            return;
+        }
+        if (handler == null) {
+            return;
+        }
+        while (demand > 0 && next < items.size()) {
+            if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+            handler.handle(items.get(next++));
+        }
+        Handler<Void> end = endHandler;
+        if (next == items.size() && end != null) {
+            done = true;
+            end.handle(null);
+        }
+    }
+}
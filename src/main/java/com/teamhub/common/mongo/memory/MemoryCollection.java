@@ -0,0 +1,596 @@
+package com.teamhub.common.mongo.memory;
+
+import com.mongodb.MongoException;
+import com.teamhub.common.mongo.MongoDates;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.IndexOptions;
+import io.vertx.ext.mongo.MongoClientBulkWriteResult;
+import io.vertx.ext.mongo.MongoClientUpdateResult;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * One collection: documents in a concurrent hash map by {@code _id} (normalized as index keys are, so
+ * ids equal as Mongo sees them share an entry), plus hash indexes on the leading field of each declared
+ * index.
+ *
+ * Stored documents are never modified; a write swaps in a new version under the lock of the
+ * document's stripe, so reads take no locks and see each document either before or after a write.
+ * As in Mongo, each single-document write is atomic and a multi-document one is not. Writes that
+ * change a unique index's entries are also serialized on one lock, making the duplicate check and the
+ * write atomic. Building or dropping an index excludes all writes.
+ *
+ * TTL indexes are recorded (and reported by {@code listIndexes}) but documents never expire.
+ */
+final class MemoryCollection {
+
+    static final String ID_INDEX = "_id_";
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int INDEX_NOT_FOUND = 27;
+    private static final int INDEX_KEY_SPECS_CONFLICT = 86;
+
+    private record Change(JsonObject before, JsonObject after, boolean modified) {
+    }
+
+    private final String name;
+    private final ConcurrentHashMap<Object, JsonObject> documents = new ConcurrentHashMap<>();
+    private volatile List<MemoryIndex> indexes = List.of();
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    // Held shared by every document write, exclusively while an index is built or dropped
+    private final ReentrantReadWriteLock schemaLock = new ReentrantReadWriteLock();
+    private final ReentrantLock uniqueLock = new ReentrantLock();
+    private final AtomicLong idAccesses = new AtomicLong();
+    private final JsonObject idSince = MongoDates.now();
+
+    MemoryCollection(String name) {
+        this.name = name;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Matching documents (stored versions: copy before handing out) in {@code sort} order, or
+     * {@code _id} order without one.
+     */
+    List<JsonObject> select(JsonObject filter, JsonObject sort) {
+        return select(filter, sort, 0);
+    }
+
+    /**
+     * The first {@code keep} documents {@link #select} would return (all of them when {@code keep} is
+     * 0), without sorting the rest: a page of a large result only costs a bounded heap. Sort keys are
+     * read once per document rather than on every comparison.
+     */
+    List<JsonObject> select(JsonObject filter, JsonObject sort, int keep) {
+        JsonObject query = filter == null ? new JsonObject() : filter;
+        SortKey sortKey = new SortKey(sort);
+        Comparator<Object[]> order = sortKey::compare;
+        List<Object[]> kept = new ArrayList<>();
+        // Max-heap of the best keep so far: the head is the first to give up its place
+        PriorityQueue<Object[]> best = keep > 0 ? new PriorityQueue<>(keep + 1, order.reversed()) : null;
+        for (JsonObject doc : candidates(query)) {
+            if (!Filters.matches(doc, query)) {
+                continue;
+            }
+            if (best == null) {
+                kept.add(sortKey.of(doc));
+            } else {
+                best.add(sortKey.of(doc));
+                if (best.size() > keep) {
+                    best.poll();
+                }
+            }
+        }
+        if (best != null) {
+            kept.addAll(best);
+        }
+        kept.sort(order);
+        List<JsonObject> docs = new ArrayList<>(kept.size());
+        for (Object[] keyed : kept) {
+            docs.add((JsonObject) keyed[keyed.length - 1]);
+        }
+        return docs;
+    }
+
+    List<JsonObject> find(JsonObject filter, FindOptions options) {
+        int skip = Math.max(options.getSkip(), 0);
+        int keep = options.getLimit() > 0 ? (int) Math.min((long) skip + options.getLimit(), Integer.MAX_VALUE) : 0;
+        List<JsonObject> matched = select(filter, options.getSort(), keep);
+        int from = Math.min(skip, matched.size());
+        List<JsonObject> page = new ArrayList<>(matched.size() - from);
+        for (JsonObject doc : matched.subList(from, matched.size())) {
+            page.add(project(doc, options.getFields()));
+        }
+        return page;
+    }
+
+    long count(JsonObject filter) {
+        JsonObject query = filter == null ? new JsonObject() : filter;
+        long count = 0;
+        for (JsonObject doc : candidates(query)) {
+            if (Filters.matches(doc, query)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts a copy of {@code doc}, with a generated {@code _id} if it has none, and returns the stored
+     * version.
+     */
+    JsonObject insert(JsonObject doc) {
+        JsonObject stored = doc.copy();
+        if (!stored.containsKey("_id")) {
+            stored.put("_id", new ObjectId().toHexString());
+        }
+        Object id = stored.getValue("_id");
+        write(id, before -> {
+            if (before != null) {
+                throw duplicateKey(ID_INDEX, new JsonObject().put("_id", id));
+            }
+            return stored;
+        });
+        return stored;
+    }
+
+    MongoClientUpdateResult update(JsonObject filter, JsonObject update, boolean upsert, boolean multi) {
+        long matched = 0;
+        long modified = 0;
+        for (JsonObject candidate : select(filter, null)) {
+            Change change = write(candidate.getValue("_id"), before -> before != null && Filters.matches(before, filter)
+                    ? Updates.apply(before, update, false)
+                    : before);
+            if (change != null) {
+                matched++;
+                modified += change.modified() ? 1 : 0;
+                if (!multi) {
+                    break;
+                }
+            }
+        }
+        if (matched == 0 && upsert) {
+            JsonObject inserted = insert(upsertDocument(filter, update));
+            return new MongoClientUpdateResult(0, new JsonObject().put("_id", inserted.getValue("_id")), 0);
+        }
+        return new MongoClientUpdateResult(matched, null, modified);
+    }
+
+    /**
+     * Updates the first document matching {@code filter} in {@code options}' sort order and returns it
+     * as it was before, or after with {@code returnNew}. Null if nothing matched and nothing was upserted.
+     */
+    JsonObject findOneAndUpdate(JsonObject filter, JsonObject update, FindOptions options, boolean upsert,
+                                boolean returnNew) {
+        for (JsonObject candidate : select(filter, options.getSort())) {
+            Change change = write(candidate.getValue("_id"), before -> before != null && Filters.matches(before, filter)
+                    ? Updates.apply(before, update, false)
+                    : before);
+            if (change != null) {
+                JsonObject result = returnNew ? change.after() : change.before();
+                return project(result, options.getFields());
+            }
+        }
+        if (upsert) {
+            JsonObject inserted = insert(upsertDocument(filter, update));
+            return returnNew ? project(inserted, options.getFields()) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Deletes the first (or, with {@code multi}, every) document matching {@code filter}; returns the
+     * deleted documents.
+     */
+    List<JsonObject> delete(JsonObject filter, boolean multi, JsonObject sort) {
+        List<JsonObject> deleted = new ArrayList<>();
+        for (JsonObject candidate : select(filter, sort)) {
+            Change change = write(candidate.getValue("_id"),
+                    before -> before != null && Filters.matches(before, filter) ? null : before);
+            if (change != null) {
+                deleted.add(change.before().copy());
+                if (!multi) {
+                    break;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Applies {@code operations} in order. Unordered, a failed operation does not stop the others; the
+     * first failure is thrown once all have run.
+     */
+    MongoClientBulkWriteResult bulkWrite(List<BulkOperation> operations, boolean ordered) {
+        long inserted = 0;
+        long matched = 0;
+        long deleted = 0;
+        long modified = 0;
+        List<JsonObject> upserts = new ArrayList<>();
+        List<JsonObject> inserts = new ArrayList<>();
+        RuntimeException failure = null;
+        for (int i = 0; i < operations.size(); i++) {
+            BulkOperation operation = operations.get(i);
+            try {
+                switch (operation.getType()) {
+                    case INSERT -> {
+                        JsonObject stored = insert(operation.getDocument());
+                        inserted++;
+                        inserts.add(new JsonObject().put(MongoClientBulkWriteResult.ID, stored.getValue("_id"))
+                                .put(MongoClientBulkWriteResult.INDEX, i));
+                    }
+                    case UPDATE, REPLACE -> {
+                        MongoClientUpdateResult result = update(operation.getFilter(), operation.getDocument(),
+                                operation.isUpsert(), operation.isMulti());
+                        matched += result.getDocMatched();
+                        modified += result.getDocModified();
+                        if (result.getDocUpsertedId() != null) {
+                            upserts.add(new JsonObject()
+                                    .put(MongoClientBulkWriteResult.ID, result.getDocUpsertedId().getValue("_id"))
+                                    .put(MongoClientBulkWriteResult.INDEX, i));
+                        }
+                    }
+                    case DELETE -> deleted += delete(operation.getFilter(), operation.isMulti(), null).size();
+                }
+            } catch (RuntimeException e) {
+                if (ordered) {
+                    throw e;
+                }
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return new MongoClientBulkWriteResult(inserted, matched, deleted, modified, upserts, inserts);
+    }
+
+    /**
+     * Distinct values of {@code field} among documents matching {@code filter}, array elements counted
+     * individually.
+     */
+    JsonArray distinct(String field, JsonObject filter) {
+        JsonArray values = new JsonArray();
+        for (JsonObject doc : select(filter, null)) {
+            Object value = Values.get(doc, field);
+            JsonArray elements = value instanceof JsonArray array ? array : new JsonArray().add(value);
+            for (Object element : elements) {
+                if (element != null && values.stream().noneMatch(existing -> Values.equal(existing, element))) {
+                    values.add(element);
+                }
+            }
+        }
+        return values;
+    }
+
+    void createIndex(JsonObject keys, IndexOptions options) {
+        String indexName = options.getName() != null ? options.getName() : defaultIndexName(keys);
+        if (indexName.equals(ID_INDEX)) {
+            return;
+        }
+        MemoryIndex index = new MemoryIndex(indexName, keys, options.isUnique(),
+                options.getPartialFilterExpression(), options.getExpireAfter(TimeUnit.SECONDS));
+        schemaLock.writeLock().lock();
+        try {
+            for (MemoryIndex existing : indexes) {
+                if (existing.name().equals(indexName)) {
+                    if (existing.describe().equals(index.describe())) {
+                        return;
+                    }
+                    throw new MongoException(INDEX_KEY_SPECS_CONFLICT,
+                            "An index named " + indexName + " already exists with a different definition");
+                }
+            }
+            for (JsonObject doc : documents.values()) {
+                if (index.isUnique()) {
+                    checkUnique(index, doc.getValue("_id"), doc);
+                }
+                index.add(doc.getValue("_id"), doc);
+            }
+            List<MemoryIndex> updated = new ArrayList<>(indexes);
+            updated.add(index);
+            indexes = List.copyOf(updated);
+        } finally {
+            schemaLock.writeLock().unlock();
+        }
+    }
+
+    void dropIndex(String indexName) {
+        schemaLock.writeLock().lock();
+        try {
+            List<MemoryIndex> remaining = indexes.stream().filter(index -> !index.name().equals(indexName)).toList();
+            if (remaining.size() == indexes.size()) {
+                throw new MongoException(INDEX_NOT_FOUND, "index not found with name [" + indexName + "]");
+            }
+            indexes = remaining;
+        } finally {
+            schemaLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Changes a TTL index's expiry, as {@code collMod} does.
+     */
+    void setExpiry(String indexName, Long expireAfterSeconds) {
+        MemoryIndex index = indexes.stream().filter(candidate -> candidate.name().equals(indexName)).findFirst()
+                .orElseThrow(() -> new MongoException(INDEX_NOT_FOUND, "cannot find index " + indexName));
+        index.setExpireAfterSeconds(expireAfterSeconds);
+    }
+
+    JsonArray listIndexes() {
+        JsonArray list = new JsonArray().add(idIndexDescription());
+        indexes.forEach(index -> list.add(index.describe()));
+        return list;
+    }
+
+    List<JsonObject> indexStats() {
+        List<JsonObject> stats = new ArrayList<>();
+        stats.add(new JsonObject()
+                .put("name", ID_INDEX)
+                .put("key", new JsonObject().put("_id", 1))
+                .put("host", "memory")
+                .put("accesses", new JsonObject().put("ops", idAccesses.get()).put("since", idSince.copy()))
+                .put("spec", idIndexDescription()));
+        indexes.forEach(index -> stats.add(index.stats()));
+        return stats;
+    }
+
+    /**
+     * {@code doc} limited to {@code fields}, which either lists the fields to keep or those to drop.
+     * {@code _id} is kept unless excluded. Always a copy.
+     */
+    static JsonObject project(JsonObject doc, JsonObject fields) {
+        if (fields == null || fields.isEmpty()) {
+            return doc.copy();
+        }
+        // Only an exclusion list if nothing is kept; {_id: 1} alone keeps just the _id
+        boolean inclusion = fields.fieldNames().stream().anyMatch(field -> truthy(fields.getValue(field)));
+        if (!inclusion) {
+            JsonObject projected = doc.copy();
+            fields.fieldNames().forEach(field -> Values.remove(projected, field));
+            return projected;
+        }
+        JsonObject projected = new JsonObject();
+        if (!fields.containsKey("_id") || truthy(fields.getValue("_id"))) {
+            projected.put("_id", doc.getValue("_id"));
+        }
+        for (String field : fields.fieldNames()) {
+            if (!field.equals("_id") && truthy(fields.getValue(field)) && Values.has(doc, field)) {
+                Object value = Values.get(doc, field);
+                Values.set(projected, field, value instanceof JsonObject object ? object.copy()
+                        : value instanceof JsonArray array ? array.copy() : value);
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Orders documents by {@code sort}'s fields and directions, then by {@code _id}.
+     */
+    /**
+     * The values a sort compares, extracted from a document: one per sort field, then {@code _id} as
+     * the tie-break, then the document itself.
+     */
+    private static final class SortKey {
+
+        private final String[] fields;
+        private final int[] directions;
+
+        SortKey(JsonObject sort) {
+            List<String> names = new ArrayList<>();
+            List<Integer> signs = new ArrayList<>();
+            if (sort != null) {
+                for (String field : sort.fieldNames()) {
+                    names.add(field);
+                    signs.add(((Number) sort.getValue(field)).intValue() < 0 ? -1 : 1);
+                }
+            }
+            if (!names.contains("_id")) {
+                names.add("_id");
+                signs.add(1);
+            }
+            fields = names.toArray(new String[0]);
+            directions = signs.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        Object[] of(JsonObject doc) {
+            Object[] key = new Object[fields.length + 1];
+            for (int i = 0; i < fields.length; i++) {
+                key[i] = Values.get(doc, fields[i]);
+            }
+            key[fields.length] = doc;
+            return key;
+        }
+
+        int compare(Object[] a, Object[] b) {
+            for (int i = 0; i < fields.length; i++) {
+                int c = directions[i] * Values.compare(a[i], b[i]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        }
+    }
+
+    static Comparator<JsonObject> order(JsonObject sort) {
+        Comparator<JsonObject> byId = (a, b) -> Values.compare(a.getValue("_id"), b.getValue("_id"));
+        if (sort == null || sort.isEmpty()) {
+            return byId;
+        }
+        Comparator<JsonObject> order = null;
+        for (String field : sort.fieldNames()) {
+            int direction = ((Number) sort.getValue(field)).intValue() < 0 ? -1 : 1;
+            Comparator<JsonObject> byField = (a, b) ->
+                    direction * Values.compare(Values.get(a, field), Values.get(b, field));
+            order = order == null ? byField : order.thenComparing(byField);
+        }
+        return sort.containsKey("_id") ? order : order.thenComparing(byId);
+    }
+
+    /**
+     * Documents that may match {@code filter}: looked up by {@code _id} or through the index that
+     * narrows them down most, or every document when no index applies.
+     */
+    private Collection<JsonObject> candidates(JsonObject filter) {
+        if (filter.containsKey("_id")) {
+            List<Object> ids = idCandidates(filter.getValue("_id"));
+            if (ids != null) {
+                idAccesses.incrementAndGet();
+                return ids.stream().distinct().map(this::stored).filter(Objects::nonNull).toList();
+            }
+        }
+        MemoryIndex best = null;
+        List<Object> bestIds = null;
+        for (MemoryIndex index : indexes) {
+            if (filter.containsKey(index.leadingField()) && Filters.implies(filter, index.partialFilter())) {
+                List<Object> ids = index.candidates(filter.getValue(index.leadingField()));
+                if (ids != null && (bestIds == null || ids.size() < bestIds.size())) {
+                    best = index;
+                    bestIds = ids;
+                }
+            }
+        }
+        if (best == null) {
+            return documents.values();
+        }
+        best.recordAccess();
+        return bestIds.stream().distinct().map(this::stored).filter(Objects::nonNull).toList();
+    }
+
+    private static List<Object> idCandidates(Object condition) {
+        if (!Filters.isOperators(condition)) {
+            return condition instanceof JsonArray ? null : List.of(condition);
+        }
+        JsonObject operators = (JsonObject) condition;
+        if (operators.size() == 1 && operators.getValue("$in") instanceof JsonArray ids) {
+            return ids.getList();
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the document with {@code id} by what {@code change} makes of it (null deletes it),
+     * holding the ID's stripe lock throughout. Returns null if {@code change} returned its argument,
+     * meaning it does not apply.
+     */
+    private Change write(Object id, UnaryOperator<JsonObject> change) {
+        ReentrantLock stripe = stripes[Math.floorMod(Objects.hashCode(Values.indexKey(id)), LOCK_STRIPES)];
+        schemaLock.readLock().lock();
+        stripe.lock();
+        try {
+            JsonObject before = stored(id);
+            JsonObject after = change.apply(before);
+            if (after == before) {
+                return null;
+            }
+            if (before != null && before.equals(after)) {
+                return new Change(before, before, false);
+            }
+            List<MemoryIndex> current = indexes;
+            boolean uniqueChange = current.stream().anyMatch(index -> index.isUnique() && index.changes(before, after));
+            if (uniqueChange) {
+                uniqueLock.lock();
+            }
+            try {
+                if (uniqueChange && after != null) {
+                    for (MemoryIndex index : current) {
+                        if (index.isUnique() && index.changes(before, after)) {
+                            checkUnique(index, id, after);
+                        }
+                    }
+                }
+                for (MemoryIndex index : current) {
+                    if (index.changes(before, after)) {
+                        index.remove(id, before);
+                        index.add(id, after);
+                    }
+                }
+                if (after == null) {
+                    documents.remove(Values.indexKey(id));
+                } else {
+                    documents.put(Values.indexKey(id), after);
+                }
+            } finally {
+                if (uniqueChange) {
+                    uniqueLock.unlock();
+                }
+            }
+            return new Change(before, after, true);
+        } finally {
+            stripe.unlock();
+            schemaLock.readLock().unlock();
+        }
+    }
+
+    private JsonObject stored(Object id) {
+        return documents.get(Values.indexKey(id));
+    }
+
+    /**
+     * Fails if another document already holds {@code doc}'s key in the unique {@code index}.
+     */
+    private void checkUnique(MemoryIndex index, Object id, JsonObject doc) {
+        if (!index.covers(doc)) {
+            return;
+        }
+        for (Object key : Values.indexKeys(Values.get(doc, index.leadingField()))) {
+            for (Object otherId : index.lookup(key)) {
+                JsonObject other = stored(otherId);
+                if (Values.compare(otherId, id) != 0 && index.covers(other) && index.sameKey(doc, other)) {
+                    throw duplicateKey(index.name(), doc);
+                }
+            }
+        }
+    }
+
+    private MongoException duplicateKey(String indexName, JsonObject doc) {
+        return new MongoException(DUPLICATE_KEY, "E11000 duplicate key error collection: " + name
+                + " index: " + indexName
+                + " dup key: " + (indexName.equals(ID_INDEX) ? doc.getValue("_id") : doc.encode()));
+    }
+
+    private static JsonObject upsertDocument(JsonObject filter, JsonObject update) {
+        if (!Updates.isReplacement(update)) {
+            return Updates.apply(Updates.upsertBase(filter), update, true);
+        }
+        JsonObject doc = update.copy();
+        Object id = filter.getValue("_id");
+        if (!doc.containsKey("_id") && id != null && !Filters.isOperators(id)) {
+            doc.put("_id", id);
+        }
+        return doc;
+    }
+
+    private static JsonObject idIndexDescription() {
+        return new JsonObject().put("v", 2).put("key", new JsonObject().put("_id", 1)).put("name", ID_INDEX);
+    }
+
+    private static String defaultIndexName(JsonObject keys) {
+        List<String> parts = new ArrayList<>();
+        keys.fieldNames().forEach(field -> parts.add(field + "_" + keys.getValue(field)));
+        return String.join("_", parts);
+    }
+
+    private static boolean truthy(Object value) {
+        return value instanceof Boolean flag ? flag : value instanceof Number number && number.doubleValue() != 0;
+    }
+}
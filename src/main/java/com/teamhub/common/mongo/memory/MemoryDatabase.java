@@ -0,0 +1,52 @@
+package com.teamhub.common.mongo.memory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The collections of one in-memory database, created on first write as in Mongo.
+ */
+final class MemoryDatabase {
+
+    private final Map<String, MemoryCollection> collections = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * The collection, created if it does not exist yet. For writes.
+     */
+    MemoryCollection collection(String name) {
+        return collections.computeIfAbsent(name, MemoryCollection::new);
+    }
+
+    /**
+     * The collection, or null if it does not exist. For reads, which never create one.
+     */
+    MemoryCollection existing(String name) {
+        return collections.get(name);
+    }
+
+    boolean create(String name) {
+        return collections.putIfAbsent(name, new MemoryCollection(name)) == null;
+    }
+
+    boolean drop(String name) {
+        return collections.remove(name) != null;
+    }
+
+    List<String> names() {
+        return collections.keySet().stream().sorted().toList();
+    }
+
+    /**
+     * Counts one operation, for {@code serverStatus}'s {@code network.numRequests}.
+     */
+    long countRequest() {
+        return requests.incrementAndGet();
+    }
+
+    long requests() {
+        return requests.get();
+    }
+}
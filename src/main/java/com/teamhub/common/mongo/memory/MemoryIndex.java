@@ -0,0 +1,186 @@
+package com.teamhub.common.mongo.memory;
+
+import com.teamhub.common.mongo.MongoDates;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A secondary index: a hash of the leading key field's value to the IDs of the documents holding
+ * it. Array values are indexed per element (multikey), and partial indexes only hold documents
+ * matching their filter. Only equality and {@code $in} on the leading field use it; further key
+ * fields matter for uniqueness only.
+ */
+final class MemoryIndex {
+
+    // ConcurrentHashMap has no null keys; null and missing values are indexed under this
+    private static final Object NULL_KEY = new Object();
+
+    private final String name;
+    private final JsonObject keys;
+    private final String leadingField;
+    private final boolean unique;
+    private final JsonObject partialFilter;
+    private volatile Long expireAfterSeconds;
+    private final Map<Object, Set<Object>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong accesses = new AtomicLong();
+    private final JsonObject since = MongoDates.now();
+
+    MemoryIndex(String name, JsonObject keys, boolean unique, JsonObject partialFilter, Long expireAfterSeconds) {
+        this.name = name;
+        this.keys = keys.copy();
+        this.leadingField = keys.fieldNames().iterator().next();
+        this.unique = unique;
+        this.partialFilter = partialFilter == null ? null : partialFilter.copy();
+        this.expireAfterSeconds = expireAfterSeconds;
+    }
+
+    String name() {
+        return name;
+    }
+
+    String leadingField() {
+        return leadingField;
+    }
+
+    boolean isUnique() {
+        return unique;
+    }
+
+    JsonObject partialFilter() {
+        return partialFilter;
+    }
+
+    void setExpireAfterSeconds(Long seconds) {
+        this.expireAfterSeconds = seconds;
+    }
+
+    boolean covers(JsonObject doc) {
+        return doc != null && (partialFilter == null || Filters.matches(doc, partialFilter));
+    }
+
+    /**
+     * True if the two versions of a document (either may be null) have different entries here.
+     */
+    boolean changes(JsonObject before, JsonObject after) {
+        if (covers(before) != covers(after)) {
+            return true;
+        }
+        if (!covers(before)) {
+            return false;
+        }
+        for (String field : keys.fieldNames()) {
+            if (!Values.equal(Values.get(before, field), Values.get(after, field))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if {@code doc} and {@code other} (both covered) hold the same value in every key field.
+     */
+    boolean sameKey(JsonObject doc, JsonObject other) {
+        for (String field : keys.fieldNames()) {
+            if (!Values.equal(Values.get(doc, field), Values.get(other, field))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(Object id, JsonObject doc) {
+        if (covers(doc)) {
+            for (Object key : Values.indexKeys(Values.get(doc, leadingField))) {
+                entries.computeIfAbsent(bucket(key), k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    void remove(Object id, JsonObject doc) {
+        if (covers(doc)) {
+            for (Object key : Values.indexKeys(Values.get(doc, leadingField))) {
+                entries.computeIfPresent(bucket(key), (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    /**
+     * IDs of the documents whose leading field equals {@code value} (or holds it, for arrays).
+     */
+    Set<Object> lookup(Object value) {
+        return entries.getOrDefault(bucket(Values.indexKey(value)), Collections.emptySet());
+    }
+
+    /**
+     * IDs of the documents matching {@code condition} on the leading field, or null if the index
+     * cannot answer it (a range, an array literal, another operator).
+     */
+    List<Object> candidates(Object condition) {
+        List<Object> ids = new ArrayList<>();
+        if (Filters.isOperators(condition)) {
+            JsonObject operators = (JsonObject) condition;
+            if (operators.size() != 1 || !(operators.getValue("$in") instanceof JsonArray values)) {
+                return null;
+            }
+            for (Object value : values) {
+                ids.addAll(lookup(value));
+            }
+        } else if (condition instanceof JsonArray) {
+            return null;
+        } else {
+            ids.addAll(lookup(condition));
+        }
+        return ids;
+    }
+
+    /**
+     * Counts a query this index served, for {@code $indexStats}.
+     */
+    void recordAccess() {
+        accesses.incrementAndGet();
+    }
+
+    /**
+     * This index as {@code listIndexes} describes it.
+     */
+    JsonObject describe() {
+        JsonObject description = new JsonObject().put("v", 2).put("key", keys.copy()).put("name", name);
+        if (unique) {
+            description.put("unique", true);
+        }
+        if (partialFilter != null) {
+            description.put("partialFilterExpression", partialFilter.copy());
+        }
+        if (expireAfterSeconds != null) {
+            description.put("expireAfterSeconds", expireAfterSeconds);
+        }
+        return description;
+    }
+
+    /**
+     * This index's usage as {@code $indexStats} reports it.
+     */
+    JsonObject stats() {
+        return new JsonObject()
+                .put("name", name)
+                .put("key", keys.copy())
+                .put("host", "memory")
+                .put("accesses", new JsonObject().put("ops", accesses.get()).put("since", since.copy()))
+                .put("spec", describe());
+    }
+
+    private static Object bucket(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+}
@@ -0,0 +1,223 @@
+package com.teamhub.common.mongo.memory;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Runs aggregation pipelines with the stages the reporting queries use: {@code $match},
+ * {@code $lookup} (localField/foreignField), {@code $unwind}, {@code $group}, {@code $project},
+ * {@code $sort}, {@code $skip}, {@code $limit}, {@code $count} and {@code $indexStats}. Unsupported
+ * stages and expressions throw {@link IllegalArgumentException}.
+ */
+final class Pipeline {
+
+    private Pipeline() {
+        // Utility class
+    }
+
+    /**
+     * Runs {@code stages} over {@code collection} (null if it does not exist); {@code collections}
+     * resolves {@code $lookup}'s {@code from}, giving null for collections that do not exist.
+     */
+    static List<JsonObject> run(MemoryCollection collection, JsonArray stages,
+                                Function<String, MemoryCollection> collections) {
+        List<JsonObject> docs = null;
+        for (int i = 0; i < stages.size(); i++) {
+            JsonObject stage = stages.getJsonObject(i);
+            String operator = stage.fieldNames().iterator().next();
+            Object spec = stage.getValue(operator);
+            if (docs == null) {
+                if (operator.equals("$indexStats")) {
+                    docs = collection == null ? new ArrayList<>() : collection.indexStats();
+                    continue;
+                }
+                if (operator.equals("$match")) {
+                    // A leading $match can use the collection's indexes
+                    docs = collection == null ? new ArrayList<>() : copies(collection.select((JsonObject) spec, null));
+                    continue;
+                }
+                docs = collection == null ? new ArrayList<>() : copies(collection.select(null, null));
+            }
+            docs = switch (operator) {
+                case "$match" -> docs.stream().filter(doc -> Filters.matches(doc, (JsonObject) spec)).toList();
+                case "$sort" -> docs.stream().sorted(MemoryCollection.order((JsonObject) spec)).toList();
+                case "$skip" -> docs.stream().skip(((Number) spec).longValue()).toList();
+                case "$limit" -> docs.stream().limit(((Number) spec).longValue()).toList();
+                case "$project" -> docs.stream().map(doc -> project(doc, (JsonObject) spec)).toList();
+                case "$lookup" -> lookup(docs, (JsonObject) spec, collections);
+                case "$unwind" -> unwind(docs, spec);
+                case "$group" -> group(docs, (JsonObject) spec);
+                case "$count" -> docs.isEmpty() ? List.of() : List.of(new JsonObject().put((String) spec, docs.size()));
+                default -> throw new IllegalArgumentException("Unsupported aggregation stage " + operator);
+            };
+        }
+        return docs == null ? copies(collection == null ? List.of() : collection.select(null, null)) : docs;
+    }
+
+    private static List<JsonObject> lookup(List<JsonObject> docs, JsonObject spec,
+                                           Function<String, MemoryCollection> collections) {
+        MemoryCollection from = collections.apply(spec.getString("from"));
+        String localField = spec.getString("localField");
+        String foreignField = spec.getString("foreignField");
+        List<JsonObject> joined = new ArrayList<>(docs.size());
+        for (JsonObject doc : docs) {
+            Object local = Values.get(doc, localField);
+            JsonObject condition = new JsonObject().put(foreignField,
+                    local instanceof JsonArray values ? new JsonObject().put("$in", values) : local);
+            JsonArray matches = new JsonArray(from == null ? new ArrayList<>() : copies(from.select(condition, null)));
+            JsonObject result = doc.copy();
+            Values.set(result, spec.getString("as"), matches);
+            joined.add(result);
+        }
+        return joined;
+    }
+
+    private static List<JsonObject> unwind(List<JsonObject> docs, Object spec) {
+        String path = spec instanceof JsonObject options ? options.getString("path") : (String) spec;
+        boolean preserveEmpty = spec instanceof JsonObject options
+                && options.getBoolean("preserveNullAndEmptyArrays", false);
+        String field = fieldRef(path);
+        List<JsonObject> unwound = new ArrayList<>();
+        for (JsonObject doc : docs) {
+            Object value = Values.get(doc, field);
+            if (value instanceof JsonArray array && !array.isEmpty()) {
+                for (Object element : array) {
+                    JsonObject copy = doc.copy();
+                    Values.set(copy, field, element);
+                    unwound.add(copy);
+                }
+            } else if (value != null && !(value instanceof JsonArray)) {
+                unwound.add(doc);
+            } else if (preserveEmpty) {
+                JsonObject copy = doc.copy();
+                Values.remove(copy, field);
+                unwound.add(copy);
+            }
+        }
+        return unwound;
+    }
+
+    private static List<JsonObject> group(List<JsonObject> docs, JsonObject spec) {
+        // Keyed by the index form of _id, so that e.g. 1 and 1L land in one group
+        Map<Object, JsonObject> groups = new LinkedHashMap<>();
+        for (JsonObject doc : docs) {
+            Object id = evaluate(doc, spec.getValue("_id"));
+            JsonObject group = groups.computeIfAbsent(Values.indexKey(id), k -> new JsonObject().put("_id", id));
+            for (String field : spec.fieldNames()) {
+                if (field.equals("_id")) {
+                    continue;
+                }
+                JsonObject accumulator = spec.getJsonObject(field);
+                String operator = accumulator.fieldNames().iterator().next();
+                Object value = evaluate(doc, accumulator.getValue(operator));
+                Object current = group.getValue(field);
+                switch (operator) {
+                    case "$sum" -> group.put(field, add(current, value instanceof Number number ? number : 0));
+                    case "$min" -> {
+                        if (value != null && (current == null || Values.compare(value, current) < 0)) {
+                            group.put(field, value);
+                        }
+                    }
+                    case "$max" -> {
+                        if (value != null && (current == null || Values.compare(value, current) > 0)) {
+                            group.put(field, value);
+                        }
+                    }
+                    case "$first" -> {
+                        if (!group.containsKey(field)) {
+                            group.put(field, value);
+                        }
+                    }
+                    case "$last" -> group.put(field, value);
+                    case "$push" -> {
+                        if (current == null) {
+                            group.put(field, new JsonArray());
+                        }
+                        group.getJsonArray(field).add(value);
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported accumulator " + operator);
+                }
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static JsonObject project(JsonObject doc, JsonObject spec) {
+        boolean computed = spec.fieldNames().stream()
+                .anyMatch(field -> !(spec.getValue(field) instanceof Number)
+                        && !(spec.getValue(field) instanceof Boolean));
+        if (!computed) {
+            return MemoryCollection.project(doc, spec);
+        }
+        JsonObject projected = new JsonObject();
+        if (!spec.containsKey("_id")) {
+            projected.put("_id", doc.getValue("_id"));
+        }
+        for (String field : spec.fieldNames()) {
+            Object expression = spec.getValue(field);
+            if (expression instanceof Number || expression instanceof Boolean) {
+                boolean include = expression instanceof Boolean flag ? flag : ((Number) expression).doubleValue() != 0;
+                if (include && Values.has(doc, field)) {
+                    Values.set(projected, field, Values.get(doc, field));
+                }
+            } else {
+                Values.set(projected, field, evaluate(doc, expression));
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * The value of an expression: {@code "$field"} references, {@code {$size: ...}}, objects of
+     * expressions, or constants.
+     */
+    private static Object evaluate(JsonObject doc, Object expression) {
+        if (expression instanceof String text && text.startsWith("$")) {
+            return Values.get(doc, fieldRef(text));
+        }
+        if (expression instanceof JsonObject object && !object.isEmpty() && Values.date(object) == null) {
+            String first = object.fieldNames().iterator().next();
+            if (first.equals("$size")) {
+                if (!(evaluate(doc, object.getValue("$size")) instanceof JsonArray array)) {
+                    throw new IllegalArgumentException("The argument to $size must be an array");
+                }
+                return array.size();
+            }
+            if (first.startsWith("$")) {
+                throw new IllegalArgumentException("Unsupported expression " + first);
+            }
+            JsonObject evaluated = new JsonObject();
+            object.fieldNames().forEach(field -> evaluated.put(field, evaluate(doc, object.getValue(field))));
+            return evaluated;
+        }
+        return expression;
+    }
+
+    private static String fieldRef(String path) {
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("Expected a field path starting with $: " + path);
+        }
+        return path.substring(1);
+    }
+
+    private static Number add(Object current, Number value) {
+        Number sum = current instanceof Number number ? number : 0;
+        if (sum instanceof Double || value instanceof Double) {
+            return sum.doubleValue() + value.doubleValue();
+        }
+        long total = sum.longValue() + value.longValue();
+        return total == (int) total ? (Number) (int) total : (Number) total;
+    }
+
+    private static List<JsonObject> copies(List<JsonObject> docs) {
+        List<JsonObject> copies = new ArrayList<>(docs.size());
+        docs.forEach(doc -> copies.add(doc.copy()));
+        return copies;
+    }
+}
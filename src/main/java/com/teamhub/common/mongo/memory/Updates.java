@@ -0,0 +1,173 @@
+package com.teamhub.common.mongo.memory;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies Mongo update documents: {@code $set}, {@code $unset}, {@code $inc}, {@code $setOnInsert},
+ * {@code $addToSet}, {@code $push} (with {@code $each} and {@code $slice}) and {@code $pull}, or a whole
+ * replacement document. Unsupported
+ * operators throw {@link IllegalArgumentException}.
+ */
+final class Updates {
+
+    private Updates() {
+        // Utility class
+    }
+
+    /**
+     * True if {@code update} is a replacement document rather than a set of operators.
+     */
+    static boolean isReplacement(JsonObject update) {
+        return update.isEmpty() || !update.fieldNames().iterator().next().startsWith("$");
+    }
+
+    /**
+     * {@code doc} with {@code update} applied, as a new document; {@code doc} is not modified.
+     * {@code inserting} enables {@code $setOnInsert}.
+     */
+    static JsonObject apply(JsonObject doc, JsonObject update, boolean inserting) {
+        if (isReplacement(update)) {
+            JsonObject replaced = update.copy();
+            if (doc.containsKey("_id")) {
+                replaced.put("_id", doc.getValue("_id"));
+            }
+            return replaced;
+        }
+        JsonObject updated = doc.copy();
+        for (Map.Entry<String, Object> entry : update) {
+            if (!(entry.getValue() instanceof JsonObject fields)) {
+                throw new IllegalArgumentException(entry.getKey() + " takes an object of fields");
+            }
+            for (Map.Entry<String, Object> field : fields) {
+                String path = field.getKey();
+                Object value = copy(field.getValue());
+                switch (entry.getKey()) {
+                    case "$set" -> Values.set(updated, path, value);
+                    case "$setOnInsert" -> {
+                        if (inserting) {
+                            Values.set(updated, path, value);
+                        }
+                    }
+                    case "$unset" -> Values.remove(updated, path);
+                    case "$inc" -> Values.set(updated, path, add(Values.get(updated, path), (Number) value));
+                    case "$max" -> {
+                        Object existing = Values.get(updated, path);
+                        if (existing == null || Values.compare(value, existing) > 0) {
+                            Values.set(updated, path, value);
+                        }
+                    }
+                    case "$addToSet" -> {
+                        JsonArray array = array(updated, path);
+                        for (Object element : each(value)) {
+                            if (array.stream().noneMatch(existing -> Values.equal(existing, element))) {
+                                array.add(element);
+                            }
+                        }
+                    }
+                    case "$push" -> {
+                        JsonArray array = array(updated, path);
+                        each(value).forEach(array::add);
+                        if (value instanceof JsonObject modifiers && modifiers.getValue("$slice") instanceof Number slice) {
+                            Values.set(updated, path, slice(array, slice.intValue()));
+                        }
+                    }
+                    case "$pull" -> {
+                        Object existing = Values.get(updated, path);
+                        if (existing instanceof JsonArray array) {
+                            JsonArray kept = new JsonArray();
+                            for (Object element : array) {
+                                if (!Filters.matchesValue(element, value)) {
+                                    kept.add(element);
+                                }
+                            }
+                            Values.set(updated, path, kept);
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported update operator " + entry.getKey());
+                }
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * The document an upsert starts from: the equality conditions of {@code filter}, including those
+     * inside a top-level {@code $and}.
+     */
+    static JsonObject upsertBase(JsonObject filter) {
+        JsonObject base = new JsonObject();
+        for (Map.Entry<String, Object> condition : filter) {
+            if (condition.getKey().equals("$and") && condition.getValue() instanceof JsonArray clauses) {
+                for (Object clause : clauses) {
+                    upsertBase((JsonObject) clause)
+                            .forEach(field -> Values.set(base, field.getKey(), field.getValue()));
+                }
+            } else if (!condition.getKey().startsWith("$") && !Filters.isOperators(condition.getValue())) {
+                Values.set(base, condition.getKey(), copy(condition.getValue()));
+            }
+        }
+        return base;
+    }
+
+    private static JsonArray array(JsonObject doc, String path) {
+        Object existing = Values.get(doc, path);
+        if (existing == null) {
+            JsonArray array = new JsonArray();
+            Values.set(doc, path, array);
+            return array;
+        }
+        if (!(existing instanceof JsonArray array)) {
+            throw new IllegalArgumentException("Field " + path + " is not an array");
+        }
+        return array;
+    }
+
+    private static JsonArray each(Object value) {
+        if (value instanceof JsonObject object && object.getValue("$each") instanceof JsonArray elements) {
+            return elements;
+        }
+        return new JsonArray().add(value);
+    }
+
+    /**
+     * The first {@code count} elements of {@code array}, or the last {@code -count} if negative.
+     */
+    private static JsonArray slice(JsonArray array, int count) {
+        int size = array.size();
+        List<Object> kept = count >= 0
+                ? array.getList().subList(0, Math.min(count, size))
+                : array.getList().subList(Math.max(0, size + count), size);
+        return new JsonArray(new ArrayList<>(kept));
+    }
+
+    private static Number add(Object current, Number increment) {
+        if (current == null) {
+            return increment;
+        }
+        if (!(current instanceof Number number)) {
+            throw new IllegalArgumentException("$inc applied to a non-numeric field");
+        }
+        if (number instanceof Double || number instanceof Float || increment instanceof Double
+                || increment instanceof Float) {
+            return number.doubleValue() + increment.doubleValue();
+        }
+        long sum = number.longValue() + increment.longValue();
+        boolean ints = number instanceof Integer && increment instanceof Integer;
+        return ints && sum == (int) sum ? (Number) (int) sum : (Number) sum;
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof JsonObject object) {
+            return object.copy();
+        }
+        if (value instanceof JsonArray array) {
+            return array.copy();
+        }
+        return value;
+    }
+}
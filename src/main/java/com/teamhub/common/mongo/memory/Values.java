@@ -0,0 +1,195 @@
+package com.teamhub.common.mongo.memory;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Field access and BSON-style comparison for documents held as {@link JsonObject}s. Dates are
+ * extended-JSON {@code {"$date": "..."}} objects and compare as instants.
+ */
+final class Values {
+
+    private Values() {
+        // Utility class
+    }
+
+    /**
+     * The value at a dotted path, or null if any part of it is missing.
+     */
+    static Object get(JsonObject doc, String path) {
+        if (path.indexOf('.') < 0) {
+            return doc.getValue(path);
+        }
+        Object current = doc;
+        for (String part : path.split("\\.")) {
+            if (!(current instanceof JsonObject object)) {
+                return null;
+            }
+            current = object.getValue(part);
+        }
+        return current;
+    }
+
+    static boolean has(JsonObject doc, String path) {
+        int dot = path.lastIndexOf('.');
+        Object parent = dot < 0 ? doc : get(doc, path.substring(0, dot));
+        return parent instanceof JsonObject object && object.containsKey(path.substring(dot + 1));
+    }
+
+    static void set(JsonObject doc, String path, Object value) {
+        String[] parts = path.split("\\.");
+        JsonObject current = doc;
+        for (int i = 0; i < parts.length - 1; i++) {
+            Object next = current.getValue(parts[i]);
+            if (!(next instanceof JsonObject)) {
+                next = new JsonObject();
+                current.put(parts[i], next);
+            }
+            current = (JsonObject) next;
+        }
+        current.put(parts[parts.length - 1], value);
+    }
+
+    static void remove(JsonObject doc, String path) {
+        int dot = path.lastIndexOf('.');
+        Object parent = dot < 0 ? doc : get(doc, path.substring(0, dot));
+        if (parent instanceof JsonObject object) {
+            object.remove(path.substring(dot + 1));
+        }
+    }
+
+    /**
+     * The instant an extended-JSON date holds, or null if {@code value} is not one.
+     */
+    static Instant date(Object value) {
+        if (!(value instanceof JsonObject object) || object.size() != 1) {
+            return null;
+        }
+        Object date = object.getValue("$date");
+        if (date instanceof Number millis) {
+            return Instant.ofEpochMilli(millis.longValue());
+        }
+        return date instanceof String iso ? OffsetDateTime.parse(iso).toInstant() : null;
+    }
+
+    /**
+     * Mongo's ordering of types: null, numbers, strings, objects, arrays, booleans, dates.
+     */
+    static int typeRank(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return 2;
+        }
+        if (date(value) != null) {
+            return 6;
+        }
+        if (value instanceof JsonObject || value instanceof Map) {
+            return 3;
+        }
+        if (value instanceof JsonArray || value instanceof List) {
+            return 4;
+        }
+        if (value instanceof Boolean) {
+            return 5;
+        }
+        return 7;
+    }
+
+    static int compare(Object a, Object b) {
+        // Fast path for the common case (string ids, sorting on a string field)
+        if (a instanceof String x && b instanceof String y) {
+            return x.compareTo(y);
+        }
+        int rank = Integer.compare(typeRank(a), typeRank(b));
+        if (rank != 0) {
+            return rank;
+        }
+        return switch (typeRank(a)) {
+            case 0 -> 0;
+            case 1 -> compareNumbers((Number) a, (Number) b);
+            case 2 -> ((String) a).compareTo((String) b);
+            case 5 -> Boolean.compare((Boolean) a, (Boolean) b);
+            case 6 -> date(a).compareTo(date(b));
+            default -> String.valueOf(a).compareTo(String.valueOf(b));
+        };
+    }
+
+    /**
+     * Equality as a query sees it: numbers by value whatever their Java type, dates by instant.
+     */
+    static boolean equal(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return compareNumbers(x, y) == 0;
+        }
+        Instant dateA = date(a);
+        if (dateA != null) {
+            return dateA.equals(date(b));
+        }
+        if (a instanceof JsonArray x && b instanceof JsonArray y) {
+            if (x.size() != y.size()) {
+                return false;
+            }
+            for (int i = 0; i < x.size(); i++) {
+                if (!equal(x.getValue(i), y.getValue(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * A key under which equal values (in the sense of {@link #equal}) hash alike, for hash indexes.
+     */
+    static Object indexKey(Object value) {
+        if (value instanceof Number number) {
+            double d = number.doubleValue();
+            return d == Math.rint(d) && !Double.isInfinite(d) ? (Object) number.longValue() : (Object) d;
+        }
+        Instant date = date(value);
+        if (date != null) {
+            return date;
+        }
+        return value;
+    }
+
+    /**
+     * The index keys a value contributes: one per element for arrays (multikey), otherwise one.
+     */
+    static List<Object> indexKeys(Object value) {
+        List<Object> keys = new ArrayList<>();
+        if (value instanceof JsonArray array) {
+            for (Object element : array) {
+                keys.add(indexKey(element));
+            }
+            if (array.isEmpty()) {
+                keys.add(null);
+            }
+        } else {
+            keys.add(indexKey(value));
+        }
+        return keys;
+    }
+
+    private static int compareNumbers(Number a, Number b) {
+        if ((a instanceof Integer || a instanceof Long) && (b instanceof Integer || b instanceof Long)) {
+            return Long.compare(a.longValue(), b.longValue());
+        }
+        return Double.compare(a.doubleValue(), b.doubleValue());
+    }
+}
@@ -0,0 +1,217 @@
+package com.teamhub.common.patch;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.MongoUpdate;
+import com.teamhub.config.AppConfig;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An RFC 6902 JSON Patch translated into one Mongo update, so it applies atomically without reading
+ * the document first:
+ * <ul>
+ *   <li>{@code add} / {@code replace} of a field: {@code $set}; {@code remove}: {@code $unset}</li>
+ *   <li>{@code add} to {@code /tags/-}: {@code $addToSet}; {@code remove} of {@code /tags/<value>}:
+ *       {@code $pull}</li>
+ *   <li>{@code test}: a condition in the update filter, with {@code test /version} becoming the
+ *       expected version</li>
+ * </ul>
+ * Operations that need the current document ({@code move}, {@code copy}, positions within arrays) are
+ * rejected. Each field may be changed by one operation only, except that several elements may be
+ * added to, or removed from, the same array.
+ */
+public final class JsonPatch {
+
+    private static final String VERSION_PATH = "/" + MongoRepository.VERSION_FIELD;
+
+    private final JsonObject predicate;
+    private final Long expectedVersion;
+    private final Map<String, Object> sets;
+    private final Map<String, JsonArray> additions;
+    private final Map<String, JsonArray> removals;
+
+    private JsonPatch(JsonObject predicate, Long expectedVersion, Map<String, Object> sets,
+                      Map<String, JsonArray> additions, Map<String, JsonArray> removals) {
+        this.predicate = predicate;
+        this.expectedVersion = expectedVersion;
+        this.sets = sets;
+        this.additions = additions;
+        this.removals = removals;
+    }
+
+    /**
+     * Parses and validates {@code operations} against {@code schema}. Malformed patches fail with
+     * BAD_REQUEST, values that do not fit their field with VALIDATION_ERROR.
+     */
+    public static JsonPatch parse(JsonArray operations, PatchSchema schema) {
+        if (operations == null || operations.isEmpty()) {
+            throw badRequest("Patch must hold at least one operation");
+        }
+        if (operations.size() > AppConfig.JSON_PATCH_MAX_OPERATIONS) {
+            throw badRequest("Patch must hold at most " + AppConfig.JSON_PATCH_MAX_OPERATIONS + " operations");
+        }
+        JsonObject predicate = new JsonObject();
+        Long expectedVersion = null;
+        // null values stand for $unset
+        Map<String, Object> sets = new LinkedHashMap<>();
+        Map<String, JsonArray> additions = new LinkedHashMap<>();
+        Map<String, JsonArray> removals = new LinkedHashMap<>();
+        Map<String, String> changedBy = new HashMap<>();
+
+        for (Object entry : operations) {
+            if (!(entry instanceof JsonObject operation)) {
+                throw badRequest("Patch operations must be objects");
+            }
+            String op = operation.getValue("op") instanceof String name ? name : null;
+            String path = operation.getValue("path") instanceof String pointer ? pointer : null;
+            if (op == null || path == null) {
+                throw badRequest("Patch operations need an 'op' and a 'path'");
+            }
+            if ((op.equals("add") || op.equals("replace") || op.equals("test")) && !operation.containsKey("value")) {
+                throw badRequest("'" + op + "' of " + path + " needs a 'value'");
+            }
+            Object value = operation.getValue("value");
+
+            if (op.equals("test") && path.equals(VERSION_PATH)) {
+                if (expectedVersion != null) {
+                    throw badRequest("Patch tests " + path + " more than once");
+                }
+                expectedVersion = version(value);
+                continue;
+            }
+
+            String[] tokens = tokens(path);
+            PatchSchema.Field field = schema.field(tokens[0]);
+            if (field == null || tokens.length > 2
+                    || (tokens.length == 2 && field.kind() != PatchSchema.Kind.STRING_SET)) {
+                throw new AppException(ErrorCode.VALIDATION_ERROR, "Path " + path + " cannot be patched");
+            }
+            String name = field.name();
+            String element = tokens.length == 2 ? tokens[1] : null;
+
+            switch (op) {
+                case "test" -> {
+                    if (element != null) {
+                        throw badRequest("'test' of " + path + " is not supported; test the whole field");
+                    }
+                    if (predicate.containsKey(name)) {
+                        throw badRequest("Patch tests " + path + " more than once");
+                    }
+                    predicate.put(name, field.convert(value));
+                }
+                case "add", "replace" -> {
+                    if (element == null) {
+                        claim(changedBy, name, "set", path);
+                        sets.put(name, field.convert(value));
+                    } else if (op.equals("add") && element.equals("-")) {
+                        claim(changedBy, name, "add", path);
+                        additions.computeIfAbsent(name, n -> new JsonArray()).add(field.convertElement(value));
+                    } else {
+                        throw positional(path);
+                    }
+                }
+                case "remove" -> {
+                    if (element == null) {
+                        claim(changedBy, name, "set", path);
+                        if (field.kind() == PatchSchema.Kind.STRING_SET) {
+                            sets.put(name, new JsonArray());
+                        } else if (field.removable()) {
+                            sets.put(name, null);
+                        } else {
+                            throw new AppException(ErrorCode.VALIDATION_ERROR,
+                                    "Field '" + name + "' cannot be removed");
+                        }
+                    } else if (element.equals("-") || element.chars().allMatch(Character::isDigit)) {
+                        throw positional(path);
+                    } else {
+                        claim(changedBy, name, "remove", path);
+                        removals.computeIfAbsent(name, n -> new JsonArray()).add(element);
+                    }
+                }
+                case "move", "copy" -> throw badRequest("'" + op + "' is not supported");
+                default -> throw badRequest("Unknown patch operation '" + op + "'");
+            }
+        }
+        if (sets.isEmpty() && additions.isEmpty() && removals.isEmpty()) {
+            throw badRequest("Patch changes nothing");
+        }
+        return new JsonPatch(predicate, expectedVersion, sets, additions, removals);
+    }
+
+    /**
+     * Conditions from the patch's {@code test} operations, to be ANDed into the update filter.
+     */
+    public JsonObject predicate() {
+        return predicate.copy();
+    }
+
+    /**
+     * Version given by {@code test /version}, or null if the patch does not test it.
+     */
+    public Long expectedVersion() {
+        return expectedVersion;
+    }
+
+    /**
+     * The patch's changes, as a new update each call.
+     */
+    public MongoUpdate toUpdate() {
+        MongoUpdate update = MongoUpdate.create();
+        sets.forEach((field, value) -> {
+            if (value == null) {
+                update.unset(field);
+            } else {
+                update.set(field, value);
+            }
+        });
+        additions.forEach((field, values) -> update.addToSet(field, values.copy()));
+        removals.forEach((field, values) -> update.pull(field, values.copy()));
+        return update;
+    }
+
+    /**
+     * The field (and array element, if any) a JSON Pointer names.
+     */
+    private static String[] tokens(String path) {
+        if (!path.startsWith("/") || path.length() == 1) {
+            throw badRequest("Invalid path " + path);
+        }
+        String[] tokens = path.substring(1).split("/", -1);
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = tokens[i].replace("~1", "/").replace("~0", "~");
+        }
+        return tokens;
+    }
+
+    /**
+     * Records that {@code field} is changed by an operation of {@code kind}. Mongo rejects an update
+     * touching a field twice, so only further additions or further removals may share it.
+     */
+    private static void claim(Map<String, String> changedBy, String field, String kind, String path) {
+        String previous = changedBy.putIfAbsent(field, kind);
+        if (previous != null && (!previous.equals(kind) || kind.equals("set"))) {
+            throw badRequest("Patch changes " + path + " more than once");
+        }
+    }
+
+    private static Long version(Object value) {
+        if (!(value instanceof Integer || value instanceof Long) || ((Number) value).longValue() < 0) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR, "Field 'version' must be a non-negative integer");
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static AppException positional(String path) {
+        return badRequest("Array positions are not supported (" + path + "); add with /-, remove by value");
+    }
+
+    private static AppException badRequest(String message) {
+        return new AppException(ErrorCode.BAD_REQUEST, message);
+    }
+}
@@ -0,0 +1,130 @@
+package com.teamhub.common.patch;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.MongoDates;
+import io.vertx.core.json.JsonArray;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The fields of a model that {@link JsonPatch} may change, with the type each must hold. Fields not
+ * listed (IDs, ownership, counters, timestamps) cannot be patched.
+ */
+public final class PatchSchema {
+
+    enum Kind {
+        TEXT, ENUM, DATE, STRING_SET
+    }
+
+    record Field(String name, Kind kind, boolean removable, Class<? extends Enum<?>> enumClass) {
+
+        /**
+         * {@code value} in its stored form, or a VALIDATION_ERROR if it does not fit the field. Null
+         * (only allowed for removable fields) means absent.
+         */
+        Object convert(Object value) {
+            if (value == null) {
+                if (!removable) {
+                    throw invalid("must not be null");
+                }
+                return null;
+            }
+            return switch (kind) {
+                case TEXT -> {
+                    if (!(value instanceof String text) || (!removable && text.isBlank())) {
+                        throw invalid(removable ? "must be a string" : "must be a non-blank string");
+                    }
+                    yield text;
+                }
+                case ENUM -> {
+                    if (value instanceof String name) {
+                        for (Enum<?> constant : enumClass.getEnumConstants()) {
+                            if (constant.name().equals(name)) {
+                                yield name;
+                            }
+                        }
+                    }
+                    throw invalid("has no value " + value);
+                }
+                case DATE -> {
+                    if (!(value instanceof String date)) {
+                        throw invalid("must be an ISO-8601 date");
+                    }
+                    yield MongoDates.parse(date);
+                }
+                case STRING_SET -> {
+                    if (!(value instanceof JsonArray array)) {
+                        throw invalid("must be an array of strings");
+                    }
+                    for (Object element : array) {
+                        convertElement(element);
+                    }
+                    yield array;
+                }
+            };
+        }
+
+        /**
+         * An element of a {@link Kind#STRING_SET} field.
+         */
+        String convertElement(Object element) {
+            if (!(element instanceof String text) || text.isBlank()) {
+                throw invalid("must only hold non-blank strings");
+            }
+            return text;
+        }
+
+        private AppException invalid(String reason) {
+            return new AppException(ErrorCode.VALIDATION_ERROR, "Field '" + name + "' " + reason);
+        }
+    }
+
+    private final Map<String, Field> fields = new HashMap<>();
+
+    private PatchSchema() {
+    }
+
+    public static PatchSchema create() {
+        return new PatchSchema();
+    }
+
+    /**
+     * A string field; required ones must not be blank and cannot be removed.
+     */
+    public PatchSchema text(String name, boolean removable) {
+        return add(new Field(name, Kind.TEXT, removable, null));
+    }
+
+    /**
+     * A required field holding the name of one of {@code enumClass}'s constants.
+     */
+    public PatchSchema enumeration(String name, Class<? extends Enum<?>> enumClass) {
+        return add(new Field(name, Kind.ENUM, false, enumClass));
+    }
+
+    /**
+     * An optional date, given as ISO-8601 and stored as a BSON date.
+     */
+    public PatchSchema date(String name) {
+        return add(new Field(name, Kind.DATE, true, null));
+    }
+
+    /**
+     * An array of distinct strings. Besides being replaced whole, it takes elements added with
+     * {@code /name/-} and removed by value with {@code /name/<value>}.
+     */
+    public PatchSchema stringSet(String name) {
+        return add(new Field(name, Kind.STRING_SET, false, null));
+    }
+
+    Field field(String name) {
+        return fields.get(name);
+    }
+
+    private PatchSchema add(Field field) {
+        fields.put(field.name(), field);
+        return this;
+    }
+}
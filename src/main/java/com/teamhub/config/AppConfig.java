@@ -1,5 +1,11 @@
 package com.teamhub.config;
 
+import com.teamhub.common.mongo.TenantRouter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public final class AppConfig {
 
     private AppConfig() {
@@ -10,18 +16,121 @@ public final class AppConfig {
     public static final String MONGO_CONNECTION_STRING = "mongodb://localhost:27017";
     public static final String MONGO_DATABASE = "teamhub";
 
+    // Storage backend: "mongo", or "memory" for an in-process store that needs no mongod (benchmarks,
+    // local experiments; nothing is persisted). Chosen with -Dteamhub.storage=memory
+    public static final String STORAGE_BACKEND = System.getProperty("teamhub.storage", "mongo");
+
+    // Tenant routing: extra clusters (name -> connection string, each using MONGO_DATABASE) that
+    // organizations can be moved to, set with -Dteamhub.mongoClusters as space-separated name=uri pairs
+    // (e.g. "large-1=mongodb://large-1:27017"). Organizations without a route stay on the default cluster.
+    public static final Map<String, String> MONGO_CLUSTERS =
+            parseClusters(System.getProperty("teamhub.mongoClusters", ""));
+    public static final long TENANT_ROUTE_CACHE_TTL_MS = 30000;
+    public static final int TENANT_ROUTE_CACHE_MAX_ENTRIES = 10000;
+    public static final int TENANT_MOVE_BATCH_SIZE = 500;
+
+    // Soft-deleted tasks, projects, members and project memberships are hard-deleted by a TTL index
+    // this long after deletion
+    public static final long SOFT_DELETE_RETENTION_DAYS = 30;
+
+    // Archiving a project moves its tasks to tasks_archive (and unarchiving back) this many at a time
+    public static final int TASK_ARCHIVE_BATCH_SIZE = 500;
+
+    // Task updates sent with "Prefer: return=minimal" are grouped into one bulk write per cluster:
+    // whatever arrives within WINDOW of the first, up to MAX_OPS
+    public static final long WRITE_COALESCE_WINDOW_MS = 5;
+    public static final int WRITE_COALESCE_MAX_OPS = 200;
+    // How many of its most recent coalesced write IDs each document keeps, to tell which updates applied
+    public static final int WRITE_COALESCE_RECENT_WRITE_IDS = 16;
+
+    // Analytics reads (dashboards, usage counts) get their own client per cluster, reading from
+    // secondaries no more than MAX_STALENESS behind (90 is the minimum Mongo accepts)
+    public static final int MONGO_ANALYTICS_POOL_SIZE = 10;
+    public static final int MONGO_ANALYTICS_MAX_STALENESS_SECONDS = 90;
+
     // JWT
     public static final String JWT_SECRET = "teamhub-dev-jwt-secret-key-change-in-production-min-256-bits-long";
     public static final String JWT_ISSUER = "teamhub-api";
     public static final int JWT_EXPIRY_SECONDS = 86400;
 
+    // Token revocation
+    public static final long TOKEN_REVOCATION_REFRESH_MS = 5000;
+    public static final long TOKEN_REVOCATION_PRUNE_MS = 60000;
+    public static final long TOKEN_REVOCATION_SYNC_OVERLAP_MS = 5000;
+    public static final int TOKEN_REVOCATION_REFRESH_BATCH = 5000;
+    public static final int TOKEN_REVOCATION_MIN_CAPACITY = 1024;
+    public static final double TOKEN_REVOCATION_FALSE_POSITIVE_RATE = 0.01;
+
+    // Role cache
+    public static final long ROLE_CACHE_TTL_MS = 60000;
+    public static final int ROLE_CACHE_MAX_ENTRIES = 10000;
+
+    // Project member cache: one member set per project
+    public static final long PROJECT_MEMBER_CACHE_TTL_MS = 60000;
+    public static final int PROJECT_MEMBER_CACHE_MAX_PROJECTS = 2000;
+
+    // Timestamps: writes within the same tick share one cached timestamp
+    public static final long TIMESTAMP_RESOLUTION_MS = 10;
+
+    // Migrations
+    public static final int MIGRATION_BATCH_SIZE = 500;
+    public static final int MIGRATION_MAX_DOCS_PER_SECOND = 2000;
+    public static final long MIGRATION_LEASE_MS = 60000;
+    public static final long MIGRATION_POLL_MS = 30000;
+    public static final int MIGRATION_DRY_RUN_MAX_DOCS = 1000;
+
+    // Batched lookups
+    public static final int DATA_LOADER_MAX_BATCH_SIZE = 500;
+    public static final int MAX_MULTI_GET_IDS = 100;
+    public static final int EXPAND_MAX_DEPTH = 2;
+    public static final int EXPAND_MAX_ENTITIES = 500;
+
+    // Task keys (PROJ-123): each node takes numbers from a project's counter a block at a time, and skips
+    // what is left of its blocks when it restarts. Blocks are held for up to MAX_PROJECTS projects per node
+    public static final int TASK_KEY_BLOCK_SIZE = 20;
+    public static final int TASK_KEY_MAX_PROJECTS = 10000;
+
+    // JSON Patch (PATCH /tasks/:id, /projects/:id)
+    public static final int JSON_PATCH_MAX_OPERATIONS = 100;
+
+    // Usage counters
+    public static final long BILLING_PLAN_CACHE_TTL_MS = 60000;
+    public static final long USAGE_RECONCILE_INTERVAL_MS = 3600000;
+    public static final int USAGE_RECONCILE_BATCH_SIZE = 100;
+
     // Server
     public static final int SERVER_PORT = 8080;
 
+    // Platform operator routes (/admin/v1/*): SHA-256 (hex) of the key operators send in X-Operator-Key,
+    // set with -Dteamhub.operatorKeySha256. Unset, the routes refuse every request
+    public static final String OPERATOR_KEY_SHA256 = System.getProperty("teamhub.operatorKeySha256", "");
+
     // Webhook
     public static final String WEBHOOK_SIGNING_SECRET = "whsec_teamhub_dev_signing_key";
 
     // Pagination
     public static final int MAX_PAGE_SIZE = 100;
     public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Parses space-separated {@code name=connectionString} pairs, keeping their order. Connection
+     * strings hold no spaces but may hold commas (replica set hosts) and further {@code =} (options).
+     */
+    public static Map<String, String> parseClusters(String spec) {
+        Map<String, String> clusters = new LinkedHashMap<>();
+        for (String entry : spec.trim().split("\\s+")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                throw new IllegalArgumentException("Cluster must be name=connectionString: " + entry);
+            }
+            String name = entry.substring(0, separator);
+            if (name.equals(TenantRouter.DEFAULT_CLUSTER) || clusters.put(name, entry.substring(separator + 1)) != null) {
+                throw new IllegalArgumentException("Cluster name used twice or reserved: " + name);
+            }
+        }
+        return Collections.unmodifiableMap(clusters);
+    }
 }
@@ -0,0 +1,99 @@
+package com.teamhub.handlers;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.migration.MigrationRunner;
+import com.teamhub.common.mongo.IndexManager;
+import com.teamhub.common.mongo.TenantMover;
+import com.teamhub.config.AppConfig;
+import com.teamhub.utils.ValidationHelper;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AdminHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminHandler.class);
+
+    private final IndexManager indexManager;
+    private final MigrationRunner migrationRunner;
+    private final TenantMover tenantMover;
+
+    public AdminHandler(IndexManager indexManager, MigrationRunner migrationRunner, TenantMover tenantMover) {
+        this.indexManager = indexManager;
+        this.migrationRunner = migrationRunner;
+        this.tenantMover = tenantMover;
+    }
+
+    /**
+     * Routes for platform operators only (see {@link com.teamhub.middleware.OperatorAuthHandler}): they
+     * report on every organization's data.
+     */
+    public void mount(Router router) {
+        router.get("/indexes").handler(this::getIndexReport);
+        router.get("/migrations").handler(this::getMigrations);
+        router.post("/migrations/:id/dry-run").handler(this::dryRunMigration);
+        router.post("/organizations/:organizationId/move").handler(this::moveOrganization);
+    }
+
+    private void getIndexReport(RoutingContext ctx) {
+        indexManager.usageReport()
+                .onSuccess(report -> {
+                    logger.debug("Served index usage report to operator at {}", ctx.request().remoteAddress());
+                    sendJson(ctx, 200, new JsonObject().put("collections", report));
+                })
+                .onFailure(ctx::fail);
+    }
+
+    private void getMigrations(RoutingContext ctx) {
+        migrationRunner.progress()
+                .onSuccess(migrations -> sendJson(ctx, 200, new JsonObject().put("migrations", migrations)))
+                .onFailure(ctx::fail);
+    }
+
+    private void dryRunMigration(RoutingContext ctx) {
+        String migrationId = ctx.pathParam("id");
+        migrationRunner.dryRun(migrationId, AppConfig.MIGRATION_DRY_RUN_MAX_DOCS)
+                .onSuccess(result -> {
+                    logger.info("Dry run of migration {} by operator at {}", migrationId, ctx.request().remoteAddress());
+                    sendJson(ctx, 200, result);
+                })
+                .onFailure(ctx::fail);
+    }
+
+    /**
+     * Migrations only run against the default cluster, so moves are refused until every migration is
+     * complete: an organization moved earlier would keep its unmigrated documents for good.
+     */
+    private void moveOrganization(RoutingContext ctx) {
+        String organizationId = ctx.pathParam("organizationId");
+        JsonObject body = ctx.body().asJsonObject();
+        if (body == null) {
+            ctx.fail(new AppException(ErrorCode.BAD_REQUEST, "Request body is required"));
+            return;
+        }
+        ValidationHelper.requireNonBlank(body, "cluster");
+        String cluster = body.getString("cluster");
+        migrationRunner.pending()
+                .compose(pending -> pending.isEmpty()
+                        ? tenantMover.move(organizationId, cluster)
+                        : Future.failedFuture(new AppException(ErrorCode.CONFLICT,
+                                "Migrations still pending: " + String.join(", ", pending) + "; retry once they complete")))
+                .onSuccess(result -> {
+                    logger.info("Organization {} moved to cluster {} by operator at {}", organizationId, cluster,
+                            ctx.request().remoteAddress());
+                    sendJson(ctx, 200, result);
+                })
+                .onFailure(ctx::fail);
+    }
+
+    private void sendJson(RoutingContext ctx, int statusCode, JsonObject body) {
+        ctx.response()
+                .setStatusCode(statusCode)
+                .putHeader("Content-Type", "application/json")
+                .end(body.encode());
+    }
+}
@@ -2,9 +2,12 @@ package com.teamhub.handlers;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.PageCursor;
 import com.teamhub.managers.MemberManager;
+import com.teamhub.models.Member;
 import com.teamhub.utils.PaginationHelper;
 import com.teamhub.utils.ValidationHelper;
+import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
@@ -32,19 +35,37 @@ public class MemberHandler {
 
     private void listMembers(RoutingContext ctx) {
         String organizationId = ctx.get("organizationId");
-        int page = PaginationHelper.getPage(ctx);
         int pageSize = PaginationHelper.getPageSize(ctx);
-        int skip = PaginationHelper.calculateSkip(page, pageSize);
-
-        memberManager.listMembers(organizationId, skip, pageSize).compose(members ->
-                memberManager.countMembers(organizationId).map(total -> {
-                    JsonArray data = new JsonArray();
-                    members.forEach(m -> data.add(m.toJson()));
-                    return new JsonObject()
-                            .put("data", data)
-                            .put("pagination", PaginationHelper.buildPaginationMeta(page, pageSize, total));
-                })
-        ).onSuccess(result -> sendJson(ctx, 200, result))
+
+        if (PaginationHelper.isOffsetRequest(ctx)) {
+            int page = PaginationHelper.getPage(ctx);
+            int skip = PaginationHelper.calculateSkip(page, pageSize);
+            memberManager.listMembers(organizationId, skip, pageSize).compose(members ->
+                    memberManager.countMembers(organizationId).map(total -> {
+                        JsonArray data = new JsonArray();
+                        members.forEach(m -> data.add(m.toJson()));
+                        return new JsonObject()
+                                .put("data", data)
+                                .put("pagination", PaginationHelper.buildPaginationMeta(page, pageSize, total));
+                    })
+            ).onSuccess(result -> sendJson(ctx, 200, result))
+                    .onFailure(ctx::fail);
+            return;
+        }
+
+        PageCursor cursor = PaginationHelper.getCursor(ctx);
+        memberManager.listMembers(organizationId, cursor, pageSize).compose(members -> {
+            JsonArray data = new JsonArray();
+            members.items().forEach(m -> data.add(m.toJson()));
+            JsonObject result = new JsonObject().put("data", data);
+            if (cursor != null) {
+                return Future.succeededFuture(result
+                        .put("pagination", PaginationHelper.buildCursorMeta(pageSize, members.nextCursor())));
+            }
+            // First page keeps the offset-style totals for existing clients
+            return memberManager.countMembers(organizationId).map(total -> result
+                    .put("pagination", PaginationHelper.buildPaginationMeta(1, pageSize, total, members.nextCursor())));
+        }).onSuccess(result -> sendJson(ctx, 200, result))
                 .onFailure(ctx::fail);
     }
 
@@ -77,7 +98,7 @@ public class MemberHandler {
 
     private void updateRole(RoutingContext ctx) {
         String organizationId = ctx.get("organizationId");
-        String userId = ctx.get("userId");
+        Member.Role role = ctx.get("role");
         String memberId = ctx.pathParam("id");
         JsonObject body = ctx.body().asJsonObject();
 
@@ -88,17 +109,19 @@ public class MemberHandler {
 
         ValidationHelper.requireNonBlank(body, "role");
 
-        memberManager.updateRole(memberId, body.getString("role"), organizationId, userId)
+        Long version = ValidationHelper.optionalVersion(body);
+
+        memberManager.updateRole(memberId, body.getString("role"), organizationId, role, version)
                 .onSuccess(member -> sendJson(ctx, 200, member.toJson()))
                 .onFailure(ctx::fail);
     }
 
     private void removeMember(RoutingContext ctx) {
         String organizationId = ctx.get("organizationId");
-        String userId = ctx.get("userId");
+        Member.Role role = ctx.get("role");
         String memberId = ctx.pathParam("id");
 
-        memberManager.removeMember(memberId, organizationId, userId)
+        memberManager.removeMember(memberId, organizationId, role)
                 .onSuccess(v -> sendJson(ctx, 204, null))
                 .onFailure(ctx::fail);
     }
@@ -43,7 +43,9 @@ public class OrganizationHandler {
             return;
         }
 
-        organizationManager.updateOrganization(organizationId, body)
+        Long version = ValidationHelper.optionalVersion(body);
+
+        organizationManager.updateOrganization(organizationId, body, version)
                 .onSuccess(org -> sendJson(ctx, 200, org.toJson()))
                 .onFailure(ctx::fail);
     }
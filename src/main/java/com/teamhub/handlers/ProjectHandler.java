@@ -2,9 +2,16 @@ package com.teamhub.handlers;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.common.expand.ExpandSpec;
+import com.teamhub.common.mongo.DataLoaders;
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.managers.ExpansionManager;
 import com.teamhub.managers.ProjectManager;
+import com.teamhub.models.Project;
 import com.teamhub.utils.PaginationHelper;
 import com.teamhub.utils.ValidationHelper;
+import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
@@ -19,9 +26,11 @@ public class ProjectHandler {
     private static final Logger logger = LoggerFactory.getLogger(ProjectHandler.class);
 
     private final ProjectManager projectManager;
+    private final ExpansionManager expansionManager;
 
-    public ProjectHandler(ProjectManager projectManager) {
+    public ProjectHandler(ProjectManager projectManager, ExpansionManager expansionManager) {
         this.projectManager = projectManager;
+        this.expansionManager = expansionManager;
     }
 
     public void mount(Router router) {
@@ -29,24 +38,45 @@ public class ProjectHandler {
         router.get("/projects/:id").handler(this::getProject);
         router.post("/projects").handler(this::createProject);
         router.put("/projects/:id").handler(this::updateProject);
+        router.patch("/projects/:id").handler(this::patchProject);
         router.delete("/projects/:id").handler(this::deleteProject);
         router.post("/projects/:id/archive").handler(this::archiveProject);
         router.post("/projects/:id/unarchive").handler(this::unarchiveProject);
+        router.get("/projects/:id/members").handler(this::listMembers);
+        router.post("/projects/:id/members").handler(this::addMember);
+        router.delete("/projects/:id/members/:memberId").handler(this::removeMember);
     }
 
     private void listProjects(RoutingContext ctx) {
         String organizationId = ctx.get("organizationId");
-        int page = PaginationHelper.getPage(ctx);
+        ExpandSpec expand = ExpandSpec.parse(ctx.queryParams().get("expand"));
+        FieldSet fields = fields(ctx, Project.LIST_FIELDS, expand);
         int pageSize = PaginationHelper.getPageSize(ctx);
-        int skip = PaginationHelper.calculateSkip(page, pageSize);
-
-        projectManager.listProjects(organizationId, skip, pageSize).compose(projects ->
-                projectManager.countProjects(organizationId).map(total -> {
-                    JsonArray data = new JsonArray();
-                    projects.forEach(p -> data.add(p.toJson()));
-                    return new JsonObject()
-                            .put("data", data)
-                            .put("pagination", PaginationHelper.buildPaginationMeta(page, pageSize, total));
+
+        if (PaginationHelper.isOffsetRequest(ctx)) {
+            int page = PaginationHelper.getPage(ctx);
+            int skip = PaginationHelper.calculateSkip(page, pageSize);
+            projectManager.listProjects(organizationId, skip, pageSize, fields).compose(projects ->
+                    projectManager.countProjects(organizationId).compose(total ->
+                            render(ctx, projects, expand, fields).map(data -> new JsonObject()
+                                    .put("data", data)
+                                    .put("pagination", PaginationHelper.buildPaginationMeta(page, pageSize, total))))
+            ).onSuccess(result -> sendJson(ctx, 200, result))
+                    .onFailure(ctx::fail);
+            return;
+        }
+
+        PageCursor cursor = PaginationHelper.getCursor(ctx);
+        projectManager.listProjects(organizationId, cursor, pageSize, fields).compose(projects ->
+                render(ctx, projects.items(), expand, fields).compose(data -> {
+                    JsonObject result = new JsonObject().put("data", data);
+                    if (cursor != null) {
+                        return Future.succeededFuture(result
+                                .put("pagination", PaginationHelper.buildCursorMeta(pageSize, projects.nextCursor())));
+                    }
+                    // First page keeps the offset-style totals for existing clients
+                    return projectManager.countProjects(organizationId).map(total -> result
+                            .put("pagination", PaginationHelper.buildPaginationMeta(1, pageSize, total, projects.nextCursor())));
                 })
         ).onSuccess(result -> sendJson(ctx, 200, result))
                 .onFailure(ctx::fail);
@@ -55,12 +85,32 @@ public class ProjectHandler {
     private void getProject(RoutingContext ctx) {
         String organizationId = ctx.get("organizationId");
         String projectId = ctx.pathParam("id");
+        ExpandSpec expand = ExpandSpec.parse(ctx.queryParams().get("expand"));
+        FieldSet fields = fields(ctx, FieldSet.ALL, expand);
 
-        projectManager.getProject(projectId, organizationId)
-                .onSuccess(project -> sendJson(ctx, 200, project.toJson()))
+        projectManager.getProject(projectId, organizationId, fields)
+                .compose(project -> render(ctx, List.of(project), expand, fields))
+                .onSuccess(data -> sendJson(ctx, 200, data.getJsonObject(0)))
                 .onFailure(ctx::fail);
     }
 
+    /**
+     * The {@code fields} query parameter, plus the ID fields {@code expand} resolves relations from.
+     */
+    private static FieldSet fields(RoutingContext ctx, FieldSet defaults, ExpandSpec expand) {
+        return FieldSet.parse(ctx.queryParams().get("fields"), Project.FIELDS, defaults)
+                .with(ExpansionManager.sourceFields(ExpansionManager.Entity.PROJECT, expand));
+    }
+
+    /**
+     * Serializes {@code fields} of each project, embedding the related entities named in {@code expand}.
+     */
+    private Future<JsonArray> render(RoutingContext ctx, List<Project> projects, ExpandSpec expand, FieldSet fields) {
+        List<JsonObject> rows = projects.stream().map(project -> project.toJson(fields)).toList();
+        return expansionManager.expand(ExpansionManager.Entity.PROJECT, rows, expand, ctx.get("organizationId"),
+                DataLoaders.forRequest(ctx)).map(JsonArray::new);
+    }
+
     private void createProject(RoutingContext ctx) {
         String userId = ctx.get("userId");
         String organizationId = ctx.get("organizationId");
@@ -73,6 +123,9 @@ public class ProjectHandler {
 
         ValidationHelper.requireNonBlank(body, "name");
         ValidationHelper.validateLength(body.getString("name"), "name", 1, 200);
+        if (body.containsKey("key")) {
+            ValidationHelper.validateProjectKey(body.getString("key"));
+        }
 
         projectManager.createProject(body, userId, organizationId)
                 .onSuccess(project -> sendJson(ctx, 201, project.toJson()))
@@ -89,7 +142,19 @@ public class ProjectHandler {
             return;
         }
 
-        projectManager.updateProject(projectId, body, organizationId)
+        Long version = ValidationHelper.optionalVersion(body);
+
+        projectManager.updateProject(projectId, body, organizationId, version)
+                .onSuccess(project -> sendJson(ctx, 200, project.toJson()))
+                .onFailure(ctx::fail);
+    }
+
+    private void patchProject(RoutingContext ctx) {
+        String organizationId = ctx.get("organizationId");
+        String projectId = ctx.pathParam("id");
+        JsonArray operations = ValidationHelper.requirePatch(ctx.body());
+
+        projectManager.patchProject(projectId, operations, organizationId)
                 .onSuccess(project -> sendJson(ctx, 200, project.toJson()))
                 .onFailure(ctx::fail);
     }
@@ -121,6 +186,71 @@ public class ProjectHandler {
                 .onFailure(ctx::fail);
     }
 
+    private void listMembers(RoutingContext ctx) {
+        String organizationId = ctx.get("organizationId");
+        String projectId = ctx.pathParam("id");
+        int pageSize = PaginationHelper.getPageSize(ctx);
+
+        if (PaginationHelper.isOffsetRequest(ctx)) {
+            int page = PaginationHelper.getPage(ctx);
+            int skip = PaginationHelper.calculateSkip(page, pageSize);
+            projectManager.listMembers(projectId, organizationId, skip, pageSize).compose(members ->
+                    projectManager.countMembers(projectId, organizationId).map(total -> {
+                        JsonArray data = new JsonArray();
+                        members.forEach(m -> data.add(m.toJson()));
+                        return new JsonObject()
+                                .put("data", data)
+                                .put("pagination", PaginationHelper.buildPaginationMeta(page, pageSize, total));
+                    })
+            ).onSuccess(result -> sendJson(ctx, 200, result))
+                    .onFailure(ctx::fail);
+            return;
+        }
+
+        PageCursor cursor = PaginationHelper.getCursor(ctx);
+        projectManager.listMembers(projectId, organizationId, cursor, pageSize).compose(members -> {
+            JsonArray data = new JsonArray();
+            members.items().forEach(m -> data.add(m.toJson()));
+            JsonObject result = new JsonObject().put("data", data);
+            if (cursor != null) {
+                return Future.succeededFuture(result
+                        .put("pagination", PaginationHelper.buildCursorMeta(pageSize, members.nextCursor())));
+            }
+            // First page keeps the offset-style totals, like the other list endpoints
+            return projectManager.countMembers(projectId, organizationId).map(total -> result
+                    .put("pagination", PaginationHelper.buildPaginationMeta(1, pageSize, total, members.nextCursor())));
+        }).onSuccess(result -> sendJson(ctx, 200, result))
+                .onFailure(ctx::fail);
+    }
+
+    private void addMember(RoutingContext ctx) {
+        String userId = ctx.get("userId");
+        String organizationId = ctx.get("organizationId");
+        String projectId = ctx.pathParam("id");
+        JsonObject body = ctx.body().asJsonObject();
+
+        if (body == null) {
+            ctx.fail(new AppException(ErrorCode.BAD_REQUEST, "Request body is required"));
+            return;
+        }
+
+        ValidationHelper.requireNonBlank(body, "memberId");
+
+        projectManager.addMember(projectId, body.getString("memberId"), organizationId, userId)
+                .onSuccess(member -> sendJson(ctx, 201, member.toJson()))
+                .onFailure(ctx::fail);
+    }
+
+    private void removeMember(RoutingContext ctx) {
+        String organizationId = ctx.get("organizationId");
+        String projectId = ctx.pathParam("id");
+        String memberId = ctx.pathParam("memberId");
+
+        projectManager.removeMember(projectId, memberId, organizationId)
+                .onSuccess(v -> sendJson(ctx, 204, null))
+                .onFailure(ctx::fail);
+    }
+
     private void sendJson(RoutingContext ctx, int statusCode, JsonObject body) {
         if (body == null) {
             ctx.response().setStatusCode(statusCode).end();
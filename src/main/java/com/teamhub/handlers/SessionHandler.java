@@ -0,0 +1,65 @@
+package com.teamhub.handlers;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.config.AppConfig;
+import com.teamhub.managers.TokenRevocationManager;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SessionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionHandler.class);
+
+    private final TokenRevocationManager tokenRevocationManager;
+
+    public SessionHandler(TokenRevocationManager tokenRevocationManager) {
+        this.tokenRevocationManager = tokenRevocationManager;
+    }
+
+    public void mount(Router router) {
+        router.delete("/sessions/current").handler(this::revokeCurrentSession);
+        router.delete("/sessions").handler(this::revokeAllSessions);
+    }
+
+    private void revokeCurrentSession(RoutingContext ctx) {
+        String userId = ctx.get("userId");
+        String tokenId = ctx.get("tokenId");
+        Long tokenExpiresAt = ctx.get("tokenExpiresAt");
+
+        if (tokenId == null) {
+            ctx.fail(new AppException(ErrorCode.BAD_REQUEST, "Token has no ID and cannot be revoked individually"));
+            return;
+        }
+
+        long expiresAt = tokenExpiresAt != null
+                ? tokenExpiresAt
+                : System.currentTimeMillis() + (long) AppConfig.JWT_EXPIRY_SECONDS * 1000;
+
+        tokenRevocationManager.revokeToken(tokenId, userId, expiresAt)
+                .onSuccess(v -> sendJson(ctx, 204, null))
+                .onFailure(ctx::fail);
+    }
+
+    private void revokeAllSessions(RoutingContext ctx) {
+        String userId = ctx.get("userId");
+
+        tokenRevocationManager.revokeSubject(userId)
+                .onSuccess(v -> sendJson(ctx, 204, null))
+                .onFailure(ctx::fail);
+    }
+
+    private void sendJson(RoutingContext ctx, int statusCode, JsonObject body) {
+        if (body == null) {
+            ctx.response().setStatusCode(statusCode).end();
+            return;
+        }
+        ctx.response()
+                .setStatusCode(statusCode)
+                .putHeader("Content-Type", "application/json")
+                .end(body.encode());
+    }
+}
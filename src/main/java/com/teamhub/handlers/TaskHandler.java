@@ -2,9 +2,17 @@ package com.teamhub.handlers;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.common.expand.ExpandSpec;
+import com.teamhub.common.mongo.DataLoaders;
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.config.AppConfig;
+import com.teamhub.managers.ExpansionManager;
 import com.teamhub.managers.TaskManager;
+import com.teamhub.models.Task;
 import com.teamhub.utils.PaginationHelper;
 import com.teamhub.utils.ValidationHelper;
+import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
@@ -12,32 +20,48 @@ import io.vertx.ext.web.RoutingContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 public class TaskHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskHandler.class);
 
     private final TaskManager taskManager;
+    private final ExpansionManager expansionManager;
 
-    public TaskHandler(TaskManager taskManager) {
+    public TaskHandler(TaskManager taskManager, ExpansionManager expansionManager) {
         this.taskManager = taskManager;
+        this.expansionManager = expansionManager;
     }
 
     public void mount(Router router) {
         router.get("/tasks").handler(this::listTasks);
         router.get("/tasks/:id").handler(this::getTask);
+        router.get("/tasks/by-key/:key").handler(this::getTaskByKey);
         router.post("/tasks").handler(this::createTask);
         router.put("/tasks/:id").handler(this::updateTask);
+        router.patch("/tasks/:id").handler(this::patchTask);
         router.delete("/tasks/:id").handler(this::deleteTask);
         router.patch("/tasks/:id/status").handler(this::updateStatus);
     }
 
     private void listTasks(RoutingContext ctx) {
         String organizationId = ctx.get("organizationId");
+        ExpandSpec expand = ExpandSpec.parse(ctx.queryParams().get("expand"));
+        String ids = ctx.queryParams().get("ids");
+        if (ids != null) {
+            getTasks(ctx, organizationId, ValidationHelper.parseIdList(ids, "ids", AppConfig.MAX_MULTI_GET_IDS), expand,
+                    fields(ctx, FieldSet.ALL, expand));
+            return;
+        }
+        FieldSet fields = fields(ctx, Task.LIST_FIELDS, expand);
+
         String projectId = ctx.queryParams().get("projectId");
 
-        int page = PaginationHelper.getPage(ctx);
         int pageSize = PaginationHelper.getPageSize(ctx);
-        int skip = PaginationHelper.calculateSkip(page, pageSize);
 
         JsonObject filters = new JsonObject();
         String status = ctx.queryParams().get("status");
@@ -47,13 +71,46 @@ public class TaskHandler {
         if (priority != null) filters.put("priority", priority);
         if (search != null) filters.put("search", search);
 
-        taskManager.listTasks(projectId, organizationId, filters, skip, pageSize).compose(tasks ->
-                taskManager.countTasks(projectId, organizationId, filters).map(total -> {
-                    JsonArray data = new JsonArray();
-                    tasks.forEach(t -> data.add(t.toJson()));
-                    return new JsonObject()
-                            .put("data", data)
-                            .put("pagination", PaginationHelper.buildPaginationMeta(page, pageSize, total));
+        if (PaginationHelper.isOffsetRequest(ctx)) {
+            int page = PaginationHelper.getPage(ctx);
+            int skip = PaginationHelper.calculateSkip(page, pageSize);
+            taskManager.listTasks(projectId, organizationId, filters, skip, pageSize, fields).compose(tasks ->
+                    taskManager.countTasks(projectId, organizationId, filters).compose(total ->
+                            render(ctx, tasks, expand, fields).map(data -> new JsonObject()
+                                    .put("data", data)
+                                    .put("pagination", PaginationHelper.buildPaginationMeta(page, pageSize, total))))
+            ).onSuccess(result -> sendJson(ctx, 200, result))
+                    .onFailure(ctx::fail);
+            return;
+        }
+
+        PageCursor cursor = PaginationHelper.getCursor(ctx);
+        taskManager.listTasks(projectId, organizationId, filters, cursor, pageSize, fields).compose(tasks ->
+                render(ctx, tasks.items(), expand, fields).compose(data -> {
+                    JsonObject result = new JsonObject().put("data", data);
+                    if (cursor != null) {
+                        return Future.succeededFuture(result
+                                .put("pagination", PaginationHelper.buildCursorMeta(pageSize, tasks.nextCursor())));
+                    }
+                    // First page keeps the offset-style totals for existing clients
+                    return taskManager.countTasks(projectId, organizationId, filters).map(total -> result
+                            .put("pagination", PaginationHelper.buildPaginationMeta(1, pageSize, total, tasks.nextCursor())));
+                })
+        ).onSuccess(result -> sendJson(ctx, 200, result))
+                .onFailure(ctx::fail);
+    }
+
+    /**
+     * {@code GET /tasks?ids=a,b,c}: tasks in the order requested, plus the IDs that were not found.
+     */
+    private void getTasks(RoutingContext ctx, String organizationId, List<String> taskIds, ExpandSpec expand,
+                          FieldSet fields) {
+        taskManager.getTasks(taskIds, organizationId, DataLoaders.forRequest(ctx)).compose(tasks ->
+                render(ctx, tasks, expand, fields).map(data -> {
+                    Set<String> found = tasks.stream().map(Task::getId).collect(Collectors.toSet());
+                    JsonArray missing = new JsonArray();
+                    taskIds.stream().filter(id -> !found.contains(id)).forEach(missing::add);
+                    return new JsonObject().put("data", data).put("missing", missing);
                 })
         ).onSuccess(result -> sendJson(ctx, 200, result))
                 .onFailure(ctx::fail);
@@ -62,12 +119,45 @@ public class TaskHandler {
     private void getTask(RoutingContext ctx) {
         String organizationId = ctx.get("organizationId");
         String taskId = ctx.pathParam("id");
+        ExpandSpec expand = ExpandSpec.parse(ctx.queryParams().get("expand"));
+        FieldSet fields = fields(ctx, FieldSet.ALL, expand);
 
-        taskManager.getTask(taskId, organizationId)
-                .onSuccess(task -> sendJson(ctx, 200, task.toJson()))
+        taskManager.getTask(taskId, organizationId, fields)
+                .compose(task -> render(ctx, List.of(task), expand, fields))
+                .onSuccess(data -> sendJson(ctx, 200, data.getJsonObject(0)))
                 .onFailure(ctx::fail);
     }
 
+    private void getTaskByKey(RoutingContext ctx) {
+        String organizationId = ctx.get("organizationId");
+        String key = ctx.pathParam("key").toUpperCase(Locale.ROOT);
+        ValidationHelper.validateTaskKey(key);
+        ExpandSpec expand = ExpandSpec.parse(ctx.queryParams().get("expand"));
+        FieldSet fields = fields(ctx, FieldSet.ALL, expand);
+
+        taskManager.getTaskByKey(key, organizationId, fields)
+                .compose(task -> render(ctx, List.of(task), expand, fields))
+                .onSuccess(data -> sendJson(ctx, 200, data.getJsonObject(0)))
+                .onFailure(ctx::fail);
+    }
+
+    /**
+     * The {@code fields} query parameter, plus the ID fields {@code expand} resolves relations from.
+     */
+    private static FieldSet fields(RoutingContext ctx, FieldSet defaults, ExpandSpec expand) {
+        return FieldSet.parse(ctx.queryParams().get("fields"), Task.FIELDS, defaults)
+                .with(ExpansionManager.sourceFields(ExpansionManager.Entity.TASK, expand));
+    }
+
+    /**
+     * Serializes {@code fields} of each task, embedding the related entities named in {@code expand}.
+     */
+    private Future<JsonArray> render(RoutingContext ctx, List<Task> tasks, ExpandSpec expand, FieldSet fields) {
+        List<JsonObject> rows = tasks.stream().map(task -> task.toJson(fields)).toList();
+        return expansionManager.expand(ExpansionManager.Entity.TASK, rows, expand, ctx.get("organizationId"),
+                DataLoaders.forRequest(ctx)).map(JsonArray::new);
+    }
+
     private void createTask(RoutingContext ctx) {
         String userId = ctx.get("userId");
         String organizationId = ctx.get("organizationId");
@@ -96,7 +186,25 @@ public class TaskHandler {
             return;
         }
 
-        taskManager.updateTask(taskId, body, organizationId)
+        Long version = ValidationHelper.optionalVersion(body);
+
+        if (prefersMinimal(ctx)) {
+            taskManager.updateTaskCoalesced(taskId, body, organizationId, version)
+                    .onSuccess(v -> sendJson(ctx, 204, null))
+                    .onFailure(ctx::fail);
+            return;
+        }
+        taskManager.updateTask(taskId, body, organizationId, version)
+                .onSuccess(task -> sendJson(ctx, 200, task.toJson()))
+                .onFailure(ctx::fail);
+    }
+
+    private void patchTask(RoutingContext ctx) {
+        String organizationId = ctx.get("organizationId");
+        String taskId = ctx.pathParam("id");
+        JsonArray operations = ValidationHelper.requirePatch(ctx.body());
+
+        taskManager.patchTask(taskId, operations, organizationId)
                 .onSuccess(task -> sendJson(ctx, 200, task.toJson()))
                 .onFailure(ctx::fail);
     }
@@ -122,11 +230,28 @@ public class TaskHandler {
 
         ValidationHelper.requireNonBlank(body, "status");
 
-        taskManager.updateStatus(taskId, body.getString("status"), organizationId)
+        Long version = ValidationHelper.optionalVersion(body);
+
+        if (prefersMinimal(ctx)) {
+            taskManager.updateStatusCoalesced(taskId, body.getString("status"), organizationId, version)
+                    .onSuccess(v -> sendJson(ctx, 204, null))
+                    .onFailure(ctx::fail);
+            return;
+        }
+        taskManager.updateStatus(taskId, body.getString("status"), organizationId, version)
                 .onSuccess(task -> sendJson(ctx, 200, task.toJson()))
                 .onFailure(ctx::fail);
     }
 
+    /**
+     * Whether the client asked not to get the updated task back ({@code Prefer: return=minimal}, RFC 7240).
+     * Such updates are answered with 204 and may be batched with other updates.
+     */
+    private static boolean prefersMinimal(RoutingContext ctx) {
+        String prefer = ctx.request().getHeader("Prefer");
+        return prefer != null && prefer.toLowerCase().contains("return=minimal");
+    }
+
     private void sendJson(RoutingContext ctx, int statusCode, JsonObject body) {
         if (body == null) {
             ctx.response().setStatusCode(statusCode).end();
@@ -1,5 +1,6 @@
 package com.teamhub.managers;
 
+import com.teamhub.common.mongo.MongoDates;
 import com.teamhub.repositories.AnalyticsRepository;
 import com.teamhub.repositories.MemberRepository;
 import com.teamhub.repositories.ProjectRepository;
@@ -30,11 +31,12 @@ public class AnalyticsManager {
     }
 
     /**
-     * Build a dashboard summary for the organization.
+     * Build a dashboard summary for the organization. Everything is read from secondaries, so the
+     * summary may trail recent writes slightly.
      */
     public Future<JsonObject> getDashboard(String organizationId) {
-        return projectRepository.countByOrganization(organizationId).compose(projectCount ->
-                memberRepository.countByOrganization(organizationId).compose(memberCount ->
+        return projectRepository.countByOrganizationFromSecondary(organizationId).compose(projectCount ->
+                memberRepository.countByOrganizationFromSecondary(organizationId).compose(memberCount ->
                         analyticsRepository.getTaskCountsByStatus(organizationId).compose(statusCounts ->
                                 analyticsRepository.getTaskCountsByPriority(organizationId).compose(priorityCounts ->
                                         analyticsRepository.getRecentTaskActivity(organizationId, 10).map(recentTasks -> {
@@ -69,7 +71,7 @@ public class AnalyticsManager {
                                                                 ? "Completed task: " + title
                                                                 : "Created task: " + title)
                                                         .put("actorName", actorId)
-                                                        .put("createdAt", task.getString("updatedAt", "")));
+                                                        .put("createdAt", MongoDates.toIso(task.getValue("updatedAt"))));
                                             }
 
                                             return new JsonObject()
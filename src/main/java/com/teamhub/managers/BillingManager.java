@@ -2,6 +2,7 @@ package com.teamhub.managers;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.config.AppConfig;
 import com.teamhub.models.BillingPlan;
 import com.teamhub.models.Organization;
 import com.teamhub.repositories.BillingPlanRepository;
@@ -9,18 +10,36 @@ import com.teamhub.repositories.MemberRepository;
 import com.teamhub.repositories.OrganizationRepository;
 import com.teamhub.repositories.ProjectRepository;
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Billing plans and plan-limit enforcement.
+ *
+ * Limits are enforced against per-organization usage counters ({@link OrganizationRepository#MEMBER_COUNT},
+ * {@link OrganizationRepository#PROJECT_COUNT}) that are reserved and released with atomic increments,
+ * so concurrent creates cannot overshoot a limit. Counters are periodically corrected against the real
+ * document counts by {@link #reconcile}.
+ */
 public class BillingManager {
 
     private static final Logger logger = LoggerFactory.getLogger(BillingManager.class);
 
+    private static final String DEFAULT_PLAN_ID = "free";
+
     private final BillingPlanRepository billingPlanRepository;
     private final OrganizationRepository organizationRepository;
     private final MemberRepository memberRepository;
     private final ProjectRepository projectRepository;
+    private volatile CachedPlans cachedPlans;
+
+    private record CachedPlans(List<BillingPlan> plans, long expiresAt) {
+    }
 
     public BillingManager(BillingPlanRepository billingPlanRepository,
                           OrganizationRepository organizationRepository,
@@ -42,7 +61,7 @@ public class BillingManager {
                 return Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Organization not found"));
             }
 
-            String planId = orgDoc.getString("billingPlanId", "free");
+            String planId = orgDoc.getString("billingPlanId", DEFAULT_PLAN_ID);
             return billingPlanRepository.findById(planId).map(planDoc -> {
                 if (planDoc == null) {
                     // Return default free plan if plan not found in DB
@@ -54,12 +73,14 @@ public class BillingManager {
     }
 
     /**
-     * Check resource limits against the current billing plan.
+     * Check resource limits against the current billing plan. The counts are read from a secondary, so
+     * they can trail a just-completed create or delete by the analytics client's max staleness; the
+     * limits themselves are enforced by {@link #reserveProject} and {@link #reserveMember}.
      */
     public Future<JsonObject> getUsage(String organizationId) {
         return getCurrentPlan(organizationId).compose(plan ->
-                memberRepository.countByOrganization(organizationId).compose(memberCount ->
-                        projectRepository.countByOrganization(organizationId).map(projectCount -> {
+                memberRepository.countByOrganizationFromSecondary(organizationId).compose(memberCount ->
+                        projectRepository.countByOrganizationFromSecondary(organizationId).map(projectCount -> {
                             return new JsonObject()
                                     .put("plan", plan.toJson())
                                     .put("usage", new JsonObject()
@@ -72,6 +93,165 @@ public class BillingManager {
         );
     }
 
+    /**
+     * Reserves room for one more project under the organization's plan, failing with FORBIDDEN when the
+     * plan limit is reached. Pair with {@link #releaseProject} if the project is not created after all.
+     */
+    public Future<Void> reserveProject(String organizationId) {
+        return reserve(organizationId, OrganizationRepository.PROJECT_COUNT, BillingPlan::getMaxProjects, true)
+                .recover(err -> limitReached(err, organizationId, "Project", BillingPlan::getMaxProjects));
+    }
+
+    public Future<Void> releaseProject(String organizationId) {
+        return organizationRepository.release(organizationId, OrganizationRepository.PROJECT_COUNT);
+    }
+
+    /**
+     * Reserves room for one more member under the organization's plan, failing with FORBIDDEN when the
+     * plan limit is reached. Pair with {@link #releaseMember} if the member is not created after all.
+     */
+    public Future<Void> reserveMember(String organizationId) {
+        return reserve(organizationId, OrganizationRepository.MEMBER_COUNT, BillingPlan::getMaxMembers, true)
+                .recover(err -> limitReached(err, organizationId, "Member", BillingPlan::getMaxMembers));
+    }
+
+    public Future<Void> releaseMember(String organizationId) {
+        return organizationRepository.release(organizationId, OrganizationRepository.MEMBER_COUNT);
+    }
+
+    /**
+     * Recounts the organization's members and projects and seeds its usage counters from the counts if
+     * they never were, or raises any counter that has fallen behind its count. A counter above its count
+     * is only logged, never lowered: a reservation whose insert has not landed yet is in the counter but
+     * not the count, and lowering the counter would let that insert take the organization past its
+     * limit. The write is skipped if either counter changed while counting, since that count is already
+     * stale; the next run picks the organization up again.
+     */
+    public Future<Void> reconcile(String organizationId) {
+        return organizationRepository.findById(organizationId).compose(orgDoc -> {
+            if (orgDoc == null) {
+                return Future.succeededFuture();
+            }
+            Long recordedMembers = orgDoc.getLong(OrganizationRepository.MEMBER_COUNT);
+            Long recordedProjects = orgDoc.getLong(OrganizationRepository.PROJECT_COUNT);
+            boolean seeded = orgDoc.getValue(OrganizationRepository.USAGE_SEEDED_AT) != null;
+            return memberRepository.countByOrganization(organizationId).compose(members ->
+                    projectRepository.countByOrganization(organizationId).compose(projects -> {
+                        if (!seeded) {
+                            // Never reserved against, so no reservation can be in flight
+                            return organizationRepository.resetCounters(organizationId, recordedMembers,
+                                    recordedProjects, members, projects).map(reset -> {
+                                if (reset) {
+                                    logger.info("Seeded usage counters for org: {} (members {} -> {}, projects {} -> {})",
+                                            organizationId, recordedMembers, members, recordedProjects, projects);
+                                }
+                                return null;
+                            });
+                        }
+                        if (isAhead(recordedMembers, members) || isAhead(recordedProjects, projects)) {
+                            logger.warn("Usage counters of org {} are above its counts (members {} / {}, projects {} / {}): "
+                                    + "creates in flight, or a release that was lost", organizationId,
+                                    recordedMembers, members, recordedProjects, projects);
+                        }
+                        if (!isAhead(members, recordedMembers) && !isAhead(projects, recordedProjects)) {
+                            return Future.succeededFuture();
+                        }
+                        return organizationRepository.raiseCounters(organizationId, recordedMembers,
+                                recordedProjects, members, projects).map(raised -> {
+                            if (raised) {
+                                logger.info("Raised usage counters for org: {} (members {} / {}, projects {} / {})",
+                                        organizationId, recordedMembers, members, recordedProjects, projects);
+                            }
+                            return null;
+                        });
+                    }));
+        });
+    }
+
+    private static boolean isAhead(Long value, Long other) {
+        return value != null && (other == null || value > other);
+    }
+
+    private Future<Void> reserve(String organizationId, String counter, ToIntFunction<BillingPlan> limit,
+                                 boolean retryAfterReconcile) {
+        return activePlans().compose(plans ->
+                organizationRepository.reserve(organizationId, counter, limitClauses(plans, counter, limit))
+        ).compose(reserved -> {
+            if (reserved) {
+                return Future.succeededFuture();
+            }
+            return organizationRepository.findById(organizationId).compose(orgDoc -> {
+                if (orgDoc == null) {
+                    return Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Organization not found"));
+                }
+                if (retryAfterReconcile && orgDoc.getValue(OrganizationRepository.USAGE_SEEDED_AT) == null) {
+                    // Organization predates usage counters, so whatever they hold is not a real count;
+                    // seed them and try again
+                    return reconcile(organizationId)
+                            .compose(v -> reserve(organizationId, counter, limit, false));
+                }
+                return Future.failedFuture(new LimitReachedException());
+            });
+        });
+    }
+
+    private Future<Void> limitReached(Throwable err, String organizationId, String resource,
+                                      ToIntFunction<BillingPlan> limit) {
+        if (!(err instanceof LimitReachedException)) {
+            return Future.failedFuture(err);
+        }
+        return getCurrentPlan(organizationId).compose(plan -> Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
+                resource + " limit reached for current billing plan. Max: " + limit.applyAsInt(plan))));
+    }
+
+    /**
+     * One clause per known plan, each matching organizations on that plan whose counter is below the
+     * plan's limit, plus a clause applying the default free plan to organizations on any other plan ID
+     * (mirroring the fallback in {@link #getCurrentPlan}).
+     */
+    private JsonArray limitClauses(List<BillingPlan> plans, String counter, ToIntFunction<BillingPlan> limit) {
+        JsonArray clauses = new JsonArray();
+        JsonArray knownIds = new JsonArray();
+        for (BillingPlan plan : plans) {
+            Object planMatch = plan.getId();
+            knownIds.add(plan.getId());
+            if (DEFAULT_PLAN_ID.equals(plan.getId())) {
+                // Organizations without a billingPlanId are on the "free" plan
+                planMatch = new JsonObject().put("$in", new JsonArray().add(DEFAULT_PLAN_ID).addNull());
+                knownIds.addNull();
+            }
+            clauses.add(new JsonObject()
+                    .put("billingPlanId", planMatch)
+                    .put(counter, new JsonObject().put("$lt", limit.applyAsInt(plan))));
+        }
+        clauses.add(new JsonObject()
+                .put("billingPlanId", new JsonObject().put("$nin", knownIds))
+                .put(counter, new JsonObject().put("$lt", limit.applyAsInt(getDefaultFreePlan()))));
+        return clauses;
+    }
+
+    private Future<List<BillingPlan>> activePlans() {
+        CachedPlans cached = cachedPlans;
+        long now = System.currentTimeMillis();
+        if (cached != null && cached.expiresAt() > now) {
+            return Future.succeededFuture(cached.plans());
+        }
+        return billingPlanRepository.findActive().map(docs -> {
+            List<BillingPlan> plans = docs.stream().map(BillingPlan::fromJson).toList();
+            cachedPlans = new CachedPlans(plans, now + AppConfig.BILLING_PLAN_CACHE_TTL_MS);
+            return plans;
+        });
+    }
+
+    /**
+     * Signals a rejected reservation internally, before the plan limit for the error message is looked up.
+     */
+    private static class LimitReachedException extends RuntimeException {
+        LimitReachedException() {
+            super(null, null, false, false);
+        }
+    }
+
     /**
      * Calculate monthly pricing for a given tier.
      */
@@ -90,7 +270,7 @@ public class BillingManager {
 
     private BillingPlan getDefaultFreePlan() {
         return BillingPlan.builder()
-                .id("free")
+                .id(DEFAULT_PLAN_ID)
                 .name("Free")
                 .tier(BillingPlan.Tier.FREE)
                 .maxMembers(5)
@@ -0,0 +1,169 @@
+package com.teamhub.managers;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.expand.ExpandSpec;
+import com.teamhub.common.mongo.DataLoaders;
+import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.config.AppConfig;
+import com.teamhub.models.Member;
+import com.teamhub.models.Project;
+import com.teamhub.repositories.MemberRepository;
+import com.teamhub.repositories.ProjectRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embeds related entities into serialized tasks and projects for the {@code expand} query parameter.
+ *
+ * Each relation is resolved with one batched lookup for the whole page (through the request's
+ * {@link DataLoaders}, so e.g. assignees and creators share a single members query), not one per row.
+ * Expanded entities go under an {@code expanded} object on each row; the ID fields are left as they
+ * are. Related entities that are missing or belong to another organization expand to null.
+ */
+public class ExpansionManager {
+
+    public enum Entity {
+        TASK, PROJECT, MEMBER
+    }
+
+    private record Relation(String field, Entity target) {
+    }
+
+    private static final Map<Entity, Map<String, Relation>> RELATIONS = Map.of(
+            Entity.TASK, Map.of(
+                    "assignee", new Relation("assigneeId", Entity.MEMBER),
+                    "project", new Relation("projectId", Entity.PROJECT),
+                    "createdBy", new Relation("createdBy", Entity.MEMBER)),
+            Entity.PROJECT, Map.of(
+                    "createdBy", new Relation("createdBy", Entity.MEMBER)),
+            Entity.MEMBER, Map.of());
+
+    private final MemberRepository memberRepository;
+    private final ProjectRepository projectRepository;
+
+    public ExpansionManager(MemberRepository memberRepository, ProjectRepository projectRepository) {
+        this.memberRepository = memberRepository;
+        this.projectRepository = projectRepository;
+    }
+
+    /**
+     * Expands {@code rows} (serialized entities of type {@code entity}) in place and returns them.
+     * Fails with VALIDATION_ERROR for unknown relations, and with BAD_REQUEST if more than
+     * {@link AppConfig#EXPAND_MAX_ENTITIES} entities would be embedded.
+     */
+    public Future<List<JsonObject>> expand(Entity entity, List<JsonObject> rows, ExpandSpec spec,
+                                           String organizationId, DataLoaders loaders) {
+        try {
+            validate(entity, spec);
+        } catch (AppException e) {
+            return Future.failedFuture(e);
+        }
+        return expand(entity, rows, spec, organizationId, loaders, new AtomicInteger()).map(v -> rows);
+    }
+
+    /**
+     * The fields of {@code entity} that {@code spec} reads its related IDs from, so a sparse fieldset
+     * can still be expanded.
+     */
+    public static List<String> sourceFields(Entity entity, ExpandSpec spec) {
+        List<String> fields = new ArrayList<>();
+        for (String name : spec.relations()) {
+            Relation relation = RELATIONS.get(entity).get(name);
+            if (relation != null) {
+                fields.add(relation.field());
+            }
+        }
+        return fields;
+    }
+
+    private void validate(Entity entity, ExpandSpec spec) {
+        Map<String, Relation> relations = RELATIONS.get(entity);
+        for (String name : spec.relations()) {
+            Relation relation = relations.get(name);
+            if (relation == null) {
+                throw new AppException(ErrorCode.VALIDATION_ERROR, "Cannot expand '" + name + "' on "
+                        + entity.name().toLowerCase() + "; expandable: " + String.join(", ", relations.keySet()));
+            }
+            validate(relation.target(), spec.child(name));
+        }
+    }
+
+    private Future<Void> expand(Entity entity, List<JsonObject> rows, ExpandSpec spec, String organizationId,
+                                DataLoaders loaders, AtomicInteger embedded) {
+        if (spec.isEmpty() || rows.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        List<Future<Void>> relations = new ArrayList<>();
+        for (String name : spec.relations()) {
+            Relation relation = RELATIONS.get(entity).get(name);
+            List<String> ids = new ArrayList<>(referencedIds(rows, relation));
+            if (embedded.addAndGet(ids.size()) > AppConfig.EXPAND_MAX_ENTITIES) {
+                return Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST, "Expansion would embed more than "
+                        + AppConfig.EXPAND_MAX_ENTITIES + " entities; expand fewer relations or request a smaller page"));
+            }
+            relations.add(loaders.of(repository(relation.target())).loadMany(ids).compose(docs -> {
+                Map<String, JsonObject> byId = new HashMap<>();
+                for (JsonObject doc : docs) {
+                    if (doc != null && organizationId.equals(doc.getString("organizationId"))) {
+                        JsonObject related = serialize(relation.target(), doc);
+                        byId.put(related.getString("id"), related);
+                    }
+                }
+                return expand(relation.target(), new ArrayList<>(byId.values()), spec.child(name),
+                        organizationId, loaders, embedded).map(v -> {
+                    for (JsonObject row : rows) {
+                        embed(row, name, relation, byId);
+                    }
+                    return null;
+                });
+            }));
+        }
+        return Future.all(relations).mapEmpty();
+    }
+
+    private static Set<String> referencedIds(List<JsonObject> rows, Relation relation) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (JsonObject row : rows) {
+            String id = row.getString(relation.field());
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static void embed(JsonObject row, String name, Relation relation, Map<String, JsonObject> byId) {
+        JsonObject expanded = row.getJsonObject("expanded");
+        if (expanded == null) {
+            expanded = new JsonObject();
+            row.put("expanded", expanded);
+        }
+        String id = row.getString(relation.field());
+        expanded.put(name, id != null ? byId.get(id) : null);
+    }
+
+    private MongoRepository repository(Entity entity) {
+        return switch (entity) {
+            case MEMBER -> memberRepository;
+            case PROJECT -> projectRepository;
+            case TASK -> throw new IllegalArgumentException("Tasks are not an expansion target");
+        };
+    }
+
+    private static JsonObject serialize(Entity entity, JsonObject doc) {
+        return switch (entity) {
+            case MEMBER -> Member.fromJson(doc).toJson();
+            case PROJECT -> Project.fromJson(doc).toJson();
+            case TASK -> throw new IllegalArgumentException("Tasks are not an expansion target");
+        };
+    }
+}
@@ -2,14 +2,17 @@ package com.teamhub.managers;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.PageCursor;
 import com.teamhub.models.Member;
 import com.teamhub.repositories.MemberRepository;
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Instant;
 import java.util.List;
 
 public class MemberManager {
@@ -18,10 +21,15 @@ public class MemberManager {
 
     private final MemberRepository memberRepository;
     private final BillingManager billingManager;
+    private final PermissionManager permissionManager;
+    private final ProjectMembershipManager membershipManager;
 
-    public MemberManager(MemberRepository memberRepository, BillingManager billingManager) {
+    public MemberManager(MemberRepository memberRepository, BillingManager billingManager,
+                         PermissionManager permissionManager, ProjectMembershipManager membershipManager) {
         this.memberRepository = memberRepository;
         this.billingManager = billingManager;
+        this.permissionManager = permissionManager;
+        this.membershipManager = membershipManager;
     }
 
     public Future<Member> inviteMember(JsonObject body, String organizationId, String invitedByUserId) {
@@ -40,40 +48,30 @@ public class MemberManager {
             return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN, "Cannot invite a member as OWNER"));
         }
 
-        // Check if member already exists in org
-        return memberRepository.findByEmail(email, organizationId).compose(existing -> {
-            if (existing != null) {
-                return Future.failedFuture(new AppException(ErrorCode.CONFLICT, "Member already exists in this organization"));
-            }
-
-            // Check member limit per billing plan
-            return billingManager.getCurrentPlan(organizationId).compose(plan ->
-                    memberRepository.countByOrganization(organizationId).compose(count -> {
-                        if (count >= plan.getMaxMembers()) {
-                            return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
-                                    "Member limit reached for current billing plan. Max: " + plan.getMaxMembers()));
-                        }
-
-                        JsonObject memberDoc = new JsonObject()
-                                .put("email", email)
-                                .put("name", name)
-                                .put("role", role.name())
-                                .put("organizationId", organizationId)
-                                .put("invitedAt", Instant.now().toString())
-                                .put("joinedAt", Instant.now().toString());
-
-                        return memberRepository.insert(memberDoc).map(id -> {
+        JsonObject now = MongoDates.now();
+        JsonObject memberDoc = new JsonObject()
+                .put("email", email)
+                .put("name", name)
+                .put("role", role.name())
+                .put("organizationId", organizationId)
+                .put("invitedAt", now)
+                .put("joinedAt", now.copy());
+
+        // Reserving against the plan limit is atomic; give the slot back if the insert fails, including
+        // when the unique (organizationId, email) index rejects an existing member with CONFLICT
+        return billingManager.reserveMember(organizationId).compose(reserved ->
+                memberRepository.insert(memberDoc)
+                        .recover(err -> billingManager.releaseMember(organizationId)
+                                .transform(v -> Future.<String>failedFuture(err)))
+                        .map(id -> {
                             memberDoc.put("_id", id);
                             logger.info("Member invited: {} to org: {}", email, organizationId);
                             return Member.fromJson(memberDoc);
-                        });
-                    })
-            );
-        });
+                        }));
     }
 
     public Future<Member> getMember(String memberId, String organizationId) {
-        return memberRepository.findById(memberId).compose(doc -> {
+        return memberRepository.findById(memberId, organizationId).compose(doc -> {
             if (doc == null) {
                 return Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Member not found"));
             }
@@ -90,11 +88,17 @@ public class MemberManager {
                 .map(docs -> docs.stream().map(Member::fromJson).toList());
     }
 
+    public Future<KeysetPage<Member>> listMembers(String organizationId, PageCursor after, int limit) {
+        return memberRepository.findByOrganization(organizationId, after, limit)
+                .map(page -> page.map(Member::fromJson));
+    }
+
     public Future<Long> countMembers(String organizationId) {
         return memberRepository.countByOrganization(organizationId);
     }
 
-    public Future<Member> updateRole(String memberId, String newRoleStr, String organizationId, String actingUserId) {
+    public Future<Member> updateRole(String memberId, String newRoleStr, String organizationId, Member.Role actingRole,
+                                     Long expectedVersion) {
         Member.Role newRole;
         try {
             newRole = Member.Role.valueOf(newRoleStr);
@@ -102,56 +106,67 @@ public class MemberManager {
             return Future.failedFuture(new AppException(ErrorCode.VALIDATION_ERROR, "Invalid role: " + newRoleStr));
         }
 
-        // Get the acting user's role
-        return getMemberByUserId(actingUserId, organizationId).compose(actingMember -> {
-            // Get the target member
-            return getMember(memberId, organizationId).compose(targetMember -> {
-                // Validate role hierarchy: acting user must have higher role
-                if (!actingMember.getRole().isHigherThan(targetMember.getRole())) {
-                    return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
-                            "Cannot modify a member with equal or higher role"));
-                }
-
-                if (!actingMember.getRole().isHigherThan(newRole)) {
-                    return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
-                            "Cannot assign a role equal to or higher than your own"));
-                }
-
-                if (newRole == Member.Role.OWNER) {
-                    return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
-                            "Cannot assign OWNER role"));
-                }
-
-                JsonObject update = new JsonObject().put("role", newRole.name());
-                return memberRepository.update(memberId, update)
-                        .compose(v -> getMember(memberId, organizationId));
-            });
+        if (actingRole == null) {
+            return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN, "Not a member of this organization"));
+        }
+
+        if (!actingRole.isHigherThan(newRole)) {
+            return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
+                    "Cannot assign a role equal to or higher than your own"));
+        }
+
+        if (newRole == Member.Role.OWNER) {
+            return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
+                    "Cannot assign OWNER role"));
+        }
+
+        // Role hierarchy is enforced in the update filter: only members ranked below the acting user match
+        JsonArray lowerRoles = new JsonArray();
+        for (Member.Role role : Member.Role.values()) {
+            if (actingRole.isHigherThan(role)) {
+                lowerRoles.add(role.name());
+            }
+        }
+        JsonObject predicate = new JsonObject()
+                .put("organizationId", organizationId)
+                .put("role", new JsonObject().put("$in", lowerRoles));
+        JsonObject update = new JsonObject().put("role", newRole.name());
+        Future<JsonObject> updated = memberRepository.updateAndGet(memberId, organizationId, predicate, update,
+                expectedVersion);
+        return updated.compose(doc -> {
+            if (doc != null) {
+                permissionManager.invalidate(memberId, organizationId);
+                return Future.succeededFuture(Member.fromJson(doc));
+            }
+            return getMember(memberId, organizationId).compose(targetMember -> Future.failedFuture(
+                    !actingRole.isHigherThan(targetMember.getRole())
+                            ? new AppException(ErrorCode.FORBIDDEN, "Cannot modify a member with equal or higher role")
+                            : new AppException(ErrorCode.CONFLICT,
+                                    "Member was modified by another request; reload and retry")));
         });
     }
 
-    public Future<Void> removeMember(String memberId, String organizationId, String actingUserId) {
-        return getMemberByUserId(actingUserId, organizationId).compose(actingMember ->
-                getMember(memberId, organizationId).compose(targetMember -> {
-                    if (targetMember.getRole() == Member.Role.OWNER) {
-                        return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
-                                "Cannot remove the organization owner"));
-                    }
-
-                    if (!actingMember.getRole().isHigherThan(targetMember.getRole())) {
-                        return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
-                                "Cannot remove a member with equal or higher role"));
-                    }
-
-                    logger.info("Removing member: {} from org: {}", memberId, organizationId);
-                    return memberRepository.softDelete(memberId);
-                })
-        );
-    }
+    public Future<Void> removeMember(String memberId, String organizationId, Member.Role actingRole) {
+        if (actingRole == null) {
+            return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN, "Not a member of this organization"));
+        }
 
-    /**
-     * Looks up a member by user ID (which is the member's _id in this simplified model).
-     */
-    private Future<Member> getMemberByUserId(String userId, String organizationId) {
-        return getMember(userId, organizationId);
+        return getMember(memberId, organizationId).compose(targetMember -> {
+            if (targetMember.getRole() == Member.Role.OWNER) {
+                return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
+                        "Cannot remove the organization owner"));
+            }
+
+            if (!actingRole.isHigherThan(targetMember.getRole())) {
+                return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
+                        "Cannot remove a member with equal or higher role"));
+            }
+
+            logger.info("Removing member: {} from org: {}", memberId, organizationId);
+            return memberRepository.softDelete(memberId, organizationId).compose(deleted -> {
+                permissionManager.invalidate(memberId, organizationId);
+                return deleted ? billingManager.releaseMember(organizationId) : Future.succeededFuture();
+            }).compose(v -> membershipManager.removeFromAllProjects(memberId, organizationId));
+        });
     }
 }
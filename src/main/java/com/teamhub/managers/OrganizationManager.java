@@ -2,6 +2,7 @@ package com.teamhub.managers;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.MongoDates;
 import com.teamhub.models.Organization;
 import com.teamhub.repositories.OrganizationRepository;
 import io.vertx.core.Future;
@@ -25,25 +26,20 @@ public class OrganizationManager {
         String name = body.getString("name");
         String slug = generateSlug(name);
 
-        // Check if slug already exists
-        return organizationRepository.findBySlug(slug).compose(existing -> {
-            if (existing != null) {
-                return Future.failedFuture(new AppException(ErrorCode.CONFLICT,
-                        "An organization with a similar name already exists"));
-            }
-
-            JsonObject orgDoc = new JsonObject()
-                    .put("name", name)
-                    .put("slug", slug)
-                    .put("billingPlanId", "free")
-                    .put("memberCount", 1)
-                    .put("settings", new JsonObject());
+        JsonObject orgDoc = new JsonObject()
+                .put("name", name)
+                .put("slug", slug)
+                .put("billingPlanId", "free")
+                .put(OrganizationRepository.MEMBER_COUNT, 1)
+                .put(OrganizationRepository.PROJECT_COUNT, 0)
+                .put(OrganizationRepository.USAGE_SEEDED_AT, MongoDates.now())
+                .put("settings", new JsonObject());
 
-            return organizationRepository.insert(orgDoc).map(id -> {
-                orgDoc.put("_id", id);
-                logger.info("Organization created: {} (slug: {})", id, slug);
-                return Organization.fromJson(orgDoc);
-            });
+        // The unique slug index rejects a taken slug with CONFLICT
+        return organizationRepository.insert(orgDoc).map(id -> {
+            orgDoc.put("_id", id);
+            logger.info("Organization created: {} (slug: {})", id, slug);
+            return Organization.fromJson(orgDoc);
         });
     }
 
@@ -56,25 +52,26 @@ public class OrganizationManager {
         });
     }
 
-    public Future<Organization> updateOrganization(String organizationId, JsonObject body) {
-        return getOrganization(organizationId).compose(existing -> {
-            JsonObject update = new JsonObject();
-            if (body.containsKey("name")) {
-                update.put("name", body.getString("name"));
-                update.put("slug", generateSlug(body.getString("name")));
-            }
-
-            return organizationRepository.update(organizationId, update)
-                    .compose(v -> getOrganization(organizationId));
-        });
+    public Future<Organization> updateOrganization(String organizationId, JsonObject body, Long expectedVersion) {
+        JsonObject update = new JsonObject();
+        if (body.containsKey("name")) {
+            update.put("name", body.getString("name"));
+            update.put("slug", generateSlug(body.getString("name")));
+        }
+        return applyUpdate(organizationId, update, expectedVersion);
     }
 
     public Future<Organization> updateSettings(String organizationId, JsonObject settings) {
-        return getOrganization(organizationId).compose(existing -> {
-            JsonObject update = new JsonObject().put("settings", settings);
-            return organizationRepository.update(organizationId, update)
-                    .compose(v -> getOrganization(organizationId));
-        });
+        JsonObject update = new JsonObject().put("settings", settings);
+        return applyUpdate(organizationId, update, null);
+    }
+
+    private Future<Organization> applyUpdate(String organizationId, JsonObject update, Long expectedVersion) {
+        return organizationRepository.updateAndGet(organizationId, new JsonObject(), update, expectedVersion)
+                .compose(doc -> doc != null
+                        ? Future.succeededFuture(Organization.fromJson(doc))
+                        : getOrganization(organizationId).compose(org -> Future.failedFuture(new AppException(
+                                ErrorCode.CONFLICT, "Organization was modified by another request; reload and retry"))));
     }
 
     /**
@@ -0,0 +1,70 @@
+package com.teamhub.managers;
+
+import com.teamhub.config.AppConfig;
+import com.teamhub.models.Member;
+import com.teamhub.repositories.MemberRepository;
+import com.teamhub.utils.ExpiringCache;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves a caller's role within an organization, backed by a per-node cache keyed by
+ * (userId, organizationId).
+ *
+ * Entries expire after {@link AppConfig#ROLE_CACHE_TTL_MS}. Writes that change a member's role or
+ * membership call {@link #invalidate}, which evicts locally and broadcasts the eviction to other nodes.
+ */
+public class PermissionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PermissionManager.class);
+
+    public static final String INVALIDATION_ADDRESS = "teamhub.permissions.invalidate";
+
+    private final Vertx vertx;
+    private final MemberRepository memberRepository;
+    private final ExpiringCache<String, Member.Role> cache =
+            new ExpiringCache<>(AppConfig.ROLE_CACHE_TTL_MS, AppConfig.ROLE_CACHE_MAX_ENTRIES);
+
+    public PermissionManager(Vertx vertx, MemberRepository memberRepository) {
+        this.vertx = vertx;
+        this.memberRepository = memberRepository;
+        vertx.eventBus().<JsonObject>consumer(INVALIDATION_ADDRESS, msg ->
+                cache.invalidate(cacheKey(msg.body().getString("userId"), msg.body().getString("organizationId"))));
+    }
+
+    /**
+     * Returns the user's role in the organization, or null if the user is not a member of it.
+     */
+    public Future<Member.Role> resolveRole(String userId, String organizationId) {
+        if (userId == null || organizationId == null) {
+            return Future.succeededFuture(null);
+        }
+
+        // The user ID is the member's _id in this simplified model
+        return cache.get(cacheKey(userId, organizationId), () ->
+                memberRepository.findById(userId, organizationId).map(doc -> {
+                    Member member = Member.fromJson(doc);
+                    return member != null && organizationId.equals(member.getOrganizationId())
+                            ? member.getRole()
+                            : null;
+                }));
+    }
+
+    /**
+     * Evicts the cached role on this node and every other node listening on the event bus.
+     */
+    public void invalidate(String userId, String organizationId) {
+        cache.invalidate(cacheKey(userId, organizationId));
+        vertx.eventBus().publish(INVALIDATION_ADDRESS, new JsonObject()
+                .put("userId", userId)
+                .put("organizationId", organizationId));
+        logger.debug("Invalidated cached role for user: {} (org: {})", userId, organizationId);
+    }
+
+    private static String cacheKey(String userId, String organizationId) {
+        return userId + ":" + organizationId;
+    }
+}
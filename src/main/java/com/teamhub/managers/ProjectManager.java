@@ -2,61 +2,160 @@ package com.teamhub.managers;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
-import com.teamhub.models.BillingPlan;
+import com.teamhub.common.mongo.BlockSequence;
+import com.teamhub.common.mongo.DataLoaders;
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.common.patch.JsonPatch;
+import com.teamhub.config.AppConfig;
+import com.teamhub.models.Member;
 import com.teamhub.models.Project;
 import com.teamhub.repositories.ProjectRepository;
+import com.teamhub.repositories.TaskArchiveRepository;
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
 public class ProjectManager {
 
     private static final Logger logger = LoggerFactory.getLogger(ProjectManager.class);
 
+    // Enough of a project to check which organization it belongs to
+    private static final FieldSet OWNERSHIP_FIELDS = FieldSet.of("organizationId");
+
+    // Keys derived from the name get a number appended when taken: WEB, WEB2, ... up to this many tries
+    private static final int DERIVED_KEY_ATTEMPTS = 10;
+
     private final ProjectRepository projectRepository;
     private final BillingManager billingManager;
     private final MemberManager memberManager;
+    private final ProjectMembershipManager membershipManager;
+    private final TaskArchiveRepository taskArchiveRepository;
+    private final BlockSequence taskNumbers =
+            new BlockSequence(AppConfig.TASK_KEY_BLOCK_SIZE, AppConfig.TASK_KEY_MAX_PROJECTS);
 
-    public ProjectManager(ProjectRepository projectRepository, BillingManager billingManager, MemberManager memberManager) {
+    public ProjectManager(ProjectRepository projectRepository, BillingManager billingManager,
+                          MemberManager memberManager, ProjectMembershipManager membershipManager,
+                          TaskArchiveRepository taskArchiveRepository) {
         this.projectRepository = projectRepository;
         this.billingManager = billingManager;
         this.memberManager = memberManager;
+        this.membershipManager = membershipManager;
+        this.taskArchiveRepository = taskArchiveRepository;
     }
 
+    /**
+     * Creates the project under {@code key} from the body, or a key derived from its name when there is
+     * none (CONFLICT if a chosen key is taken; a derived one gets a number appended instead).
+     */
     public Future<Project> createProject(JsonObject body, String userId, String organizationId) {
         String name = body.getString("name");
         String description = body.getString("description", "");
+        String chosenKey = body.getString("key");
+        String derivedKey = chosenKey == null ? deriveKey(name) : null;
 
-        // Check project limit per billing plan
-        return billingManager.getCurrentPlan(organizationId).compose(plan -> {
-            return projectRepository.countByOrganization(organizationId).compose(count -> {
-                if (count >= plan.getMaxProjects()) {
-                    return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN,
-                            "Project limit reached for current billing plan. Max: " + plan.getMaxProjects()));
-                }
+        JsonObject projectDoc = new JsonObject()
+                .put("key", chosenKey != null ? chosenKey : derivedKey)
+                .put("name", name)
+                .put("description", description)
+                .put("organizationId", organizationId)
+                .put("status", Project.Status.ACTIVE.name())
+                .put(ProjectRepository.MEMBER_COUNT, 1)
+                .put("createdBy", userId);
 
-                JsonObject projectDoc = new JsonObject()
-                        .put("name", name)
-                        .put("description", description)
-                        .put("organizationId", organizationId)
-                        .put("status", Project.Status.ACTIVE.name())
-                        .put("memberIds", new io.vertx.core.json.JsonArray().add(userId))
-                        .put("createdBy", userId);
-
-                return projectRepository.insert(projectDoc).map(id -> {
-                    projectDoc.put("_id", id);
-                    logger.info("Project created: {} (org: {})", id, organizationId);
-                    return Project.fromJson(projectDoc);
-                });
-            });
+        // Reserving against the plan limit is atomic; give the slot back if the insert fails
+        return billingManager.reserveProject(organizationId).compose(reserved ->
+                insertProject(projectDoc, derivedKey, 1)
+                        .recover(err -> billingManager.releaseProject(organizationId)
+                                .transform(v -> Future.<String>failedFuture(err)))
+                        .compose(id -> membershipManager.addCreator(id, organizationId, userId)
+                                .recover(err -> projectRepository.softDelete(id, organizationId)
+                                        .compose(deleted -> billingManager.releaseProject(organizationId))
+                                        .transform(v -> Future.<Void>failedFuture(err)))
+                                .map(v -> {
+                                    projectDoc.put("_id", id);
+                                    logger.info("Project created: {} (org: {})", id, organizationId);
+                                    return Project.fromJson(projectDoc);
+                                })));
+    }
+
+    /**
+     * Inserts the project; when {@code derivedKey} is set (not chosen by the caller) and taken, tries it
+     * again with 2, 3, ... appended.
+     */
+    private Future<String> insertProject(JsonObject projectDoc, String derivedKey, int attempt) {
+        return projectRepository.insert(projectDoc).recover(err -> {
+            if (derivedKey == null || attempt >= DERIVED_KEY_ATTEMPTS || !isConflict(err)) {
+                return Future.failedFuture(err);
+            }
+            projectDoc.put("key", derivedKey + (attempt + 1));
+            return insertProject(projectDoc, derivedKey, attempt + 1);
         });
     }
 
+    /**
+     * A key for a project called {@code name}: the initials of its words ("Mobile App" is MA), or the
+     * start of its only word ("Website" is WEB), in capitals and digits, starting with a letter.
+     */
+    static String deriveKey(String name) {
+        List<String> words = new ArrayList<>();
+        for (String word : name.toUpperCase(Locale.ROOT).split("[^A-Z0-9]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        StringBuilder key = new StringBuilder();
+        if (words.size() > 1) {
+            words.stream().limit(4).forEach(word -> key.append(word.charAt(0)));
+        } else if (words.size() == 1) {
+            key.append(words.get(0), 0, Math.min(3, words.get(0).length()));
+        }
+        while (!key.isEmpty() && !Character.isLetter(key.charAt(0))) {
+            key.deleteCharAt(0);
+        }
+        return key.length() >= 2 ? key.toString() : "PRJ";
+    }
+
+    /**
+     * The next key for a task in the project whose key is {@code projectKey}, e.g. WEB-42. Numbers come
+     * from blocks this node reserves from the project's counter, so most calls need no round trip.
+     */
+    public Future<String> nextTaskKey(String projectId, String organizationId, String projectKey) {
+        return taskNumbers.next(projectId, count -> projectRepository
+                        .reserveTaskNumbers(organizationId, projectId, count)
+                        .compose(last -> last != null
+                                ? Future.succeededFuture(last)
+                                : Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Project not found"))))
+                .map(number -> projectKey + "-" + number);
+    }
+
+    /**
+     * Moves the project's task numbers past {@code number}, e.g. past keys still held by the tasks of
+     * a purged project that had the same key. This node's block is dropped; other nodes drop theirs
+     * when their next key is found taken.
+     */
+    public Future<Void> skipTaskNumbers(String projectId, String organizationId, long number) {
+        taskNumbers.forget(projectId);
+        return projectRepository.skipTaskNumbers(organizationId, projectId, number);
+    }
+
     public Future<Project> getProject(String projectId, String organizationId) {
-        return projectRepository.findById(projectId).compose(doc -> {
+        return getProject(projectId, organizationId, FieldSet.ALL);
+    }
+
+    /**
+     * Reads only {@code fields} of the project, plus what the access check needs.
+     */
+    public Future<Project> getProject(String projectId, String organizationId, FieldSet fields) {
+        return projectRepository.findById(projectId, organizationId, fields.with("organizationId")).compose(doc -> {
             if (doc == null) {
                 return Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Project not found"));
             }
@@ -68,57 +167,175 @@ public class ProjectManager {
         });
     }
 
-    public Future<List<Project>> listProjects(String organizationId, int skip, int limit) {
-        return projectRepository.findByOrganization(organizationId, skip, limit)
+    public Future<List<Project>> listProjects(String organizationId, int skip, int limit, FieldSet fields) {
+        return projectRepository.findByOrganization(organizationId, skip, limit, fields)
                 .map(docs -> docs.stream().map(Project::fromJson).toList());
     }
 
+    public Future<KeysetPage<Project>> listProjects(String organizationId, PageCursor after, int limit, FieldSet fields) {
+        return projectRepository.findByOrganization(organizationId, after, limit, fields)
+                .map(page -> page.map(Project::fromJson));
+    }
+
     public Future<Long> countProjects(String organizationId) {
         return projectRepository.countByOrganization(organizationId);
     }
 
+    /**
+     * Returns the projects among {@code projectIds} that exist and belong to the organization, in the
+     * order given. Others are left out rather than failing the whole lookup.
+     */
+    public Future<List<Project>> getProjects(List<String> projectIds, String organizationId, DataLoaders loaders) {
+        return loaders.of(projectRepository).loadMany(projectIds).map(docs -> docs.stream()
+                .filter(Objects::nonNull)
+                .map(Project::fromJson)
+                .filter(project -> organizationId.equals(project.getOrganizationId()))
+                .toList());
+    }
+
     public Future<List<String>> getProjectIds(String organizationId) {
-        return projectRepository.findByOrganization(organizationId, 0, 1000)
+        return projectRepository.findByOrganization(organizationId, 0, 1000, FieldSet.of())
                 .map(docs -> docs.stream().map(doc -> doc.getString("_id")).toList());
     }
 
-    public Future<Project> updateProject(String projectId, JsonObject body, String organizationId) {
-        return getProject(projectId, organizationId).compose(existing -> {
-            JsonObject update = new JsonObject();
-            if (body.containsKey("name")) update.put("name", body.getString("name"));
-            if (body.containsKey("description")) update.put("description", body.getString("description"));
+    public Future<List<Member>> listMembers(String projectId, String organizationId, int skip, int limit) {
+        return getProject(projectId, organizationId, OWNERSHIP_FIELDS).compose(project ->
+                membershipManager.listMembers(projectId, organizationId, skip, limit));
+    }
 
-            return projectRepository.update(projectId, update)
-                    .compose(v -> getProject(projectId, organizationId));
-        });
+    public Future<KeysetPage<Member>> listMembers(String projectId, String organizationId, PageCursor after,
+                                                  int limit) {
+        return getProject(projectId, organizationId, OWNERSHIP_FIELDS).compose(project ->
+                membershipManager.listMembers(projectId, organizationId, after, limit));
+    }
+
+    public Future<Long> countMembers(String projectId, String organizationId) {
+        return membershipManager.countMembers(projectId, organizationId);
+    }
+
+    public Future<Member> addMember(String projectId, String memberId, String organizationId, String userId) {
+        return getProject(projectId, organizationId, OWNERSHIP_FIELDS).compose(project ->
+                membershipManager.addMember(projectId, organizationId, memberId, userId));
+    }
+
+    public Future<Void> removeMember(String projectId, String memberId, String organizationId) {
+        return getProject(projectId, organizationId, OWNERSHIP_FIELDS).compose(project ->
+                membershipManager.removeMember(projectId, organizationId, memberId));
+    }
+
+    public Future<Project> updateProject(String projectId, JsonObject body, String organizationId, Long expectedVersion) {
+        JsonObject update = new JsonObject();
+        if (body.containsKey("name")) update.put("name", body.getString("name"));
+        if (body.containsKey("description")) update.put("description", body.getString("description"));
+
+        return projectRepository.updateAndGet(projectId, organizationId, owned(organizationId), update, expectedVersion)
+                .compose(doc -> doc != null
+                        ? Future.succeededFuture(Project.fromJson(doc))
+                        : getProject(projectId, organizationId).compose(project ->
+                                Future.failedFuture(concurrentModification())));
+    }
+
+    /**
+     * Applies an RFC 6902 JSON Patch in a single update, without reading the project first. A failed
+     * {@code test} operation is reported like a concurrent modification (409).
+     */
+    public Future<Project> patchProject(String projectId, JsonArray operations, String organizationId) {
+        JsonPatch patch;
+        try {
+            patch = JsonPatch.parse(operations, Project.PATCHABLE);
+        } catch (AppException e) {
+            return Future.failedFuture(e);
+        }
+        JsonObject predicate = patch.predicate().mergeIn(owned(organizationId));
+        return projectRepository.updateAndGet(projectId, organizationId, predicate, patch.toUpdate(),
+                        patch.expectedVersion())
+                .compose(doc -> doc != null
+                        ? Future.succeededFuture(Project.fromJson(doc))
+                        : getProject(projectId, organizationId).compose(project ->
+                                Future.failedFuture(concurrentModification())));
     }
 
     public Future<Void> deleteProject(String projectId, String organizationId) {
         return getProject(projectId, organizationId).compose(existing -> {
             logger.info("Soft deleting project: {} (org: {})", projectId, organizationId);
-            return projectRepository.softDelete(projectId);
+            taskNumbers.forget(projectId);
+            return projectRepository.softDelete(projectId, organizationId).compose(deleted -> deleted
+                    ? billingManager.releaseProject(organizationId)
+                    : Future.succeededFuture());
         });
     }
 
+    /**
+     * Marks the project archived, then moves its tasks into cold storage. The status changes first so
+     * no task is created behind the move. Archiving a project whose earlier move stopped partway, or
+     * that was archived before tasks were moved at all, finishes moving its tasks.
+     */
     public Future<Project> archiveProject(String projectId, String organizationId) {
-        return getProject(projectId, organizationId).compose(existing -> {
-            if (existing.getStatus() == Project.Status.ARCHIVED) {
-                return Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST, "Project is already archived"));
+        JsonObject notArchived = owned(organizationId)
+                .put("status", new JsonObject().put("$ne", Project.Status.ARCHIVED.name()));
+        JsonObject update = new JsonObject()
+                .put("status", Project.Status.ARCHIVED.name())
+                .put("tasksArchived", false);
+        return projectRepository.updateAndGet(projectId, organizationId, notArchived, update, null).compose(doc -> {
+            if (doc != null) {
+                return archiveTasks(projectId, organizationId);
             }
-            JsonObject update = new JsonObject().put("status", Project.Status.ARCHIVED.name());
-            return projectRepository.update(projectId, update)
-                    .compose(v -> getProject(projectId, organizationId));
+            return getProject(projectId, organizationId).compose(existing -> {
+                if (existing.getStatus() != Project.Status.ARCHIVED) {
+                    return Future.failedFuture(concurrentModification());
+                }
+                if (existing.isTasksArchived()) {
+                    return Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST, "Project is already archived"));
+                }
+                return archiveTasks(projectId, organizationId);
+            });
         });
     }
 
+    /**
+     * Moves the project's tasks back out of cold storage, then marks it active. A restore that stops
+     * partway leaves the project archived, and unarchiving it again finishes the restore.
+     */
     public Future<Project> unarchiveProject(String projectId, String organizationId) {
-        return getProject(projectId, organizationId).compose(existing -> {
-            if (existing.getStatus() != Project.Status.ARCHIVED) {
-                return Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST, "Project is not archived"));
-            }
-            JsonObject update = new JsonObject().put("status", Project.Status.ACTIVE.name());
-            return projectRepository.update(projectId, update)
-                    .compose(v -> getProject(projectId, organizationId));
-        });
+        JsonObject archived = owned(organizationId).put("status", Project.Status.ARCHIVED.name());
+        JsonObject update = new JsonObject()
+                .put("status", Project.Status.ACTIVE.name())
+                .put("tasksArchived", false);
+        return taskArchiveRepository.restoreProject(organizationId, projectId)
+                .compose(restored -> projectRepository.updateAndGet(projectId, organizationId, archived, update, null)
+                        .compose(doc -> {
+                            if (doc != null) {
+                                logger.info("Restored {} tasks of project {} (org: {})",
+                                        restored, projectId, organizationId);
+                                return Future.succeededFuture(Project.fromJson(doc));
+                            }
+                            return getProject(projectId, organizationId).compose(existing -> Future.failedFuture(
+                                    existing.getStatus() != Project.Status.ARCHIVED
+                                            ? new AppException(ErrorCode.BAD_REQUEST, "Project is not archived")
+                                            : concurrentModification()));
+                        }));
+    }
+
+    private Future<Project> archiveTasks(String projectId, String organizationId) {
+        JsonObject archived = owned(organizationId).put("status", Project.Status.ARCHIVED.name());
+        return taskArchiveRepository.archiveProject(organizationId, projectId).compose(moved -> {
+            logger.info("Archived {} tasks of project {} (org: {})", moved, projectId, organizationId);
+            return projectRepository.updateAndGet(projectId, organizationId, archived,
+                    new JsonObject().put("tasksArchived", true), null);
+        }).compose(doc -> doc != null
+                ? Future.succeededFuture(Project.fromJson(doc))
+                : Future.failedFuture(concurrentModification()));
+    }
+
+    private JsonObject owned(String organizationId) {
+        return new JsonObject().put("organizationId", organizationId);
+    }
+
+    private AppException concurrentModification() {
+        return new AppException(ErrorCode.CONFLICT, "Project was modified by another request; reload and retry");
+    }
+
+    private static boolean isConflict(Throwable err) {
+        return err instanceof AppException e && e.getErrorCode() == ErrorCode.CONFLICT;
     }
 }
@@ -0,0 +1,192 @@
+package com.teamhub.managers;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.config.AppConfig;
+import com.teamhub.migrations.ProjectMembershipMigration;
+import com.teamhub.models.Member;
+import com.teamhub.repositories.MemberRepository;
+import com.teamhub.repositories.ProjectMembershipRepository;
+import com.teamhub.repositories.ProjectRepository;
+import com.teamhub.utils.ExpiringCache;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Project memberships, stored one document per (project, member) in {@link ProjectMembershipRepository}
+ * with the count kept on the project.
+ *
+ * Membership checks are answered from a per-node cache holding each project's member IDs as a hash
+ * set, loaded in one query on first use. Entries expire after
+ * {@link AppConfig#PROJECT_MEMBER_CACHE_TTL_MS}; adding or removing a member evicts the project locally
+ * and broadcasts the eviction to other nodes.
+ *
+ * Callers check that the project exists and belongs to the organization first.
+ */
+public class ProjectMembershipManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectMembershipManager.class);
+
+    public static final String INVALIDATION_ADDRESS = "teamhub.projectMembers.invalidate";
+
+    private static final FieldSet LEGACY_MEMBERS = FieldSet.of("memberIds");
+
+    private final Vertx vertx;
+    private final ProjectMembershipRepository membershipRepository;
+    private final ProjectRepository projectRepository;
+    private final MemberRepository memberRepository;
+    private final ProjectMembershipMigration migration;
+    private final ExpiringCache<String, Set<String>> cache = new ExpiringCache<>(
+            AppConfig.PROJECT_MEMBER_CACHE_TTL_MS, AppConfig.PROJECT_MEMBER_CACHE_MAX_PROJECTS);
+
+    public ProjectMembershipManager(Vertx vertx, ProjectMembershipRepository membershipRepository,
+                                    ProjectRepository projectRepository, MemberRepository memberRepository,
+                                    ProjectMembershipMigration migration) {
+        this.vertx = vertx;
+        this.membershipRepository = membershipRepository;
+        this.projectRepository = projectRepository;
+        this.memberRepository = memberRepository;
+        this.migration = migration;
+        vertx.eventBus().<JsonObject>consumer(INVALIDATION_ADDRESS, msg ->
+                cache.invalidate(msg.body().getString("projectId")));
+    }
+
+    /**
+     * Whether {@code memberId} belongs to the project.
+     */
+    public Future<Boolean> isMember(String projectId, String organizationId, String memberId) {
+        return memberIds(projectId, organizationId).compose(memberIds -> {
+            if (memberIds.contains(memberId) || migration.isComplete()) {
+                return Future.succeededFuture(memberIds.contains(memberId));
+            }
+            // Not yet migrated: the project may still embed its members
+            return projectRepository.findById(projectId, organizationId, LEGACY_MEMBERS).map(doc -> {
+                JsonArray legacy = doc != null ? doc.getJsonArray("memberIds") : null;
+                return legacy != null && legacy.contains(memberId);
+            });
+        });
+    }
+
+    /**
+     * Records the project's creator as its first member. The project is inserted with a member count
+     * of one, so the count is left alone.
+     */
+    public Future<Void> addCreator(String projectId, String organizationId, String userId) {
+        return membershipRepository.add(organizationId, projectId, userId, userId).mapEmpty();
+    }
+
+    /**
+     * Adds a member of the organization to the project. Fails with NOT_FOUND for unknown members and
+     * CONFLICT if they already belong to it.
+     */
+    public Future<Member> addMember(String projectId, String organizationId, String memberId, String addedBy) {
+        return memberRepository.findById(memberId, organizationId).compose(doc -> {
+            Member member = Member.fromJson(doc);
+            boolean current = member != null && member.getDeletedAt() == null
+                    && organizationId.equals(member.getOrganizationId());
+            if (!current) {
+                return Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Member not found"));
+            }
+            return membershipRepository.add(organizationId, projectId, memberId, addedBy)
+                    .compose(id -> projectRepository.adjustMemberCount(organizationId, projectId, 1))
+                    .map(v -> {
+                        invalidate(projectId);
+                        logger.info("Added member {} to project {} (org: {})", memberId, projectId, organizationId);
+                        return member;
+                    });
+        });
+    }
+
+    public Future<Void> removeMember(String projectId, String organizationId, String memberId) {
+        return membershipRepository.remove(organizationId, projectId, memberId).compose(removed -> {
+            if (!removed) {
+                return Future.failedFuture(new AppException(ErrorCode.NOT_FOUND,
+                        "Member does not belong to this project"));
+            }
+            return projectRepository.adjustMemberCount(organizationId, projectId, -1).onSuccess(v -> {
+                invalidate(projectId);
+                logger.info("Removed member {} from project {} (org: {})", memberId, projectId, organizationId);
+            });
+        });
+    }
+
+    /**
+     * Removes the member from every project, for when they leave the organization.
+     */
+    public Future<Void> removeFromAllProjects(String memberId, String organizationId) {
+        return membershipRepository.findProjectIds(organizationId, memberId).compose(projectIds -> {
+            Future<Void> chain = Future.succeededFuture();
+            for (String projectId : projectIds) {
+                chain = chain.compose(v -> membershipRepository.remove(organizationId, projectId, memberId)
+                        .compose(removed -> removed
+                                ? projectRepository.adjustMemberCount(organizationId, projectId, -1)
+                                : Future.<Void>succeededFuture())
+                        .onSuccess(done -> invalidate(projectId)));
+            }
+            return chain;
+        });
+    }
+
+    public Future<List<Member>> listMembers(String projectId, String organizationId, int skip, int limit) {
+        return membershipRepository.findByProject(organizationId, projectId, skip, limit)
+                .compose(memberships -> resolveMembers(memberships, organizationId));
+    }
+
+    public Future<KeysetPage<Member>> listMembers(String projectId, String organizationId, PageCursor after,
+                                                  int limit) {
+        return membershipRepository.findByProject(organizationId, projectId, after, limit).compose(page ->
+                resolveMembers(page.items(), organizationId)
+                        .map(members -> new KeysetPage<>(members, page.nextCursor())));
+    }
+
+    public Future<Long> countMembers(String projectId, String organizationId) {
+        return membershipRepository.countByProject(organizationId, projectId);
+    }
+
+    /**
+     * Evicts the project's cached member set on this node and every other node listening on the event bus.
+     */
+    public void invalidate(String projectId) {
+        cache.invalidate(projectId);
+        vertx.eventBus().publish(INVALIDATION_ADDRESS, new JsonObject().put("projectId", projectId));
+    }
+
+    private Future<Set<String>> memberIds(String projectId, String organizationId) {
+        return cache.get(projectId, () ->
+                membershipRepository.findMemberIds(organizationId, projectId).map(Set::copyOf));
+    }
+
+    /**
+     * The members behind a page of memberships, in the same order. Memberships of members who have
+     * since left the organization are skipped.
+     */
+    private Future<List<Member>> resolveMembers(List<JsonObject> memberships, String organizationId) {
+        List<String> memberIds = memberships.stream().map(doc -> doc.getString("memberId")).toList();
+        if (memberIds.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+        return memberRepository.findByIds(memberIds, organizationId).map(docs -> {
+            Map<String, Member> byId = new HashMap<>();
+            for (JsonObject doc : docs) {
+                Member member = Member.fromJson(doc);
+                if (member != null && organizationId.equals(member.getOrganizationId())) {
+                    byId.put(member.getId(), member);
+                }
+            }
+            return memberIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+        });
+    }
+}
@@ -2,6 +2,14 @@ package com.teamhub.managers;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.DataLoaders;
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.common.patch.JsonPatch;
+import com.teamhub.migrations.TaskOrganizationBackfill;
+import com.teamhub.models.Project;
 import com.teamhub.models.Task;
 import com.teamhub.repositories.TaskRepository;
 import io.vertx.core.Future;
@@ -11,120 +19,374 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class TaskManager {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskManager.class);
 
+    // Enough of a project to check which organization it belongs to
+    private static final FieldSet OWNERSHIP_FIELDS = FieldSet.of("organizationId");
+    // ... whether it still takes new tasks, and the key to number them under
+    private static final FieldSet STATUS_FIELDS = FieldSet.of("organizationId", "status", "key");
+
+    // A task key is only found taken when a purged project had the same key, or another node had
+    // already skipped past it; the counter is moved past the highest key in use between attempts
+    private static final int TASK_KEY_ATTEMPTS = 3;
+
     private final TaskRepository taskRepository;
     private final ProjectManager projectManager;
+    private final ProjectMembershipManager membershipManager;
+    private final TaskOrganizationBackfill organizationBackfill;
 
-    public TaskManager(TaskRepository taskRepository, ProjectManager projectManager) {
+    public TaskManager(TaskRepository taskRepository, ProjectManager projectManager,
+                       ProjectMembershipManager membershipManager, TaskOrganizationBackfill organizationBackfill) {
         this.taskRepository = taskRepository;
         this.projectManager = projectManager;
+        this.membershipManager = membershipManager;
+        this.organizationBackfill = organizationBackfill;
     }
 
     public Future<Task> createTask(JsonObject body, String userId, String organizationId) {
         String projectId = body.getString("projectId");
         String title = body.getString("title");
+        String assigneeId = body.getString("assigneeId");
 
-        // Validate project exists and belongs to org
-        return projectManager.getProject(projectId, organizationId).compose(project -> {
-            // Validate assignee is a project member (if provided)
-            String assigneeId = body.getString("assigneeId");
-            if (assigneeId != null && !project.getMemberIds().contains(assigneeId)) {
-                return Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST,
-                        "Assignee is not a member of this project"));
-            }
+        // Validate project exists, belongs to org and is not archived, and the assignee (if provided) is a
+        // project member
+        return projectManager.getProject(projectId, organizationId, STATUS_FIELDS)
+                .compose(project -> project.getStatus() == Project.Status.ARCHIVED
+                        ? Future.<Project>failedFuture(new AppException(ErrorCode.BAD_REQUEST, "Project is archived"))
+                        : checkAssignee(projectId, organizationId, assigneeId).map(project))
+                .compose(project -> {
+                    JsonObject taskDoc = new JsonObject()
+                            .put("title", title)
+                            .put("description", body.getString("description", ""))
+                            .put("projectId", projectId)
+                            .put("organizationId", project.getOrganizationId())
+                            .put("assigneeId", assigneeId)
+                            .put("status", Task.Status.TODO.name())
+                            .put("priority", body.getString("priority", Task.Priority.MEDIUM.name()))
+                            .put("dueDate", MongoDates.parse(body.getString("dueDate")))
+                            .put("tags", body.getJsonArray("tags", new JsonArray()))
+                            .put("createdBy", userId);
 
-            JsonObject taskDoc = new JsonObject()
-                    .put("title", title)
-                    .put("description", body.getString("description", ""))
-                    .put("projectId", projectId)
-                    .put("assigneeId", assigneeId)
-                    .put("status", Task.Status.TODO.name())
-                    .put("priority", body.getString("priority", Task.Priority.MEDIUM.name()))
-                    .put("dueDate", body.getString("dueDate"))
-                    .put("tags", body.getJsonArray("tags", new JsonArray()))
-                    .put("createdBy", userId);
-
-            return taskRepository.insert(taskDoc).map(id -> {
-                taskDoc.put("_id", id);
-                logger.info("Task created: {} in project: {}", id, projectId);
-                return Task.fromJson(taskDoc);
-            });
-        });
+                    return insertTask(taskDoc, project, 1).map(id -> {
+                        taskDoc.put("_id", id);
+                        logger.info("Task created: {} in project: {}", id, projectId);
+                        return Task.fromJson(taskDoc);
+                    });
+                });
+    }
+
+    private Future<Void> checkAssignee(String projectId, String organizationId, String assigneeId) {
+        if (assigneeId == null) {
+            return Future.succeededFuture();
+        }
+        return membershipManager.isMember(projectId, organizationId, assigneeId).compose(member -> member
+                ? Future.succeededFuture()
+                : Future.failedFuture(new AppException(ErrorCode.BAD_REQUEST,
+                        "Assignee is not a member of this project")));
+    }
+
+    /**
+     * Inserts the task under the next key of its project; tasks of projects that predate keys get none.
+     * A taken key means the project's counter is behind the keys in use (a purged project had the
+     * same key and its tasks kept theirs), so the counter is moved past them before trying again.
+     */
+    private Future<String> insertTask(JsonObject taskDoc, Project project, int attempt) {
+        if (project.getKey() == null) {
+            return taskRepository.insert(taskDoc);
+        }
+        return projectManager.nextTaskKey(project.getId(), project.getOrganizationId(), project.getKey())
+                .compose(key -> taskRepository.insert(taskDoc.put("key", key)))
+                .recover(err -> attempt < TASK_KEY_ATTEMPTS && isConflict(err)
+                        ? skipTakenKeys(project).compose(v -> insertTask(taskDoc, project, attempt + 1))
+                        : Future.failedFuture(err));
+    }
+
+    private Future<Void> skipTakenKeys(Project project) {
+        return taskRepository.findHighestKeyNumber(project.getOrganizationId(), project.getKey())
+                .compose(highest -> {
+                    logger.info("Task keys of project {} are taken up to {}-{}; skipping past them",
+                            project.getId(), project.getKey(), highest);
+                    return projectManager.skipTaskNumbers(project.getId(), project.getOrganizationId(), highest);
+                });
     }
 
     public Future<Task> getTask(String taskId, String organizationId) {
-        return taskRepository.findById(taskId).compose(doc -> {
+        return getTask(taskId, organizationId, FieldSet.ALL);
+    }
+
+    /**
+     * Reads only {@code fields} of the task, plus what the access check needs.
+     */
+    public Future<Task> getTask(String taskId, String organizationId, FieldSet fields) {
+        FieldSet read = fields.with("organizationId", "projectId");
+        return taskRepository.findById(taskId, organizationId, read).compose(doc -> {
             if (doc == null) {
                 return Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Task not found"));
             }
             Task task = Task.fromJson(doc);
-            // Verify the task's project belongs to the org
-            return projectManager.getProject(task.getProjectId(), organizationId)
+            if (task.getOrganizationId() != null) {
+                if (!task.getOrganizationId().equals(organizationId)) {
+                    return Future.failedFuture(new AppException(ErrorCode.FORBIDDEN, "Access denied to this task"));
+                }
+                return Future.succeededFuture(task);
+            }
+            // Not yet backfilled: verify the task's project belongs to the org
+            return projectManager.getProject(task.getProjectId(), organizationId, OWNERSHIP_FIELDS)
                     .map(project -> task);
         });
     }
 
-    public Future<List<Task>> listTasks(String projectId, String organizationId, JsonObject filters, int skip, int limit) {
+    /**
+     * Looks a task up by its key (e.g. WEB-42), reading only {@code fields}.
+     */
+    public Future<Task> getTaskByKey(String key, String organizationId, FieldSet fields) {
+        return taskRepository.findByKey(organizationId, key, fields).compose(doc -> doc != null
+                ? Future.succeededFuture(Task.fromJson(doc))
+                : Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Task not found")));
+    }
+
+    /**
+     * Multi-get: returns the tasks among {@code taskIds} that exist and are visible to the organization,
+     * in the order given. Missing and foreign IDs are left out rather than failing the whole request.
+     */
+    public Future<List<Task>> getTasks(List<String> taskIds, String organizationId, DataLoaders loaders) {
+        return loaders.of(taskRepository).loadMany(taskIds).compose(docs -> {
+            List<Task> tasks = docs.stream().filter(Objects::nonNull).map(Task::fromJson).toList();
+            List<String> legacyProjectIds = tasks.stream()
+                    .filter(task -> task.getOrganizationId() == null)
+                    .map(Task::getProjectId)
+                    .distinct()
+                    .toList();
+            if (legacyProjectIds.isEmpty()) {
+                return Future.succeededFuture(tasks.stream()
+                        .filter(task -> organizationId.equals(task.getOrganizationId()))
+                        .toList());
+            }
+            // Not yet backfilled: visible if the task's project belongs to the org
+            return projectManager.getProjects(legacyProjectIds, organizationId, loaders).map(projects -> {
+                Set<String> visibleProjectIds = projects.stream().map(Project::getId).collect(Collectors.toSet());
+                return tasks.stream()
+                        .filter(task -> task.getOrganizationId() == null
+                                ? visibleProjectIds.contains(task.getProjectId())
+                                : organizationId.equals(task.getOrganizationId()))
+                        .toList();
+            });
+        });
+    }
+
+    public Future<List<Task>> listTasks(String projectId, String organizationId, JsonObject filters, int skip, int limit,
+                                        FieldSet fields) {
         if (projectId != null && !projectId.isBlank()) {
-            return projectManager.getProject(projectId, organizationId).compose(project ->
-                    taskRepository.findByProject(projectId, skip, limit)
+            return projectManager.getProject(projectId, organizationId, OWNERSHIP_FIELDS).compose(project ->
+                    taskRepository.findByProject(organizationId, projectId, skip, limit, fields)
                             .map(docs -> docs.stream().map(Task::fromJson).toList())
             );
         }
+        if (organizationBackfill.isComplete()) {
+            return taskRepository.findByOrganization(organizationId, filters, skip, limit, fields)
+                    .map(docs -> docs.stream().map(Task::fromJson).toList());
+        }
         return projectManager.getProjectIds(organizationId).compose(projectIds ->
-                taskRepository.findByOrganization(projectIds, filters, skip, limit)
+                taskRepository.findByProjects(organizationId, projectIds, filters, skip, limit, fields)
                         .map(docs -> docs.stream().map(Task::fromJson).toList())
         );
     }
 
+    public Future<KeysetPage<Task>> listTasks(String projectId, String organizationId, JsonObject filters,
+                                              PageCursor after, int limit, FieldSet fields) {
+        if (projectId != null && !projectId.isBlank()) {
+            return projectManager.getProject(projectId, organizationId, OWNERSHIP_FIELDS).compose(project ->
+                    taskRepository.findByProject(organizationId, projectId, after, limit, fields)
+                            .map(page -> page.map(Task::fromJson))
+            );
+        }
+        if (organizationBackfill.isComplete()) {
+            return taskRepository.findByOrganization(organizationId, filters, after, limit, fields)
+                    .map(page -> page.map(Task::fromJson));
+        }
+        return projectManager.getProjectIds(organizationId).compose(projectIds ->
+                taskRepository.findByProjects(organizationId, projectIds, filters, after, limit, fields)
+                        .map(page -> page.map(Task::fromJson))
+        );
+    }
+
     public Future<Long> countTasks(String projectId, String organizationId, JsonObject filters) {
         if (projectId != null && !projectId.isBlank()) {
-            return taskRepository.countByProject(projectId);
+            return taskRepository.countByProject(organizationId, projectId);
+        }
+        if (organizationBackfill.isComplete()) {
+            return taskRepository.countByOrganization(organizationId, filters);
         }
         return projectManager.getProjectIds(organizationId).compose(projectIds ->
-                taskRepository.countByOrganization(projectIds, filters)
+                taskRepository.countByProjects(organizationId, projectIds, filters)
         );
     }
 
-    public Future<Task> updateTask(String taskId, JsonObject body, String organizationId) {
-        return getTask(taskId, organizationId).compose(existing -> {
-            JsonObject update = new JsonObject();
-            if (body.containsKey("title")) update.put("title", body.getString("title"));
-            if (body.containsKey("description")) update.put("description", body.getString("description"));
-            if (body.containsKey("assigneeId")) update.put("assigneeId", body.getString("assigneeId"));
-            if (body.containsKey("priority")) update.put("priority", body.getString("priority"));
-            if (body.containsKey("dueDate")) update.put("dueDate", body.getString("dueDate"));
-            if (body.containsKey("tags")) update.put("tags", body.getJsonArray("tags"));
-
-            return taskRepository.update(taskId, update)
-                    .compose(v -> getTask(taskId, organizationId));
-        });
+    public Future<Task> updateTask(String taskId, JsonObject body, String organizationId, Long expectedVersion) {
+        JsonObject update;
+        try {
+            update = taskUpdate(body);
+        } catch (AppException e) {
+            return Future.failedFuture(e);
+        }
+        return applyUpdate(taskId, update, organizationId, expectedVersion);
+    }
+
+    /**
+     * Same as {@link #updateTask}, without reading the task back, so the write can share a bulk write
+     * with other task updates.
+     */
+    public Future<Void> updateTaskCoalesced(String taskId, JsonObject body, String organizationId,
+                                            Long expectedVersion) {
+        JsonObject update;
+        try {
+            update = taskUpdate(body);
+        } catch (AppException e) {
+            return Future.failedFuture(e);
+        }
+        return applyCoalescedUpdate(taskId, update, organizationId, expectedVersion);
     }
 
     public Future<Void> deleteTask(String taskId, String organizationId) {
         return getTask(taskId, organizationId).compose(existing -> {
             logger.info("Soft deleting task: {}", taskId);
-            return taskRepository.softDelete(taskId);
+            return taskRepository.softDelete(taskId, organizationId).mapEmpty();
         });
     }
 
-    public Future<Task> updateStatus(String taskId, String newStatus, String organizationId) {
-        return getTask(taskId, organizationId).compose(existing -> {
-            Task.Status status;
-            try {
-                status = Task.Status.valueOf(newStatus);
-            } catch (IllegalArgumentException e) {
-                return Future.failedFuture(new AppException(ErrorCode.VALIDATION_ERROR,
-                        "Invalid task status: " + newStatus));
-            }
+    public Future<Task> updateStatus(String taskId, String newStatus, String organizationId, Long expectedVersion) {
+        JsonObject update;
+        try {
+            update = statusUpdate(newStatus);
+        } catch (AppException e) {
+            return Future.failedFuture(e);
+        }
+        return applyUpdate(taskId, update, organizationId, expectedVersion);
+    }
+
+    /**
+     * Same as {@link #updateStatus}, without reading the task back, so the write can share a bulk write
+     * with other task updates (e.g. a burst of cards dragged across a board).
+     */
+    public Future<Void> updateStatusCoalesced(String taskId, String newStatus, String organizationId,
+                                              Long expectedVersion) {
+        JsonObject update;
+        try {
+            update = statusUpdate(newStatus);
+        } catch (AppException e) {
+            return Future.failedFuture(e);
+        }
+        return applyCoalescedUpdate(taskId, update, organizationId, expectedVersion);
+    }
+
+    /**
+     * Applies an RFC 6902 JSON Patch in a single update, without reading the task first. The patch's
+     * {@code test} operations are part of the update filter, so a failed test is reported like a
+     * concurrent modification (409).
+     */
+    public Future<Task> patchTask(String taskId, JsonArray operations, String organizationId) {
+        JsonPatch patch;
+        try {
+            patch = JsonPatch.parse(operations, Task.PATCHABLE);
+        } catch (AppException e) {
+            return Future.failedFuture(e);
+        }
+        JsonObject owned = patch.predicate().put("organizationId", organizationId);
+        return taskRepository.updateAndGet(taskId, organizationId, owned, patch.toUpdate(), patch.expectedVersion())
+                .compose(doc -> doc != null
+                        ? Future.succeededFuture(Task.fromJson(doc))
+                        : explainMissedUpdate(taskId, organizationId, legacy ->
+                                taskRepository.updateAndGet(taskId, organizationId, patch.predicate().mergeIn(legacy),
+                                        patch.toUpdate().set("organizationId", organizationId),
+                                        patch.expectedVersion())));
+    }
 
-            JsonObject update = new JsonObject().put("status", status.name());
-            return taskRepository.update(taskId, update)
-                    .compose(v -> getTask(taskId, organizationId));
+    private static JsonObject taskUpdate(JsonObject body) {
+        JsonObject update = new JsonObject();
+        if (body.containsKey("title")) update.put("title", body.getString("title"));
+        if (body.containsKey("description")) update.put("description", body.getString("description"));
+        if (body.containsKey("assigneeId")) update.put("assigneeId", body.getString("assigneeId"));
+        if (body.containsKey("priority")) update.put("priority", body.getString("priority"));
+        if (body.containsKey("dueDate")) update.put("dueDate", MongoDates.parse(body.getString("dueDate")));
+        if (body.containsKey("tags")) update.put("tags", body.getJsonArray("tags"));
+        return update;
+    }
+
+    private static JsonObject statusUpdate(String newStatus) {
+        Task.Status status;
+        try {
+            status = Task.Status.valueOf(newStatus);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR, "Invalid task status: " + newStatus);
+        }
+        return new JsonObject().put("status", status.name());
+    }
+
+    /**
+     * Updates the task in one round trip, with the organization check in the update filter.
+     */
+    private Future<Task> applyUpdate(String taskId, JsonObject update, String organizationId, Long expectedVersion) {
+        JsonObject owned = new JsonObject().put("organizationId", organizationId);
+        return taskRepository.updateAndGet(taskId, organizationId, owned, update, expectedVersion)
+                .compose(doc -> doc != null
+                        ? Future.succeededFuture(Task.fromJson(doc))
+                        : explainMissedUpdate(taskId, organizationId,
+                                stampLegacy(taskId, update, organizationId, expectedVersion)));
+    }
+
+    /**
+     * Same as {@link #applyUpdate}, through the repository's write coalescer. Only updates that miss
+     * (which then go through {@link #explainMissedUpdate}) cost a read.
+     */
+    private Future<Void> applyCoalescedUpdate(String taskId, JsonObject update, String organizationId,
+                                              Long expectedVersion) {
+        JsonObject owned = new JsonObject().put("organizationId", organizationId);
+        return taskRepository.updateCoalesced(taskId, organizationId, owned, update, expectedVersion)
+                .compose(applied -> applied
+                        ? Future.<Void>succeededFuture()
+                        : explainMissedUpdate(taskId, organizationId,
+                                stampLegacy(taskId, update, organizationId, expectedVersion)).mapEmpty());
+    }
+
+    /**
+     * The update matched nothing: the task is gone, belongs to another organization, predates the
+     * organizationId backfill, or was modified since the caller read it. For a task that predates the
+     * backfill, {@code stampLegacy} retries the update with the given predicate (the task has no
+     * organizationId) and stamps the organization on it.
+     */
+    private Future<Task> explainMissedUpdate(String taskId, String organizationId,
+                                             Function<JsonObject, Future<JsonObject>> stampLegacy) {
+        return getTask(taskId, organizationId).compose(task -> {
+            if (task.getOrganizationId() == null) {
+                // getTask checked the project's organization instead, so the task can be stamped with it
+                JsonObject legacy = new JsonObject().put("organizationId", new JsonObject().put("$exists", false));
+                return stampLegacy.apply(legacy)
+                        .compose(doc -> doc != null
+                                ? Future.succeededFuture(Task.fromJson(doc))
+                                : Future.failedFuture(concurrentModification()));
+            }
+            return Future.failedFuture(concurrentModification());
         });
     }
+
+    private Function<JsonObject, Future<JsonObject>> stampLegacy(String taskId, JsonObject update,
+                                                                 String organizationId, Long expectedVersion) {
+        return legacy -> taskRepository.updateAndGet(taskId, organizationId, legacy,
+                update.copy().put("organizationId", organizationId), expectedVersion);
+    }
+
+    private AppException concurrentModification() {
+        return new AppException(ErrorCode.CONFLICT, "Task was modified by another request; reload and retry");
+    }
+
+    private static boolean isConflict(Throwable err) {
+        return err instanceof AppException e && e.getErrorCode() == ErrorCode.CONFLICT;
+    }
 }
@@ -0,0 +1,192 @@
+package com.teamhub.managers;
+
+import com.teamhub.config.AppConfig;
+import com.teamhub.repositories.RevokedTokenRepository;
+import com.teamhub.utils.BloomFilter;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local view of revoked JWTs.
+ *
+ * A token is revoked either by its {@code jti} or by its subject (every token for that user issued
+ * before the revocation). Lookups go through a Bloom filter first, so a non-revoked token costs only a
+ * few hash probes and never touches Mongo; the exact maps are consulted only on a filter hit.
+ *
+ * Revocations are persisted in {@code revoked_tokens}, published on the event bus for immediate
+ * pickup, and re-read incrementally on a timer to catch anything the broadcast missed. Entries are
+ * dropped once no token they could match can still be valid, and the filter is rebuilt from the
+ * survivors, so memory tracks the number of live revocations rather than history.
+ */
+public class TokenRevocationManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationManager.class);
+
+    public static final String REVOCATION_ADDRESS = "teamhub.tokens.revoked";
+
+    static final String TYPE_TOKEN = "TOKEN";
+    static final String TYPE_SUBJECT = "SUBJECT";
+
+    private static final String JTI_PREFIX = "jti:";
+    private static final String SUBJECT_PREFIX = "sub:";
+
+    private final Vertx vertx;
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    // jti -> token expiry (epoch millis)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // userId -> tokens issued at or before this instant (epoch millis, the last of a whole second) are revoked
+    private final Map<String, Long> revokedSubjects = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter = BloomFilter.create(
+            AppConfig.TOKEN_REVOCATION_MIN_CAPACITY, AppConfig.TOKEN_REVOCATION_FALSE_POSITIVE_RATE);
+    private volatile long lastSyncMillis = 0L;
+
+    public TokenRevocationManager(Vertx vertx, RevokedTokenRepository revokedTokenRepository) {
+        this.vertx = vertx;
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    /**
+     * Loads current revocations and starts the event bus listener and refresh/prune timers.
+     */
+    public Future<Void> start() {
+        vertx.eventBus().<JsonObject>consumer(REVOCATION_ADDRESS, msg -> apply(msg.body()));
+        vertx.setPeriodic(AppConfig.TOKEN_REVOCATION_REFRESH_MS, id -> refresh());
+        vertx.setPeriodic(AppConfig.TOKEN_REVOCATION_PRUNE_MS, id -> prune());
+        return refresh();
+    }
+
+    /**
+     * Returns true if the token identified by the given claims has been revoked. A token's {@code iat}
+     * only has whole seconds, so a revoke-all covers every token issued in the same second as well as
+     * earlier ones: a token issued just before the revoke cannot be told apart from one issued just
+     * after it (e.g. the login right after it, which has to be repeated a second later).
+     */
+    public boolean isRevoked(String jti, String subject, long issuedAtMillis) {
+        BloomFilter current = filter;
+        if (jti != null && current.mightContain(JTI_PREFIX + jti) && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        if (subject != null && current.mightContain(SUBJECT_PREFIX + subject)) {
+            Long revokedBefore = revokedSubjects.get(subject);
+            return revokedBefore != null && issuedAtMillis <= revokedBefore;
+        }
+        return false;
+    }
+
+    /**
+     * Revokes a single token. The entry lives until the token itself would have expired.
+     */
+    public Future<Void> revokeToken(String jti, String subject, long expiresAtMillis) {
+        JsonObject doc = new JsonObject()
+                .put("type", TYPE_TOKEN)
+                .put("key", jti)
+                .put("subject", subject)
+                .put("revokedAt", System.currentTimeMillis())
+                .put("expiresAt", expiresAtMillis);
+        return persistAndBroadcast(doc);
+    }
+
+    /**
+     * Revokes every token issued to the given user up to now.
+     */
+    public Future<Void> revokeSubject(String userId) {
+        long now = System.currentTimeMillis();
+        JsonObject doc = new JsonObject()
+                .put("type", TYPE_SUBJECT)
+                .put("key", userId)
+                .put("subject", userId)
+                .put("revokedAt", now)
+                .put("expiresAt", now + (long) AppConfig.JWT_EXPIRY_SECONDS * 1000);
+        return persistAndBroadcast(doc);
+    }
+
+    private Future<Void> persistAndBroadcast(JsonObject doc) {
+        JsonObject event = doc.copy();
+        return revokedTokenRepository.insert(doc).map(id -> {
+            apply(event);
+            vertx.eventBus().publish(REVOCATION_ADDRESS, event);
+            logger.info("Revoked {} {}", event.getString("type"), event.getString("key"));
+            return null;
+        });
+    }
+
+    /**
+     * Pulls revocations recorded since the last sync. The watermark is rewound by a small overlap so
+     * writes from nodes with a slightly skewed clock are not skipped; re-applying an entry is harmless.
+     */
+    Future<Void> refresh() {
+        long now = System.currentTimeMillis();
+        long since = Math.max(0L, lastSyncMillis - AppConfig.TOKEN_REVOCATION_SYNC_OVERLAP_MS);
+        return revokedTokenRepository.findRevokedSince(since, now, AppConfig.TOKEN_REVOCATION_REFRESH_BATCH)
+                .map(docs -> {
+                    long watermark = lastSyncMillis;
+                    for (JsonObject doc : docs) {
+                        apply(doc);
+                        watermark = Math.max(watermark, doc.getLong("revokedAt", 0L));
+                    }
+                    lastSyncMillis = docs.size() < AppConfig.TOKEN_REVOCATION_REFRESH_BATCH ? Math.max(watermark, now) : watermark;
+                    return (Void) null;
+                })
+                .onFailure(err -> logger.warn("Failed to refresh token revocations: {}", err.getMessage()));
+    }
+
+    void apply(JsonObject doc) {
+        String key = doc.getString("key");
+        long expiresAt = doc.getLong("expiresAt", 0L);
+        if (key == null || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (TYPE_SUBJECT.equals(doc.getString("type"))) {
+            revokedSubjects.merge(key, endOfSecond(doc.getLong("revokedAt", 0L)), Math::max);
+            filter.put(SUBJECT_PREFIX + key);
+        } else {
+            revokedTokens.put(key, expiresAt);
+            filter.put(JTI_PREFIX + key);
+        }
+        if (revokedTokens.size() + revokedSubjects.size() > filter.capacity()) {
+            rebuildFilter();
+        }
+    }
+
+    /**
+     * The last millisecond of the second {@code millis} falls in: tokens carry {@code iat} in whole
+     * seconds, so a revoke-all has to cover the rest of its second.
+     */
+    private static long endOfSecond(long millis) {
+        return Math.floorDiv(millis, 1000) * 1000 + 999;
+    }
+
+    /**
+     * Drops entries that can no longer match a valid token and rebuilds the filter from the rest.
+     */
+    void prune() {
+        long now = System.currentTimeMillis();
+        long maxTokenAgeMillis = (long) AppConfig.JWT_EXPIRY_SECONDS * 1000;
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedSubjects.values().removeIf(revokedBefore -> revokedBefore + maxTokenAgeMillis <= now);
+        rebuildFilter();
+    }
+
+    private void rebuildFilter() {
+        int live = revokedTokens.size() + revokedSubjects.size();
+        BloomFilter rebuilt = BloomFilter.create(
+                Math.max(AppConfig.TOKEN_REVOCATION_MIN_CAPACITY, live * 2),
+                AppConfig.TOKEN_REVOCATION_FALSE_POSITIVE_RATE);
+        revokedTokens.keySet().forEach(jti -> rebuilt.put(JTI_PREFIX + jti));
+        revokedSubjects.keySet().forEach(subject -> rebuilt.put(SUBJECT_PREFIX + subject));
+        filter = rebuilt;
+    }
+
+    int size() {
+        return revokedTokens.size() + revokedSubjects.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.teamhub.managers;
+
+import com.teamhub.config.AppConfig;
+import com.teamhub.repositories.OrganizationRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Periodically walks every organization and corrects usage counters that have drifted from the real
+ * member and project counts (e.g. a release lost to a crash between insert failure and compensation).
+ * Runs on every node; concurrent runs are harmless because each correction is conditional on the
+ * counters it read.
+ */
+public class UsageReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageReconciler.class);
+
+    private final Vertx vertx;
+    private final OrganizationRepository organizationRepository;
+    private final BillingManager billingManager;
+    private boolean running;
+
+    public UsageReconciler(Vertx vertx, OrganizationRepository organizationRepository, BillingManager billingManager) {
+        this.vertx = vertx;
+        this.organizationRepository = organizationRepository;
+        this.billingManager = billingManager;
+    }
+
+    /**
+     * Runs once straight away, seeding organizations that predate the usage counters, then every
+     * {@link AppConfig#USAGE_RECONCILE_INTERVAL_MS}.
+     */
+    public void start() {
+        run();
+        vertx.setPeriodic(AppConfig.USAGE_RECONCILE_INTERVAL_MS, id -> run());
+    }
+
+    /**
+     * Reconciles all organizations, one batch at a time. Skipped if the previous run is still going.
+     */
+    public Future<Void> run() {
+        if (running) {
+            return Future.succeededFuture();
+        }
+        running = true;
+        return reconcileAfter(null)
+                .onFailure(err -> logger.error("Usage reconciliation failed", err))
+                .onComplete(ar -> running = false);
+    }
+
+    private Future<Void> reconcileAfter(String lastId) {
+        return organizationRepository.findIdsAfter(lastId, AppConfig.USAGE_RECONCILE_BATCH_SIZE).compose(ids -> {
+            if (ids.isEmpty()) {
+                return Future.succeededFuture();
+            }
+            return reconcileEach(ids, 0).compose(v -> ids.size() < AppConfig.USAGE_RECONCILE_BATCH_SIZE
+                    ? Future.succeededFuture()
+                    : reconcileAfter(ids.get(ids.size() - 1)));
+        });
+    }
+
+    private Future<Void> reconcileEach(List<String> ids, int index) {
+        if (index == ids.size()) {
+            return Future.succeededFuture();
+        }
+        return billingManager.reconcile(ids.get(index)).compose(v -> reconcileEach(ids, index + 1));
+    }
+}
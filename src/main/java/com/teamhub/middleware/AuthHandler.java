@@ -3,6 +3,7 @@ package com.teamhub.middleware;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.managers.TokenRevocationManager;
 import com.teamhub.utils.JwtHelper;
 import io.vertx.core.Handler;
 import io.vertx.ext.web.RoutingContext;
@@ -10,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
+import java.util.Date;
 import java.util.Set;
 
 public class AuthHandler implements Handler<RoutingContext> {
@@ -22,12 +24,21 @@ public class AuthHandler implements Handler<RoutingContext> {
             "/api/v1/auth/register"
     );
 
+    // Platform operator routes authenticate with OperatorAuthHandler instead
+    private static final String OPERATOR_PREFIX = "/admin/";
+
+    private final TokenRevocationManager tokenRevocationManager;
+
+    public AuthHandler(TokenRevocationManager tokenRevocationManager) {
+        this.tokenRevocationManager = tokenRevocationManager;
+    }
+
     @Override
     public void handle(RoutingContext ctx) {
         String path = ctx.normalizedPath();
 
         // Skip authentication for public routes
-        if (PUBLIC_PATHS.contains(path)) {
+        if (PUBLIC_PATHS.contains(path) || path.startsWith(OPERATOR_PREFIX)) {
             ctx.next();
             return;
         }
@@ -50,7 +61,17 @@ public class AuthHandler implements Handler<RoutingContext> {
             String userId = claims.getSubject();
             String email = claims.getStringClaim("email");
             String organizationId = claims.getStringClaim("organizationId");
+            Date issuedAt = claims.getIssueTime();
+            Date expiresAt = claims.getExpirationTime();
+
+            if (tokenRevocationManager.isRevoked(claims.getJWTID(), userId,
+                    issuedAt != null ? issuedAt.getTime() : 0L)) {
+                ctx.fail(new AppException(ErrorCode.UNAUTHORIZED, "Token has been revoked"));
+                return;
+            }
 
+            ctx.put("tokenId", claims.getJWTID());
+            ctx.put("tokenExpiresAt", expiresAt != null ? expiresAt.getTime() : null);
             ctx.put("userId", userId);
             ctx.put("email", email);
             ctx.put("organizationId", organizationId);
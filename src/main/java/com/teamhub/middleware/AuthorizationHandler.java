@@ -0,0 +1,45 @@
+package com.teamhub.middleware;
+
+import com.teamhub.managers.PermissionManager;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the authenticated caller's organization role once per request and stores it in the
+ * routing context as "role". Must run after {@link AuthHandler}. Callers that are not members of
+ * their token's organization proceed without a role; managers that need one reject the request.
+ */
+public class AuthorizationHandler implements Handler<RoutingContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorizationHandler.class);
+
+    private final PermissionManager permissionManager;
+
+    public AuthorizationHandler(PermissionManager permissionManager) {
+        this.permissionManager = permissionManager;
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        String userId = ctx.get("userId");
+        String organizationId = ctx.get("organizationId");
+
+        // Public routes skip authentication and carry no identity
+        if (userId == null) {
+            ctx.next();
+            return;
+        }
+
+        permissionManager.resolveRole(userId, organizationId)
+                .onSuccess(role -> {
+                    if (role != null) {
+                        ctx.put("role", role);
+                    }
+                    logger.debug("Resolved role {} for user: {} (org: {})", role, userId, organizationId);
+                    ctx.next();
+                })
+                .onFailure(ctx::fail);
+    }
+}
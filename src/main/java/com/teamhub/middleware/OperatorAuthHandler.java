@@ -0,0 +1,47 @@
+package com.teamhub.middleware;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.utils.CryptoHelper;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Locale;
+
+/**
+ * Guards the platform operator routes, which expose data across every organization: the request must
+ * carry the operator key in {@value #HEADER}. Only the key's SHA-256 is configured; with none configured
+ * every request is refused. Organization tokens, whatever their role, are not accepted.
+ */
+public class OperatorAuthHandler implements Handler<RoutingContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperatorAuthHandler.class);
+
+    public static final String HEADER = "X-Operator-Key";
+
+    private final byte[] keySha256;
+
+    public OperatorAuthHandler(String keySha256) {
+        this.keySha256 = keySha256 == null || keySha256.isBlank()
+                ? null
+                : keySha256.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        String key = ctx.request().getHeader(HEADER);
+        if (keySha256 == null || key == null || !MessageDigest.isEqual(keySha256,
+                CryptoHelper.hashSha256(key).getBytes(StandardCharsets.UTF_8))) {
+            logger.warn("Rejected operator request to {} from {}", ctx.normalizedPath(),
+                    ctx.request().remoteAddress());
+            ctx.fail(new AppException(ErrorCode.UNAUTHORIZED, "Missing or invalid operator key"));
+            return;
+        }
+        ctx.put("operator", true);
+        ctx.next();
+    }
+}
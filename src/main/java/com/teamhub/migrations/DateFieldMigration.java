@@ -0,0 +1,97 @@
+package com.teamhub.migrations;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.migration.Migration;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.MongoRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts one repository's {@link MongoRepository#dateFields()} from ISO-8601 strings to BSON dates.
+ *
+ * Every update is conditional on the string value it replaces, so a document rewritten concurrently is
+ * left alone. Values that do not parse are logged and left as they are.
+ */
+public class DateFieldMigration implements Migration {
+
+    private static final Logger logger = LoggerFactory.getLogger(DateFieldMigration.class);
+
+    private final String collection;
+    private final List<String> fields;
+
+    public DateFieldMigration(MongoRepository repository) {
+        this.collection = repository.getCollectionName();
+        this.fields = repository.dateFields();
+    }
+
+    @Override
+    public String id() {
+        return "0002-bson-dates-" + collection;
+    }
+
+    @Override
+    public String description() {
+        return "Convert " + String.join(", ", fields) + " on " + collection + " to BSON dates";
+    }
+
+    @Override
+    public String collection() {
+        return collection;
+    }
+
+    @Override
+    public JsonObject filter() {
+        JsonArray anyString = new JsonArray();
+        for (String field : fields) {
+            anyString.add(new JsonObject().put(field, new JsonObject().put("$type", "string")));
+        }
+        return new JsonObject().put("$or", anyString);
+    }
+
+    @Override
+    public JsonObject projection() {
+        JsonObject projection = new JsonObject();
+        for (String field : fields) {
+            projection.put(field, 1);
+        }
+        return projection;
+    }
+
+    @Override
+    public Future<List<BulkOperation>> apply(List<JsonObject> batch) {
+        List<BulkOperation> operations = new ArrayList<>();
+        for (JsonObject doc : batch) {
+            BulkOperation operation = convert(doc);
+            if (operation != null) {
+                operations.add(operation);
+            }
+        }
+        return Future.succeededFuture(operations);
+    }
+
+    private BulkOperation convert(JsonObject doc) {
+        JsonObject filter = new JsonObject().put("_id", doc.getValue("_id"));
+        JsonObject set = new JsonObject();
+        for (String field : fields) {
+            if (doc.getValue(field) instanceof String value) {
+                try {
+                    Instant instant = MongoDates.parseInstant(value);
+                    filter.put(field, value);
+                    set.put(field, MongoDates.toBson(instant));
+                } catch (AppException e) {
+                    logger.warn("Leaving unparseable {}.{} on {}: {}", collection, field, doc.getValue("_id"), value);
+                }
+            }
+        }
+        return set.isEmpty() ? null : BulkOperation.createUpdate(filter, new JsonObject().put("$set", set));
+    }
+}
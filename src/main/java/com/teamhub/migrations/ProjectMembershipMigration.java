@@ -0,0 +1,117 @@
+package com.teamhub.migrations;
+
+import com.teamhub.common.migration.Migration;
+import com.teamhub.repositories.ProjectMembershipRepository;
+import com.teamhub.repositories.ProjectRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Moves each project's embedded {@code memberIds} array into {@code project_memberships}, then drops
+ * the array and stores its size as the project's member count. Soft-deleted projects are included.
+ * Memberships are upserted, so a batch that fails after writing them is simply redone; the project
+ * update only applies while the array is still the one read.
+ *
+ * Until {@link #isComplete()} is true, membership checks also consult the array of projects not yet
+ * migrated.
+ */
+public class ProjectMembershipMigration implements Migration {
+
+    private final ProjectMembershipRepository membershipRepository;
+
+    private volatile boolean complete = false;
+
+    public ProjectMembershipMigration(ProjectMembershipRepository membershipRepository) {
+        this.membershipRepository = membershipRepository;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String id() {
+        return "0003-project-memberships";
+    }
+
+    @Override
+    public String description() {
+        return "Move project memberIds arrays into project_memberships";
+    }
+
+    @Override
+    public String collection() {
+        return "projects";
+    }
+
+    @Override
+    public JsonObject filter() {
+        return new JsonObject().put("memberIds", new JsonObject().put("$exists", true));
+    }
+
+    @Override
+    public JsonObject projection() {
+        return new JsonObject().put("organizationId", 1).put("memberIds", 1).put("createdBy", 1);
+    }
+
+    /**
+     * Project updates only; the memberships they depend on are written by {@link #prepare(List)}.
+     */
+    @Override
+    public Future<List<BulkOperation>> apply(List<JsonObject> batch) {
+        List<BulkOperation> operations = new ArrayList<>();
+        for (JsonObject project : batch) {
+            if (project.getString("organizationId") == null) {
+                continue;
+            }
+            JsonArray stored = project.getJsonArray("memberIds", new JsonArray());
+            JsonObject filter = new JsonObject()
+                    .put("_id", project.getValue("_id"))
+                    .put("memberIds", stored);
+            JsonObject update = new JsonObject()
+                    .put("$set", new JsonObject().put(ProjectRepository.MEMBER_COUNT, memberIds(stored).size()))
+                    .put("$unset", new JsonObject().put("memberIds", ""));
+            operations.add(BulkOperation.createUpdate(filter, update));
+        }
+        return Future.succeededFuture(operations);
+    }
+
+    /**
+     * Upserts each project's memberships, so they exist before the array is dropped.
+     */
+    @Override
+    public Future<Void> prepare(List<JsonObject> batch) {
+        Future<Void> chain = Future.succeededFuture();
+        for (JsonObject project : batch) {
+            String organizationId = project.getString("organizationId");
+            if (organizationId == null) {
+                continue;
+            }
+            List<String> memberIds = memberIds(project.getJsonArray("memberIds", new JsonArray()));
+            chain = chain.compose(v -> membershipRepository.addMissing(organizationId, project.getString("_id"),
+                    memberIds, project.getString("createdBy")));
+        }
+        return chain;
+    }
+
+    @Override
+    public void onComplete() {
+        complete = true;
+    }
+
+    private static List<String> memberIds(JsonArray stored) {
+        LinkedHashSet<String> memberIds = new LinkedHashSet<>();
+        stored.forEach(memberId -> {
+            if (memberId instanceof String id) {
+                memberIds.add(id);
+            }
+        });
+        return List.copyOf(memberIds);
+    }
+}
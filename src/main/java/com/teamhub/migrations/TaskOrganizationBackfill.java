@@ -0,0 +1,97 @@
+package com.teamhub.migrations;
+
+import com.teamhub.common.migration.Migration;
+import com.teamhub.repositories.ProjectRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stamps organizationId onto tasks written before it was stored on them, copying it from the task's
+ * project. Soft-deleted tasks and projects are included. Updates only touch tasks still without the
+ * field, so a task written concurrently is never overwritten. Tasks whose project no longer exists are
+ * left alone.
+ *
+ * Until {@link #isComplete()} is true, org-wide task queries must not rely on organizationId alone.
+ */
+public class TaskOrganizationBackfill implements Migration {
+
+    private final ProjectRepository projectRepository;
+
+    private volatile boolean complete = false;
+
+    public TaskOrganizationBackfill(ProjectRepository projectRepository) {
+        this.projectRepository = projectRepository;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String id() {
+        return "0001-task-organization-id";
+    }
+
+    @Override
+    public String description() {
+        return "Copy each task's project organizationId onto the task";
+    }
+
+    @Override
+    public String collection() {
+        return "tasks";
+    }
+
+    @Override
+    public JsonObject filter() {
+        return new JsonObject().put("organizationId", new JsonObject().put("$exists", false));
+    }
+
+    @Override
+    public JsonObject projection() {
+        return new JsonObject().put("projectId", 1);
+    }
+
+    @Override
+    public Future<List<BulkOperation>> apply(List<JsonObject> batch) {
+        List<String> projectIds = batch.stream()
+                .map(task -> task.getString("projectId"))
+                .filter(projectId -> projectId != null)
+                .distinct()
+                .toList();
+        if (projectIds.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+        return projectRepository.findOrganizations(projectIds).map(projects -> {
+            Map<String, String> organizations = new HashMap<>();
+            for (JsonObject project : projects) {
+                if (project.getString("organizationId") != null) {
+                    organizations.put(project.getString("_id"), project.getString("organizationId"));
+                }
+            }
+            List<BulkOperation> operations = new ArrayList<>();
+            for (JsonObject task : batch) {
+                String organizationId = organizations.get(task.getString("projectId"));
+                if (organizationId != null) {
+                    JsonObject filter = new JsonObject()
+                            .put("_id", task.getValue("_id"))
+                            .put("organizationId", new JsonObject().put("$exists", false));
+                    operations.add(BulkOperation.createUpdate(filter,
+                            new JsonObject().put("$set", new JsonObject().put("organizationId", organizationId))));
+                }
+            }
+            return operations;
+        });
+    }
+
+    @Override
+    public void onComplete() {
+        complete = true;
+    }
+}
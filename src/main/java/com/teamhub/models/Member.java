@@ -1,5 +1,6 @@
 package com.teamhub.models;
 
+import com.teamhub.common.mongo.MongoDates;
 import io.vertx.core.json.JsonObject;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -38,6 +39,7 @@ public class Member {
     private String invitedAt;
     private String joinedAt;
     private String deletedAt;
+    private long version;
 
     public JsonObject toJson() {
         return new JsonObject()
@@ -49,7 +51,8 @@ public class Member {
                 .put("avatarUrl", avatarUrl)
                 .put("invitedAt", invitedAt)
                 .put("joinedAt", joinedAt)
-                .put("deletedAt", deletedAt);
+                .put("deletedAt", deletedAt)
+                .put("version", version);
     }
 
     public static Member fromJson(JsonObject json) {
@@ -61,9 +64,10 @@ public class Member {
                 .role(json.getString("role") != null ? Role.valueOf(json.getString("role")) : Role.MEMBER)
                 .organizationId(json.getString("organizationId"))
                 .avatarUrl(json.getString("avatarUrl"))
-                .invitedAt(json.getString("invitedAt"))
-                .joinedAt(json.getString("joinedAt"))
-                .deletedAt(json.getString("deletedAt"))
+                .invitedAt(MongoDates.toIso(json.getValue("invitedAt")))
+                .joinedAt(MongoDates.toIso(json.getValue("joinedAt")))
+                .deletedAt(MongoDates.toIso(json.getValue("deletedAt")))
+                .version(json.getLong("version", 0L))
                 .build();
     }
 }
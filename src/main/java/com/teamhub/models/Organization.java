@@ -1,5 +1,6 @@
 package com.teamhub.models;
 
+import com.teamhub.common.mongo.MongoDates;
 import io.vertx.core.json.JsonObject;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,10 +18,12 @@ public class Organization {
     private String slug;
     private String billingPlanId;
     private int memberCount;
+    private int projectCount;
     private JsonObject settings;
     private String createdAt;
     private String updatedAt;
     private String deletedAt;
+    private long version;
 
     public JsonObject toJson() {
         return new JsonObject()
@@ -29,10 +32,12 @@ public class Organization {
                 .put("slug", slug)
                 .put("billingPlanId", billingPlanId)
                 .put("memberCount", memberCount)
+                .put("projectCount", projectCount)
                 .put("settings", settings != null ? settings : new JsonObject())
                 .put("createdAt", createdAt)
                 .put("updatedAt", updatedAt)
-                .put("deletedAt", deletedAt);
+                .put("deletedAt", deletedAt)
+                .put("version", version);
     }
 
     public static Organization fromJson(JsonObject json) {
@@ -43,10 +48,12 @@ public class Organization {
                 .slug(json.getString("slug"))
                 .billingPlanId(json.getString("billingPlanId"))
                 .memberCount(json.getInteger("memberCount", 0))
+                .projectCount(json.getInteger("projectCount", 0))
                 .settings(json.getJsonObject("settings", new JsonObject()))
-                .createdAt(json.getString("createdAt"))
-                .updatedAt(json.getString("updatedAt"))
-                .deletedAt(json.getString("deletedAt"))
+                .createdAt(MongoDates.toIso(json.getValue("createdAt")))
+                .updatedAt(MongoDates.toIso(json.getValue("updatedAt")))
+                .deletedAt(MongoDates.toIso(json.getValue("deletedAt")))
+                .version(json.getLong("version", 0L))
                 .build();
     }
 }
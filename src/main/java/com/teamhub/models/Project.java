@@ -1,5 +1,8 @@
 package com.teamhub.models;
 
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.patch.PatchSchema;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import lombok.AllArgsConstructor;
@@ -7,7 +10,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -21,51 +23,78 @@ public class Project {
     }
 
     private String id;
+    private String key;
     private String name;
     private String description;
     private String organizationId;
     private Status status;
-    @Builder.Default
-    private List<String> memberIds = new ArrayList<>();
+    private long memberCount;
+    private boolean tasksArchived;
     private String createdAt;
     private String updatedAt;
     private String deletedAt;
+    private long version;
     private String createdBy;
 
+    /**
+     * Fields that can be requested with {@code fields=}.
+     */
+    public static final List<String> FIELDS = List.of("id", "key", "name", "description", "organizationId", "status",
+            "memberCount", "tasksArchived", "createdAt", "updatedAt", "deletedAt", "version", "createdBy");
+
+    /**
+     * Default for list views: leaves out the description and soft-delete marker.
+     */
+    public static final FieldSet LIST_FIELDS = FieldSet.of("key", "name", "organizationId", "status", "memberCount",
+            "createdAt", "updatedAt", "version", "createdBy");
+
+    /**
+     * Fields that {@code PATCH /projects/:id} may change. Status changes go through archive/unarchive.
+     */
+    public static final PatchSchema PATCHABLE = PatchSchema.create()
+            .text("name", false)
+            .text("description", true);
+
     public JsonObject toJson() {
-        JsonObject json = new JsonObject()
-                .put("id", id)
-                .put("name", name)
-                .put("description", description)
-                .put("organizationId", organizationId)
-                .put("status", status != null ? status.name() : null)
-                .put("memberIds", new JsonArray(memberIds != null ? memberIds : new ArrayList<>()))
-                .put("createdAt", createdAt)
-                .put("updatedAt", updatedAt)
-                .put("deletedAt", deletedAt)
-                .put("createdBy", createdBy);
+        return toJson(FieldSet.ALL);
+    }
+
+    public JsonObject toJson(FieldSet fields) {
+        JsonObject json = new JsonObject();
+        if (fields.includes("id")) json.put("id", id);
+        if (fields.includes("key")) json.put("key", key);
+        if (fields.includes("name")) json.put("name", name);
+        if (fields.includes("description")) json.put("description", description);
+        if (fields.includes("organizationId")) json.put("organizationId", organizationId);
+        if (fields.includes("status")) json.put("status", status != null ? status.name() : null);
+        if (fields.includes("memberCount")) json.put("memberCount", memberCount);
+        if (fields.includes("tasksArchived")) json.put("tasksArchived", tasksArchived);
+        if (fields.includes("createdAt")) json.put("createdAt", createdAt);
+        if (fields.includes("updatedAt")) json.put("updatedAt", updatedAt);
+        if (fields.includes("deletedAt")) json.put("deletedAt", deletedAt);
+        if (fields.includes("version")) json.put("version", version);
+        if (fields.includes("createdBy")) json.put("createdBy", createdBy);
         return json;
     }
 
     public static Project fromJson(JsonObject json) {
         if (json == null) return null;
-        List<String> memberIds = new ArrayList<>();
-        JsonArray arr = json.getJsonArray("memberIds");
-        if (arr != null) {
-            for (int i = 0; i < arr.size(); i++) {
-                memberIds.add(arr.getString(i));
-            }
-        }
+        // Projects not yet moved to project_memberships still embed their member IDs
+        JsonArray legacyMemberIds = json.getJsonArray("memberIds");
+        long memberCount = json.getLong("memberCount", legacyMemberIds != null ? legacyMemberIds.size() : 0L);
         return Project.builder()
                 .id(json.getString("_id", json.getString("id")))
+                .key(json.getString("key"))
                 .name(json.getString("name"))
                 .description(json.getString("description"))
                 .organizationId(json.getString("organizationId"))
                 .status(json.getString("status") != null ? Status.valueOf(json.getString("status")) : Status.ACTIVE)
-                .memberIds(memberIds)
-                .createdAt(json.getString("createdAt"))
-                .updatedAt(json.getString("updatedAt"))
-                .deletedAt(json.getString("deletedAt"))
+                .memberCount(memberCount)
+                .tasksArchived(json.getBoolean("tasksArchived", false))
+                .createdAt(MongoDates.toIso(json.getValue("createdAt")))
+                .updatedAt(MongoDates.toIso(json.getValue("updatedAt")))
+                .deletedAt(MongoDates.toIso(json.getValue("deletedAt")))
+                .version(json.getLong("version", 0L))
                 .createdBy(json.getString("createdBy"))
                 .build();
     }
@@ -1,5 +1,8 @@
 package com.teamhub.models;
 
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.patch.PatchSchema;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import lombok.AllArgsConstructor;
@@ -25,9 +28,11 @@ public class Task {
     }
 
     private String id;
+    private String key;
     private String title;
     private String description;
     private String projectId;
+    private String organizationId;
     private String assigneeId;
     private Status status;
     private Priority priority;
@@ -37,23 +42,56 @@ public class Task {
     private String createdAt;
     private String updatedAt;
     private String deletedAt;
+    private long version;
     private String createdBy;
 
+    /**
+     * Fields that can be requested with {@code fields=}.
+     */
+    public static final List<String> FIELDS = List.of("id", "key", "title", "description", "projectId",
+            "organizationId", "assigneeId", "status", "priority", "dueDate", "tags", "createdAt", "updatedAt",
+            "deletedAt", "version", "createdBy");
+
+    /**
+     * Default for list views: leaves out the description, tags and soft-delete marker.
+     */
+    public static final FieldSet LIST_FIELDS = FieldSet.of("key", "title", "projectId", "organizationId",
+            "assigneeId", "status", "priority", "dueDate", "createdAt", "updatedAt", "version", "createdBy");
+
+    /**
+     * Fields that {@code PATCH /tasks/:id} may change.
+     */
+    public static final PatchSchema PATCHABLE = PatchSchema.create()
+            .text("title", false)
+            .text("description", true)
+            .text("assigneeId", true)
+            .enumeration("status", Status.class)
+            .enumeration("priority", Priority.class)
+            .date("dueDate")
+            .stringSet("tags");
+
     public JsonObject toJson() {
-        JsonObject json = new JsonObject()
-                .put("id", id)
-                .put("title", title)
-                .put("description", description)
-                .put("projectId", projectId)
-                .put("assigneeId", assigneeId)
-                .put("status", status != null ? status.name() : null)
-                .put("priority", priority != null ? priority.name() : null)
-                .put("dueDate", dueDate)
-                .put("tags", new JsonArray(tags != null ? tags : new ArrayList<>()))
-                .put("createdAt", createdAt)
-                .put("updatedAt", updatedAt)
-                .put("deletedAt", deletedAt)
-                .put("createdBy", createdBy);
+        return toJson(FieldSet.ALL);
+    }
+
+    public JsonObject toJson(FieldSet fields) {
+        JsonObject json = new JsonObject();
+        if (fields.includes("id")) json.put("id", id);
+        if (fields.includes("key")) json.put("key", key);
+        if (fields.includes("title")) json.put("title", title);
+        if (fields.includes("description")) json.put("description", description);
+        if (fields.includes("projectId")) json.put("projectId", projectId);
+        if (fields.includes("organizationId")) json.put("organizationId", organizationId);
+        if (fields.includes("assigneeId")) json.put("assigneeId", assigneeId);
+        if (fields.includes("status")) json.put("status", status != null ? status.name() : null);
+        if (fields.includes("priority")) json.put("priority", priority != null ? priority.name() : null);
+        if (fields.includes("dueDate")) json.put("dueDate", dueDate);
+        if (fields.includes("tags")) json.put("tags", new JsonArray(tags != null ? tags : new ArrayList<>()));
+        if (fields.includes("createdAt")) json.put("createdAt", createdAt);
+        if (fields.includes("updatedAt")) json.put("updatedAt", updatedAt);
+        if (fields.includes("deletedAt")) json.put("deletedAt", deletedAt);
+        if (fields.includes("version")) json.put("version", version);
+        if (fields.includes("createdBy")) json.put("createdBy", createdBy);
         return json;
     }
 
@@ -68,17 +106,20 @@ public class Task {
         }
         return Task.builder()
                 .id(json.getString("_id", json.getString("id")))
+                .key(json.getString("key"))
                 .title(json.getString("title"))
                 .description(json.getString("description"))
                 .projectId(json.getString("projectId"))
+                .organizationId(json.getString("organizationId"))
                 .assigneeId(json.getString("assigneeId"))
                 .status(json.getString("status") != null ? Status.valueOf(json.getString("status")) : Status.TODO)
                 .priority(json.getString("priority") != null ? Priority.valueOf(json.getString("priority")) : Priority.MEDIUM)
-                .dueDate(json.getString("dueDate"))
+                .dueDate(MongoDates.toIsoDate(json.getValue("dueDate")))
                 .tags(tags)
-                .createdAt(json.getString("createdAt"))
-                .updatedAt(json.getString("updatedAt"))
-                .deletedAt(json.getString("deletedAt"))
+                .createdAt(MongoDates.toIso(json.getValue("createdAt")))
+                .updatedAt(MongoDates.toIso(json.getValue("updatedAt")))
+                .deletedAt(MongoDates.toIso(json.getValue("deletedAt")))
+                .version(json.getLong("version", 0L))
                 .createdBy(json.getString("createdBy"))
                 .build();
     }
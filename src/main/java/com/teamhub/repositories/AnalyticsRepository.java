@@ -1,5 +1,7 @@
 package com.teamhub.repositories;
 
+import com.teamhub.common.mongo.MongoQuery;
+import com.teamhub.common.mongo.TenantRouter;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonArray;
@@ -9,12 +11,29 @@ import io.vertx.ext.mongo.MongoClient;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Reporting aggregations. They run on the analytics client of the organization's cluster (see
+ * {@link TenantRouter#analyticsClient}), so heavy pipelines read from secondaries with their own connection
+ * pool instead of competing with CRUD traffic on the primary. Results may lag recent writes.
+ */
 public class AnalyticsRepository {
 
-    private final MongoClient mongoClient;
+    // Pipeline stages that do not depend on the request, shared by every pipeline: never modified
+    private static final JsonObject LOOKUP_PROJECT = new JsonObject().put("$lookup", new JsonObject()
+            .put("from", "projects")
+            .put("localField", "projectId")
+            .put("foreignField", "_id")
+            .put("as", "project"));
+    private static final JsonObject UNWIND_PROJECT = new JsonObject().put("$unwind", "$project");
+
+    private final TenantRouter router;
 
     public AnalyticsRepository(MongoClient mongoClient) {
-        this.mongoClient = mongoClient;
+        this(TenantRouter.single(mongoClient));
+    }
+
+    public AnalyticsRepository(TenantRouter router) {
+        this.router = router;
     }
 
     /**
@@ -22,20 +41,16 @@ public class AnalyticsRepository {
      */
     public Future<List<JsonObject>> getTaskCountsByStatus(String organizationId) {
         JsonArray pipeline = new JsonArray()
-                .add(new JsonObject().put("$lookup", new JsonObject()
-                        .put("from", "projects")
-                        .put("localField", "projectId")
-                        .put("foreignField", "_id")
-                        .put("as", "project")))
-                .add(new JsonObject().put("$unwind", "$project"))
-                .add(new JsonObject().put("$match", new JsonObject()
-                        .put("project.organizationId", organizationId)
-                        .put("deletedAt", (Object) null)))
+                .add(LOOKUP_PROJECT)
+                .add(UNWIND_PROJECT)
+                .add(new JsonObject().put("$match", MongoQuery.live()
+                        .eq("project.organizationId", organizationId)
+                        .toJson()))
                 .add(new JsonObject().put("$group", new JsonObject()
                         .put("_id", "$status")
                         .put("count", new JsonObject().put("$sum", 1))));
 
-        return collectAggregate("tasks", pipeline);
+        return collectAggregate(organizationId, "tasks", pipeline);
     }
 
     /**
@@ -43,20 +58,16 @@ public class AnalyticsRepository {
      */
     public Future<List<JsonObject>> getTaskCountsByPriority(String organizationId) {
         JsonArray pipeline = new JsonArray()
-                .add(new JsonObject().put("$lookup", new JsonObject()
-                        .put("from", "projects")
-                        .put("localField", "projectId")
-                        .put("foreignField", "_id")
-                        .put("as", "project")))
-                .add(new JsonObject().put("$unwind", "$project"))
-                .add(new JsonObject().put("$match", new JsonObject()
-                        .put("project.organizationId", organizationId)
-                        .put("deletedAt", (Object) null)))
+                .add(LOOKUP_PROJECT)
+                .add(UNWIND_PROJECT)
+                .add(new JsonObject().put("$match", MongoQuery.live()
+                        .eq("project.organizationId", organizationId)
+                        .toJson()))
                 .add(new JsonObject().put("$group", new JsonObject()
                         .put("_id", "$priority")
                         .put("count", new JsonObject().put("$sum", 1))));
 
-        return collectAggregate("tasks", pipeline);
+        return collectAggregate(organizationId, "tasks", pipeline);
     }
 
     /**
@@ -64,15 +75,11 @@ public class AnalyticsRepository {
      */
     public Future<List<JsonObject>> getRecentTaskActivity(String organizationId, int limit) {
         JsonArray pipeline = new JsonArray()
-                .add(new JsonObject().put("$lookup", new JsonObject()
-                        .put("from", "projects")
-                        .put("localField", "projectId")
-                        .put("foreignField", "_id")
-                        .put("as", "project")))
-                .add(new JsonObject().put("$unwind", "$project"))
-                .add(new JsonObject().put("$match", new JsonObject()
-                        .put("project.organizationId", organizationId)
-                        .put("deletedAt", (Object) null)))
+                .add(LOOKUP_PROJECT)
+                .add(UNWIND_PROJECT)
+                .add(new JsonObject().put("$match", MongoQuery.live()
+                        .eq("project.organizationId", organizationId)
+                        .toJson()))
                 .add(new JsonObject().put("$sort", new JsonObject().put("updatedAt", -1)))
                 .add(new JsonObject().put("$limit", limit))
                 .add(new JsonObject().put("$project", new JsonObject()
@@ -82,7 +89,7 @@ public class AnalyticsRepository {
                         .put("createdBy", 1)
                         .put("updatedAt", 1)));
 
-        return collectAggregate("tasks", pipeline);
+        return collectAggregate(organizationId, "tasks", pipeline);
     }
 
     /**
@@ -90,9 +97,9 @@ public class AnalyticsRepository {
      */
     public Future<List<JsonObject>> getProjectActivity(String organizationId) {
         JsonArray pipeline = new JsonArray()
-                .add(new JsonObject().put("$match", new JsonObject()
-                        .put("organizationId", organizationId)
-                        .put("deletedAt", (Object) null)))
+                .add(new JsonObject().put("$match", MongoQuery.live()
+                        .eq("organizationId", organizationId)
+                        .toJson()))
                 .add(new JsonObject().put("$lookup", new JsonObject()
                         .put("from", "tasks")
                         .put("localField", "_id")
@@ -103,7 +110,7 @@ public class AnalyticsRepository {
                         .put("status", 1)
                         .put("taskCount", new JsonObject().put("$size", "$tasks"))));
 
-        return collectAggregate("projects", pipeline);
+        return collectAggregate(organizationId, "projects", pipeline);
     }
 
     /**
@@ -111,9 +118,9 @@ public class AnalyticsRepository {
      */
     public Future<List<JsonObject>> getMemberActivity(String organizationId) {
         JsonArray pipeline = new JsonArray()
-                .add(new JsonObject().put("$match", new JsonObject()
-                        .put("organizationId", organizationId)
-                        .put("deletedAt", (Object) null)))
+                .add(new JsonObject().put("$match", MongoQuery.live()
+                        .eq("organizationId", organizationId)
+                        .toJson()))
                 .add(new JsonObject().put("$lookup", new JsonObject()
                         .put("from", "tasks")
                         .put("localField", "_id")
@@ -125,21 +132,23 @@ public class AnalyticsRepository {
                         .put("role", 1)
                         .put("taskCount", new JsonObject().put("$size", "$assignedTasks"))));
 
-        return collectAggregate("members", pipeline);
+        return collectAggregate(organizationId, "members", pipeline);
     }
 
     /**
-     * Collects all results from an aggregation ReadStream into a list.
+     * Runs the pipeline on the organization's analytics client and collects all results into a list.
      */
-    private Future<List<JsonObject>> collectAggregate(String collection, JsonArray pipeline) {
-        Promise<List<JsonObject>> promise = Promise.promise();
-        List<JsonObject> results = new ArrayList<>();
-
-        mongoClient.aggregate(collection, pipeline)
-                .handler(results::add)
-                .endHandler(v -> promise.complete(results))
-                .exceptionHandler(promise::fail);
-
-        return promise.future();
+    private Future<List<JsonObject>> collectAggregate(String organizationId, String collection, JsonArray pipeline) {
+        return router.analyticsClient(organizationId).compose(mongoClient -> {
+            Promise<List<JsonObject>> promise = Promise.promise();
+            List<JsonObject> results = new ArrayList<>();
+
+            mongoClient.aggregate(collection, pipeline)
+                    .handler(results::add)
+                    .endHandler(v -> promise.complete(results))
+                    .exceptionHandler(promise::fail);
+
+            return promise.future();
+        });
     }
 }
@@ -1,18 +1,31 @@
 package com.teamhub.repositories;
 
+import com.teamhub.common.mongo.IndexSpec;
+import com.teamhub.common.mongo.MongoQuery;
 import com.teamhub.common.mongo.MongoRepository;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.MongoClient;
 
+import java.util.List;
+
 public class BillingPlanRepository extends MongoRepository {
 
     public BillingPlanRepository(MongoClient mongoClient) {
         super(mongoClient, "billing_plans");
     }
 
+    @Override
+    public List<IndexSpec> indexes() {
+        return List.of(
+                IndexSpec.of("billing_plans_tier", new JsonObject().put("tier", 1)).notDeleted());
+    }
+
     public Future<JsonObject> findByTier(String tier) {
-        JsonObject query = withNotDeleted(new JsonObject().put("tier", tier));
-        return mongoClient.findOne(collectionName, query, null);
+        return mongoClient.findOne(collectionName, MongoQuery.live().eq("tier", tier).toJson(), null);
+    }
+
+    public Future<List<JsonObject>> findActive() {
+        return mongoClient.find(collectionName, MongoQuery.live().toJson());
     }
 }
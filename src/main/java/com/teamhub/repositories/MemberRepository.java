@@ -1,6 +1,12 @@
 package com.teamhub.repositories;
 
+import com.teamhub.common.mongo.IndexSpec;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.KeysetSort;
+import com.teamhub.common.mongo.MongoQuery;
 import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.common.mongo.TenantRouter;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.MongoClient;
@@ -9,33 +15,90 @@ import java.util.List;
 
 public class MemberRepository extends MongoRepository {
 
+    private static final KeysetSort NEWEST_JOINED = KeysetSort.of("joinedAt", -1);
+
     public MemberRepository(MongoClient mongoClient) {
         super(mongoClient, "members");
     }
 
+    public MemberRepository(TenantRouter router) {
+        super(router, "members");
+    }
+
+    @Override
+    protected String tenantField() {
+        return "organizationId";
+    }
+
+    @Override
+    public List<String> dateFields() {
+        return List.of("createdAt", "updatedAt", "deletedAt", "invitedAt", "joinedAt");
+    }
+
+    @Override
+    public List<IndexSpec> indexes() {
+        return List.of(
+                IndexSpec.of("members_org_joined", new JsonObject()
+                        .put("organizationId", 1)
+                        .put("joinedAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of("members_org_role_joined", new JsonObject()
+                        .put("organizationId", 1)
+                        .put("role", 1)
+                        .put("joinedAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of("members_org_email", new JsonObject()
+                        .put("organizationId", 1)
+                        .put("email", 1)).unique().notDeleted(),
+                deletedExpiry());
+    }
+
+    @Override
+    protected String duplicateKeyMessage() {
+        return "Member already exists in this organization";
+    }
+
     public Future<List<JsonObject>> findByOrganization(String organizationId, int skip, int limit) {
-        JsonObject query = new JsonObject().put("organizationId", organizationId);
-        JsonObject sort = new JsonObject().put("joinedAt", -1);
-        return findAll(query, sort, skip, limit);
+        return findAll(organizationId, byOrganization(organizationId), NEWEST_JOINED.spec(), skip, limit);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByOrganization(String organizationId, PageCursor after, int limit) {
+        return findAfter(organizationId, byOrganization(organizationId), NEWEST_JOINED, after, limit);
     }
 
     public Future<Long> countByOrganization(String organizationId) {
-        JsonObject query = new JsonObject().put("organizationId", organizationId);
-        return count(query);
+        return count(organizationId, byOrganization(organizationId));
+    }
+
+    /**
+     * Same as {@link #countByOrganization}, read from a secondary; may lag recent writes.
+     */
+    public Future<Long> countByOrganizationFromSecondary(String organizationId) {
+        return countFromSecondary(organizationId, byOrganization(organizationId));
     }
 
     public Future<JsonObject> findByEmail(String email, String organizationId) {
-        JsonObject query = withNotDeleted(new JsonObject()
-                .put("email", email)
-                .put("organizationId", organizationId));
-        return mongoClient.findOne(collectionName, query, null);
+        MongoQuery query = MongoQuery.live()
+                .eq("email", email)
+                .eq("organizationId", organizationId);
+        return client(organizationId).compose(client -> client.findOne(collectionName, query.toJson(), null));
     }
 
     public Future<List<JsonObject>> findByRole(String organizationId, String role, int skip, int limit) {
-        JsonObject query = new JsonObject()
-                .put("organizationId", organizationId)
-                .put("role", role);
-        JsonObject sort = new JsonObject().put("joinedAt", -1);
-        return findAll(query, sort, skip, limit);
+        return findAll(organizationId, byRole(organizationId, role), NEWEST_JOINED.spec(), skip, limit);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByRole(String organizationId, String role, PageCursor after, int limit) {
+        return findAfter(organizationId, byRole(organizationId, role), NEWEST_JOINED, after, limit);
+    }
+
+    private MongoQuery byOrganization(String organizationId) {
+        return MongoQuery.live().eq("organizationId", organizationId);
+    }
+
+    private MongoQuery byRole(String organizationId, String role) {
+        return MongoQuery.live()
+                .eq("organizationId", organizationId)
+                .eq("role", role);
     }
 }
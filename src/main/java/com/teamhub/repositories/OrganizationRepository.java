@@ -1,18 +1,132 @@
 package com.teamhub.repositories;
 
+import com.teamhub.common.mongo.IndexSpec;
+import com.teamhub.common.mongo.KeysetSort;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.MongoQuery;
 import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.MongoUpdate;
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
 
+import java.util.List;
+
 public class OrganizationRepository extends MongoRepository {
 
+    /**
+     * Usage counters kept on the organization document for plan-limit enforcement.
+     */
+    public static final String MEMBER_COUNT = "memberCount";
+    public static final String PROJECT_COUNT = "projectCount";
+    /**
+     * When the counters were last set from real counts. Organizations without it predate the counters,
+     * whatever values they carry, and are never reserved against until they have been seeded.
+     */
+    public static final String USAGE_SEEDED_AT = "usageSeededAt";
+    private static final JsonObject SEEDED = new JsonObject().put("$exists", true);
+
+    private static final KeysetSort ID_ORDER = KeysetSort.of("_id", 1);
+    private static final JsonObject ID_ONLY = new JsonObject().put("_id", 1);
+
     public OrganizationRepository(MongoClient mongoClient) {
         super(mongoClient, "organizations");
     }
 
+    @Override
+    public List<IndexSpec> indexes() {
+        return List.of(
+                IndexSpec.of("organizations_slug", new JsonObject().put("slug", 1)).unique().notDeleted());
+    }
+
+    @Override
+    protected String duplicateKeyMessage() {
+        return "An organization with a similar name already exists";
+    }
+
     public Future<JsonObject> findBySlug(String slug) {
-        JsonObject query = withNotDeleted(new JsonObject().put("slug", slug));
-        return mongoClient.findOne(collectionName, query, null);
+        return mongoClient.findOne(collectionName, MongoQuery.live().eq("slug", slug).toJson(), null);
+    }
+
+    /**
+     * Increments a usage counter if the organization matches one of {@code limitClauses}, each of which
+     * pairs a billing plan with the counter's ceiling under that plan. Check and increment are a single
+     * update, so concurrent reservations can never take the counter past the limit. Completes with
+     * false if nothing was incremented: the organization is missing, at its limit, or not yet seeded.
+     */
+    public Future<Boolean> reserve(String organizationId, String counter, JsonArray limitClauses) {
+        MongoQuery query = MongoQuery.byId(organizationId).eq(USAGE_SEEDED_AT, SEEDED).or(limitClauses);
+        JsonObject update = MongoUpdate.create().inc(counter, 1).toJson();
+        return mongoClient.updateCollection(collectionName, query.toJson(), update)
+                .map(result -> result != null && result.getDocMatched() > 0);
+    }
+
+    /**
+     * Gives back one unit reserved with {@link #reserve}. Never takes the counter below zero.
+     */
+    public Future<Void> release(String organizationId, String counter) {
+        MongoQuery query = MongoQuery.anyState()
+                .eq("_id", organizationId)
+                .gt(counter, 0);
+        JsonObject update = MongoUpdate.create().inc(counter, -1).toJson();
+        return mongoClient.updateCollection(collectionName, query.toJson(), update).mapEmpty();
+    }
+
+    /**
+     * Overwrites both counters, provided neither has moved since {@code expectedMembers} and
+     * {@code expectedProjects} were read (null meaning the counter was absent). Completes with true if
+     * the counters were written. Marks the organization as seeded.
+     */
+    public Future<Boolean> resetCounters(String organizationId, Long expectedMembers, Long expectedProjects,
+                                         long members, long projects) {
+        MongoQuery query = MongoQuery.anyState()
+                .eq("_id", organizationId)
+                .eq(MEMBER_COUNT, expectedMembers)
+                .eq(PROJECT_COUNT, expectedProjects);
+        JsonObject update = MongoUpdate.create()
+                .set(MEMBER_COUNT, members)
+                .set(PROJECT_COUNT, projects)
+                .set(USAGE_SEEDED_AT, MongoDates.now())
+                .toJson();
+        return mongoClient.updateCollection(collectionName, query.toJson(), update)
+                .map(result -> result != null && result.getDocMatched() > 0);
+    }
+
+    /**
+     * Raises either counter that is below {@code members} or {@code projects}, leaving one already at or
+     * above its count alone, provided neither has moved since {@code expectedMembers} and
+     * {@code expectedProjects} were read. Completes with true if the organization matched.
+     */
+    public Future<Boolean> raiseCounters(String organizationId, Long expectedMembers, Long expectedProjects,
+                                         long members, long projects) {
+        MongoQuery query = MongoQuery.anyState()
+                .eq("_id", organizationId)
+                .eq(MEMBER_COUNT, expectedMembers)
+                .eq(PROJECT_COUNT, expectedProjects);
+        JsonObject update = MongoUpdate.create()
+                .max(MEMBER_COUNT, members)
+                .max(PROJECT_COUNT, projects)
+                .set(USAGE_SEEDED_AT, MongoDates.now())
+                .toJson();
+        return mongoClient.updateCollection(collectionName, query.toJson(), update)
+                .map(result -> result != null && result.getDocMatched() > 0);
+    }
+
+    /**
+     * Returns live organization IDs after the given one in _id order, for jobs that walk every organization.
+     */
+    public Future<List<String>> findIdsAfter(String lastId, int limit) {
+        MongoQuery query = MongoQuery.live();
+        if (lastId != null) {
+            query.gt("_id", lastId);
+        }
+        FindOptions options = new FindOptions()
+                .setFields(ID_ONLY)
+                .setSort(ID_ORDER.spec())
+                .setLimit(limit);
+        return mongoClient.findWithOptions(collectionName, query.toJson(), options)
+                .map(docs -> docs.stream().map(doc -> doc.getString("_id")).toList());
     }
 }
@@ -0,0 +1,151 @@
+package com.teamhub.repositories;
+
+import com.teamhub.common.mongo.IndexSpec;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.MongoQuery;
+import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.MongoUpdate;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.common.mongo.TenantRouter;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One document per (project, member) pair, replacing the member ID array projects used to embed.
+ */
+public class ProjectMembershipRepository extends MongoRepository {
+
+    private static final String INDEX_PROJECT_MEMBER = "project_memberships_project_member";
+    private static final String INDEX_PROJECT_CREATED = "project_memberships_project_created";
+    private static final String INDEX_MEMBER_ID = "project_memberships_member_id";
+
+    private static final JsonObject MEMBER_ID_ONLY = new JsonObject().put("memberId", 1).put("_id", 0);
+    private static final JsonObject PROJECT_ID_ONLY = new JsonObject().put("projectId", 1).put("_id", 0);
+
+    public ProjectMembershipRepository(MongoClient mongoClient) {
+        super(mongoClient, "project_memberships");
+    }
+
+    public ProjectMembershipRepository(TenantRouter router) {
+        super(router, "project_memberships");
+    }
+
+    @Override
+    protected String tenantField() {
+        return "organizationId";
+    }
+
+    @Override
+    public List<IndexSpec> indexes() {
+        return List.of(
+                IndexSpec.of(INDEX_PROJECT_MEMBER, new JsonObject()
+                        .put("projectId", 1)
+                        .put("memberId", 1)).unique().notDeleted(),
+                IndexSpec.of(INDEX_PROJECT_CREATED, new JsonObject()
+                        .put("projectId", 1)
+                        .put("createdAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of(INDEX_MEMBER_ID, new JsonObject()
+                        .put("memberId", 1)
+                        .put("projectId", 1)).notDeleted(),
+                deletedExpiry());
+    }
+
+    @Override
+    protected String duplicateKeyMessage() {
+        return "Member already belongs to this project";
+    }
+
+    public Future<String> add(String organizationId, String projectId, String memberId, String addedBy) {
+        return insert(new JsonObject()
+                .put("organizationId", organizationId)
+                .put("projectId", projectId)
+                .put("memberId", memberId)
+                .put("addedBy", addedBy));
+    }
+
+    /**
+     * Soft-deletes the membership. Completes with true only for the call that actually removed it.
+     */
+    public Future<Boolean> remove(String organizationId, String projectId, String memberId) {
+        JsonObject filter = byProject(projectId).eq("memberId", memberId).toJson();
+        JsonObject update = MongoUpdate.create().set("deletedAt", MongoDates.now()).toJson();
+        return writeClient(organizationId)
+                .compose(client -> client.updateCollection(collectionName, filter, update))
+                .map(result -> result != null && result.getDocModified() > 0);
+    }
+
+    /**
+     * Creates whichever of the memberships do not exist yet, in one bulk write. Used to move the legacy
+     * embedded member IDs over; safe to repeat.
+     */
+    public Future<Void> addMissing(String organizationId, String projectId, List<String> memberIds, String addedBy) {
+        if (memberIds.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        List<BulkOperation> operations = new ArrayList<>(memberIds.size());
+        for (String memberId : memberIds) {
+            JsonObject filter = byProject(projectId).eq("memberId", memberId).toJson();
+            JsonObject now = MongoDates.now();
+            JsonObject insert = new JsonObject().put("$setOnInsert", new JsonObject()
+                    .put("_id", nextId(organizationId))
+                    .put("organizationId", organizationId)
+                    .put("addedBy", addedBy)
+                    .put("createdAt", now)
+                    .put("updatedAt", now.copy()));
+            operations.add(BulkOperation.createUpdate(filter, insert, true, false));
+        }
+        BulkWriteOptions options = new BulkWriteOptions(false);
+        return writeClient(organizationId)
+                .compose(client -> client.bulkWriteWithOptions(collectionName, operations, options))
+                .mapEmpty();
+    }
+
+    public Future<List<JsonObject>> findByProject(String organizationId, String projectId, int skip, int limit) {
+        return findAll(organizationId, byProject(projectId), NEWEST.spec(), skip, limit);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByProject(String organizationId, String projectId, PageCursor after,
+                                                        int limit) {
+        return findAfter(organizationId, byProject(projectId), NEWEST, after, limit);
+    }
+
+    public Future<Long> countByProject(String organizationId, String projectId) {
+        return count(organizationId, byProject(projectId));
+    }
+
+    /**
+     * Every member ID of the project, through the unique index.
+     */
+    public Future<List<String>> findMemberIds(String organizationId, String projectId) {
+        FindOptions options = new FindOptions()
+                .setFields(MEMBER_ID_ONLY)
+                .setHintString(INDEX_PROJECT_MEMBER);
+        return client(organizationId)
+                .compose(client -> client.findWithOptions(collectionName, byProject(projectId).toJson(), options))
+                .map(docs -> docs.stream().map(doc -> doc.getString("memberId")).toList());
+    }
+
+    /**
+     * IDs of every project the member belongs to.
+     */
+    public Future<List<String>> findProjectIds(String organizationId, String memberId) {
+        FindOptions options = new FindOptions().setFields(PROJECT_ID_ONLY);
+        MongoQuery query = MongoQuery.live().eq("memberId", memberId).eq("organizationId", organizationId);
+        return client(organizationId)
+                .compose(client -> client.findWithOptions(collectionName, query.toJson(), options))
+                .map(docs -> docs.stream().map(doc -> doc.getString("projectId")).toList());
+    }
+
+    private MongoQuery byProject(String projectId) {
+        return MongoQuery.live().eq("projectId", projectId);
+    }
+}
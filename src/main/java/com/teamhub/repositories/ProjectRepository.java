@@ -1,40 +1,151 @@
 package com.teamhub.repositories;
 
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.IndexSpec;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.MongoQuery;
 import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.MongoUpdate;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.common.mongo.TenantRouter;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
 
 import java.util.List;
 
 public class ProjectRepository extends MongoRepository {
 
+    public static final String MEMBER_COUNT = "memberCount";
+    public static final String TASK_SEQUENCE = "taskSequence";
+
+    private static final JsonObject ORGANIZATION_ONLY = new JsonObject().put("organizationId", 1);
+    private static final JsonObject HAS_KEY = new JsonObject().put("key", new JsonObject().put("$exists", true));
+    private static final JsonObject TASK_SEQUENCE_ONLY = new JsonObject().put(TASK_SEQUENCE, 1);
+
     public ProjectRepository(MongoClient mongoClient) {
         super(mongoClient, "projects");
     }
 
-    public Future<List<JsonObject>> findByOrganization(String organizationId, int skip, int limit) {
-        JsonObject query = new JsonObject().put("organizationId", organizationId);
-        JsonObject sort = new JsonObject().put("createdAt", -1);
-        return findAll(query, sort, skip, limit);
+    public ProjectRepository(TenantRouter router) {
+        super(router, "projects");
+    }
+
+    @Override
+    protected String tenantField() {
+        return "organizationId";
+    }
+
+    @Override
+    public List<IndexSpec> indexes() {
+        return List.of(
+                IndexSpec.of("projects_org_created", new JsonObject()
+                        .put("organizationId", 1)
+                        .put("createdAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of("projects_org_status_created", new JsonObject()
+                        .put("organizationId", 1)
+                        .put("status", 1)
+                        .put("createdAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                // Deleted projects keep their key until purged, as their tasks keep theirs
+                IndexSpec.of("projects_org_key", new JsonObject()
+                        .put("organizationId", 1)
+                        .put("key", 1)).unique().partial(HAS_KEY),
+                deletedExpiry());
+    }
+
+    @Override
+    protected String duplicateKeyMessage() {
+        return "A project with this key already exists";
+    }
+
+    public Future<List<JsonObject>> findByOrganization(String organizationId, int skip, int limit, FieldSet fields) {
+        return findAll(organizationId, byOrganization(organizationId), NEWEST.spec(), skip, limit, null, fields);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByOrganization(String organizationId, PageCursor after, int limit,
+                                                             FieldSet fields) {
+        return findAfter(organizationId, byOrganization(organizationId), NEWEST, after, limit, null, fields);
     }
 
     public Future<Long> countByOrganization(String organizationId) {
-        JsonObject query = new JsonObject().put("organizationId", organizationId);
-        return count(query);
+        return count(organizationId, byOrganization(organizationId));
+    }
+
+    /**
+     * Same as {@link #countByOrganization}, read from a secondary; may lag recent writes.
+     */
+    public Future<Long> countByOrganizationFromSecondary(String organizationId) {
+        return countFromSecondary(organizationId, byOrganization(organizationId));
     }
 
     public Future<List<JsonObject>> findByStatus(String organizationId, String status, int skip, int limit) {
-        JsonObject query = new JsonObject()
-                .put("organizationId", organizationId)
-                .put("status", status);
-        JsonObject sort = new JsonObject().put("createdAt", -1);
-        return findAll(query, sort, skip, limit);
+        return findAll(organizationId, byStatus(organizationId, status), NEWEST.spec(), skip, limit);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByStatus(String organizationId, String status, PageCursor after, int limit) {
+        return findAfter(organizationId, byStatus(organizationId, status), NEWEST, after, limit);
+    }
+
+    /**
+     * Adds {@code delta} to the project's member count, kept alongside its memberships in
+     * {@link ProjectMembershipRepository} so project reads need not count them.
+     */
+    public Future<Void> adjustMemberCount(String organizationId, String projectId, long delta) {
+        JsonObject filter = MongoQuery.byId(projectId).toJson();
+        JsonObject update = MongoUpdate.create().inc(MEMBER_COUNT, delta).toJson();
+        return writeClient(organizationId)
+                .compose(client -> client.updateCollection(collectionName, filter, update))
+                .mapEmpty();
+    }
+
+    /**
+     * Adds {@code count} to the live project's task number counter and completes with its new value, so
+     * the caller owns the {@code count} numbers up to it; null if there is no such project. Leaves
+     * {@code version} and {@code updatedAt} alone: handing out numbers is not an edit.
+     */
+    public Future<Long> reserveTaskNumbers(String organizationId, String projectId, int count) {
+        JsonObject filter = MongoQuery.byId(projectId).toJson();
+        JsonObject update = MongoUpdate.create().inc(TASK_SEQUENCE, count).toJson();
+        return writeClient(organizationId)
+                .compose(client -> client.findOneAndUpdateWithOptions(collectionName, filter, update,
+                        new FindOptions().setFields(TASK_SEQUENCE_ONLY),
+                        new UpdateOptions().setReturningNewDocument(true)))
+                .map(doc -> doc == null ? null : doc.getLong(TASK_SEQUENCE));
+    }
+
+    /**
+     * Raises the project's task number counter to at least {@code number}, so numbers up to it are
+     * never handed out again. Like {@link #reserveTaskNumbers}, not an edit.
+     */
+    public Future<Void> skipTaskNumbers(String organizationId, String projectId, long number) {
+        JsonObject filter = MongoQuery.byId(projectId).toJson();
+        JsonObject update = MongoUpdate.create().max(TASK_SEQUENCE, number).toJson();
+        return writeClient(organizationId)
+                .compose(client -> client.updateCollection(collectionName, filter, update))
+                .mapEmpty();
+    }
+
+    /**
+     * Returns {_id, organizationId} for the given projects, including soft-deleted ones. Only used to
+     * backfill tasks written before routing existed, which all live on the default cluster.
+     */
+    public Future<List<JsonObject>> findOrganizations(List<String> projectIds) {
+        MongoQuery query = MongoQuery.anyState().in("_id", projectIds);
+        FindOptions options = new FindOptions().setFields(ORGANIZATION_ONLY);
+        return mongoClient.findWithOptions(collectionName, query.toJson(), options);
+    }
+
+    private MongoQuery byOrganization(String organizationId) {
+        return MongoQuery.live().eq("organizationId", organizationId);
     }
 
-    public Future<List<JsonObject>> findByMember(String memberId, int skip, int limit) {
-        JsonObject query = new JsonObject().put("memberIds", memberId);
-        JsonObject sort = new JsonObject().put("createdAt", -1);
-        return findAll(query, sort, skip, limit);
+    private MongoQuery byStatus(String organizationId, String status) {
+        return MongoQuery.live()
+                .eq("organizationId", organizationId)
+                .eq("status", status);
     }
 }
@@ -0,0 +1,36 @@
+package com.teamhub.repositories;
+
+import com.teamhub.common.mongo.IndexSpec;
+import com.teamhub.common.mongo.MongoQuery;
+import com.teamhub.common.mongo.MongoRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.List;
+
+public class RevokedTokenRepository extends MongoRepository {
+
+    private static final JsonObject OLDEST_REVOKED = new JsonObject().put("revokedAt", 1);
+
+    public RevokedTokenRepository(MongoClient mongoClient) {
+        super(mongoClient, "revoked_tokens");
+    }
+
+    @Override
+    public List<IndexSpec> indexes() {
+        return List.of(
+                IndexSpec.of("revoked_tokens_revoked_at", new JsonObject().put("revokedAt", 1)).notDeleted());
+    }
+
+    /**
+     * Fetches revocations recorded at or after the given epoch millis that have not yet expired,
+     * oldest first so callers can advance their sync watermark.
+     */
+    public Future<List<JsonObject>> findRevokedSince(long sinceMillis, long nowMillis, int limit) {
+        MongoQuery query = MongoQuery.live()
+                .gte("revokedAt", sinceMillis)
+                .gt("expiresAt", nowMillis);
+        return findAll(null, query, OLDEST_REVOKED, 0, limit);
+    }
+}
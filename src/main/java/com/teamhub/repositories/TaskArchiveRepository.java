@@ -0,0 +1,112 @@
+package com.teamhub.repositories;
+
+import com.teamhub.common.mongo.IndexSpec;
+import com.teamhub.common.mongo.MongoQuery;
+import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.TenantRouter;
+import com.teamhub.config.AppConfig;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cold storage for the tasks of archived projects. Archiving moves a project's live tasks out of
+ * {@code tasks} into {@code tasks_archive}, which carries a single index, so archived data no longer
+ * takes space in the hot collection's indexes or the cache; unarchiving moves them back. No task query
+ * reads this collection.
+ *
+ * Tasks move {@link AppConfig#TASK_ARCHIVE_BATCH_SIZE} at a time: each batch is upserted into the
+ * target, then deleted from the source unless it was updated in between, in which case the next pass
+ * copies it again. A move that stops partway leaves every task in at least one of the two
+ * collections and is finished by running it again.
+ */
+public class TaskArchiveRepository extends MongoRepository {
+
+    private static final String INDEX_PROJECT_ID = "tasks_archive_project_id";
+
+    private static final JsonObject ID_ORDER = new JsonObject().put("_id", 1);
+
+    private final String hotCollection;
+
+    public TaskArchiveRepository(MongoClient mongoClient, TaskRepository taskRepository) {
+        super(mongoClient, "tasks_archive");
+        this.hotCollection = taskRepository.getCollectionName();
+    }
+
+    public TaskArchiveRepository(TenantRouter router, TaskRepository taskRepository) {
+        super(router, "tasks_archive");
+        this.hotCollection = taskRepository.getCollectionName();
+    }
+
+    @Override
+    protected String tenantField() {
+        return "organizationId";
+    }
+
+    @Override
+    public List<String> dateFields() {
+        return List.of("createdAt", "updatedAt", "deletedAt", "dueDate");
+    }
+
+    @Override
+    public List<IndexSpec> indexes() {
+        return List.of(
+                IndexSpec.of(INDEX_PROJECT_ID, new JsonObject()
+                        .put("projectId", 1)
+                        .put("_id", -1)).notDeleted());
+    }
+
+    /**
+     * Moves the project's live tasks into the archive. Completes with the number moved. The caller
+     * has already checked that the project belongs to the organization, so tasks written before
+     * organizationId was stored on them are moved too, and stamped on the way.
+     */
+    public Future<Long> archiveProject(String organizationId, String projectId) {
+        MongoQuery query = MongoQuery.live().eq("projectId", projectId);
+        return move(organizationId, query, hotCollection, collectionName, 0);
+    }
+
+    /**
+     * Moves the project's tasks back out of the archive. Completes with the number moved; zero for a
+     * project that was never archived.
+     */
+    public Future<Long> restoreProject(String organizationId, String projectId) {
+        MongoQuery query = MongoQuery.live().eq("projectId", projectId).eq("organizationId", organizationId);
+        return move(organizationId, query, collectionName, hotCollection, 0);
+    }
+
+    private Future<Long> move(String organizationId, MongoQuery query, String from, String to, long moved) {
+        FindOptions options = new FindOptions()
+                .setSort(ID_ORDER)
+                .setLimit(AppConfig.TASK_ARCHIVE_BATCH_SIZE);
+        BulkWriteOptions unordered = new BulkWriteOptions(false);
+        return writeClient(organizationId).compose(client ->
+                client.findWithOptions(from, query.toJson(), options).compose(docs -> {
+                    if (docs.isEmpty()) {
+                        return Future.succeededFuture(moved);
+                    }
+                    List<BulkOperation> copies = new ArrayList<>(docs.size());
+                    List<BulkOperation> deletes = new ArrayList<>(docs.size());
+                    for (JsonObject doc : docs) {
+                        JsonObject byId = new JsonObject().put("_id", doc.getValue("_id"));
+                        if (doc.getString("organizationId") == null) {
+                            doc.put("organizationId", organizationId);
+                        }
+                        copies.add(BulkOperation.createReplace(byId, doc, true));
+                        // Only if unchanged since it was read; otherwise the next pass copies the new version
+                        JsonObject unchanged = byId.copy().put(VERSION_FIELD, doc.getValue(VERSION_FIELD));
+                        deletes.add(BulkOperation.createDelete(unchanged));
+                    }
+                    return client.bulkWriteWithOptions(to, copies, unordered)
+                            .compose(copied -> client.bulkWriteWithOptions(from, deletes, unordered))
+                            .compose(deleted -> move(organizationId, query, from, to,
+                                    moved + deleted.getDeletedCount()));
+                }));
+    }
+}
@@ -1,85 +1,284 @@
 package com.teamhub.repositories;
 
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.IndexSpec;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.KeysetSort;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.MongoQuery;
 import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.common.mongo.TenantRouter;
+import com.teamhub.common.mongo.WriteCoalescer;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
 
 import java.util.List;
 
 public class TaskRepository extends MongoRepository {
 
+    private static final String INDEX_PROJECT_CREATED = "tasks_project_created";
+    private static final String INDEX_PROJECT_STATUS_CREATED = "tasks_project_status_created";
+    private static final String INDEX_PROJECT_STATUS_UPDATED = "tasks_project_status_updated";
+    private static final String INDEX_ASSIGNEE_CREATED = "tasks_assignee_created";
+    private static final String INDEX_PROJECT_DUE = "tasks_project_due";
+    private static final String INDEX_ORG_CREATED = "tasks_org_created";
+    private static final String INDEX_ORG_STATUS_CREATED = "tasks_org_status_created";
+    private static final String INDEX_ORG_KEY = "tasks_org_key";
+    private static final JsonObject HAS_KEY = new JsonObject().put("key", new JsonObject().put("$exists", true));
+    // Served from the key index alone
+    private static final JsonObject KEY_ONLY = new JsonObject().put("key", 1).put("_id", 0);
+
+    private static final KeysetSort NEWEST_UPDATED = KeysetSort.of("updatedAt", -1);
+    private static final KeysetSort EARLIEST_DUE = KeysetSort.of("dueDate", 1);
+
+    private final WriteCoalescer coalescer;
+
     public TaskRepository(MongoClient mongoClient) {
         super(mongoClient, "tasks");
+        this.coalescer = null;
+    }
+
+    public TaskRepository(TenantRouter router) {
+        this(router, null);
+    }
+
+    /**
+     * Batches {@link #updateCoalesced} writes through {@code coalescer}.
+     */
+    public TaskRepository(TenantRouter router, WriteCoalescer coalescer) {
+        super(router, "tasks");
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    protected WriteCoalescer coalescer() {
+        return coalescer;
+    }
+
+    @Override
+    protected String tenantField() {
+        return "organizationId";
+    }
+
+    @Override
+    public List<String> dateFields() {
+        return List.of("createdAt", "updatedAt", "deletedAt", "dueDate");
     }
 
-    public Future<List<JsonObject>> findByProject(String projectId, int skip, int limit) {
-        JsonObject query = new JsonObject().put("projectId", projectId);
-        JsonObject sort = new JsonObject().put("createdAt", -1);
-        return findAll(query, sort, skip, limit);
+    @Override
+    public List<IndexSpec> indexes() {
+        return List.of(
+                IndexSpec.of(INDEX_PROJECT_CREATED, new JsonObject()
+                        .put("projectId", 1)
+                        .put("createdAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of(INDEX_PROJECT_STATUS_CREATED, new JsonObject()
+                        .put("projectId", 1)
+                        .put("status", 1)
+                        .put("createdAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of(INDEX_PROJECT_STATUS_UPDATED, new JsonObject()
+                        .put("projectId", 1)
+                        .put("status", 1)
+                        .put("updatedAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of(INDEX_ASSIGNEE_CREATED, new JsonObject()
+                        .put("assigneeId", 1)
+                        .put("createdAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of(INDEX_PROJECT_DUE, new JsonObject()
+                        .put("projectId", 1)
+                        .put("dueDate", 1)
+                        .put("_id", 1)).notDeleted(),
+                IndexSpec.of(INDEX_ORG_CREATED, new JsonObject()
+                        .put("organizationId", 1)
+                        .put("createdAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                IndexSpec.of(INDEX_ORG_STATUS_CREATED, new JsonObject()
+                        .put("organizationId", 1)
+                        .put("status", 1)
+                        .put("createdAt", -1)
+                        .put("_id", -1)).notDeleted(),
+                // Tasks created before keys existed have none
+                IndexSpec.of(INDEX_ORG_KEY, new JsonObject()
+                        .put("organizationId", 1)
+                        .put("key", 1)).unique().partial(HAS_KEY),
+                deletedExpiry());
     }
 
-    public Future<Long> countByProject(String projectId) {
-        JsonObject query = new JsonObject().put("projectId", projectId);
-        return count(query);
+    @Override
+    protected String duplicateKeyMessage() {
+        return "A task with this key already exists";
     }
 
-    public Future<List<JsonObject>> findByOrganization(List<String> projectIds, JsonObject filters, int skip, int limit) {
-        JsonObject query = buildOrgQuery(projectIds, filters);
-        JsonObject sort = new JsonObject().put("createdAt", -1);
-        return findAll(query, sort, skip, limit);
+    public Future<List<JsonObject>> findByProject(String organizationId, String projectId, int skip, int limit,
+                                                  FieldSet fields) {
+        return findAll(organizationId, byProject(projectId), NEWEST.spec(), skip, limit, null, fields);
     }
 
-    public Future<Long> countByOrganization(List<String> projectIds, JsonObject filters) {
-        return count(buildOrgQuery(projectIds, filters));
+    public Future<KeysetPage<JsonObject>> findByProject(String organizationId, String projectId, PageCursor after,
+                                                        int limit, FieldSet fields) {
+        return findAfter(organizationId, byProject(projectId), NEWEST, after, limit, null, fields);
     }
 
-    private JsonObject buildOrgQuery(List<String> projectIds, JsonObject filters) {
-        JsonObject query = new JsonObject()
-                .put("projectId", new JsonObject().put("$in", projectIds));
+    /**
+     * The live task with the given key (e.g. {@code WEB-42}) in the organization, or null.
+     */
+    public Future<JsonObject> findByKey(String organizationId, String key, FieldSet fields) {
+        MongoQuery query = MongoQuery.live()
+                .eq("organizationId", organizationId)
+                .eq("key", key);
+        return client(organizationId).compose(client ->
+                client.findOne(collectionName, query.toJson(), fields.projection()));
+    }
+
+    /**
+     * The highest number among the organization's task keys under {@code projectKey} (WEB-1, WEB-2,
+     * ...), or 0 if there are none. Soft-deleted tasks count, as they hold their keys until purged, and
+     * so do tasks of an earlier project that had the same key.
+     */
+    public Future<Long> findHighestKeyNumber(String organizationId, String projectKey) {
+        String prefix = projectKey + "-";
+        JsonObject query = MongoQuery.anyState()
+                .eq("organizationId", organizationId)
+                // $exists lets the partial key index serve it; project keys are capitals and digits, so
+                // the prefix needs no escaping
+                .eq("key", new JsonObject().put("$exists", true).put("$regex", "^" + prefix))
+                .toJson();
+        FindOptions options = new FindOptions().setFields(KEY_ONLY);
+        return client(organizationId)
+                .compose(client -> client.findWithOptions(collectionName, query, options))
+                .map(docs -> docs.stream()
+                        .map(doc -> doc.getString("key").substring(prefix.length()))
+                        .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                        .mapToLong(Long::parseLong)
+                        .max()
+                        .orElse(0));
+    }
+
+    public Future<Long> countByProject(String organizationId, String projectId) {
+        return count(organizationId, byProject(projectId));
+    }
+
+    public Future<List<JsonObject>> findByOrganization(String organizationId, JsonObject filters, int skip, int limit,
+                                                       FieldSet fields) {
+        return findAll(organizationId, buildOrgQuery(organizationId, filters), NEWEST.spec(), skip, limit,
+                null, fields);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByOrganization(String organizationId, JsonObject filters,
+                                                             PageCursor after, int limit, FieldSet fields) {
+        return findAfter(organizationId, buildOrgQuery(organizationId, filters), NEWEST, after, limit, null, fields);
+    }
+
+    public Future<Long> countByOrganization(String organizationId, JsonObject filters) {
+        return count(organizationId, buildOrgQuery(organizationId, filters));
+    }
+
+    /**
+     * Org-wide queries keyed on the organization's project IDs, for tasks written before organizationId
+     * was stored on them. Only used until {@link com.teamhub.migrations.TaskOrganizationBackfill} completes.
+     */
+    public Future<List<JsonObject>> findByProjects(String organizationId, List<String> projectIds, JsonObject filters,
+                                                   int skip, int limit, FieldSet fields) {
+        return findAll(organizationId, buildProjectsQuery(projectIds, filters), NEWEST.spec(), skip, limit,
+                null, fields);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByProjects(String organizationId, List<String> projectIds,
+                                                         JsonObject filters, PageCursor after, int limit,
+                                                         FieldSet fields) {
+        return findAfter(organizationId, buildProjectsQuery(projectIds, filters), NEWEST, after, limit, null, fields);
+    }
+
+    public Future<Long> countByProjects(String organizationId, List<String> projectIds, JsonObject filters) {
+        return count(organizationId, buildProjectsQuery(projectIds, filters));
+    }
+
+    private MongoQuery buildOrgQuery(String organizationId, JsonObject filters) {
+        return applyFilters(MongoQuery.live().eq("organizationId", organizationId), filters);
+    }
+
+    private MongoQuery buildProjectsQuery(List<String> projectIds, JsonObject filters) {
+        return applyFilters(MongoQuery.live().in("projectId", projectIds), filters);
+    }
+
+    private MongoQuery applyFilters(MongoQuery query, JsonObject filters) {
         if (filters.containsKey("status")) {
-            query.put("status", filters.getString("status"));
+            query.eq("status", filters.getString("status"));
         }
         if (filters.containsKey("priority")) {
-            query.put("priority", filters.getString("priority"));
+            query.eq("priority", filters.getString("priority"));
         }
         if (filters.containsKey("search")) {
-            query.put("title", new JsonObject()
-                    .put("$regex", filters.getString("search"))
-                    .put("$options", "i"));
+            query.matchesIgnoreCase("title", filters.getString("search"));
         }
         return query;
     }
 
-    public Future<List<JsonObject>> findByAssignee(String assigneeId, int skip, int limit) {
-        JsonObject query = new JsonObject().put("assigneeId", assigneeId);
-        JsonObject sort = new JsonObject().put("createdAt", -1);
-        return findAll(query, sort, skip, limit);
+    public Future<List<JsonObject>> findByAssignee(String organizationId, String assigneeId, int skip, int limit) {
+        return findAll(organizationId, byAssignee(assigneeId), NEWEST.spec(), skip, limit);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByAssignee(String organizationId, String assigneeId, PageCursor after,
+                                                         int limit) {
+        return findAfter(organizationId, byAssignee(assigneeId), NEWEST, after, limit);
+    }
+
+    public Future<List<JsonObject>> findByStatus(String organizationId, String projectId, String status, int skip,
+                                                 int limit) {
+        return findAll(organizationId, byProjectAndStatus(projectId, status), NEWEST.spec(), skip, limit,
+                INDEX_PROJECT_STATUS_CREATED);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByStatus(String organizationId, String projectId, String status,
+                                                       PageCursor after, int limit) {
+        return findAfter(organizationId, byProjectAndStatus(projectId, status), NEWEST, after, limit,
+                INDEX_PROJECT_STATUS_CREATED);
+    }
+
+    public Future<List<JsonObject>> findByDateRange(String organizationId, String projectId, String startDate,
+                                                    String endDate, int skip, int limit) {
+        return findAll(organizationId, byDateRange(projectId, startDate, endDate), EARLIEST_DUE.spec(), skip, limit);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByDateRange(String organizationId, String projectId, String startDate,
+                                                          String endDate, PageCursor after, int limit) {
+        return findAfter(organizationId, byDateRange(projectId, startDate, endDate), EARLIEST_DUE, after, limit);
+    }
+
+    public Future<List<JsonObject>> findByProjectAndStatus(String organizationId, String projectId, String status,
+                                                           int skip, int limit) {
+        return findAll(organizationId, byProjectAndStatus(projectId, status), NEWEST_UPDATED.spec(), skip, limit,
+                INDEX_PROJECT_STATUS_UPDATED);
+    }
+
+    public Future<KeysetPage<JsonObject>> findByProjectAndStatus(String organizationId, String projectId, String status,
+                                                                 PageCursor after, int limit) {
+        return findAfter(organizationId, byProjectAndStatus(projectId, status), NEWEST_UPDATED, after, limit,
+                INDEX_PROJECT_STATUS_UPDATED);
+    }
+
+    private MongoQuery byProject(String projectId) {
+        return MongoQuery.live().eq("projectId", projectId);
     }
 
-    public Future<List<JsonObject>> findByStatus(String projectId, String status, int skip, int limit) {
-        JsonObject query = new JsonObject()
-                .put("projectId", projectId)
-                .put("status", status);
-        JsonObject sort = new JsonObject().put("createdAt", -1);
-        return findAll(query, sort, skip, limit);
+    private MongoQuery byAssignee(String assigneeId) {
+        return MongoQuery.live().eq("assigneeId", assigneeId);
     }
 
-    public Future<List<JsonObject>> findByDateRange(String projectId, String startDate, String endDate, int skip, int limit) {
-        JsonObject query = new JsonObject()
-                .put("projectId", projectId)
-                .put("dueDate", new JsonObject()
-                        .put("$gte", startDate)
-                        .put("$lte", endDate));
-        JsonObject sort = new JsonObject().put("dueDate", 1);
-        return findAll(query, sort, skip, limit);
+    private MongoQuery byProjectAndStatus(String projectId, String status) {
+        return MongoQuery.live()
+                .eq("projectId", projectId)
+                .eq("status", status);
     }
 
-    public Future<List<JsonObject>> findByProjectAndStatus(String projectId, String status, int skip, int limit) {
-        JsonObject query = new JsonObject()
-                .put("projectId", projectId)
-                .put("status", status);
-        JsonObject sort = new JsonObject().put("updatedAt", -1);
-        return findAll(query, sort, skip, limit);
+    private MongoQuery byDateRange(String projectId, String startDate, String endDate) {
+        return MongoQuery.live()
+                .eq("projectId", projectId)
+                .between("dueDate", MongoDates.parse(startDate), MongoDates.parse(endDate));
     }
 }
@@ -5,6 +5,7 @@ import com.teamhub.handlers.BillingHandler;
 import com.teamhub.handlers.MemberHandler;
 import com.teamhub.handlers.OrganizationHandler;
 import com.teamhub.handlers.ProjectHandler;
+import com.teamhub.handlers.SessionHandler;
 import com.teamhub.handlers.TaskHandler;
 import io.vertx.ext.web.Router;
 
@@ -16,19 +17,22 @@ public class ApiRouter {
     private final OrganizationHandler organizationHandler;
     private final AnalyticsHandler analyticsHandler;
     private final BillingHandler billingHandler;
+    private final SessionHandler sessionHandler;
 
     public ApiRouter(ProjectHandler projectHandler,
                      TaskHandler taskHandler,
                      MemberHandler memberHandler,
                      OrganizationHandler organizationHandler,
                      AnalyticsHandler analyticsHandler,
-                     BillingHandler billingHandler) {
+                     BillingHandler billingHandler,
+                     SessionHandler sessionHandler) {
         this.projectHandler = projectHandler;
         this.taskHandler = taskHandler;
         this.memberHandler = memberHandler;
         this.organizationHandler = organizationHandler;
         this.analyticsHandler = analyticsHandler;
         this.billingHandler = billingHandler;
+        this.sessionHandler = sessionHandler;
     }
 
     public void mount(Router router) {
@@ -38,5 +42,6 @@ public class ApiRouter {
         organizationHandler.mount(router);
         analyticsHandler.mount(router);
         billingHandler.mount(router);
+        sessionHandler.mount(router);
     }
 }
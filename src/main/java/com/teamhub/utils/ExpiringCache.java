@@ -0,0 +1,100 @@
+package com.teamhub.utils;
+
+import io.vertx.core.Future;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Per-node read-through cache whose entries expire a fixed time after they are loaded.
+ * Hits are lock-free. A load that is still in flight when its key is invalidated returns its result to
+ * the caller but does not store it, so an invalidation is never undone by a lookup that started before it.
+ * When full, expired entries are dropped first, then the oldest tenth of the rest.
+ */
+public final class ExpiringCache<K, V> {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    // The load each key's result may be stored from; invalidate() removes it
+    private final Map<K, Object> loads = new ConcurrentHashMap<>();
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    public ExpiringCache(long ttlMillis, int maxEntries) {
+        this(ttlMillis, maxEntries, System::currentTimeMillis);
+    }
+
+    ExpiringCache(long ttlMillis, int maxEntries, LongSupplier clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * The cached value for {@code key}, or the one {@code loader} completes with. A null result is
+     * returned but not cached.
+     */
+    public Future<V> get(K key, Supplier<Future<V>> loader) {
+        Entry<V> cached = entries.get(key);
+        if (cached != null && cached.expiresAt() > clock.getAsLong()) {
+            return Future.succeededFuture(cached.value());
+        }
+        Object load = new Object();
+        loads.put(key, load);
+        return loader.get().onComplete(loaded -> {
+            // Atomic with invalidate()'s removal of the load, which always runs before it drops the entry
+            loads.computeIfPresent(key, (k, current) -> {
+                if (current == load) {
+                    if (loaded.succeeded() && loaded.result() != null) {
+                        store(key, loaded.result());
+                    } else {
+                        entries.remove(key);
+                    }
+                }
+                return current == load ? null : current;
+            });
+        });
+    }
+
+    /**
+     * Drops {@code key}, including the result of any load of it still in flight.
+     */
+    public void invalidate(K key) {
+        loads.remove(key);
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void store(K key, V value) {
+        long now = clock.getAsLong();
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            makeRoom(now);
+        }
+        entries.put(key, new Entry<>(value, now + ttlMillis));
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        if (excess > 0) {
+            // Every entry lives for the same TTL, so the soonest to expire are the oldest
+            entries.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt()))
+                    .limit(excess)
+                    .toList()
+                    .forEach(e -> entries.remove(e.getKey(), e.getValue()));
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
 import java.util.Date;
+import java.util.UUID;
 
 public final class JwtHelper {
 
@@ -36,6 +37,7 @@ public final class JwtHelper {
             Date expiry = new Date(nowMillis + (long) AppConfig.JWT_EXPIRY_SECONDS * 1000);
 
             JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                    .jwtID(UUID.randomUUID().toString())
                     .subject(userId)
                     .issuer(AppConfig.JWT_ISSUER)
                     .claim("email", email)
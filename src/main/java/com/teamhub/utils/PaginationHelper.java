@@ -1,5 +1,6 @@
 package com.teamhub.utils;
 
+import com.teamhub.common.mongo.PageCursor;
 import com.teamhub.config.AppConfig;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
@@ -39,6 +40,25 @@ public final class PaginationHelper {
         }
     }
 
+    /**
+     * Offset paging is used only when the client asks for a page number explicitly;
+     * otherwise listings are served by keyset pagination.
+     */
+    public static boolean isOffsetRequest(RoutingContext ctx) {
+        return ctx.queryParams().get("page") != null;
+    }
+
+    /**
+     * Decode the opaque {@code cursor} query parameter, or null when absent (first page).
+     */
+    public static PageCursor getCursor(RoutingContext ctx) {
+        String cursorParam = ctx.queryParams().get("cursor");
+        if (cursorParam == null || cursorParam.isBlank()) {
+            return null;
+        }
+        return PageCursor.decode(cursorParam);
+    }
+
     public static int calculateSkip(int page, int pageSize) {
         return (page - 1) * pageSize;
     }
@@ -58,4 +78,16 @@ public final class PaginationHelper {
                 .put("totalItems", totalItems)
                 .put("totalPages", totalPages);
     }
+
+    public static JsonObject buildPaginationMeta(int page, int pageSize, long totalItems, String nextCursor) {
+        return buildPaginationMeta(page, pageSize, totalItems)
+                .put("nextCursor", nextCursor);
+    }
+
+    public static JsonObject buildCursorMeta(int pageSize, String nextCursor) {
+        return new JsonObject()
+                .put("pageSize", pageSize)
+                .put("nextCursor", nextCursor)
+                .put("hasMore", nextCursor != null);
+    }
 }
@@ -2,8 +2,12 @@ package com.teamhub.utils;
 
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RequestBody;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -13,6 +17,10 @@ public final class ValidationHelper {
             Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
     private static final Pattern OBJECT_ID_PATTERN =
             Pattern.compile("^[a-fA-F0-9]{24}$");
+    private static final Pattern PROJECT_KEY_PATTERN =
+            Pattern.compile("^[A-Z][A-Z0-9]{1,9}$");
+    private static final Pattern TASK_KEY_PATTERN =
+            Pattern.compile("^[A-Z][A-Z0-9]{1,9}-[1-9][0-9]{0,17}$");
 
     private ValidationHelper() {
         // Utility class
@@ -48,6 +56,55 @@ public final class ValidationHelper {
         }
     }
 
+    /**
+     * Read the optional "version" field used for optimistic concurrency. Returns null when absent.
+     */
+    public static Long optionalVersion(JsonObject body) {
+        Object value = body == null ? null : body.getValue("version");
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Integer || value instanceof Long) || ((Number) value).longValue() < 0) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR, "Field 'version' must be a non-negative integer");
+        }
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * Read a JSON Patch (RFC 6902) request body, which must be an array of operations.
+     */
+    public static JsonArray requirePatch(RequestBody body) {
+        JsonArray operations;
+        try {
+            operations = body.asJsonArray();
+        } catch (DecodeException e) {
+            operations = null;
+        }
+        if (operations == null) {
+            throw new AppException(ErrorCode.BAD_REQUEST, "Request body must be a JSON Patch array");
+        }
+        return operations;
+    }
+
+    /**
+     * Parse a comma-separated list of IDs from a query parameter, dropping blanks and duplicates.
+     */
+    public static List<String> parseIdList(String value, String paramName, int maxIds) {
+        List<String> ids = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR, "Parameter '" + paramName + "' must list at least one ID");
+        }
+        if (ids.size() > maxIds) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR,
+                    "Parameter '" + paramName + "' must list at most " + maxIds + " IDs");
+        }
+        return ids;
+    }
+
     /**
      * Validate email format.
      */
@@ -80,6 +137,25 @@ public final class ValidationHelper {
         }
     }
 
+    /**
+     * Validate a project key: 2 to 10 capital letters and digits, starting with a letter (e.g. WEB).
+     */
+    public static void validateProjectKey(String key) {
+        if (key == null || !PROJECT_KEY_PATTERN.matcher(key).matches()) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR,
+                    "Field 'key' must be 2 to 10 capital letters and digits, starting with a letter");
+        }
+    }
+
+    /**
+     * Validate a task key: a project key and a number (e.g. WEB-42).
+     */
+    public static void validateTaskKey(String key) {
+        if (key == null || !TASK_KEY_PATTERN.matcher(key).matches()) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR, "Invalid task key format");
+        }
+    }
+
     /**
      * Validate that a value is one of the allowed values.
      */
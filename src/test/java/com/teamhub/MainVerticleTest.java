@@ -0,0 +1,82 @@
+package com.teamhub;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.ReadPreference;
+import com.teamhub.common.mongo.StorageBackend;
+import com.teamhub.common.mongo.TenantRouter;
+import com.teamhub.config.AppConfig;
+import io.vertx.core.Vertx;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class MainVerticleTest {
+
+    @Test
+    void parseClusters_readsNamedConnectionStrings() {
+        Map<String, String> clusters = AppConfig.parseClusters(
+                " large-1=mongodb://a:27017,b:27017/?replicaSet=rs&w=majority  large-2=mongodb://c:27017 ");
+
+        assertEquals(List.of("large-1", "large-2"), List.copyOf(clusters.keySet()));
+        assertEquals("mongodb://a:27017,b:27017/?replicaSet=rs&w=majority", clusters.get("large-1"));
+        assertEquals(Map.of(), AppConfig.parseClusters(""));
+        assertThrows(IllegalArgumentException.class, () -> AppConfig.parseClusters("mongodb://c:27017"));
+        assertThrows(IllegalArgumentException.class, () -> AppConfig.parseClusters("default=mongodb://c:27017"));
+        assertThrows(IllegalArgumentException.class,
+                () -> AppConfig.parseClusters("large=mongodb://a:27017 large=mongodb://b:27017"));
+    }
+
+    @Test
+    void connectClusters_routesOrganizationToConfiguredCluster(Vertx vertx, VertxTestContext ctx) {
+        String organizationId = "org-" + UUID.randomUUID();
+        Map<String, String> configured = AppConfig.parseClusters("large=mongodb://large-" + UUID.randomUUID() + ":27017");
+        List<MongoClient> opened = new ArrayList<>();
+        TenantRouter router = MainVerticle.connectClusters(vertx, StorageBackend.MEMORY, configured, opened);
+
+        router.setRoute(organizationId, "large", TenantRouter.State.ACTIVE)
+                .compose(v -> router.client(organizationId))
+                .onComplete(ctx.succeeding(client -> {
+                    ctx.verify(() -> {
+                        assertEquals(List.of(TenantRouter.DEFAULT_CLUSTER, "large"),
+                                List.copyOf(router.clusters().keySet()));
+                        assertSame(router.cluster("large"), client);
+                        assertNotSame(router.defaultClient(), client);
+                        assertEquals(4, opened.size());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void analyticsConnectionString_appendsOptionsAfterThePath() {
+        String options = "readPreference=secondaryPreferred&maxStalenessSeconds="
+                + AppConfig.MONGO_ANALYTICS_MAX_STALENESS_SECONDS + "&maxPoolSize=" + AppConfig.MONGO_ANALYTICS_POOL_SIZE;
+
+        assertEquals("mongodb://host:27017/?" + options,
+                MainVerticle.analyticsConnectionString("mongodb://host:27017"));
+        assertEquals("mongodb://host:27017/?" + options,
+                MainVerticle.analyticsConnectionString("mongodb://host:27017/"));
+        assertEquals("mongodb://host:27017/teamhub?" + options,
+                MainVerticle.analyticsConnectionString("mongodb://host:27017/teamhub"));
+        assertEquals("mongodb://a:27017,b:27017/teamhub?replicaSet=rs&" + options,
+                MainVerticle.analyticsConnectionString("mongodb://a:27017,b:27017/teamhub?replicaSet=rs"));
+
+        ConnectionString parsed = new ConnectionString(
+                MainVerticle.analyticsConnectionString("mongodb://host:27017/teamhub"));
+        assertEquals("teamhub", parsed.getDatabase());
+        assertEquals(ReadPreference.secondaryPreferred(AppConfig.MONGO_ANALYTICS_MAX_STALENESS_SECONDS,
+                TimeUnit.SECONDS), parsed.getReadPreference());
+        assertEquals(AppConfig.MONGO_ANALYTICS_POOL_SIZE, parsed.getMaxConnectionPoolSize());
+    }
+}
@@ -111,7 +111,7 @@ public abstract class TestBase {
                 .put("description", "A test project")
                 .put("organizationId", organizationId)
                 .put("status", "ACTIVE")
-                .put("memberIds", new JsonArray().add(TEST_USER_ID))
+                .put("memberCount", 1)
                 .put("createdBy", TEST_USER_ID)
                 .put("createdAt", Instant.now().toString())
                 .put("updatedAt", Instant.now().toString())
@@ -0,0 +1,170 @@
+package com.teamhub.bench;
+
+import com.teamhub.MainVerticle;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.StorageBackend;
+import com.teamhub.config.AppConfig;
+import com.teamhub.utils.JwtHelper;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The HTTP, handler and manager stack on its own: starts {@link MainVerticle} on the in-memory storage
+ * backend (so no mongod is involved and storage costs next to nothing), seeds one organization, and
+ * drives common task requests from concurrent clients, reporting throughput and latency per endpoint.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.teamhub.bench.ApiStackBenchmark"
+ */
+public class ApiStackBenchmark {
+
+    private static final String ORGANIZATION_ID = "bench-org";
+    private static final String USER_ID = "bench-user";
+    private static final String PROJECT_ID = "bench-project";
+    private static final int TASKS = 2000;
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS_PER_CLIENT = 200;
+    private static final String[] STATUSES = {"TODO", "IN_PROGRESS", "IN_REVIEW", "DONE"};
+
+    private record Call(HttpMethod method, String uri, JsonObject body) {
+    }
+
+    public static void main(String[] args) {
+        // Must be set before AppConfig is initialized
+        System.setProperty("teamhub.storage", "memory");
+        Vertx vertx = Vertx.vertx();
+        await(vertx.deployVerticle(new MainVerticle()));
+        MongoClient storage = StorageBackend.MEMORY.createClient(vertx, new JsonObject()
+                .put("connection_string", AppConfig.MONGO_CONNECTION_STRING)
+                .put("db_name", AppConfig.MONGO_DATABASE), MongoClient.DEFAULT_POOL_NAME);
+        HttpClient http = vertx.createHttpClient(new HttpClientOptions()
+                .setDefaultPort(AppConfig.SERVER_PORT)
+                .setMaxPoolSize(CLIENTS));
+        String token = JwtHelper.generateToken(USER_ID, "bench@example.com", ORGANIZATION_ID);
+
+        try {
+            seed(storage);
+
+            System.out.printf("%n%-24s %10s %12s %12s %10s%n", "endpoint", "requests", "req/s", "mean ms", "errors");
+            run(http, token, "GET /tasks?projectId", random -> new Call(HttpMethod.GET,
+                    "/api/v1/tasks?projectId=" + PROJECT_ID + "&limit=20", null));
+            run(http, token, "GET /tasks/:id", random -> new Call(HttpMethod.GET,
+                    "/api/v1/tasks/" + taskId(random.nextInt(TASKS)), null));
+            run(http, token, "PATCH /tasks/:id/status", random -> new Call(HttpMethod.PATCH,
+                    "/api/v1/tasks/" + taskId(random.nextInt(TASKS)) + "/status",
+                    new JsonObject().put("status", STATUSES[random.nextInt(STATUSES.length)])));
+            run(http, token, "POST /tasks", random -> new Call(HttpMethod.POST, "/api/v1/tasks",
+                    new JsonObject().put("title", "New card").put("projectId", PROJECT_ID)));
+        } finally {
+            http.close();
+            vertx.close();
+        }
+    }
+
+    private static void run(HttpClient http, String token, String label, Function<Random, Call> calls) {
+        // Warm up the JIT and the caches
+        await(storm(http, token, calls, 5, new AtomicLong(), new AtomicLong()));
+        AtomicLong latencyNanos = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        await(storm(http, token, calls, REQUESTS_PER_CLIENT, latencyNanos, errors));
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        int requests = CLIENTS * REQUESTS_PER_CLIENT;
+        System.out.printf("%-24s %10d %12.0f %12.3f %10d%n", label, requests, requests / seconds,
+                latencyNanos.get() / 1_000_000.0 / requests, errors.get());
+    }
+
+    /**
+     * Every client sends {@code perClient} requests one after another; all clients run at the same time.
+     */
+    private static Future<?> storm(HttpClient http, String token, Function<Random, Call> calls, int perClient,
+                                   AtomicLong latencyNanos, AtomicLong errors) {
+        List<Future<?>> all = new ArrayList<>(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            all.add(client(http, token, calls, new Random(c), perClient, latencyNanos, errors));
+        }
+        return Future.all(all);
+    }
+
+    private static Future<?> client(HttpClient http, String token, Function<Random, Call> calls, Random random,
+                                    int remaining, AtomicLong latencyNanos, AtomicLong errors) {
+        if (remaining == 0) {
+            return Future.succeededFuture();
+        }
+        Call call = calls.apply(random);
+        long sent = System.nanoTime();
+        return http.request(new RequestOptions()
+                        .setMethod(call.method())
+                        .setURI(call.uri())
+                        .putHeader("Authorization", "Bearer " + token)
+                        .putHeader("Content-Type", "application/json"))
+                .compose(request -> call.body() == null ? request.send() : request.send(call.body().toBuffer()))
+                .compose(response -> response.body().map(body -> response.statusCode()))
+                .compose(status -> {
+                    latencyNanos.addAndGet(System.nanoTime() - sent);
+                    if (status >= 400) {
+                        errors.incrementAndGet();
+                    }
+                    return client(http, token, calls, random, remaining - 1, latencyNanos, errors);
+                });
+    }
+
+    private static void seed(MongoClient storage) {
+        JsonObject now = MongoDates.now();
+        await(storage.insert("organizations", new JsonObject()
+                .put("_id", ORGANIZATION_ID)
+                .put("name", "Bench")
+                .put("createdAt", now)));
+        await(storage.insert("members", new JsonObject()
+                .put("_id", USER_ID)
+                .put("organizationId", ORGANIZATION_ID)
+                .put("email", "bench@example.com")
+                .put("name", "Bench User")
+                .put("role", "ADMIN")
+                .put("createdAt", now)
+                .put("deletedAt", (Object) null)));
+        await(storage.insert("projects", new JsonObject()
+                .put("_id", PROJECT_ID)
+                .put("name", "Bench project")
+                .put("organizationId", ORGANIZATION_ID)
+                .put("ownerId", USER_ID)
+                .put("status", "ACTIVE")
+                .put("createdAt", now)
+                .put("updatedAt", now.copy())
+                .put("deletedAt", (Object) null)));
+        List<BulkOperation> batch = new ArrayList<>(TASKS);
+        for (int t = 0; t < TASKS; t++) {
+            batch.add(BulkOperation.createInsert(new JsonObject()
+                    .put("_id", taskId(t))
+                    .put("title", "Card " + t)
+                    .put("projectId", PROJECT_ID)
+                    .put("organizationId", ORGANIZATION_ID)
+                    .put("status", "TODO")
+                    .put("priority", "MEDIUM")
+                    .put("version", 0)
+                    .put("createdAt", now.copy())
+                    .put("updatedAt", now.copy())
+                    .put("deletedAt", (Object) null)));
+        }
+        await(storage.bulkWrite("tasks", batch));
+    }
+
+    private static String taskId(int t) {
+        return String.format("bench-task-%04d", t);
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+}
@@ -0,0 +1,161 @@
+package com.teamhub.bench;
+
+import com.teamhub.common.mongo.IndexManager;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.config.AppConfig;
+import com.teamhub.models.Task;
+import com.teamhub.repositories.TaskArchiveRepository;
+import com.teamhub.repositories.TaskRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures what moving archived projects' tasks to tasks_archive does to the hot collection: index
+ * and data size of tasks, and the WiredTiger cache hit ratio and latency of a hot-path workload
+ * (project task pages and counts, org-wide TODO pages and counts) before and after.
+ * Seeds one organization of an older shape, where most projects (the oldest ones) are archived,
+ * into a throwaway "teamhub_bench" database and drops it afterwards. Cache effects only show when
+ * the data outgrows the cache, so run it against a mongod started with a small cache
+ * (--wiredTigerCacheSizeGB 0.25).
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.teamhub.bench.ArchiveStorageBenchmark"
+ */
+public class ArchiveStorageBenchmark {
+
+    private static final String ORGANIZATION_ID = "bench-org";
+    private static final int PROJECTS = 200;
+    private static final double ARCHIVED_SHARE = 0.8;
+    private static final int TASKS_PER_PROJECT = 1_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int ITERATIONS = 20;
+    private static final String[] STATUSES = {"TODO", "IN_PROGRESS", "IN_REVIEW", "DONE"};
+
+    public static void main(String[] args) {
+        Vertx vertx = Vertx.vertx();
+        MongoClient mongoClient = MongoClient.create(vertx, new JsonObject()
+                .put("connection_string", AppConfig.MONGO_CONNECTION_STRING)
+                .put("db_name", "teamhub_bench"));
+        TaskRepository taskRepository = new TaskRepository(mongoClient);
+        TaskArchiveRepository archiveRepository = new TaskArchiveRepository(mongoClient, taskRepository);
+        int archived = (int) (PROJECTS * ARCHIVED_SHARE);
+
+        try {
+            drop(mongoClient);
+            await(new IndexManager(mongoClient, List.of(taskRepository, archiveRepository)).ensureIndexes());
+            seed(mongoClient);
+
+            System.out.printf("%n%-8s %10s %14s %14s %14s %12s %12s%n", "tasks", "docs", "data (MB)", "indexes (MB)",
+                    "archive (MB)", "hit ratio", "ms/round");
+            report(mongoClient, taskRepository, archived, "hot");
+
+            long moved = 0;
+            for (int p = 0; p < archived; p++) {
+                moved += await(archiveRepository.archiveProject(ORGANIZATION_ID, projectId(p)));
+            }
+            report(mongoClient, taskRepository, archived, "archived");
+            System.out.printf("%nMoved %d tasks of %d archived projects%n", moved, archived);
+        } finally {
+            drop(mongoClient);
+            mongoClient.close();
+            vertx.close();
+        }
+    }
+
+    private static void report(MongoClient mongoClient, TaskRepository taskRepository, int firstActive, String label) {
+        JsonObject hot = stats(mongoClient, "tasks");
+        JsonObject cold = stats(mongoClient, "tasks_archive");
+        // Warm up, then measure the cache over the timed rounds only
+        workload(taskRepository, firstActive);
+        JsonObject before = cache(mongoClient);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            workload(taskRepository, firstActive);
+        }
+        double roundMs = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        JsonObject after = cache(mongoClient);
+        long requested = delta(before, after, "pages requested from the cache");
+        long read = delta(before, after, "pages read into cache");
+        double hitRatio = requested == 0 ? 1.0 : 1.0 - (double) read / requested;
+        System.out.printf("%-8s %10d %14.1f %14.1f %14.1f %12.4f %12.3f%n", label,
+                hot.getLong("count", 0L), mb(hot, "size"), mb(hot, "totalIndexSize"),
+                mb(cold, "size") + mb(cold, "totalIndexSize"), hitRatio, roundMs);
+    }
+
+    private static void workload(TaskRepository taskRepository, int firstActive) {
+        JsonObject todo = new JsonObject().put("status", "TODO");
+        for (int p = firstActive; p < PROJECTS; p++) {
+            await(taskRepository.findByProject(ORGANIZATION_ID, projectId(p), 0, PAGE_SIZE, Task.LIST_FIELDS));
+            await(taskRepository.countByProject(ORGANIZATION_ID, projectId(p)));
+        }
+        await(taskRepository.findByOrganization(ORGANIZATION_ID, todo, 0, PAGE_SIZE, Task.LIST_FIELDS));
+        await(taskRepository.countByOrganization(ORGANIZATION_ID, todo));
+    }
+
+    private static void seed(MongoClient mongoClient) {
+        Random random = new Random(42);
+        Instant base = Instant.parse("2022-01-01T00:00:00Z");
+        List<BulkOperation> batch = new ArrayList<>();
+        for (int p = 0; p < PROJECTS; p++) {
+            for (int t = 0; t < TASKS_PER_PROJECT; t++) {
+                Instant created = base.plusSeconds((long) p * 86_400 + t * 60L);
+                batch.add(BulkOperation.createInsert(new JsonObject()
+                        .put("_id", String.format("%s-task-%04d", projectId(p), t))
+                        .put("title", "Task " + t)
+                        .put("description", "Generated task " + t + " of project " + p)
+                        .put("projectId", projectId(p))
+                        .put("organizationId", ORGANIZATION_ID)
+                        .put("assigneeId", "member-" + random.nextInt(50))
+                        .put("status", STATUSES[random.nextInt(STATUSES.length)])
+                        .put("priority", "MEDIUM")
+                        .put("createdAt", MongoDates.toBson(created))
+                        .put("updatedAt", MongoDates.toBson(created))
+                        .put("deletedAt", (Object) null)));
+                if (batch.size() >= 1000) {
+                    await(mongoClient.bulkWrite("tasks", batch));
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            await(mongoClient.bulkWrite("tasks", batch));
+        }
+    }
+
+    private static JsonObject stats(MongoClient mongoClient, String collection) {
+        return await(mongoClient.runCommand("collStats", new JsonObject().put("collStats", collection))
+                .recover(err -> Future.succeededFuture(new JsonObject())));
+    }
+
+    private static JsonObject cache(MongoClient mongoClient) {
+        return await(mongoClient.runCommand("serverStatus", new JsonObject().put("serverStatus", 1)))
+                .getJsonObject("wiredTiger").getJsonObject("cache");
+    }
+
+    private static long delta(JsonObject before, JsonObject after, String counter) {
+        return after.getLong(counter) - before.getLong(counter);
+    }
+
+    private static double mb(JsonObject stats, String field) {
+        return stats.getLong(field, 0L) / (1024.0 * 1024.0);
+    }
+
+    private static String projectId(int p) {
+        return String.format("bench-project-%04d", p);
+    }
+
+    private static void drop(MongoClient mongoClient) {
+        await(mongoClient.dropCollection("tasks").recover(err -> Future.succeededFuture()));
+        await(mongoClient.dropCollection("tasks_archive").recover(err -> Future.succeededFuture()));
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+}
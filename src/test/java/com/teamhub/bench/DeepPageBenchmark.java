@@ -0,0 +1,113 @@
+package com.teamhub.bench;
+
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.config.AppConfig;
+import com.teamhub.repositories.TaskRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares skip-based and keyset pagination latency at increasing page depth against a local mongod.
+ * Seeds a throwaway "teamhub_bench" database and drops it afterwards.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.teamhub.bench.DeepPageBenchmark"
+ */
+public class DeepPageBenchmark {
+
+    private static final String ORGANIZATION_ID = "bench-org";
+    private static final String PROJECT_ID = "bench-project";
+    private static final int TASKS = 12_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int[] PAGES = {1, 50, 100, 250, 500};
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        Vertx vertx = Vertx.vertx();
+        MongoClient mongoClient = MongoClient.create(vertx, new JsonObject()
+                .put("connection_string", AppConfig.MONGO_CONNECTION_STRING)
+                .put("db_name", "teamhub_bench"));
+        TaskRepository taskRepository = new TaskRepository(mongoClient);
+
+        try {
+            await(mongoClient.dropCollection("tasks").recover(err -> Future.succeededFuture()));
+            await(mongoClient.createIndex("tasks", new JsonObject()
+                    .put("projectId", 1).put("createdAt", -1).put("_id", -1)));
+            seed(mongoClient);
+
+            System.out.printf("%n%-6s %14s %14s%n", "page", "offset (ms)", "keyset (ms)");
+            for (int page : PAGES) {
+                int skip = (page - 1) * PAGE_SIZE;
+                PageCursor cursor = cursorBefore(taskRepository, skip);
+
+                double offsetMs = time(() -> taskRepository.findByProject(ORGANIZATION_ID, PROJECT_ID, skip, PAGE_SIZE,
+                        FieldSet.ALL));
+                double keysetMs = time(() -> taskRepository.findByProject(ORGANIZATION_ID, PROJECT_ID, cursor, PAGE_SIZE,
+                        FieldSet.ALL));
+                System.out.printf("%-6d %14.3f %14.3f%n", page, offsetMs, keysetMs);
+            }
+        } finally {
+            await(mongoClient.dropCollection("tasks").recover(err -> Future.succeededFuture()));
+            mongoClient.close();
+            vertx.close();
+        }
+    }
+
+    private static void seed(MongoClient mongoClient) {
+        Instant base = Instant.now();
+        List<BulkOperation> batch = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            batch.add(BulkOperation.createInsert(new JsonObject()
+                    .put("_id", String.format("task-%08d", i))
+                    .put("title", "Task " + i)
+                    .put("projectId", PROJECT_ID)
+                    .put("organizationId", ORGANIZATION_ID)
+                    .put("status", "TODO")
+                    .put("createdAt", MongoDates.toBson(base.plusMillis(i)))
+                    .put("deletedAt", (Object) null)));
+            if (batch.size() == 1000) {
+                await(mongoClient.bulkWrite("tasks", batch));
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            await(mongoClient.bulkWrite("tasks", batch));
+        }
+    }
+
+    /**
+     * Walks keyset pages until reaching the position just before {@code skip}.
+     */
+    private static PageCursor cursorBefore(TaskRepository taskRepository, int skip) {
+        PageCursor cursor = null;
+        for (int seen = 0; seen < skip; seen += PAGE_SIZE) {
+            KeysetPage<JsonObject> page = await(taskRepository.findByProject(ORGANIZATION_ID, PROJECT_ID, cursor,
+                    PAGE_SIZE, FieldSet.ALL));
+            cursor = PageCursor.decode(page.nextCursor());
+        }
+        return cursor;
+    }
+
+    private static double time(java.util.function.Supplier<Future<?>> query) {
+        for (int i = 0; i < 5; i++) {
+            await(query.get());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            await(query.get());
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+}
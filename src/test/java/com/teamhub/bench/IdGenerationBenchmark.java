@@ -0,0 +1,93 @@
+package com.teamhub.bench;
+
+import com.teamhub.common.mongo.IdGenerator;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.TimeOrderedIdGenerator;
+import com.teamhub.config.AppConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compares insert throughput and index sizes for driver-style ObjectIds, time-ordered tenant-tagged
+ * IDs and random UUIDs, and the size of the old (organizationId, createdAt, _id) index against the
+ * (organizationId, _id) one that replaces it once IDs are time-ordered.
+ * Seeds a throwaway "teamhub_bench" database and drops it afterwards.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.teamhub.bench.IdGenerationBenchmark"
+ */
+public class IdGenerationBenchmark {
+
+    private static final int DOCUMENTS = 200_000;
+    private static final int ORGANIZATIONS = 100;
+    private static final int IN_FLIGHT = 64;
+
+    public static void main(String[] args) {
+        Vertx vertx = Vertx.vertx();
+        MongoClient mongoClient = MongoClient.create(vertx, new JsonObject()
+                .put("connection_string", AppConfig.MONGO_CONNECTION_STRING)
+                .put("db_name", "teamhub_bench")
+                .put("maxPoolSize", IN_FLIGHT));
+
+        Map<String, IdGenerator> generators = new LinkedHashMap<>();
+        generators.put("objectid", IdGenerator.OBJECT_ID);
+        generators.put("time-ordered", TimeOrderedIdGenerator.instance());
+        generators.put("uuid", tenant -> UUID.randomUUID().toString());
+
+        try {
+            System.out.printf("%n%-14s %12s %12s %16s %16s%n",
+                    "ids", "inserts/s", "_id (KB)", "org+created (KB)", "org+_id (KB)");
+            for (Map.Entry<String, IdGenerator> entry : generators.entrySet()) {
+                String collection = "ids_" + entry.getKey().replace('-', '_');
+                await(mongoClient.dropCollection(collection).recover(err -> Future.succeededFuture()));
+                await(mongoClient.createIndex(collection, new JsonObject()
+                        .put("organizationId", 1).put("createdAt", -1).put("_id", -1)));
+                await(mongoClient.createIndex(collection, new JsonObject()
+                        .put("organizationId", 1).put("_id", -1)));
+
+                double perSecond = insertAll(mongoClient, collection, entry.getValue());
+                JsonObject sizes = await(mongoClient.runCommand("collStats",
+                        new JsonObject().put("collStats", collection))).getJsonObject("indexSizes");
+                System.out.printf("%-14s %12.0f %12d %16d %16d%n", entry.getKey(), perSecond,
+                        sizes.getLong("_id_") / 1024,
+                        sizes.getLong("organizationId_1_createdAt_-1__id_-1") / 1024,
+                        sizes.getLong("organizationId_1__id_-1") / 1024);
+                await(mongoClient.dropCollection(collection));
+            }
+        } finally {
+            mongoClient.close();
+            vertx.close();
+        }
+    }
+
+    /**
+     * Inserts {@link #DOCUMENTS} single documents, {@link #IN_FLIGHT} at a time, and returns inserts per second.
+     */
+    private static double insertAll(MongoClient mongoClient, String collection, IdGenerator generator) {
+        long start = System.nanoTime();
+        for (int offset = 0; offset < DOCUMENTS; offset += IN_FLIGHT) {
+            List<Future<String>> batch = new ArrayList<>(IN_FLIGHT);
+            for (int i = offset; i < Math.min(offset + IN_FLIGHT, DOCUMENTS); i++) {
+                String organizationId = "bench-org-" + (i % ORGANIZATIONS);
+                batch.add(mongoClient.insert(collection, new JsonObject()
+                        .put("_id", generator.nextId(organizationId))
+                        .put("organizationId", organizationId)
+                        .put("title", "Task " + i)
+                        .put("createdAt", MongoDates.now())
+                        .put("deletedAt", (Object) null)));
+            }
+            await(Future.all(batch));
+        }
+        return DOCUMENTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+}
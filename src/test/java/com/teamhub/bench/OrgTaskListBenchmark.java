@@ -0,0 +1,128 @@
+package com.teamhub.bench;
+
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.IndexManager;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.config.AppConfig;
+import com.teamhub.models.Task;
+import com.teamhub.repositories.ProjectRepository;
+import com.teamhub.repositories.TaskRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares org-wide task listing (first page plus total count) through the project-ID $in fan-out
+ * against filtering on the denormalized organizationId, for orgs with 10, 500 and 5,000 projects.
+ * Seeds a throwaway "teamhub_bench" database and drops it afterwards.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.teamhub.bench.OrgTaskListBenchmark"
+ */
+public class OrgTaskListBenchmark {
+
+    private static final int[] PROJECT_COUNTS = {10, 500, 5_000};
+    private static final int TASKS_PER_PROJECT = 10;
+    private static final int PAGE_SIZE = 20;
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        Vertx vertx = Vertx.vertx();
+        MongoClient mongoClient = MongoClient.create(vertx, new JsonObject()
+                .put("connection_string", AppConfig.MONGO_CONNECTION_STRING)
+                .put("db_name", "teamhub_bench"));
+        TaskRepository taskRepository = new TaskRepository(mongoClient);
+        ProjectRepository projectRepository = new ProjectRepository(mongoClient);
+
+        try {
+            drop(mongoClient);
+            await(new IndexManager(mongoClient, List.of(taskRepository, projectRepository)).ensureIndexes());
+            for (int projects : PROJECT_COUNTS) {
+                seed(mongoClient, "bench-org-" + projects, projects);
+            }
+
+            System.out.printf("%n%-10s %16s %16s %12s %12s%n",
+                    "projects", "$in (ms)", "orgId (ms)", "$in total", "orgId total");
+            for (int projects : PROJECT_COUNTS) {
+                String organizationId = "bench-org-" + projects;
+                JsonObject filters = new JsonObject();
+
+                long fanOutTotal = await(projectRepository.findByOrganization(organizationId, 0, 1000, FieldSet.of())
+                        .map(docs -> docs.stream().map(doc -> doc.getString("_id")).toList())
+                        .compose(ids -> taskRepository.countByProjects(organizationId, ids, filters)));
+                long orgTotal = await(taskRepository.countByOrganization(organizationId, filters));
+
+                double fanOutMs = time(() -> projectRepository.findByOrganization(organizationId, 0, 1000, FieldSet.of())
+                        .map(docs -> docs.stream().map(doc -> doc.getString("_id")).toList())
+                        .compose(ids -> taskRepository.findByProjects(organizationId, ids, filters, 0, PAGE_SIZE,
+                                        Task.LIST_FIELDS)
+                                .compose(page -> taskRepository.countByProjects(organizationId, ids, filters))));
+                double orgMs = time(() -> taskRepository.findByOrganization(organizationId, filters, 0, PAGE_SIZE, Task.LIST_FIELDS)
+                        .compose(page -> taskRepository.countByOrganization(organizationId, filters)));
+                System.out.printf("%-10d %16.3f %16.3f %12d %12d%n",
+                        projects, fanOutMs, orgMs, fanOutTotal, orgTotal);
+            }
+        } finally {
+            drop(mongoClient);
+            mongoClient.close();
+            vertx.close();
+        }
+    }
+
+    private static void seed(MongoClient mongoClient, String organizationId, int projects) {
+        Instant base = Instant.now();
+        List<BulkOperation> projectBatch = new ArrayList<>();
+        List<BulkOperation> taskBatch = new ArrayList<>();
+        for (int p = 0; p < projects; p++) {
+            String projectId = String.format("%s-project-%05d", organizationId, p);
+            projectBatch.add(BulkOperation.createInsert(new JsonObject()
+                    .put("_id", projectId)
+                    .put("name", "Project " + p)
+                    .put("organizationId", organizationId)
+                    .put("createdAt", MongoDates.toBson(base.plusMillis(p)))
+                    .put("deletedAt", (Object) null)));
+            for (int t = 0; t < TASKS_PER_PROJECT; t++) {
+                taskBatch.add(BulkOperation.createInsert(new JsonObject()
+                        .put("_id", String.format("%s-task-%02d", projectId, t))
+                        .put("title", "Task " + t)
+                        .put("projectId", projectId)
+                        .put("organizationId", organizationId)
+                        .put("status", "TODO")
+                        .put("createdAt", MongoDates.toBson(base.plusMillis((long) p * TASKS_PER_PROJECT + t)))
+                        .put("deletedAt", (Object) null)));
+            }
+            if (taskBatch.size() >= 1000) {
+                await(mongoClient.bulkWrite("tasks", taskBatch));
+                taskBatch = new ArrayList<>();
+            }
+        }
+        await(mongoClient.bulkWrite("projects", projectBatch));
+        if (!taskBatch.isEmpty()) {
+            await(mongoClient.bulkWrite("tasks", taskBatch));
+        }
+    }
+
+    private static void drop(MongoClient mongoClient) {
+        await(mongoClient.dropCollection("tasks").recover(err -> Future.succeededFuture()));
+        await(mongoClient.dropCollection("projects").recover(err -> Future.succeededFuture()));
+    }
+
+    private static double time(java.util.function.Supplier<Future<?>> query) {
+        for (int i = 0; i < 5; i++) {
+            await(query.get());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            await(query.get());
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+}
@@ -0,0 +1,109 @@
+package com.teamhub.bench;
+
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.repositories.TaskRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.MongoClientUpdateResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * Measures bytes allocated per repository call while building the filter, options and update
+ * documents: the current {@link com.teamhub.common.mongo.MongoQuery}/{@link com.teamhub.common.mongo.MongoUpdate}
+ * path against the previous copy-based one (a fresh query copied to add {@code deletedAt}, a fresh
+ * sort, and a deep copy of the update), reproduced inline. The MongoClient is a stub that completes
+ * immediately, so only document building is measured. Needs no mongod.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.teamhub.bench.QueryAllocationBenchmark"
+ */
+public class QueryAllocationBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        MongoClient mongoClient = stubClient();
+        TaskRepository taskRepository = new TaskRepository(mongoClient);
+        JsonObject filters = new JsonObject().put("status", "TODO");
+        JsonObject changes = new JsonObject()
+                .put("title", "Renamed")
+                .put("tags", new JsonArray().add("backend").add("urgent"))
+                .put("dueDate", MongoDates.parse("2025-06-30"));
+
+        System.out.printf("%n%-22s %14s %14s%n", "call", "before (B/op)", "after (B/op)");
+        report("findAll (org list)",
+                () -> legacyFindByOrganization(mongoClient, "org-1", filters),
+                () -> taskRepository.findByOrganization("org-1", filters, 0, 20, FieldSet.ALL));
+        report("findById",
+                () -> mongoClient.findOne("tasks", legacyWithNotDeleted(new JsonObject().put("_id", "task-1")), null),
+                () -> taskRepository.findById("task-1", "org-1"));
+        report("update",
+                () -> legacyUpdate(mongoClient, "task-1", changes),
+                () -> taskRepository.update("task-1", "org-1", changes));
+    }
+
+    private static void report(String name, Runnable before, Runnable after) {
+        System.out.printf("%-22s %14.1f %14.1f%n", name, bytesPerCall(before), bytesPerCall(after));
+    }
+
+    private static double bytesPerCall(Runnable call) {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long start = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return (double) (THREADS.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+    }
+
+    private static Future<List<JsonObject>> legacyFindByOrganization(MongoClient mongoClient, String organizationId,
+                                                                     JsonObject filters) {
+        JsonObject query = new JsonObject().put("organizationId", organizationId);
+        if (filters.containsKey("status")) {
+            query.put("status", filters.getString("status"));
+        }
+        JsonObject sort = new JsonObject().put("createdAt", -1).put("_id", -1);
+        FindOptions options = new FindOptions().setSort(sort).setSkip(0).setLimit(20);
+        return mongoClient.findWithOptions("tasks", legacyWithNotDeleted(query), options);
+    }
+
+    private static Future<MongoClientUpdateResult> legacyUpdate(MongoClient mongoClient, String id, JsonObject update) {
+        JsonObject query = legacyWithNotDeleted(new JsonObject().put("_id", id));
+        JsonObject versioned = new JsonObject()
+                .put("$set", update.copy().put("updatedAt", MongoDates.now()))
+                .put("$inc", new JsonObject().put(MongoRepository.VERSION_FIELD, 1));
+        return mongoClient.updateCollection("tasks", query, versioned);
+    }
+
+    private static JsonObject legacyWithNotDeleted(JsonObject query) {
+        return query.copy().put("deletedAt", (Object) null);
+    }
+
+    /**
+     * A client whose reads and writes complete at once with empty results.
+     */
+    private static MongoClient stubClient() {
+        Future<List<JsonObject>> noDocs = Future.succeededFuture(List.of());
+        Future<JsonObject> noDoc = Future.succeededFuture();
+        Future<MongoClientUpdateResult> updated = Future.succeededFuture(new MongoClientUpdateResult(1, null, 1));
+        return (MongoClient) Proxy.newProxyInstance(MongoClient.class.getClassLoader(),
+                new Class<?>[]{MongoClient.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findWithOptions", "find" -> noDocs;
+                    case "findOne" -> noDoc;
+                    case "updateCollection" -> updated;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
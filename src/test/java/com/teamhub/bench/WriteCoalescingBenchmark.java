@@ -0,0 +1,140 @@
+package com.teamhub.bench;
+
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.TenantRouter;
+import com.teamhub.common.mongo.WriteCoalescer;
+import com.teamhub.config.AppConfig;
+import com.teamhub.repositories.TaskRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drag storm: many board users moving cards between columns at once, each sending status updates
+ * back to back. Compares updates sent one findOneAndUpdate each (the default) against updates
+ * coalesced into bulk writes ("Prefer: return=minimal"), reporting throughput, latency and the number
+ * of requests mongod received (network.numRequests).
+ * Seeds a throwaway "teamhub_bench" database and drops it afterwards.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.teamhub.bench.WriteCoalescingBenchmark"
+ */
+public class WriteCoalescingBenchmark {
+
+    private static final String ORGANIZATION_ID = "bench-org";
+    private static final int TASKS = 500;
+    private static final int USERS = 256;
+    private static final int UPDATES_PER_USER = 100;
+    private static final String[] STATUSES = {"TODO", "IN_PROGRESS", "IN_REVIEW", "DONE"};
+
+    private interface Updater {
+        Future<?> update(String taskId, String status);
+    }
+
+    public static void main(String[] args) {
+        Vertx vertx = Vertx.vertx();
+        MongoClient mongoClient = MongoClient.create(vertx, new JsonObject()
+                .put("connection_string", AppConfig.MONGO_CONNECTION_STRING)
+                .put("db_name", "teamhub_bench")
+                .put("maxPoolSize", USERS));
+        TenantRouter router = TenantRouter.single(mongoClient);
+        TaskRepository direct = new TaskRepository(router);
+        WriteCoalescer coalescer = new WriteCoalescer(vertx);
+        TaskRepository coalesced = new TaskRepository(router, coalescer);
+        JsonObject owned = new JsonObject().put("organizationId", ORGANIZATION_ID);
+
+        try {
+            drop(mongoClient);
+            seed(mongoClient);
+
+            System.out.printf("%n%-12s %10s %12s %12s %12s %14s%n", "mode", "updates", "ops/s", "mean ms",
+                    "requests", "updates/req");
+            run(mongoClient, "direct", (taskId, status) -> direct.updateAndGet(taskId, ORGANIZATION_ID, owned,
+                    new JsonObject().put("status", status), null));
+            run(mongoClient, "coalesced", (taskId, status) -> coalesced.updateCoalesced(taskId, ORGANIZATION_ID,
+                    owned, new JsonObject().put("status", status), null));
+        } finally {
+            await(coalescer.close());
+            drop(mongoClient);
+            mongoClient.close();
+            vertx.close();
+        }
+    }
+
+    private static void run(MongoClient mongoClient, String label, Updater updater) {
+        // Warm up the pool and the cache
+        await(storm(updater, USERS, 5, new AtomicLong()));
+        long requestsBefore = requests(mongoClient);
+        AtomicLong latencyNanos = new AtomicLong();
+        long start = System.nanoTime();
+        await(storm(updater, USERS, UPDATES_PER_USER, latencyNanos));
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long requests = requests(mongoClient) - requestsBefore;
+        int updates = USERS * UPDATES_PER_USER;
+        System.out.printf("%-12s %10d %12.0f %12.2f %12d %14.1f%n", label, updates, updates / seconds,
+                latencyNanos.get() / 1_000_000.0 / updates, requests, (double) updates / requests);
+    }
+
+    /**
+     * Every user sends {@code perUser} updates one after another; all users run at the same time.
+     */
+    private static Future<?> storm(Updater updater, int users, int perUser, AtomicLong latencyNanos) {
+        List<Future<?>> all = new ArrayList<>(users);
+        for (int u = 0; u < users; u++) {
+            all.add(drag(updater, new Random(u), perUser, latencyNanos));
+        }
+        return Future.all(all);
+    }
+
+    private static Future<?> drag(Updater updater, Random random, int remaining, AtomicLong latencyNanos) {
+        if (remaining == 0) {
+            return Future.succeededFuture();
+        }
+        String taskId = taskId(random.nextInt(TASKS));
+        long sent = System.nanoTime();
+        return updater.update(taskId, STATUSES[random.nextInt(STATUSES.length)]).compose(done -> {
+            latencyNanos.addAndGet(System.nanoTime() - sent);
+            return drag(updater, random, remaining - 1, latencyNanos);
+        });
+    }
+
+    private static void seed(MongoClient mongoClient) {
+        List<BulkOperation> batch = new ArrayList<>(TASKS);
+        for (int t = 0; t < TASKS; t++) {
+            JsonObject now = MongoDates.now();
+            batch.add(BulkOperation.createInsert(new JsonObject()
+                    .put("_id", taskId(t))
+                    .put("title", "Card " + t)
+                    .put("projectId", "bench-project")
+                    .put("organizationId", ORGANIZATION_ID)
+                    .put("status", "TODO")
+                    .put("priority", "MEDIUM")
+                    .put("createdAt", now)
+                    .put("updatedAt", now.copy())
+                    .put("deletedAt", (Object) null)));
+        }
+        await(mongoClient.bulkWrite("tasks", batch));
+    }
+
+    private static long requests(MongoClient mongoClient) {
+        return await(mongoClient.runCommand("serverStatus", new JsonObject().put("serverStatus", 1)))
+                .getJsonObject("network").getLong("numRequests");
+    }
+
+    private static String taskId(int t) {
+        return String.format("bench-task-%04d", t);
+    }
+
+    private static void drop(MongoClient mongoClient) {
+        await(mongoClient.dropCollection("tasks").recover(err -> Future.succeededFuture()));
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+}
@@ -0,0 +1,37 @@
+package com.teamhub.common.expand;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpandSpecTest {
+
+    @Test
+    void parse_buildsNestedTree() {
+        ExpandSpec spec = ExpandSpec.parse("assignee, project.createdBy,project");
+
+        assertEquals(List.of("assignee", "project"), List.copyOf(spec.relations()));
+        assertTrue(spec.child("assignee").isEmpty());
+        assertEquals(List.of("createdBy"), List.copyOf(spec.child("project").relations()));
+        assertTrue(spec.child("members").isEmpty());
+    }
+
+    @Test
+    void parse_blankExpandsNothing() {
+        assertTrue(ExpandSpec.parse(null).isEmpty());
+        assertTrue(ExpandSpec.parse(" , ").isEmpty());
+    }
+
+    @Test
+    void parse_rejectsTooDeepAndEmptySegments() {
+        AppException tooDeep = assertThrows(AppException.class, () -> ExpandSpec.parse("project.createdBy.organization"));
+        assertEquals(ErrorCode.VALIDATION_ERROR, tooDeep.getErrorCode());
+
+        AppException empty = assertThrows(AppException.class, () -> ExpandSpec.parse("project."));
+        assertEquals(ErrorCode.VALIDATION_ERROR, empty.getErrorCode());
+    }
+}
@@ -0,0 +1,247 @@
+package com.teamhub.common.migration;
+
+import com.mongodb.MongoException;
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.MongoClientBulkWriteResult;
+import io.vertx.ext.mongo.MongoClientUpdateResult;
+import io.vertx.ext.mongo.UpdateOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class MigrationRunnerTest {
+
+    private static final String MIGRATION_ID = "0001-widget-color";
+    private static final JsonObject RECORD_QUERY = new JsonObject().put("_id", MIGRATION_ID);
+
+    @Mock
+    private MongoClient mongoClient;
+
+    private final AtomicInteger completions = new AtomicInteger();
+    private final AtomicInteger preparations = new AtomicInteger();
+
+    /**
+     * Sets color to "blue" on widgets that have none.
+     */
+    private final Migration migration = new Migration() {
+        @Override
+        public String id() {
+            return MIGRATION_ID;
+        }
+
+        @Override
+        public String description() {
+            return "Default widget color";
+        }
+
+        @Override
+        public String collection() {
+            return "widgets";
+        }
+
+        @Override
+        public JsonObject filter() {
+            return new JsonObject().put("color", new JsonObject().put("$exists", false));
+        }
+
+        @Override
+        public Future<List<BulkOperation>> apply(List<JsonObject> batch) {
+            List<BulkOperation> operations = new ArrayList<>();
+            for (JsonObject doc : batch) {
+                if (!doc.getBoolean("locked", false)) {
+                    operations.add(BulkOperation.createUpdate(
+                            new JsonObject().put("_id", doc.getString("_id")).mergeIn(filter()),
+                            new JsonObject().put("$set", new JsonObject().put("color", "blue"))));
+                }
+            }
+            return Future.succeededFuture(operations);
+        }
+
+        @Override
+        public Future<Void> prepare(List<JsonObject> batch) {
+            preparations.incrementAndGet();
+            return Future.succeededFuture();
+        }
+
+        @Override
+        public void onComplete() {
+            completions.incrementAndGet();
+        }
+    };
+
+    private MigrationRunner runner(Vertx vertx) {
+        return new MigrationRunner(vertx, mongoClient, List.of(migration));
+    }
+
+    private void stubLeaseAcquired(JsonObject record) {
+        when(mongoClient.findOne(MigrationRunner.COLLECTION, RECORD_QUERY, null)).thenReturn(Future.succeededFuture(null));
+        when(mongoClient.findOneAndUpdateWithOptions(eq(MigrationRunner.COLLECTION), any(), any(),
+                any(FindOptions.class), any(UpdateOptions.class)))
+                .thenReturn(Future.succeededFuture(record.put("_id", MIGRATION_ID).put("status", "RUNNING")));
+    }
+
+    @Test
+    void start_migratesBatchCheckpointsAndCompletes(Vertx vertx, VertxTestContext ctx) {
+        stubLeaseAcquired(new JsonObject());
+        when(mongoClient.findWithOptions(eq("widgets"), any(), any(FindOptions.class))).thenReturn(Future.succeededFuture(List.of(
+                new JsonObject().put("_id", "w-1"),
+                new JsonObject().put("_id", "w-2").put("locked", true),
+                new JsonObject().put("_id", "w-3"))));
+        when(mongoClient.bulkWriteWithOptions(eq("widgets"), anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(Future.succeededFuture(new MongoClientBulkWriteResult(0, 2, 0, 2, List.of(), List.of())));
+        when(mongoClient.updateCollection(eq(MigrationRunner.COLLECTION), any(JsonObject.class), any(JsonObject.class)))
+                .thenReturn(Future.succeededFuture(new MongoClientUpdateResult(1, null, 1)));
+        when(mongoClient.findOne(eq("widgets"), any(), any())).thenReturn(Future.succeededFuture(null));
+
+        MigrationRunner runner = runner(vertx);
+        runner.start().onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                assertTrue(runner.isComplete(MIGRATION_ID));
+                assertEquals(1, completions.get());
+                assertEquals(1, preparations.get());
+
+                @SuppressWarnings("unchecked")
+                ArgumentCaptor<List<BulkOperation>> operations = ArgumentCaptor.forClass(List.class);
+                verify(mongoClient).bulkWriteWithOptions(eq("widgets"), operations.capture(), any(BulkWriteOptions.class));
+                assertEquals(2, operations.getValue().size());
+
+                ArgumentCaptor<JsonObject> updates = ArgumentCaptor.forClass(JsonObject.class);
+                verify(mongoClient, times(2)).updateCollection(eq(MigrationRunner.COLLECTION), any(JsonObject.class), updates.capture());
+                JsonObject checkpoint = updates.getAllValues().get(0);
+                assertEquals("w-3", checkpoint.getJsonObject("$set").getString("lastId"));
+                assertEquals(3L, checkpoint.getJsonObject("$inc").getLong("processed"));
+                assertEquals(2L, checkpoint.getJsonObject("$inc").getLong("modified"));
+                JsonObject completion = updates.getAllValues().get(1);
+                assertEquals("COMPLETED", completion.getJsonObject("$set").getString("status"));
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void start_resumesFromCheckpoint(Vertx vertx, VertxTestContext ctx) {
+        stubLeaseAcquired(new JsonObject().put("lastId", "w-2").put("passModified", 5L));
+        when(mongoClient.findWithOptions(eq("widgets"), any(), any(FindOptions.class)))
+                .thenReturn(Future.succeededFuture(List.of()));
+        when(mongoClient.findOne(eq("widgets"), any(), any())).thenReturn(Future.succeededFuture(null));
+        when(mongoClient.updateCollection(eq(MigrationRunner.COLLECTION), any(JsonObject.class), any(JsonObject.class)))
+                .thenReturn(Future.succeededFuture(new MongoClientUpdateResult(1, null, 1)));
+
+        runner(vertx).start().onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                ArgumentCaptor<JsonObject> query = ArgumentCaptor.forClass(JsonObject.class);
+                verify(mongoClient).findWithOptions(eq("widgets"), query.capture(), any(FindOptions.class));
+                JsonObject range = query.getValue().getJsonArray("$and").getJsonObject(1);
+                assertEquals("w-2", range.getJsonObject("_id").getString("$gt"));
+                verify(mongoClient, never()).bulkWriteWithOptions(any(), any(), any());
+                assertEquals(1, completions.get());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void start_skipsCompletedMigration(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.findOne(MigrationRunner.COLLECTION, RECORD_QUERY, null))
+                .thenReturn(Future.succeededFuture(new JsonObject().put("_id", MIGRATION_ID).put("status", "COMPLETED")));
+
+        MigrationRunner runner = runner(vertx);
+        runner.start().onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                assertTrue(runner.isComplete(MIGRATION_ID));
+                assertEquals(1, completions.get());
+                verify(mongoClient, never()).findOneAndUpdateWithOptions(any(), any(), any(), any(), any());
+                verify(mongoClient, never()).findWithOptions(any(), any(), any());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void start_waitsWhileAnotherNodeHoldsLease(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.findOne(MigrationRunner.COLLECTION, RECORD_QUERY, null))
+                .thenReturn(Future.succeededFuture(new JsonObject().put("_id", MIGRATION_ID).put("status", "RUNNING")));
+        when(mongoClient.findOneAndUpdateWithOptions(eq(MigrationRunner.COLLECTION), any(), any(),
+                any(FindOptions.class), any(UpdateOptions.class)))
+                .thenReturn(Future.failedFuture(new MongoException(11000, "E11000 duplicate key error")));
+
+        MigrationRunner runner = runner(vertx);
+        Future<Void> started = runner.start();
+        vertx.setTimer(200, id -> ctx.verify(() -> {
+            assertFalse(started.isComplete());
+            assertFalse(runner.isComplete(MIGRATION_ID));
+            verify(mongoClient, never()).findWithOptions(any(), any(), any());
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void dryRun_reportsWritesWithoutWriting(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.findWithOptions(eq("widgets"), any(), any(FindOptions.class))).thenReturn(Future.succeededFuture(List.of(
+                new JsonObject().put("_id", "w-1"),
+                new JsonObject().put("_id", "w-2").put("locked", true))));
+
+        runner(vertx).dryRun(MIGRATION_ID, 100).onComplete(ctx.succeeding(result -> {
+            ctx.verify(() -> {
+                assertEquals(2, result.getInteger("scanned"));
+                assertEquals(1, result.getInteger("wouldModify"));
+                assertFalse(result.containsKey("sample"));
+                assertEquals(0, preparations.get());
+                verify(mongoClient, never()).bulkWriteWithOptions(any(), any(), any());
+                verify(mongoClient, never()).updateCollection(any(), any(JsonObject.class), any(JsonObject.class));
+                verify(mongoClient, never()).findOneAndUpdateWithOptions(any(), any(), any(), any(), any());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void dryRun_unknownMigration(Vertx vertx, VertxTestContext ctx) {
+        runner(vertx).dryRun("9999-missing", 100).onComplete(ctx.failing(err -> {
+            ctx.verify(() -> {
+                assertInstanceOf(AppException.class, err);
+                assertEquals(ErrorCode.NOT_FOUND, ((AppException) err).getErrorCode());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void pending_listsMigrationsWithoutACompletedRecord(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.findWithOptions(eq(MigrationRunner.COLLECTION), any(), any(FindOptions.class)))
+                .thenReturn(Future.succeededFuture(List.of()), Future.succeededFuture(List.of(
+                        new JsonObject().put("_id", MIGRATION_ID))));
+
+        MigrationRunner runner = runner(vertx);
+        runner.pending()
+                .compose(before -> runner.pending().map(after -> List.of(before, after)))
+                .onComplete(ctx.succeeding(results -> {
+                    ctx.verify(() -> {
+                        assertEquals(List.of(MIGRATION_ID), results.get(0));
+                        assertTrue(results.get(1).isEmpty());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+}
@@ -0,0 +1,105 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class BlockSequenceTest {
+
+    @Test
+    void next_reservesOneBlockPerBlockSizeNumbers(VertxTestContext ctx) {
+        BlockSequence sequence = new BlockSequence(3, 10);
+        AtomicLong counter = new AtomicLong(10);
+        AtomicInteger reservations = new AtomicInteger();
+        IntFunction<Future<Long>> reserve = count -> {
+            reservations.incrementAndGet();
+            return Future.succeededFuture(counter.addAndGet(count));
+        };
+
+        sequence.next("p1", reserve)
+                .compose(n -> sequence.next("p1", reserve))
+                .compose(n -> sequence.next("p1", reserve))
+                .compose(n -> sequence.next("p1", reserve))
+                .onComplete(ctx.succeeding(fourth -> {
+                    ctx.verify(() -> {
+                        assertEquals(14L, fourth);
+                        assertEquals(2, reservations.get());
+                        assertEquals(16L, counter.get());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void next_concurrentCallersShareOneReservation(VertxTestContext ctx) {
+        BlockSequence sequence = new BlockSequence(5, 10);
+        Promise<Long> reserved = Promise.promise();
+        AtomicInteger reservations = new AtomicInteger();
+        IntFunction<Future<Long>> reserve = count -> {
+            reservations.incrementAndGet();
+            return reserved.future();
+        };
+
+        List<Future<Long>> numbers = List.of(sequence.next("p1", reserve), sequence.next("p1", reserve),
+                sequence.next("p1", reserve));
+        reserved.complete(5L);
+
+        Future.all(numbers).onComplete(ctx.succeeding(all -> {
+            ctx.verify(() -> {
+                assertEquals(List.of(1L, 2L, 3L), all.<Long>list().stream().sorted().toList());
+                assertEquals(1, reservations.get());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void next_failedReservationFailsCallersAndIsRetried(VertxTestContext ctx) {
+        BlockSequence sequence = new BlockSequence(5, 10);
+        AtomicInteger reservations = new AtomicInteger();
+        IntFunction<Future<Long>> reserve = count -> reservations.incrementAndGet() == 1
+                ? Future.failedFuture(new IllegalStateException("write failed"))
+                : Future.succeededFuture(5L);
+
+        sequence.next("p1", reserve)
+                .recover(err -> {
+                    ctx.verify(() -> assertEquals("write failed", err.getMessage()));
+                    return sequence.next("p1", reserve);
+                })
+                .onComplete(ctx.succeeding(number -> {
+                    ctx.verify(() -> {
+                        assertEquals(1L, number);
+                        assertEquals(2, reservations.get());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void forget_skipsTheRestOfTheBlock(VertxTestContext ctx) {
+        BlockSequence sequence = new BlockSequence(5, 10);
+        AtomicLong counter = new AtomicLong();
+        IntFunction<Future<Long>> reserve = count -> Future.succeededFuture(counter.addAndGet(count));
+
+        sequence.next("p1", reserve)
+                .compose(first -> {
+                    sequence.forget("p1");
+                    return sequence.next("p1", reserve);
+                })
+                .onComplete(ctx.succeeding(number -> {
+                    ctx.verify(() -> assertEquals(6L, number));
+                    ctx.completeNow();
+                }));
+    }
+}
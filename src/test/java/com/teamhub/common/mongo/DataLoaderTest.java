@@ -0,0 +1,97 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class DataLoaderTest {
+
+    @Mock
+    private MongoClient mongoClient;
+
+    private DataLoader loader(Vertx vertx) {
+        return new DataLoader(vertx.getOrCreateContext(), new MongoRepository(mongoClient, "widgets") {
+        }, null);
+    }
+
+    @Test
+    void load_batchesCallsFromSameTick(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.find(eq("widgets"), any(JsonObject.class)))
+                .thenReturn(Future.succeededFuture(List.of(new JsonObject().put("_id", "w-1"))));
+
+        vertx.runOnContext(v -> {
+            DataLoader loader = loader(vertx);
+            Future<JsonObject> first = loader.load("w-1");
+            Future<JsonObject> second = loader.load("w-2");
+            Future<JsonObject> again = loader.load("w-1");
+
+            Future.all(first, second, again).onComplete(ctx.succeeding(all -> {
+                ctx.verify(() -> {
+                    assertEquals("w-1", first.result().getString("_id"));
+                    assertNull(second.result());
+                    assertSame(first, again);
+
+                    ArgumentCaptor<JsonObject> query = ArgumentCaptor.forClass(JsonObject.class);
+                    verify(mongoClient, times(1)).find(eq("widgets"), query.capture());
+                    assertEquals(List.of("w-1", "w-2"), query.getValue().getJsonObject("_id").getJsonArray("$in").getList());
+                });
+                ctx.completeNow();
+            }));
+        });
+    }
+
+    @Test
+    void load_memoizesAcrossTicks(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.find(eq("widgets"), any(JsonObject.class)))
+                .thenReturn(Future.succeededFuture(List.of(new JsonObject().put("_id", "w-1"))));
+
+        vertx.runOnContext(v -> {
+            DataLoader loader = loader(vertx);
+            loader.load("w-1")
+                    .compose(doc -> loader.loadMany(List.of("w-1")))
+                    .onComplete(ctx.succeeding(docs -> {
+                        ctx.verify(() -> {
+                            assertEquals("w-1", docs.get(0).getString("_id"));
+                            verify(mongoClient, times(1)).find(eq("widgets"), any(JsonObject.class));
+                        });
+                        ctx.completeNow();
+                    }));
+        });
+    }
+
+    @Test
+    void load_failureIsNotMemoized(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.find(eq("widgets"), any(JsonObject.class))).thenReturn(
+                Future.failedFuture(new RuntimeException("connection reset")),
+                Future.succeededFuture(List.of(new JsonObject().put("_id", "w-1"))));
+
+        vertx.runOnContext(v -> {
+            DataLoader loader = loader(vertx);
+            loader.load("w-1")
+                    .recover(err -> loader.load("w-1"))
+                    .onComplete(ctx.succeeding(doc -> {
+                        ctx.verify(() -> {
+                            assertEquals("w-1", doc.getString("_id"));
+                            verify(mongoClient, times(2)).find(eq("widgets"), any(JsonObject.class));
+                        });
+                        ctx.completeNow();
+                    }));
+        });
+    }
+}
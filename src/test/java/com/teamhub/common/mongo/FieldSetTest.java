@@ -0,0 +1,42 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldSetTest {
+
+    private static final List<String> ALLOWED = List.of("title", "status", "description");
+
+    @Test
+    void parse_buildsProjectionWithId() {
+        FieldSet fields = FieldSet.parse("title, status", ALLOWED, FieldSet.ALL);
+
+        assertTrue(fields.includes("id"));
+        assertTrue(fields.includes("title"));
+        assertFalse(fields.includes("description"));
+        assertEquals(new JsonObject().put("_id", 1).put("title", 1).put("status", 1), fields.projection());
+    }
+
+    @Test
+    void parse_defaultsAndWildcard() {
+        FieldSet defaults = FieldSet.of("title");
+
+        assertSame(defaults, FieldSet.parse(null, ALLOWED, defaults));
+        assertSame(defaults, FieldSet.parse(" ", ALLOWED, defaults));
+        assertSame(FieldSet.ALL, FieldSet.parse("*", ALLOWED, defaults));
+        assertNull(FieldSet.ALL.projection());
+        assertSame(FieldSet.ALL, FieldSet.ALL.with("status"));
+    }
+
+    @Test
+    void parse_rejectsUnknownFields() {
+        AppException e = assertThrows(AppException.class, () -> FieldSet.parse("title,secret", ALLOWED, FieldSet.ALL));
+        assertEquals(ErrorCode.VALIDATION_ERROR, e.getErrorCode());
+    }
+}
@@ -0,0 +1,177 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.IndexOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class IndexManagerTest {
+
+    private static final IndexSpec BY_ORG = IndexSpec.of("widgets_org_created", new JsonObject()
+            .put("organizationId", 1)
+            .put("createdAt", -1)).notDeleted();
+
+    @Mock
+    private MongoClient mongoClient;
+
+    private IndexManager indexManagerFor(IndexSpec... specs) {
+        MongoRepository repository = new MongoRepository(mongoClient, "widgets") {
+            @Override
+            public List<IndexSpec> indexes() {
+                return List.of(specs);
+            }
+        };
+        return new IndexManager(mongoClient, List.of(repository));
+    }
+
+    @Test
+    void ensureIndexes_createsMissingIndex(VertxTestContext ctx) {
+        when(mongoClient.listIndexes("widgets")).thenReturn(Future.succeededFuture(new JsonArray()
+                .add(new JsonObject().put("name", "_id_").put("key", new JsonObject().put("_id", 1)))));
+        when(mongoClient.createIndexWithOptions(eq("widgets"), eq(BY_ORG.getKeys()), any(IndexOptions.class)))
+                .thenReturn(Future.succeededFuture());
+
+        indexManagerFor(BY_ORG).ensureIndexes().onComplete(ctx.succeeding(report -> {
+            ctx.verify(() -> {
+                JsonObject widgets = report.getJsonObject("widgets");
+                assertEquals(new JsonArray().add("widgets_org_created"), widgets.getJsonArray("created"));
+                assertTrue(widgets.getJsonArray("drifted").isEmpty());
+                assertTrue(widgets.getJsonArray("undeclared").isEmpty());
+                assertFalse(widgets.getBoolean("failed"));
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void ensureIndexes_reportsDriftWithoutRebuilding(VertxTestContext ctx) {
+        JsonObject existing = new JsonObject()
+                .put("name", "widgets_org_created")
+                .put("key", new JsonObject().put("organizationId", 1).put("createdAt", 1))
+                .put("partialFilterExpression", IndexSpec.NOT_DELETED);
+        JsonObject stray = new JsonObject()
+                .put("name", "widgets_legacy")
+                .put("key", new JsonObject().put("legacy", 1));
+        when(mongoClient.listIndexes("widgets"))
+                .thenReturn(Future.succeededFuture(new JsonArray().add(existing).add(stray)));
+
+        indexManagerFor(BY_ORG).ensureIndexes().onComplete(ctx.succeeding(report -> {
+            ctx.verify(() -> {
+                JsonObject widgets = report.getJsonObject("widgets");
+                assertTrue(widgets.getJsonArray("created").isEmpty());
+                assertEquals("widgets_org_created", widgets.getJsonArray("drifted").getJsonObject(0).getString("name"));
+                assertEquals(new JsonArray().add("widgets_legacy"), widgets.getJsonArray("undeclared"));
+                verify(mongoClient, never()).createIndexWithOptions(any(), any(), any());
+                verify(mongoClient, never()).dropIndex(any(), any());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void ensureIndexes_changesExpiryInPlace(VertxTestContext ctx) {
+        IndexSpec purge = IndexSpec.of("widgets_deleted_ttl", new JsonObject().put("deletedAt", 1))
+                .partial(IndexSpec.DELETED)
+                .expireAfter(86_400);
+        JsonObject existing = new JsonObject()
+                .put("name", "widgets_deleted_ttl")
+                .put("key", new JsonObject().put("deletedAt", 1))
+                .put("partialFilterExpression", IndexSpec.DELETED)
+                .put("expireAfterSeconds", 3_600);
+        when(mongoClient.listIndexes("widgets")).thenReturn(Future.succeededFuture(new JsonArray().add(existing)));
+        when(mongoClient.runCommand(eq("collMod"), any(JsonObject.class)))
+                .thenReturn(Future.succeededFuture(new JsonObject().put("ok", 1)));
+
+        indexManagerFor(purge).ensureIndexes().onComplete(ctx.succeeding(report -> {
+            ctx.verify(() -> {
+                JsonObject widgets = report.getJsonObject("widgets");
+                assertEquals(new JsonArray().add("widgets_deleted_ttl"), widgets.getJsonArray("updated"));
+                assertTrue(widgets.getJsonArray("drifted").isEmpty());
+                verify(mongoClient).runCommand("collMod", new JsonObject()
+                        .put("collMod", "widgets")
+                        .put("index", new JsonObject()
+                                .put("name", "widgets_deleted_ttl")
+                                .put("expireAfterSeconds", 86_400L)));
+                verify(mongoClient, never()).createIndexWithOptions(any(), any(), any());
+                verify(mongoClient, never()).dropIndex(any(), any());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void ensureIndexes_acceptsMatchingIndex(VertxTestContext ctx) {
+        JsonObject existing = new JsonObject()
+                .put("name", "widgets_org_created")
+                .put("key", new JsonObject().put("organizationId", 1.0).put("createdAt", -1.0))
+                .put("partialFilterExpression", IndexSpec.NOT_DELETED);
+        when(mongoClient.listIndexes("widgets")).thenReturn(Future.succeededFuture(new JsonArray().add(existing)));
+
+        indexManagerFor(BY_ORG).ensureIndexes().onComplete(ctx.succeeding(report -> {
+            ctx.verify(() -> {
+                JsonObject widgets = report.getJsonObject("widgets");
+                assertTrue(widgets.getJsonArray("created").isEmpty());
+                assertTrue(widgets.getJsonArray("drifted").isEmpty());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void ensureUniqueIndexes_failsWhenIndexExistsWithoutUnique(VertxTestContext ctx) {
+        IndexSpec bySlug = IndexSpec.of("widgets_slug", new JsonObject().put("slug", 1)).unique();
+        JsonObject existing = new JsonObject()
+                .put("name", "widgets_slug")
+                .put("key", new JsonObject().put("slug", 1));
+        when(mongoClient.listIndexes("widgets")).thenReturn(Future.succeededFuture(new JsonArray().add(existing)));
+
+        indexManagerFor(BY_ORG, bySlug).ensureUniqueIndexes().onComplete(ctx.failing(err -> {
+            ctx.verify(() -> {
+                assertTrue(err.getMessage().contains("widgets.widgets_slug"));
+                verify(mongoClient, never()).createIndexWithOptions(any(), any(), any());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void ensureUniqueIndexes_createsMissingUniqueIndexOnly(VertxTestContext ctx) {
+        IndexSpec bySlug = IndexSpec.of("widgets_slug", new JsonObject().put("slug", 1)).unique();
+        when(mongoClient.listIndexes("widgets")).thenReturn(Future.succeededFuture(new JsonArray()));
+        when(mongoClient.createIndexWithOptions(eq("widgets"), eq(bySlug.getKeys()), any(IndexOptions.class)))
+                .thenReturn(Future.succeededFuture());
+
+        indexManagerFor(BY_ORG, bySlug).ensureUniqueIndexes().onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> verify(mongoClient, times(1)).createIndexWithOptions(any(), any(), any()));
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void ensureUniqueIndexes_failsWhenUniqueIndexCannotBeCreated(VertxTestContext ctx) {
+        IndexSpec bySlug = IndexSpec.of("widgets_slug", new JsonObject().put("slug", 1)).unique();
+        when(mongoClient.listIndexes("widgets")).thenReturn(Future.succeededFuture(new JsonArray()));
+        when(mongoClient.createIndexWithOptions(eq("widgets"), eq(bySlug.getKeys()), any(IndexOptions.class)))
+                .thenReturn(Future.failedFuture("E11000 duplicate key error"));
+
+        indexManagerFor(bySlug).ensureUniqueIndexes().onComplete(ctx.failing(err -> {
+            ctx.verify(() -> assertTrue(err.getMessage().contains("E11000")));
+            ctx.completeNow();
+        }));
+    }
+}
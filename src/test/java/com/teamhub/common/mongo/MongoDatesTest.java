@@ -0,0 +1,71 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoDatesTest {
+
+    @Test
+    void parse_instant() {
+        JsonObject date = MongoDates.parse("2025-03-01T10:15:30.123Z");
+
+        assertEquals("2025-03-01T10:15:30.123Z", date.getString("$date"));
+    }
+
+    @Test
+    void parse_calendarDateIsMidnightUtc() {
+        assertEquals("2025-12-31T00:00:00Z", MongoDates.parse("2025-12-31").getString("$date"));
+    }
+
+    @Test
+    void parse_blankIsNull() {
+        assertNull(MongoDates.parse(null));
+        assertNull(MongoDates.parse(" "));
+    }
+
+    @Test
+    void parse_invalid() {
+        AppException err = assertThrows(AppException.class, () -> MongoDates.parse("next tuesday"));
+        assertEquals(ErrorCode.VALIDATION_ERROR, err.getErrorCode());
+    }
+
+    @Test
+    void toIso_readsBsonDatesAndLegacyStrings() {
+        // The Vert.x codec reads BSON dates back with an explicit offset
+        assertEquals("2025-03-01T10:15:30.120Z",
+                MongoDates.toIso(new JsonObject().put("$date", "2025-03-01T10:15:30.12Z")));
+        assertEquals("2025-03-01T10:15:30Z",
+                MongoDates.toIso(new JsonObject().put("$date", "2025-03-01T10:15:30+00:00")));
+        assertEquals("2025-03-01T10:15:30.123456Z", MongoDates.toIso("2025-03-01T10:15:30.123456Z"));
+        assertNull(MongoDates.toIso(null));
+    }
+
+    @Test
+    void toIsoDate_keepsDateOnlyForMidnight() {
+        assertEquals("2025-12-31", MongoDates.toIsoDate(MongoDates.parse("2025-12-31")));
+        assertEquals("2025-12-31T09:00:00Z", MongoDates.toIsoDate(MongoDates.parse("2025-12-31T09:00:00Z")));
+        assertEquals("2025-12-31", MongoDates.toIsoDate("2025-12-31"));
+    }
+
+    @Test
+    void coarseClock_sharesTimestampWithinTick() {
+        AtomicLong millis = new AtomicLong(1_000_005L);
+        CoarseClock clock = new CoarseClock(10, millis::get);
+
+        String first = clock.iso();
+        millis.set(1_000_009L);
+        String sameTick = clock.iso();
+        millis.set(1_000_010L);
+
+        assertSame(first, sameTick);
+        assertEquals(Instant.ofEpochMilli(1_000_000L), Instant.parse(first));
+        assertEquals(Instant.ofEpochMilli(1_000_010L), clock.instant());
+    }
+}
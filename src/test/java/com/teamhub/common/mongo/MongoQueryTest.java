@@ -0,0 +1,79 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoQueryTest {
+
+    @Test
+    void live_addsSoftDeletePredicateToSameDocument() {
+        MongoQuery query = MongoQuery.live().eq("projectId", "proj-1").in("status", List.of("TODO", "DONE"));
+
+        JsonObject filter = query.toJson();
+        assertTrue(filter.containsKey("deletedAt"));
+        assertNull(filter.getValue("deletedAt"));
+        assertEquals("proj-1", filter.getString("projectId"));
+        assertEquals(2, filter.getJsonObject("status").getJsonArray("$in").size());
+        assertSame(filter, query.toJson());
+        assertFalse(MongoQuery.anyState().eq("_id", "x").toJson().containsKey("deletedAt"));
+    }
+
+    @Test
+    void all_copiesPredicateWithoutModifyingIt() {
+        JsonObject predicate = new JsonObject().put("organizationId", "org-1");
+
+        JsonObject filter = MongoQuery.byId("t-1").all(predicate).toJson();
+
+        assertEquals("org-1", filter.getString("organizationId"));
+        assertEquals("t-1", filter.getString("_id"));
+        assertEquals(1, predicate.size());
+    }
+
+    @Test
+    void or_secondClauseIsAnded() {
+        JsonArray first = new JsonArray().add(new JsonObject().put("plan", "free"));
+        JsonArray second = new JsonArray().add(new JsonObject().put("createdAt", new JsonObject().put("$lt", 5)));
+
+        JsonObject filter = MongoQuery.live().or(first).or(second).toJson();
+
+        assertFalse(filter.containsKey("$or"));
+        JsonArray and = filter.getJsonArray("$and");
+        assertEquals(first, and.getJsonObject(0).getJsonArray("$or"));
+        assertEquals(second, and.getJsonObject(1).getJsonArray("$or"));
+    }
+
+    @Test
+    void and_keepsExistingConditionOnField() {
+        JsonObject in = new JsonObject().put("$in", new JsonArray().add("a").add("b"));
+        JsonObject seek = new JsonObject().put("$gt", "a");
+
+        JsonObject filter = MongoQuery.live().in("_id", List.of("a", "b")).and("_id", seek).toJson();
+
+        assertFalse(filter.containsKey("_id"));
+        assertEquals(new JsonArray().add(new JsonObject().put("_id", in)).add(new JsonObject().put("_id", seek)),
+                filter.getJsonArray("$and"));
+        // Without an existing condition it is a plain one
+        assertEquals(seek, MongoQuery.live().and("_id", seek).toJson().getJsonObject("_id"));
+    }
+
+    @Test
+    void versionedUpdate_sharesNothingWithCaller() {
+        JsonObject fields = new JsonObject().put("title", "t");
+
+        JsonObject update = MongoUpdate.create().setAll(fields).set("updatedAt", 1).incVersion().toJson();
+        JsonObject withCounter = MongoUpdate.create().inc("taskCount", 1).incVersion().toJson();
+
+        assertEquals(new JsonObject().put("title", "t").put("updatedAt", 1), update.getJsonObject("$set"));
+        assertEquals(new JsonObject().put(MongoRepository.VERSION_FIELD, 1), update.getJsonObject("$inc"));
+        assertEquals(1, fields.size());
+        assertEquals(new JsonObject().put("taskCount", 1L).put(MongoRepository.VERSION_FIELD, 1),
+                withCounter.getJsonObject("$inc"));
+        // The shared version fragment is not touched by updates with their own counters
+        assertEquals(1, MongoUpdate.create().incVersion().toJson().getJsonObject("$inc").size());
+    }
+}
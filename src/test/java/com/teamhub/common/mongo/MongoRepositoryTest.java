@@ -0,0 +1,188 @@
+package com.teamhub.common.mongo;
+
+import com.mongodb.MongoException;
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.memory.InMemoryMongoClient;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class MongoRepositoryTest {
+
+    @Mock
+    private MongoClient mongoClient;
+
+    private MongoRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new MongoRepository(mongoClient, "widgets") {
+            @Override
+            protected String duplicateKeyMessage() {
+                return "Widget already exists";
+            }
+        };
+    }
+
+    @Test
+    void insert_duplicateKeyBecomesConflict(VertxTestContext ctx) {
+        when(mongoClient.insert(eq("widgets"), any(JsonObject.class)))
+                .thenReturn(Future.failedFuture(new MongoException(11000, "E11000 duplicate key error")));
+
+        repository.insert(new JsonObject().put("name", "w")).onComplete(ctx.failing(err -> {
+            ctx.verify(() -> {
+                assertInstanceOf(AppException.class, err);
+                assertEquals(ErrorCode.CONFLICT, ((AppException) err).getErrorCode());
+                assertEquals("Widget already exists", err.getMessage());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void insert_generatesTimeOrderedIdUnlessGiven(VertxTestContext ctx) {
+        when(mongoClient.insert(eq("widgets"), any(JsonObject.class))).thenReturn(Future.succeededFuture(null));
+
+        JsonObject generated = new JsonObject().put("name", "w");
+        JsonObject given = new JsonObject().put("_id", "w-1").put("name", "w");
+        repository.insert(generated).compose(first -> repository.insert(given).map(second -> List.of(first, second)))
+                .onComplete(ctx.succeeding(ids -> {
+                    ctx.verify(() -> {
+                        assertTrue(ids.get(0).matches("[0-9a-f]{24}"));
+                        assertEquals(ids.get(0), generated.getString("_id"));
+                        assertEquals("w-1", ids.get(1));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void insert_otherErrorsPassThrough(VertxTestContext ctx) {
+        MongoException timeout = new MongoException(50, "operation exceeded time limit");
+        when(mongoClient.insert(eq("widgets"), any(JsonObject.class))).thenReturn(Future.failedFuture(timeout));
+
+        repository.insert(new JsonObject().put("name", "w")).onComplete(ctx.failing(err -> {
+            ctx.verify(() -> assertSame(timeout, err));
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void updateAndGet_filtersOnPredicateAndVersion(VertxTestContext ctx) {
+        JsonObject updated = new JsonObject().put("_id", "w-1").put("version", 3L);
+        when(mongoClient.findOneAndUpdateWithOptions(eq("widgets"), any(JsonObject.class), any(JsonObject.class),
+                any(FindOptions.class), any(UpdateOptions.class)))
+                .thenReturn(Future.succeededFuture(updated));
+
+        JsonObject predicate = new JsonObject().put("organizationId", "org-001");
+        repository.updateAndGet("w-1", predicate, new JsonObject().put("name", "w2"), 2L)
+                .onComplete(ctx.succeeding(doc -> {
+                    ctx.verify(() -> {
+                        assertSame(updated, doc);
+                        ArgumentCaptor<JsonObject> query = ArgumentCaptor.forClass(JsonObject.class);
+                        ArgumentCaptor<JsonObject> update = ArgumentCaptor.forClass(JsonObject.class);
+                        ArgumentCaptor<UpdateOptions> options = ArgumentCaptor.forClass(UpdateOptions.class);
+                        verify(mongoClient).findOneAndUpdateWithOptions(eq("widgets"), query.capture(),
+                                update.capture(), any(FindOptions.class), options.capture());
+                        assertEquals("w-1", query.getValue().getString("_id"));
+                        assertEquals("org-001", query.getValue().getString("organizationId"));
+                        assertEquals(2L, query.getValue().getLong("version"));
+                        assertTrue(query.getValue().containsKey("deletedAt"));
+                        assertEquals("w2", update.getValue().getJsonObject("$set").getString("name"));
+                        assertEquals(1, update.getValue().getJsonObject("$inc").getInteger("version"));
+                        assertTrue(options.getValue().isReturningNewDocument());
+                        assertFalse(predicate.containsKey("_id"));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void findByIds_linesUpWithRequestedIds(VertxTestContext ctx) {
+        when(mongoClient.find(eq("widgets"), any(JsonObject.class))).thenReturn(Future.succeededFuture(List.of(
+                new JsonObject().put("_id", "w-3"),
+                new JsonObject().put("_id", "w-1"))));
+
+        repository.findByIds(List.of("w-1", "w-2", "w-3", "w-1"), null).onComplete(ctx.succeeding(docs -> {
+            ctx.verify(() -> {
+                assertEquals(4, docs.size());
+                assertEquals("w-1", docs.get(0).getString("_id"));
+                assertNull(docs.get(1));
+                assertEquals("w-3", docs.get(2).getString("_id"));
+                assertEquals("w-1", docs.get(3).getString("_id"));
+
+                ArgumentCaptor<JsonObject> query = ArgumentCaptor.forClass(JsonObject.class);
+                verify(mongoClient).find(eq("widgets"), query.capture());
+                assertEquals(3, query.getValue().getJsonObject("_id").getJsonArray("$in").size());
+                assertTrue(query.getValue().containsKey("deletedAt"));
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void findAfter_projectsRequestedFieldsAndSortField(VertxTestContext ctx) {
+        when(mongoClient.findWithOptions(eq("widgets"), any(JsonObject.class), any(FindOptions.class)))
+                .thenReturn(Future.succeededFuture(List.of()));
+
+        KeysetSort sort = KeysetSort.of("createdAt", -1);
+        repository.findAfter(null, MongoQuery.live(), sort, null, 20, null, FieldSet.of("name"))
+                .onComplete(ctx.succeeding(page -> {
+                    ctx.verify(() -> {
+                        ArgumentCaptor<FindOptions> options = ArgumentCaptor.forClass(FindOptions.class);
+                        verify(mongoClient).findWithOptions(eq("widgets"), any(JsonObject.class), options.capture());
+                        assertEquals(new JsonObject().put("_id", 1).put("name", 1).put("createdAt", 1),
+                                options.getValue().getFields());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void findAfter_idSortKeepsAnIdFilter(Vertx vertx, VertxTestContext ctx) {
+        MongoRepository widgets = new MongoRepository(InMemoryMongoClient.create(vertx), "widgets") {
+            @Override
+            protected String duplicateKeyMessage() {
+                return "Widget already exists";
+            }
+        };
+        KeysetSort sort = KeysetSort.of("_id", 1);
+        MongoQuery filtered = MongoQuery.live().in("_id", List.of("w-1", "w-3"));
+
+        Future.all(Stream.of("w-1", "w-2", "w-3", "w-4")
+                        .map(id -> widgets.insert(new JsonObject().put("_id", id))).toList())
+                .compose(v -> widgets.findAfter(null, filtered, sort, null, 1))
+                .compose(first -> widgets.findAfter(null, MongoQuery.live().in("_id", List.of("w-1", "w-3")), sort,
+                                PageCursor.decode(first.nextCursor()), 1)
+                        .map(second -> List.of(first, second)))
+                .onComplete(ctx.succeeding(pages -> {
+                    ctx.verify(() -> {
+                        assertEquals(List.of("w-1"), pages.get(0).items().stream().map(d -> d.getString("_id")).toList());
+                        assertEquals(List.of("w-3"), pages.get(1).items().stream().map(d -> d.getString("_id")).toList());
+                        assertNull(pages.get(1).nextCursor());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+}
@@ -0,0 +1,78 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void encodeDecode_roundTrip() {
+        PageCursor cursor = new PageCursor("createdAt", "2025-01-01T00:00:00Z", "task-1");
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals("createdAt", decoded.getSortField());
+        assertEquals("2025-01-01T00:00:00Z", decoded.getSortValue());
+        assertEquals("task-1", decoded.getId());
+    }
+
+    @Test
+    void after_usesSortFieldAndId() {
+        JsonObject doc = new JsonObject()
+                .put("_id", "task-9")
+                .put("dueDate", "2025-06-30");
+
+        PageCursor cursor = PageCursor.after(doc, "dueDate");
+
+        assertEquals("dueDate", cursor.getSortField());
+        assertEquals("2025-06-30", cursor.getSortValue());
+        assertEquals("task-9", cursor.getId());
+    }
+
+    @Test
+    void encode_isUrlSafe() {
+        String encoded = new PageCursor("createdAt", "2025-01-01T00:00:00.123Z", "a/b+c").encode();
+
+        assertFalse(encoded.contains("+"));
+        assertFalse(encoded.contains("/"));
+        assertFalse(encoded.contains("="));
+    }
+
+    @Test
+    void decode_malformed() {
+        AppException err = assertThrows(AppException.class, () -> PageCursor.decode("not-a-cursor!"));
+        assertEquals(ErrorCode.BAD_REQUEST, err.getErrorCode());
+    }
+
+    @Test
+    void decode_roundTripsDateSortValue() {
+        JsonObject updatedAt = new JsonObject().put("$date", "2025-01-01T00:00:00Z");
+
+        PageCursor decoded = PageCursor.decode(new PageCursor("updatedAt", updatedAt, "task-1").encode());
+
+        assertEquals(updatedAt, decoded.getSortValue());
+    }
+
+    @Test
+    void decode_rejectsOperatorSortValue() {
+        for (String forged : new String[]{"{\"$ne\":null}", "{\"$date\":\"2025-01-01T00:00:00Z\",\"$ne\":1}",
+                "{\"$date\":{\"$gt\":0}}", "[1]"}) {
+            String encoded = java.util.Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(("{\"k\":\"updatedAt\",\"v\":" + forged + ",\"id\":\"t\"}").getBytes());
+            AppException err = assertThrows(AppException.class, () -> PageCursor.decode(encoded));
+            assertEquals(ErrorCode.BAD_REQUEST, err.getErrorCode());
+        }
+    }
+
+    @Test
+    void decode_missingFields() {
+        String encoded = java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"v\":1}".getBytes());
+        AppException err = assertThrows(AppException.class, () -> PageCursor.decode(encoded));
+        assertEquals(ErrorCode.BAD_REQUEST, err.getErrorCode());
+    }
+}
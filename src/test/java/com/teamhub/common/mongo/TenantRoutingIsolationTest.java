@@ -0,0 +1,186 @@
+package com.teamhub.common.mongo;
+
+import com.teamhub.TestBase;
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.repositories.AnalyticsRepository;
+import com.teamhub.repositories.MemberRepository;
+import com.teamhub.repositories.ProjectRepository;
+import com.teamhub.repositories.TaskRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes one organization to a second mongod and checks that its data never lands on the default one
+ * (and the other way round), and that {@link TenantMover} relocates an organization completely.
+ *
+ * Needs two local mongods, so it only runs under the {@code mongo-integration} profile:
+ * {@code mvn test -Pmongo-integration -Dtest=TenantRoutingIsolationTest}. The second one is read from
+ * {@code -Dteamhub.mongoIntegration.secondMongo} (default {@code mongodb://localhost:27018}).
+ */
+@EnabledIfSystemProperty(named = "teamhub.mongoIntegration", matches = "true")
+class TenantRoutingIsolationTest extends TestBase {
+
+    private static final String DATABASE = "teamhub_tenant_routing";
+    private static final String LARGE_CLUSTER = "large";
+    private static final String LARGE_ORG = "org-large";
+    private static final String SMALL_ORG = "org-small";
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private static Vertx vertx;
+    private static MongoClient defaultClient;
+    private static MongoClient largeClient;
+    private static TenantRouter router;
+    private static List<MongoRepository> repositories;
+
+    private static ProjectRepository projectRepository;
+    private static TaskRepository taskRepository;
+    private static MemberRepository memberRepository;
+    private static AnalyticsRepository analyticsRepository;
+
+    @BeforeAll
+    static void connect() {
+        vertx = Vertx.vertx();
+        defaultClient = MongoClient.createShared(vertx, new JsonObject()
+                .put("connection_string",
+                        System.getProperty("teamhub.mongoIntegration.mongo", "mongodb://localhost:27017"))
+                .put("db_name", DATABASE), "tenant-routing-default");
+        largeClient = MongoClient.createShared(vertx, new JsonObject()
+                .put("connection_string",
+                        System.getProperty("teamhub.mongoIntegration.secondMongo", "mongodb://localhost:27018"))
+                .put("db_name", DATABASE), "tenant-routing-large");
+        router = new TenantRouter(vertx,
+                Map.of(TenantRouter.DEFAULT_CLUSTER, defaultClient, LARGE_CLUSTER, largeClient));
+
+        projectRepository = new ProjectRepository(router);
+        taskRepository = new TaskRepository(router);
+        memberRepository = new MemberRepository(router);
+        analyticsRepository = new AnalyticsRepository(router);
+        repositories = List.of(projectRepository, taskRepository, memberRepository);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        await(Future.join(defaultClient.close(), largeClient.close()));
+        await(vertx.close());
+    }
+
+    @BeforeEach
+    void resetDatabases() {
+        List<Future<Void>> drops = new ArrayList<>();
+        for (MongoClient client : List.of(defaultClient, largeClient)) {
+            drops.add(client.dropCollection(TenantRouter.COLLECTION).otherwiseEmpty());
+            for (MongoRepository repository : repositories) {
+                drops.add(client.dropCollection(repository.getCollectionName()).otherwiseEmpty());
+            }
+        }
+        await(Future.join(drops));
+        await(new IndexManager(router, repositories).ensureIndexes());
+        router.invalidate(LARGE_ORG);
+        router.invalidate(SMALL_ORG);
+    }
+
+    @Test
+    void routedOrganization_neverTouchesTheDefaultCluster() {
+        await(router.setRoute(LARGE_ORG, LARGE_CLUSTER, TenantRouter.State.ACTIVE));
+
+        seed(LARGE_ORG, "large");
+        seed(SMALL_ORG, "small");
+
+        for (MongoRepository repository : repositories) {
+            String collection = repository.getCollectionName();
+            assertEquals(0L, owned(defaultClient, collection, LARGE_ORG), collection);
+            assertEquals(0L, owned(largeClient, collection, SMALL_ORG), collection);
+            assertTrue(owned(largeClient, collection, LARGE_ORG) > 0, collection);
+            assertTrue(owned(defaultClient, collection, SMALL_ORG) > 0, collection);
+        }
+
+        // Reads are routed by the caller's organization, so another tenant cannot reach the document
+        assertNotNull(await(projectRepository.findById("large-project", LARGE_ORG)));
+        assertNull(await(projectRepository.findById("large-project", SMALL_ORG)));
+        assertEquals(1L, await(taskRepository.countByProject(LARGE_ORG, "large-project")));
+        assertEquals(1, await(analyticsRepository.getProjectActivity(LARGE_ORG)).size());
+        assertEquals(1, await(analyticsRepository.getProjectActivity(SMALL_ORG)).size());
+    }
+
+    @Test
+    void move_copiesEverythingAndDeletesTheSource() {
+        seed(LARGE_ORG, "large");
+        seed(SMALL_ORG, "small");
+        await(taskRepository.softDelete("large-task", LARGE_ORG));
+
+        JsonObject result = await(new TenantMover(vertx, router, repositories, 0).move(LARGE_ORG, LARGE_CLUSTER));
+
+        assertEquals(LARGE_CLUSTER, result.getString("cluster"));
+        assertTrue(result.getBoolean("sourceDeleted"));
+        assertEquals(1L, result.getJsonObject("copied").getLong(taskRepository.getCollectionName()));
+        assertEquals(LARGE_CLUSTER, await(router.clusterOf(LARGE_ORG)));
+        for (MongoRepository repository : repositories) {
+            String collection = repository.getCollectionName();
+            assertEquals(0L, owned(defaultClient, collection, LARGE_ORG), collection);
+            assertTrue(owned(largeClient, collection, LARGE_ORG) > 0, collection);
+            assertTrue(owned(defaultClient, collection, SMALL_ORG) > 0, collection);
+        }
+        // Soft-deleted documents move too
+        assertNotNull(await(taskRepository.findById("large-task", LARGE_ORG)).getValue("deletedAt"));
+    }
+
+    @Test
+    void move_refusesWritesWhileMoving() {
+        seed(LARGE_ORG, "large");
+        await(router.setRoute(LARGE_ORG, TenantRouter.DEFAULT_CLUSTER, TenantRouter.State.MOVING));
+
+        Throwable err = awaitFailure(taskRepository.insert(task("blocked-task", "large-project", LARGE_ORG)));
+        assertInstanceOf(AppException.class, err);
+        assertEquals(ErrorCode.SERVICE_UNAVAILABLE, ((AppException) err).getErrorCode());
+        // Reads carry on against the source
+        assertNotNull(await(projectRepository.findById("large-project", LARGE_ORG)));
+        // Other organizations are unaffected
+        assertNotNull(await(taskRepository.insert(task("other-task", "small-project", SMALL_ORG))));
+    }
+
+    private static void seed(String organizationId, String prefix) {
+        await(projectRepository.insert(createTestProject(prefix + "-project", organizationId)));
+        await(taskRepository.insert(task(prefix + "-task", prefix + "-project", organizationId)));
+        await(memberRepository.insert(createTestMember(prefix + "-member", organizationId, "MEMBER")));
+    }
+
+    private static JsonObject task(String id, String projectId, String organizationId) {
+        return createTestTask(id, projectId).put("organizationId", organizationId);
+    }
+
+    private static long owned(MongoClient client, String collection, String organizationId) {
+        return await(client.count(collection, new JsonObject().put("organizationId", organizationId)));
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.toCompletionStage().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            return fail(e);
+        }
+    }
+
+    private static Throwable awaitFailure(Future<?> future) {
+        try {
+            future.toCompletionStage().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return fail("Expected the future to fail");
+        } catch (Exception e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+}
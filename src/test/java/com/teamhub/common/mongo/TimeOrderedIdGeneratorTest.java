@@ -0,0 +1,82 @@
+package com.teamhub.common.mongo;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void nextId_sortsWithObjectIdsByCreationTime() {
+        long millis = 1_750_000_000_123L;
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> millis, 0xABCDEF);
+
+        String id = generator.nextId("org-001");
+
+        assertEquals(24, id.length());
+        assertTrue(id.matches("[0-9a-f]{24}"));
+        String objectIdSameSecond = new ObjectId(new Date(millis - 123)).toHexString();
+        assertEquals(objectIdSameSecond.substring(0, 8), id.substring(0, 8));
+        assertTrue(id.compareTo(new ObjectId(new Date(millis - 1000)).toHexString()) > 0);
+        assertTrue(id.compareTo(new ObjectId(new Date(millis + 1000)).toHexString()) < 0);
+        assertTrue(id.endsWith("abcdef"));
+    }
+
+    @Test
+    void nextId_increasesWhenClockStallsOrStepsBack() {
+        AtomicLong clock = new AtomicLong(1_750_000_000_000L);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get, 1);
+
+        String previous = generator.nextId(null);
+        for (int i = 0; i < 40_000; i++) {
+            if (i == 20_000) {
+                clock.addAndGet(-5_000);
+            }
+            String next = generator.nextId(null);
+            assertTrue(next.compareTo(previous) > 0, next + " after " + previous);
+            previous = next;
+        }
+        // Same tenant, same tag; the tag does not affect ordering
+        assertEquals(generator.nextId("org-001").substring(14, 18), generator.nextId("org-001").substring(14, 18));
+    }
+
+    @Test
+    void nextId_uniqueAcrossThreads() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(System::currentTimeMillis, 7);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> batches = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                batches.add(pool.submit(() -> {
+                    List<String> ids = new ArrayList<>();
+                    for (int i = 0; i < 10_000; i++) {
+                        ids.add(generator.nextId("org-001"));
+                    }
+                    return ids;
+                }));
+            }
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> batch : batches) {
+                List<String> ids = batch.get();
+                for (int i = 1; i < ids.size(); i++) {
+                    assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0);
+                }
+                all.addAll(ids);
+            }
+            assertEquals(80_000, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.teamhub.common.mongo;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.MongoClientBulkWriteResult;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class WriteCoalescerTest {
+
+    private static final JsonObject SET_DONE = new JsonObject().put("$set", new JsonObject().put("status", "DONE"));
+
+    @Mock
+    private MongoClient mongoClient;
+
+    @Test
+    void update_sendsWritesWithinWindowAsOneBulkWrite(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.bulkWriteWithOptions(eq("tasks"), anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(Future.succeededFuture(matched(3)));
+        WriteCoalescer coalescer = new WriteCoalescer(vertx, 20, 100);
+
+        Future.all(update(coalescer, "t1"), update(coalescer, "t2"), update(coalescer, "t3"))
+                .onComplete(ctx.succeeding(all -> {
+                    ctx.verify(() -> {
+                        assertEquals(List.of(true, true, true), all.list());
+                        ArgumentCaptor<List<BulkOperation>> ops = captor();
+                        verify(mongoClient, times(1)).bulkWriteWithOptions(eq("tasks"), ops.capture(),
+                                argThat(options -> !options.isOrdered()));
+                        assertEquals(3, ops.getValue().size());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void update_sendsFullBatchWithoutWaiting(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.bulkWriteWithOptions(eq("tasks"), anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(Future.succeededFuture(matched(2)));
+        WriteCoalescer coalescer = new WriteCoalescer(vertx, 60_000, 2);
+
+        Future.all(update(coalescer, "t1"), update(coalescer, "t2")).onComplete(ctx.succeeding(all -> {
+            ctx.verify(() -> verify(mongoClient, times(1))
+                    .bulkWriteWithOptions(eq("tasks"), anyList(), any(BulkWriteOptions.class)));
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void update_keepsWritesToSameDocumentInOrder(Vertx vertx, VertxTestContext ctx) {
+        Promise<MongoClientBulkWriteResult> first = Promise.promise();
+        when(mongoClient.bulkWriteWithOptions(eq("tasks"), anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(first.future())
+                .thenReturn(Future.succeededFuture(matched(1)));
+        WriteCoalescer coalescer = new WriteCoalescer(vertx, 20, 100);
+
+        Future<Boolean> earlier = update(coalescer, "t1");
+        Future<Boolean> later = update(coalescer, "t1");
+        vertx.setTimer(100, t -> {
+            // The second write waits for the first to complete
+            ctx.verify(() -> verify(mongoClient, times(1))
+                    .bulkWriteWithOptions(eq("tasks"), anyList(), any(BulkWriteOptions.class)));
+            first.complete(matched(1));
+        });
+
+        Future.all(earlier, later).onComplete(ctx.succeeding(all -> {
+            ctx.verify(() -> {
+                ArgumentCaptor<List<BulkOperation>> ops = captor();
+                verify(mongoClient, times(2)).bulkWriteWithOptions(eq("tasks"), ops.capture(),
+                        any(BulkWriteOptions.class));
+                assertEquals(1, ops.getAllValues().get(0).size());
+                assertEquals(1, ops.getAllValues().get(1).size());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void update_partialMatchReadsBackWhichApplied(Vertx vertx, VertxTestContext ctx) {
+        ArgumentCaptor<List<BulkOperation>> ops = captor();
+        when(mongoClient.bulkWriteWithOptions(eq("tasks"), ops.capture(), any(BulkWriteOptions.class)))
+                .thenReturn(Future.succeededFuture(matched(1)));
+        when(mongoClient.findWithOptions(eq("tasks"), any(JsonObject.class), any(FindOptions.class)))
+                .thenAnswer(inv -> {
+                    // Only t1's update matched, so only t1 carries its write ID; another node's update to t1
+                    // landed after it
+                    String writeId = ops.getValue().get(0).getDocument().getJsonObject("$push")
+                            .getJsonObject(WriteCoalescer.WRITE_ID_FIELD).getJsonArray("$each").getString(0);
+                    return Future.succeededFuture(List.of(
+                            new JsonObject().put("_id", "t1").put(WriteCoalescer.WRITE_ID_FIELD,
+                                    new JsonArray().add("older").add(writeId).add("newer")),
+                            new JsonObject().put("_id", "t2").put(WriteCoalescer.WRITE_ID_FIELD,
+                                    new JsonArray().add("older"))));
+                });
+        WriteCoalescer coalescer = new WriteCoalescer(vertx, 20, 100);
+
+        Future.all(update(coalescer, "t1"), update(coalescer, "t2")).onComplete(ctx.succeeding(all -> {
+            ctx.verify(() -> assertEquals(List.of(true, false), all.list()));
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void update_failedBulkWriteFailsEveryCaller(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.bulkWriteWithOptions(eq("tasks"), anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(Future.failedFuture(new RuntimeException("network")));
+        WriteCoalescer coalescer = new WriteCoalescer(vertx, 20, 100);
+
+        Future<Boolean> one = update(coalescer, "t1");
+        Future<Boolean> two = update(coalescer, "t2");
+        Future.join(one, two).onComplete(ar -> {
+            ctx.verify(() -> {
+                assertTrue(one.failed());
+                assertTrue(two.failed());
+            });
+            ctx.completeNow();
+        });
+    }
+
+    @Test
+    void close_flushesQueuedWrites(Vertx vertx, VertxTestContext ctx) {
+        when(mongoClient.bulkWriteWithOptions(eq("tasks"), anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(Future.succeededFuture(matched(1)));
+        WriteCoalescer coalescer = new WriteCoalescer(vertx, 60_000, 100);
+
+        Future<Boolean> queued = update(coalescer, "t1");
+        coalescer.close().onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                assertTrue(queued.succeeded());
+                assertTrue(queued.result());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    private Future<Boolean> update(WriteCoalescer coalescer, String id) {
+        return coalescer.update(mongoClient, "tasks", id, new JsonObject().put("_id", id), SET_DONE);
+    }
+
+    private static MongoClientBulkWriteResult matched(long count) {
+        return new MongoClientBulkWriteResult(0, count, 0, count, List.of(), List.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<BulkOperation>> captor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,265 @@
+package com.teamhub.common.mongo.memory;
+
+import com.teamhub.common.mongo.MongoErrors;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.IndexOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class InMemoryMongoClientTest {
+
+    private MongoClient client;
+
+    @BeforeEach
+    void setUp(Vertx vertx) {
+        client = InMemoryMongoClient.create(vertx);
+    }
+
+    @Test
+    void find_appliesOperatorsSortSkipLimitAndProjection(VertxTestContext ctx) {
+        JsonObject query = new JsonObject()
+                .put("projectId", "p1")
+                .put("deletedAt", (Object) null)
+                .put("priority", new JsonObject().put("$in", new JsonArray().add("HIGH").add("LOW")));
+        FindOptions options = new FindOptions()
+                .setSort(new JsonObject().put("rank", -1))
+                .setSkip(1)
+                .setLimit(2)
+                .setFields(new JsonObject().put("title", 1));
+
+        insertTasks().compose(v -> client.findWithOptions("tasks", query, options))
+                .onComplete(ctx.succeeding(docs -> {
+                    ctx.verify(() -> {
+                        assertEquals(List.of("t2", "t1"), docs.stream().map(d -> d.getString("title")).toList());
+                        assertEquals(List.of("_id", "title"), new ArrayList<>(docs.get(0).fieldNames()));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void find_idOnlyProjectionKeepsJustTheId(VertxTestContext ctx) {
+        FindOptions options = new FindOptions().setFields(new JsonObject().put("_id", 1));
+
+        insertTasks().compose(v -> client.findWithOptions("tasks", new JsonObject(), options))
+                .onComplete(ctx.succeeding(docs -> {
+                    ctx.verify(() -> {
+                        assertFalse(docs.isEmpty());
+                        docs.forEach(doc -> assertEquals(List.of("_id"), new ArrayList<>(doc.fieldNames())));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void find_matchesArrayElementsAndRanges(VertxTestContext ctx) {
+        JsonObject query = new JsonObject()
+                .put("tags", "backend")
+                .put("rank", new JsonObject().put("$gte", 2).put("$lt", 3.5));
+
+        insertTasks().compose(v -> client.find("tasks", query)).onComplete(ctx.succeeding(docs -> {
+            ctx.verify(() -> assertEquals(List.of("t2"), docs.stream().map(d -> d.getString("title")).toList()));
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void updateCollection_pushWithSliceKeepsTheLastElements(VertxTestContext ctx) {
+        JsonObject push = new JsonObject().put("$push", new JsonObject().put("recent", new JsonObject()
+                .put("$each", new JsonArray().add("c").add("d"))
+                .put("$slice", -3)));
+
+        insertTasks()
+                .compose(v -> client.updateCollection("tasks", new JsonObject().put("_id", "t1"),
+                        new JsonObject().put("$set", new JsonObject().put("recent", new JsonArray().add("a").add("b")))))
+                .compose(v -> client.updateCollection("tasks", new JsonObject().put("_id", "t1"), push))
+                .compose(v -> client.findOne("tasks", new JsonObject().put("_id", "t1"), null))
+                .onComplete(ctx.succeeding(doc -> {
+                    ctx.verify(() -> assertEquals(new JsonArray().add("b").add("c").add("d"), doc.getJsonArray("recent")));
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void updateCollection_maxOnlyRaises(VertxTestContext ctx) {
+        JsonObject max = new JsonObject().put("$max", new JsonObject().put("rank", 3).put("sequence", 5));
+
+        insertTasks()
+                .compose(v -> client.updateCollectionWithOptions("tasks", new JsonObject().put("_id",
+                        new JsonObject().put("$in", new JsonArray().add("t1").add("t4"))), max,
+                        new UpdateOptions().setMulti(true)))
+                .compose(v -> client.find("tasks", new JsonObject().put("_id",
+                        new JsonObject().put("$in", new JsonArray().add("t1").add("t4")))))
+                .onComplete(ctx.succeeding(docs -> {
+                    ctx.verify(() -> {
+                        assertEquals(List.of(3, 4), docs.stream().map(d -> d.getInteger("rank")).toList());
+                        assertEquals(List.of(5, 5), docs.stream().map(d -> d.getInteger("sequence")).toList());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void updateCollection_appliesOperatorsAndUpserts(VertxTestContext ctx) {
+        JsonObject update = new JsonObject()
+                .put("$set", new JsonObject().put("status", "DONE"))
+                .put("$inc", new JsonObject().put("version", 1))
+                .put("$addToSet", new JsonObject().put("tags", "done"));
+
+        insertTasks()
+                .compose(v -> client.updateCollection("tasks", new JsonObject().put("_id", "t1"), update))
+                .compose(result -> {
+                    ctx.verify(() -> assertEquals(1, result.getDocModified()));
+                    return client.updateCollectionWithOptions("tasks", new JsonObject().put("_id", "t9"),
+                            new JsonObject().put("$setOnInsert", new JsonObject().put("status", "TODO")),
+                            new UpdateOptions().setUpsert(true));
+                })
+                .compose(result -> {
+                    ctx.verify(() -> assertEquals("t9", result.getDocUpsertedId().getString("_id")));
+                    return client.find("tasks", new JsonObject().put("_id",
+                            new JsonObject().put("$in", new JsonArray().add("t1").add("t9"))));
+                })
+                .onComplete(ctx.succeeding(docs -> {
+                    ctx.verify(() -> {
+                        JsonObject t1 = docs.get(0);
+                        assertEquals("DONE", t1.getString("status"));
+                        assertEquals(1, t1.getInteger("version"));
+                        assertEquals(new JsonArray().add("backend").add("done"), t1.getJsonArray("tags"));
+                        assertEquals(new JsonObject().put("_id", "t9").put("status", "TODO"), docs.get(1));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void findOneAndUpdate_returnsNewDocumentOnlyWhenFilterMatches(VertxTestContext ctx) {
+        JsonObject versioned = new JsonObject().put("_id", "t1").put("version", 0);
+        JsonObject bump = new JsonObject().put("$inc", new JsonObject().put("version", 1));
+        UpdateOptions returnNew = new UpdateOptions().setReturningNewDocument(true);
+
+        insertTasks()
+                .compose(v -> client.findOneAndUpdateWithOptions("tasks", versioned, bump, new FindOptions(),
+                        returnNew))
+                .compose(updated -> {
+                    ctx.verify(() -> assertEquals(1, updated.getInteger("version")));
+                    return client.findOneAndUpdateWithOptions("tasks", versioned, bump, new FindOptions(), returnNew);
+                })
+                .onComplete(ctx.succeeding(stale -> {
+                    ctx.verify(() -> assertNull(stale));
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void insert_rejectsDuplicateUnderUniquePartialIndex(VertxTestContext ctx) {
+        JsonObject keys = new JsonObject().put("organizationId", 1).put("email", 1);
+        IndexOptions options = new IndexOptions().name("members_org_email").unique(true)
+                .partialFilterExpression(new JsonObject().put("deletedAt", (Object) null));
+        JsonObject member = new JsonObject().put("organizationId", "org-001").put("email", "a@example.com");
+
+        client.createIndexWithOptions("members", keys, options)
+                .compose(v -> client.insert("members", member.copy().put("deletedAt", new JsonObject()
+                        .put("$date", "2026-01-01T00:00:00Z"))))
+                .compose(id -> client.insert("members", member.copy().put("deletedAt", (Object) null)))
+                .compose(id -> client.insert("members", member.copy().put("deletedAt", (Object) null)))
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> assertTrue(MongoErrors.isDuplicateKey(err)));
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void bulkWrite_reportsCountsPerOperationKind(VertxTestContext ctx) {
+        List<BulkOperation> ops = List.of(
+                BulkOperation.createUpdate(new JsonObject().put("projectId", "p1"),
+                        new JsonObject().put("$set", new JsonObject().put("status", "DONE"))).setMulti(true),
+                BulkOperation.createInsert(new JsonObject().put("_id", "t5").put("projectId", "p2")),
+                BulkOperation.createDelete(new JsonObject().put("_id", "t4")));
+
+        insertTasks()
+                .compose(v -> client.bulkWriteWithOptions("tasks", ops, new BulkWriteOptions().setOrdered(false)))
+                .onComplete(ctx.succeeding(result -> {
+                    ctx.verify(() -> {
+                        assertEquals(4, result.getMatchedCount());
+                        assertEquals(1, result.getInsertedCount());
+                        assertEquals(1, result.getDeletedCount());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void aggregate_groupsMatchedDocuments(VertxTestContext ctx) {
+        JsonArray pipeline = new JsonArray()
+                .add(new JsonObject().put("$match", new JsonObject().put("deletedAt", (Object) null)))
+                .add(new JsonObject().put("$group", new JsonObject().put("_id", "$priority")
+                        .put("count", new JsonObject().put("$sum", 1))))
+                .add(new JsonObject().put("$sort", new JsonObject().put("_id", 1)));
+        List<JsonObject> results = new ArrayList<>();
+
+        insertTasks().onComplete(ctx.succeeding(v -> client.aggregate("tasks", pipeline)
+                .handler(results::add)
+                .exceptionHandler(ctx::failNow)
+                .endHandler(end -> {
+                    ctx.verify(() -> assertEquals(List.of(
+                            new JsonObject().put("_id", "HIGH").put("count", 2),
+                            new JsonObject().put("_id", "LOW").put("count", 1)), results));
+                    ctx.completeNow();
+                })));
+    }
+
+    @Test
+    void listIndexes_includesIdIndexAndCreatedIndexes(VertxTestContext ctx) {
+        insertTasks()
+                .compose(v -> client.createIndexWithOptions("tasks", new JsonObject().put("projectId", 1),
+                        new IndexOptions().name("tasks_project")))
+                .compose(v -> client.listIndexes("tasks"))
+                .onComplete(ctx.succeeding(indexes -> {
+                    ctx.verify(() -> {
+                        assertEquals(2, indexes.size());
+                        assertEquals("_id_", indexes.getJsonObject(0).getString("name"));
+                        assertEquals(new JsonObject().put("projectId", 1),
+                                indexes.getJsonObject(1).getJsonObject("key"));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    private Future<Void> insertTasks() {
+        JsonObject deleted = new JsonObject().put("$date", "2026-01-01T00:00:00Z");
+        return Future.all(List.of(
+                task("t1", "p1", "HIGH", 1, null).put("tags", new JsonArray().add("backend")),
+                task("t2", "p1", "LOW", 2, null).put("tags", new JsonArray().add("backend").add("api")),
+                task("t3", "p1", "HIGH", 3, null),
+                task("t4", "p1", "HIGH", 4, deleted).put("tags", new JsonArray().add("backend")))
+                .stream().map(doc -> client.insert("tasks", doc)).toList()).mapEmpty();
+    }
+
+    private static JsonObject task(String id, String projectId, String priority, int rank, JsonObject deletedAt) {
+        return new JsonObject()
+                .put("_id", id)
+                .put("title", id)
+                .put("projectId", projectId)
+                .put("priority", priority)
+                .put("rank", rank)
+                .put("version", 0)
+                .put("deletedAt", deletedAt);
+    }
+}
@@ -0,0 +1,93 @@
+package com.teamhub.common.patch;
+
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.models.Task;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPatchTest {
+
+    @Test
+    void parse_mapsOperationsToUpdateOperators() {
+        JsonPatch patch = JsonPatch.parse(new JsonArray()
+                .add(op("replace", "/title", "Ship it"))
+                .add(op("remove", "/assigneeId", null))
+                .add(op("add", "/tags/-", "urgent"))
+                .add(op("add", "/tags/-", "backend"))
+                .add(op("replace", "/dueDate", "2026-01-31")), Task.PATCHABLE);
+
+        JsonObject update = patch.toUpdate().toJson();
+        assertEquals("Ship it", update.getJsonObject("$set").getString("title"));
+        assertTrue(update.getJsonObject("$set").containsKey("dueDate"));
+        assertEquals(new JsonObject().put("assigneeId", ""), update.getJsonObject("$unset"));
+        assertEquals(new JsonArray().add("urgent").add("backend"),
+                update.getJsonObject("$addToSet").getJsonObject("tags").getJsonArray("$each"));
+        assertFalse(update.containsKey("$pull"));
+        assertNull(patch.expectedVersion());
+        assertTrue(patch.predicate().isEmpty());
+    }
+
+    @Test
+    void parse_removesArrayElementsByValue() {
+        JsonPatch patch = JsonPatch.parse(new JsonArray()
+                .add(op("remove", "/tags/urgent", null))
+                .add(op("remove", "/tags/a~1b", null)), Task.PATCHABLE);
+
+        assertEquals(new JsonArray().add("urgent").add("a/b"),
+                patch.toUpdate().toJson().getJsonObject("$pull").getJsonObject("tags").getJsonArray("$in"));
+    }
+
+    @Test
+    void parse_testsBecomeConditions() {
+        JsonPatch patch = JsonPatch.parse(new JsonArray()
+                .add(op("test", "/version", 3))
+                .add(op("test", "/status", "TODO"))
+                .add(op("replace", "/status", "IN_PROGRESS")), Task.PATCHABLE);
+
+        assertEquals(3L, patch.expectedVersion());
+        assertEquals(new JsonObject().put("status", "TODO"), patch.predicate());
+        assertEquals("IN_PROGRESS", patch.toUpdate().toJson().getJsonObject("$set").getString("status"));
+    }
+
+    @Test
+    void parse_rejectsWhatNeedsTheCurrentDocument() {
+        assertErrorCode(ErrorCode.BAD_REQUEST, new JsonArray().add(op("add", "/tags/0", "urgent")));
+        assertErrorCode(ErrorCode.BAD_REQUEST, new JsonArray().add(op("remove", "/tags/2", null)));
+        assertErrorCode(ErrorCode.BAD_REQUEST, new JsonArray().add(op("move", "/title", null)
+                .put("from", "/description")));
+    }
+
+    @Test
+    void parse_rejectsConflictingOperations() {
+        assertErrorCode(ErrorCode.BAD_REQUEST, new JsonArray()
+                .add(op("replace", "/title", "One"))
+                .add(op("replace", "/title", "Two")));
+        assertErrorCode(ErrorCode.BAD_REQUEST, new JsonArray()
+                .add(op("add", "/tags/-", "urgent"))
+                .add(op("remove", "/tags/backend", null)));
+        assertErrorCode(ErrorCode.BAD_REQUEST, new JsonArray().add(op("test", "/version", 1)));
+    }
+
+    @Test
+    void parse_validatesAgainstModel() {
+        assertErrorCode(ErrorCode.VALIDATION_ERROR, new JsonArray().add(op("replace", "/organizationId", "org-002")));
+        assertErrorCode(ErrorCode.VALIDATION_ERROR, new JsonArray().add(op("replace", "/priority", "SOMEDAY")));
+        assertErrorCode(ErrorCode.VALIDATION_ERROR, new JsonArray().add(op("replace", "/title", " ")));
+        assertErrorCode(ErrorCode.VALIDATION_ERROR, new JsonArray().add(op("remove", "/title", null)));
+        assertErrorCode(ErrorCode.VALIDATION_ERROR, new JsonArray().add(op("add", "/tags/-", 7)));
+    }
+
+    private static JsonObject op(String op, String path, Object value) {
+        JsonObject operation = new JsonObject().put("op", op).put("path", path);
+        return value != null ? operation.put("value", value) : operation;
+    }
+
+    private static void assertErrorCode(ErrorCode expected, JsonArray operations) {
+        AppException err = assertThrows(AppException.class, () -> JsonPatch.parse(operations, Task.PATCHABLE));
+        assertEquals(expected, err.getErrorCode());
+    }
+}
@@ -0,0 +1,206 @@
+package com.teamhub.managers;
+
+import com.teamhub.TestBase;
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.repositories.BillingPlanRepository;
+import com.teamhub.repositories.MemberRepository;
+import com.teamhub.repositories.OrganizationRepository;
+import com.teamhub.repositories.ProjectRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class BillingManagerTest extends TestBase {
+
+    @Mock
+    private BillingPlanRepository billingPlanRepository;
+    @Mock
+    private OrganizationRepository organizationRepository;
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private ProjectRepository projectRepository;
+
+    private BillingManager billingManager;
+
+    @BeforeEach
+    void setUp() {
+        billingManager = new BillingManager(billingPlanRepository, organizationRepository, memberRepository, projectRepository);
+    }
+
+    @Test
+    void reserveProject_withinLimit(Vertx vertx, VertxTestContext ctx) {
+        when(billingPlanRepository.findActive()).thenReturn(Future.succeededFuture(List.of(
+                createTestBillingPlan("FREE", 5, 3), createTestBillingPlan("STARTER", 15, 10))));
+        when(organizationRepository.reserve(eq(TEST_ORG_ID), eq(OrganizationRepository.PROJECT_COUNT), any(JsonArray.class)))
+                .thenReturn(Future.succeededFuture(true));
+
+        billingManager.reserveProject(TEST_ORG_ID).onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                ArgumentCaptor<JsonArray> clauses = ArgumentCaptor.forClass(JsonArray.class);
+                verify(organizationRepository).reserve(eq(TEST_ORG_ID), eq(OrganizationRepository.PROJECT_COUNT), clauses.capture());
+                assertEquals(3, clauses.getValue().size());
+                JsonObject starter = clauses.getValue().getJsonObject(1);
+                assertEquals("starter", starter.getString("billingPlanId"));
+                assertEquals(10, starter.getJsonObject(OrganizationRepository.PROJECT_COUNT).getInteger("$lt"));
+                verify(projectRepository, never()).countByOrganization(anyString());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void reserveProject_limitReached(Vertx vertx, VertxTestContext ctx) {
+        JsonObject orgDoc = createTestOrganization(TEST_ORG_ID)
+                .put(OrganizationRepository.PROJECT_COUNT, 3)
+                .put(OrganizationRepository.USAGE_SEEDED_AT, MongoDates.now());
+        when(billingPlanRepository.findActive()).thenReturn(Future.succeededFuture(List.of(createTestBillingPlan("FREE", 5, 3))));
+        when(organizationRepository.reserve(eq(TEST_ORG_ID), eq(OrganizationRepository.PROJECT_COUNT), any(JsonArray.class)))
+                .thenReturn(Future.succeededFuture(false));
+        when(organizationRepository.findById(TEST_ORG_ID)).thenReturn(Future.succeededFuture(orgDoc));
+        when(billingPlanRepository.findById("free")).thenReturn(Future.succeededFuture(createTestBillingPlan("FREE", 5, 3)));
+
+        billingManager.reserveProject(TEST_ORG_ID).onComplete(ctx.failing(err -> {
+            ctx.verify(() -> {
+                assertInstanceOf(AppException.class, err);
+                assertEquals(ErrorCode.FORBIDDEN, ((AppException) err).getErrorCode());
+                assertEquals("Project limit reached for current billing plan. Max: 3", err.getMessage());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void reserveMember_seedsUnseededCountersAndRetries(Vertx vertx, VertxTestContext ctx) {
+        // Predates the counters: memberCount is the stale 1 every organization was created with
+        JsonObject legacyOrg = createTestOrganization(TEST_ORG_ID);
+        when(billingPlanRepository.findActive()).thenReturn(Future.succeededFuture(List.of()));
+        when(organizationRepository.reserve(eq(TEST_ORG_ID), eq(OrganizationRepository.MEMBER_COUNT), any(JsonArray.class)))
+                .thenReturn(Future.succeededFuture(false), Future.succeededFuture(true));
+        when(organizationRepository.findById(TEST_ORG_ID)).thenReturn(Future.succeededFuture(legacyOrg));
+        when(memberRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(2L));
+        when(projectRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(1L));
+        when(organizationRepository.resetCounters(TEST_ORG_ID, 1L, null, 2L, 1L)).thenReturn(Future.succeededFuture(true));
+
+        billingManager.reserveMember(TEST_ORG_ID).onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                verify(organizationRepository).resetCounters(TEST_ORG_ID, 1L, null, 2L, 1L);
+                verify(organizationRepository, times(2)).reserve(eq(TEST_ORG_ID), eq(OrganizationRepository.MEMBER_COUNT), any(JsonArray.class));
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void getUsage_countsFromSecondaries(Vertx vertx, VertxTestContext ctx) {
+        when(organizationRepository.findById(TEST_ORG_ID)).thenReturn(Future.succeededFuture(
+                createTestOrganization(TEST_ORG_ID)));
+        when(billingPlanRepository.findById("free")).thenReturn(Future.succeededFuture(
+                createTestBillingPlan("FREE", 5, 3)));
+        when(memberRepository.countByOrganizationFromSecondary(TEST_ORG_ID)).thenReturn(Future.succeededFuture(2L));
+        when(projectRepository.countByOrganizationFromSecondary(TEST_ORG_ID)).thenReturn(Future.succeededFuture(1L));
+
+        billingManager.getUsage(TEST_ORG_ID).onComplete(ctx.succeeding(usage -> {
+            ctx.verify(() -> {
+                assertEquals(2L, usage.getJsonObject("usage").getLong("members"));
+                assertEquals(1L, usage.getJsonObject("usage").getLong("projects"));
+                assertEquals(5, usage.getJsonObject("usage").getInteger("maxMembers"));
+                verify(memberRepository, never()).countByOrganization(anyString());
+                verify(projectRepository, never()).countByOrganization(anyString());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void reconcile_skipsAccurateCounters(Vertx vertx, VertxTestContext ctx) {
+        JsonObject orgDoc = createTestOrganization(TEST_ORG_ID)
+                .put(OrganizationRepository.MEMBER_COUNT, 2)
+                .put(OrganizationRepository.PROJECT_COUNT, 1)
+                .put(OrganizationRepository.USAGE_SEEDED_AT, MongoDates.now());
+        when(organizationRepository.findById(TEST_ORG_ID)).thenReturn(Future.succeededFuture(orgDoc));
+        when(memberRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(2L));
+        when(projectRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(1L));
+
+        billingManager.reconcile(TEST_ORG_ID).onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                verify(organizationRepository, never()).resetCounters(anyString(), any(), any(), anyLong(), anyLong());
+                verify(organizationRepository, never()).raiseCounters(anyString(), any(), any(), anyLong(), anyLong());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void reconcile_raisesCountersThatFellBehind(Vertx vertx, VertxTestContext ctx) {
+        JsonObject orgDoc = createTestOrganization(TEST_ORG_ID)
+                .put(OrganizationRepository.MEMBER_COUNT, 3)
+                .put(OrganizationRepository.PROJECT_COUNT, 1)
+                .put(OrganizationRepository.USAGE_SEEDED_AT, MongoDates.now());
+        when(organizationRepository.findById(TEST_ORG_ID)).thenReturn(Future.succeededFuture(orgDoc));
+        when(memberRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(2L));
+        when(projectRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(2L));
+        when(organizationRepository.raiseCounters(TEST_ORG_ID, 3L, 1L, 2L, 2L)).thenReturn(Future.succeededFuture(true));
+
+        billingManager.reconcile(TEST_ORG_ID).onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                verify(organizationRepository).raiseCounters(TEST_ORG_ID, 3L, 1L, 2L, 2L);
+                verify(organizationRepository, never()).resetCounters(anyString(), any(), any(), anyLong(), anyLong());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void reconcile_neverLowersACounterAheadOfItsCount(Vertx vertx, VertxTestContext ctx) {
+        // The third member's reservation has landed but its insert has not
+        JsonObject orgDoc = createTestOrganization(TEST_ORG_ID)
+                .put(OrganizationRepository.MEMBER_COUNT, 3)
+                .put(OrganizationRepository.PROJECT_COUNT, 1)
+                .put(OrganizationRepository.USAGE_SEEDED_AT, MongoDates.now());
+        when(organizationRepository.findById(TEST_ORG_ID)).thenReturn(Future.succeededFuture(orgDoc));
+        when(memberRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(2L));
+        when(projectRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(1L));
+
+        billingManager.reconcile(TEST_ORG_ID).onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> {
+                verify(organizationRepository, never()).resetCounters(anyString(), any(), any(), anyLong(), anyLong());
+                verify(organizationRepository, never()).raiseCounters(anyString(), any(), any(), anyLong(), anyLong());
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    @Test
+    void reconcile_seedsUnseededCountersEvenWhenTheyMatch(Vertx vertx, VertxTestContext ctx) {
+        JsonObject orgDoc = createTestOrganization(TEST_ORG_ID)
+                .put(OrganizationRepository.PROJECT_COUNT, 0);
+        when(organizationRepository.findById(TEST_ORG_ID)).thenReturn(Future.succeededFuture(orgDoc));
+        when(memberRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(1L));
+        when(projectRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(0L));
+        when(organizationRepository.resetCounters(TEST_ORG_ID, 1L, 0L, 1L, 0L)).thenReturn(Future.succeededFuture(true));
+
+        billingManager.reconcile(TEST_ORG_ID).onComplete(ctx.succeeding(v -> {
+            ctx.verify(() -> verify(organizationRepository).resetCounters(TEST_ORG_ID, 1L, 0L, 1L, 0L));
+            ctx.completeNow();
+        }));
+    }
+}
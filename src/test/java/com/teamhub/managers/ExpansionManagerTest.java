@@ -0,0 +1,115 @@
+package com.teamhub.managers;
+
+import com.teamhub.TestBase;
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.expand.ExpandSpec;
+import com.teamhub.common.mongo.DataLoaders;
+import com.teamhub.config.AppConfig;
+import com.teamhub.repositories.MemberRepository;
+import com.teamhub.repositories.ProjectRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class ExpansionManagerTest extends TestBase {
+
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private ProjectRepository projectRepository;
+
+    private ExpansionManager expansionManager;
+
+    @BeforeEach
+    void setUp() {
+        expansionManager = new ExpansionManager(memberRepository, projectRepository);
+    }
+
+    @Test
+    void expand_batchesEachRelationAcrossRows(Vertx vertx, VertxTestContext ctx) {
+        when(memberRepository.getCollectionName()).thenReturn("members");
+        when(projectRepository.getCollectionName()).thenReturn("projects");
+        when(memberRepository.findByIds(List.of("member-1", "member-2", "user-001"), TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture(Arrays.asList(
+                        createTestMember("member-1", TEST_ORG_ID, "MEMBER"),
+                        createTestMember("member-2", "org-other", "MEMBER"),
+                        createTestMember("user-001", TEST_ORG_ID, "OWNER"))));
+        when(projectRepository.findByIds(List.of("proj-1"), TEST_ORG_ID)).thenReturn(Future.succeededFuture(List.of(
+                createTestProject("proj-1", TEST_ORG_ID))));
+
+        List<JsonObject> rows = List.of(
+                createTestTask("task-1", "proj-1").put("id", "task-1").put("assigneeId", "member-1"),
+                createTestTask("task-2", "proj-1").put("id", "task-2").put("assigneeId", "member-2"));
+
+        vertx.runOnContext(v -> expansionManager.expand(ExpansionManager.Entity.TASK, rows,
+                ExpandSpec.parse("assignee,project,createdBy"), TEST_ORG_ID,
+                new DataLoaders(vertx.getOrCreateContext(), TEST_ORG_ID))
+                .onComplete(ctx.succeeding(expanded -> {
+                    ctx.verify(() -> {
+                        JsonObject first = expanded.get(0).getJsonObject("expanded");
+                        assertEquals("member-1", first.getJsonObject("assignee").getString("id"));
+                        assertEquals("proj-1", first.getJsonObject("project").getString("id"));
+                        assertEquals("user-001", first.getJsonObject("createdBy").getString("id"));
+                        // Members of other organizations are never embedded
+                        JsonObject second = expanded.get(1).getJsonObject("expanded");
+                        assertTrue(second.containsKey("assignee"));
+                        assertNull(second.getValue("assignee"));
+
+                        // Assignees and creators share one members query
+                        verify(memberRepository, times(1)).findByIds(anyList(), eq(TEST_ORG_ID));
+                        verify(projectRepository, times(1)).findByIds(anyList(), eq(TEST_ORG_ID));
+                    });
+                    ctx.completeNow();
+                })));
+    }
+
+    @Test
+    void expand_unknownRelation(Vertx vertx, VertxTestContext ctx) {
+        expansionManager.expand(ExpansionManager.Entity.PROJECT, List.of(new JsonObject()),
+                ExpandSpec.parse("assignee"), TEST_ORG_ID, new DataLoaders(vertx.getOrCreateContext(), TEST_ORG_ID))
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.VALIDATION_ERROR, ((AppException) err).getErrorCode());
+                        verifyNoInteractions(memberRepository, projectRepository);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void expand_entityLimit(Vertx vertx, VertxTestContext ctx) {
+        List<JsonObject> rows = new ArrayList<>();
+        for (int i = 0; i <= AppConfig.EXPAND_MAX_ENTITIES; i++) {
+            rows.add(new JsonObject().put("id", "task-" + i).put("assigneeId", "member-" + i));
+        }
+
+        expansionManager.expand(ExpansionManager.Entity.TASK, rows, ExpandSpec.parse("assignee"), TEST_ORG_ID,
+                new DataLoaders(vertx.getOrCreateContext(), TEST_ORG_ID))
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.BAD_REQUEST, ((AppException) err).getErrorCode());
+                        verify(memberRepository, never()).findByIds(anyList(), eq(TEST_ORG_ID));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+}
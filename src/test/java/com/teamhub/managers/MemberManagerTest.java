@@ -3,11 +3,11 @@ package com.teamhub.managers;
 import com.teamhub.TestBase;
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
-import com.teamhub.models.BillingPlan;
 import com.teamhub.models.Member;
 import com.teamhub.repositories.MemberRepository;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
@@ -28,25 +28,22 @@ class MemberManagerTest extends TestBase {
     private MemberRepository memberRepository;
     @Mock
     private BillingManager billingManager;
+    @Mock
+    private PermissionManager permissionManager;
+    @Mock
+    private ProjectMembershipManager membershipManager;
 
     private MemberManager memberManager;
 
     @BeforeEach
     void setUp() {
-        memberManager = new MemberManager(memberRepository, billingManager);
+        memberManager = new MemberManager(memberRepository, billingManager, permissionManager, membershipManager);
     }
 
     @Test
     void inviteMember_success(Vertx vertx, VertxTestContext ctx) {
-        ScenarioSetup setup = scenario().withFreePlan();
-        BillingPlan plan = BillingPlan.fromJson(setup.getBillingPlan());
-
-        when(memberRepository.findByEmail("new@teamhub.com", TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(null));
-        when(billingManager.getCurrentPlan(TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(plan));
-        when(memberRepository.countByOrganization(TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(2L));
+        when(billingManager.reserveMember(TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture());
         when(memberRepository.insert(any(JsonObject.class)))
                 .thenReturn(Future.succeededFuture("member-123"));
 
@@ -69,10 +66,12 @@ class MemberManagerTest extends TestBase {
 
     @Test
     void inviteMember_duplicateEmail(Vertx vertx, VertxTestContext ctx) {
-        JsonObject existingMember = createTestMember(randomId(), TEST_ORG_ID, "MEMBER");
-
-        when(memberRepository.findByEmail("existing@teamhub.com", TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(existingMember));
+        when(billingManager.reserveMember(TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture());
+        when(billingManager.releaseMember(TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture());
+        when(memberRepository.insert(any(JsonObject.class))).thenReturn(Future.failedFuture(
+                new AppException(ErrorCode.CONFLICT, "Member already exists in this organization")));
 
         JsonObject body = new JsonObject()
                 .put("email", "existing@teamhub.com")
@@ -84,6 +83,8 @@ class MemberManagerTest extends TestBase {
                         assertInstanceOf(AppException.class, err);
                         assertEquals(ErrorCode.CONFLICT, ((AppException) err).getErrorCode());
                         assertTrue(err.getMessage().contains("already exists"));
+                        verify(memberRepository, never()).findByEmail(anyString(), anyString());
+                        verify(billingManager).releaseMember(TEST_ORG_ID);
                     });
                     ctx.completeNow();
                 }));
@@ -107,15 +108,8 @@ class MemberManagerTest extends TestBase {
 
     @Test
     void inviteMember_limitExceeded(Vertx vertx, VertxTestContext ctx) {
-        ScenarioSetup setup = scenario().withBillingPlan("FREE", 5, 3);
-        BillingPlan plan = BillingPlan.fromJson(setup.getBillingPlan());
-
-        when(memberRepository.findByEmail("new@teamhub.com", TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(null));
-        when(billingManager.getCurrentPlan(TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(plan));
-        when(memberRepository.countByOrganization(TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(5L));
+        when(billingManager.reserveMember(TEST_ORG_ID)).thenReturn(Future.failedFuture(new AppException(
+                ErrorCode.FORBIDDEN, "Member limit reached for current billing plan. Max: 5")));
 
         JsonObject body = new JsonObject()
                 .put("email", "new@teamhub.com")
@@ -127,6 +121,7 @@ class MemberManagerTest extends TestBase {
                         assertInstanceOf(AppException.class, err);
                         assertEquals(ErrorCode.FORBIDDEN, ((AppException) err).getErrorCode());
                         assertTrue(err.getMessage().contains("Member limit reached"));
+                        verify(memberRepository, never()).insert(any(JsonObject.class));
                     });
                     ctx.completeNow();
                 }));
@@ -135,25 +130,24 @@ class MemberManagerTest extends TestBase {
     @Test
     void updateRole_success(Vertx vertx, VertxTestContext ctx) {
         String targetMemberId = randomId();
-        String actingUserId = randomId();
 
-        JsonObject actingMemberDoc = createTestMember(actingUserId, TEST_ORG_ID, "ADMIN");
-        JsonObject targetMemberDoc = createTestMember(targetMemberId, TEST_ORG_ID, "MEMBER");
-        JsonObject updatedMemberDoc = targetMemberDoc.copy().put("role", "VIEWER");
+        Member.Role actingRole = Member.Role.ADMIN;
+        JsonObject updatedMemberDoc = createTestMember(targetMemberId, TEST_ORG_ID, "VIEWER");
+        JsonObject predicate = new JsonObject()
+                .put("organizationId", TEST_ORG_ID)
+                .put("role", new JsonObject().put("$in", new JsonArray().add("MEMBER").add("VIEWER")));
 
-        when(memberRepository.findById(actingUserId))
-                .thenReturn(Future.succeededFuture(actingMemberDoc));
-        when(memberRepository.findById(targetMemberId))
-                .thenReturn(Future.succeededFuture(targetMemberDoc))
+        when(memberRepository.updateAndGet(eq(targetMemberId), eq(TEST_ORG_ID), eq(predicate), any(JsonObject.class),
+                isNull()))
                 .thenReturn(Future.succeededFuture(updatedMemberDoc));
-        when(memberRepository.update(eq(targetMemberId), any(JsonObject.class)))
-                .thenReturn(Future.succeededFuture());
 
-        memberManager.updateRole(targetMemberId, "VIEWER", TEST_ORG_ID, actingUserId)
+        memberManager.updateRole(targetMemberId, "VIEWER", TEST_ORG_ID, actingRole, null)
                 .onComplete(ctx.succeeding(member -> {
                     ctx.verify(() -> {
                         assertEquals(Member.Role.VIEWER, member.getRole());
-                        verify(memberRepository).update(eq(targetMemberId), any(JsonObject.class));
+                        verify(memberRepository, never()).findById(anyString(), anyString());
+                        verify(permissionManager).invalidate(targetMemberId, TEST_ORG_ID);
+                        verify(billingManager).releaseMember(TEST_ORG_ID);
                     });
                     ctx.completeNow();
                 }));
@@ -162,17 +156,17 @@ class MemberManagerTest extends TestBase {
     @Test
     void updateRole_hierarchyViolation(Vertx vertx, VertxTestContext ctx) {
         String targetMemberId = randomId();
-        String actingUserId = randomId();
 
-        JsonObject actingMemberDoc = createTestMember(actingUserId, TEST_ORG_ID, "MEMBER");
+        Member.Role actingRole = Member.Role.MEMBER;
         JsonObject targetMemberDoc = createTestMember(targetMemberId, TEST_ORG_ID, "ADMIN");
 
-        when(memberRepository.findById(actingUserId))
-                .thenReturn(Future.succeededFuture(actingMemberDoc));
-        when(memberRepository.findById(targetMemberId))
+        when(memberRepository.updateAndGet(eq(targetMemberId), eq(TEST_ORG_ID), any(JsonObject.class),
+                any(JsonObject.class), isNull()))
+                .thenReturn(Future.succeededFuture(null));
+        when(memberRepository.findById(targetMemberId, TEST_ORG_ID))
                 .thenReturn(Future.succeededFuture(targetMemberDoc));
 
-        memberManager.updateRole(targetMemberId, "VIEWER", TEST_ORG_ID, actingUserId)
+        memberManager.updateRole(targetMemberId, "VIEWER", TEST_ORG_ID, actingRole, null)
                 .onComplete(ctx.failing(err -> {
                     ctx.verify(() -> {
                         assertInstanceOf(AppException.class, err);
@@ -186,22 +180,25 @@ class MemberManagerTest extends TestBase {
     @Test
     void removeMember_success(Vertx vertx, VertxTestContext ctx) {
         String targetMemberId = randomId();
-        String actingUserId = randomId();
 
-        JsonObject actingMemberDoc = createTestMember(actingUserId, TEST_ORG_ID, "ADMIN");
+        Member.Role actingRole = Member.Role.ADMIN;
         JsonObject targetMemberDoc = createTestMember(targetMemberId, TEST_ORG_ID, "MEMBER");
 
-        when(memberRepository.findById(actingUserId))
-                .thenReturn(Future.succeededFuture(actingMemberDoc));
-        when(memberRepository.findById(targetMemberId))
+        when(memberRepository.findById(targetMemberId, TEST_ORG_ID))
                 .thenReturn(Future.succeededFuture(targetMemberDoc));
-        when(memberRepository.softDelete(targetMemberId))
+        when(memberRepository.softDelete(targetMemberId, TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture(true));
+        when(billingManager.releaseMember(TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture());
+        when(membershipManager.removeFromAllProjects(targetMemberId, TEST_ORG_ID))
                 .thenReturn(Future.succeededFuture());
 
-        memberManager.removeMember(targetMemberId, TEST_ORG_ID, actingUserId)
+        memberManager.removeMember(targetMemberId, TEST_ORG_ID, actingRole)
                 .onComplete(ctx.succeeding(v -> {
                     ctx.verify(() -> {
                         verify(memberRepository).softDelete(targetMemberId);
+                        verify(permissionManager).invalidate(targetMemberId, TEST_ORG_ID);
+                        verify(membershipManager).removeFromAllProjects(targetMemberId, TEST_ORG_ID);
                     });
                     ctx.completeNow();
                 }));
@@ -210,17 +207,14 @@ class MemberManagerTest extends TestBase {
     @Test
     void removeMember_cannotRemoveOwner(Vertx vertx, VertxTestContext ctx) {
         String targetMemberId = randomId();
-        String actingUserId = randomId();
 
-        JsonObject actingMemberDoc = createTestMember(actingUserId, TEST_ORG_ID, "ADMIN");
+        Member.Role actingRole = Member.Role.ADMIN;
         JsonObject targetMemberDoc = createTestMember(targetMemberId, TEST_ORG_ID, "OWNER");
 
-        when(memberRepository.findById(actingUserId))
-                .thenReturn(Future.succeededFuture(actingMemberDoc));
-        when(memberRepository.findById(targetMemberId))
+        when(memberRepository.findById(targetMemberId, TEST_ORG_ID))
                 .thenReturn(Future.succeededFuture(targetMemberDoc));
 
-        memberManager.removeMember(targetMemberId, TEST_ORG_ID, actingUserId)
+        memberManager.removeMember(targetMemberId, TEST_ORG_ID, actingRole)
                 .onComplete(ctx.failing(err -> {
                     ctx.verify(() -> {
                         assertInstanceOf(AppException.class, err);
@@ -230,4 +224,17 @@ class MemberManagerTest extends TestBase {
                     ctx.completeNow();
                 }));
     }
+
+    @Test
+    void updateRole_actingUserNotMember(Vertx vertx, VertxTestContext ctx) {
+        memberManager.updateRole(randomId(), "VIEWER", TEST_ORG_ID, null, null)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.FORBIDDEN, ((AppException) err).getErrorCode());
+                        verify(memberRepository, never()).findById(anyString(), anyString());
+                    });
+                    ctx.completeNow();
+                }));
+    }
 }
@@ -0,0 +1,79 @@
+package com.teamhub.managers;
+
+import com.teamhub.TestBase;
+import com.teamhub.models.Member;
+import com.teamhub.repositories.MemberRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class PermissionManagerTest extends TestBase {
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    private PermissionManager permissionManager;
+
+    @BeforeEach
+    void setUp(Vertx vertx) {
+        permissionManager = new PermissionManager(vertx, memberRepository);
+    }
+
+    @Test
+    void resolveRole_cachesAfterFirstLookup(Vertx vertx, VertxTestContext ctx) {
+        when(memberRepository.findById(TEST_USER_ID, TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture(createTestMember(TEST_USER_ID, TEST_ORG_ID, "ADMIN")));
+
+        permissionManager.resolveRole(TEST_USER_ID, TEST_ORG_ID)
+                .compose(first -> permissionManager.resolveRole(TEST_USER_ID, TEST_ORG_ID))
+                .onComplete(ctx.succeeding(role -> {
+                    ctx.verify(() -> {
+                        assertEquals(Member.Role.ADMIN, role);
+                        verify(memberRepository, times(1)).findById(TEST_USER_ID, TEST_ORG_ID);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void resolveRole_reloadsAfterInvalidate(Vertx vertx, VertxTestContext ctx) {
+        when(memberRepository.findById(TEST_USER_ID, TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture(createTestMember(TEST_USER_ID, TEST_ORG_ID, "ADMIN")))
+                .thenReturn(Future.succeededFuture(createTestMember(TEST_USER_ID, TEST_ORG_ID, "VIEWER")));
+
+        permissionManager.resolveRole(TEST_USER_ID, TEST_ORG_ID)
+                .compose(first -> {
+                    permissionManager.invalidate(TEST_USER_ID, TEST_ORG_ID);
+                    return permissionManager.resolveRole(TEST_USER_ID, TEST_ORG_ID);
+                })
+                .onComplete(ctx.succeeding(role -> {
+                    ctx.verify(() -> {
+                        assertEquals(Member.Role.VIEWER, role);
+                        verify(memberRepository, times(2)).findById(TEST_USER_ID, TEST_ORG_ID);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void resolveRole_memberOfOtherOrganization(Vertx vertx, VertxTestContext ctx) {
+        when(memberRepository.findById(TEST_USER_ID, TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture(createTestMember(TEST_USER_ID, "other-org", "OWNER")));
+
+        permissionManager.resolveRole(TEST_USER_ID, TEST_ORG_ID)
+                .onComplete(ctx.succeeding(role -> {
+                    ctx.verify(() -> assertNull(role));
+                    ctx.completeNow();
+                }));
+    }
+}
@@ -3,17 +3,21 @@ package com.teamhub.managers;
 import com.teamhub.TestBase;
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
-import com.teamhub.models.BillingPlan;
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.MongoUpdate;
 import com.teamhub.models.Project;
 import com.teamhub.repositories.ProjectRepository;
+import com.teamhub.repositories.TaskArchiveRepository;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -32,22 +36,24 @@ class ProjectManagerTest extends TestBase {
     private BillingManager billingManager;
     @Mock
     private MemberManager memberManager;
+    @Mock
+    private ProjectMembershipManager membershipManager;
+    @Mock
+    private TaskArchiveRepository taskArchiveRepository;
 
     private ProjectManager projectManager;
 
     @BeforeEach
     void setUp() {
-        projectManager = new ProjectManager(projectRepository, billingManager, memberManager);
+        projectManager = new ProjectManager(projectRepository, billingManager, memberManager, membershipManager,
+                taskArchiveRepository);
     }
 
     @Test
     void createProject_success(Vertx vertx, VertxTestContext ctx) {
-        ScenarioSetup setup = scenario().withFreePlan();
-        BillingPlan plan = BillingPlan.fromJson(setup.getBillingPlan());
-
-        when(billingManager.getCurrentPlan(TEST_ORG_ID)).thenReturn(Future.succeededFuture(plan));
-        when(projectRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(0L));
+        when(billingManager.reserveProject(TEST_ORG_ID)).thenReturn(Future.succeededFuture());
         when(projectRepository.insert(any(JsonObject.class))).thenReturn(Future.succeededFuture("proj-123"));
+        when(membershipManager.addCreator("proj-123", TEST_ORG_ID, TEST_USER_ID)).thenReturn(Future.succeededFuture());
 
         JsonObject body = new JsonObject().put("name", "New Project").put("description", "Description");
 
@@ -58,19 +64,64 @@ class ProjectManagerTest extends TestBase {
                         assertEquals("New Project", project.getName());
                         assertEquals(TEST_ORG_ID, project.getOrganizationId());
                         assertEquals(Project.Status.ACTIVE, project.getStatus());
+                        assertEquals(1L, project.getMemberCount());
                         verify(projectRepository).insert(any(JsonObject.class));
+                        verify(billingManager, never()).releaseProject(anyString());
                     });
                     ctx.completeNow();
                 }));
     }
 
     @Test
-    void createProject_limitExceeded(Vertx vertx, VertxTestContext ctx) {
-        ScenarioSetup setup = scenario().withBillingPlan("FREE", 5, 3);
-        BillingPlan plan = BillingPlan.fromJson(setup.getBillingPlan());
+    void createProject_derivedKeyTakenGetsNumberAppended(Vertx vertx, VertxTestContext ctx) {
+        when(billingManager.reserveProject(TEST_ORG_ID)).thenReturn(Future.succeededFuture());
+        when(projectRepository.insert(any(JsonObject.class))).thenReturn(
+                Future.failedFuture(new AppException(ErrorCode.CONFLICT, "A project with this key already exists")),
+                Future.succeededFuture("proj-123"));
+        when(membershipManager.addCreator("proj-123", TEST_ORG_ID, TEST_USER_ID)).thenReturn(Future.succeededFuture());
+
+        projectManager.createProject(new JsonObject().put("name", "Mobile app"), TEST_USER_ID, TEST_ORG_ID)
+                .onComplete(ctx.succeeding(project -> {
+                    ctx.verify(() -> {
+                        assertEquals("MA2", project.getKey());
+                        verify(projectRepository, times(2)).insert(any(JsonObject.class));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void createProject_chosenKeyTaken(Vertx vertx, VertxTestContext ctx) {
+        when(billingManager.reserveProject(TEST_ORG_ID)).thenReturn(Future.succeededFuture());
+        when(projectRepository.insert(any(JsonObject.class))).thenReturn(
+                Future.failedFuture(new AppException(ErrorCode.CONFLICT, "A project with this key already exists")));
+        when(billingManager.releaseProject(TEST_ORG_ID)).thenReturn(Future.succeededFuture());
+
+        JsonObject body = new JsonObject().put("name", "Mobile app").put("key", "APP");
+
+        projectManager.createProject(body, TEST_USER_ID, TEST_ORG_ID)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertEquals(ErrorCode.CONFLICT, ((AppException) err).getErrorCode());
+                        verify(projectRepository, times(1)).insert(any(JsonObject.class));
+                        verify(billingManager).releaseProject(TEST_ORG_ID);
+                    });
+                    ctx.completeNow();
+                }));
+    }
 
-        when(billingManager.getCurrentPlan(TEST_ORG_ID)).thenReturn(Future.succeededFuture(plan));
-        when(projectRepository.countByOrganization(TEST_ORG_ID)).thenReturn(Future.succeededFuture(3L));
+    @Test
+    void deriveKey_usesInitialsOrStartOfName() {
+        assertEquals("MA", ProjectManager.deriveKey("Mobile app"));
+        assertEquals("WEB", ProjectManager.deriveKey("website"));
+        assertEquals("QBR", ProjectManager.deriveKey("2024 Q3 board review"));
+        assertEquals("PRJ", ProjectManager.deriveKey("*"));
+    }
+
+    @Test
+    void createProject_limitExceeded(Vertx vertx, VertxTestContext ctx) {
+        when(billingManager.reserveProject(TEST_ORG_ID)).thenReturn(Future.failedFuture(new AppException(
+                ErrorCode.FORBIDDEN, "Project limit reached for current billing plan. Max: 3")));
 
         JsonObject body = new JsonObject().put("name", "New Project");
 
@@ -80,6 +131,61 @@ class ProjectManagerTest extends TestBase {
                         assertInstanceOf(AppException.class, err);
                         assertEquals(ErrorCode.FORBIDDEN, ((AppException) err).getErrorCode());
                         assertTrue(err.getMessage().contains("Project limit reached"));
+                        verify(projectRepository, never()).insert(any(JsonObject.class));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void createProject_insertFailureReleasesReservation(Vertx vertx, VertxTestContext ctx) {
+        when(billingManager.reserveProject(TEST_ORG_ID)).thenReturn(Future.succeededFuture());
+        when(projectRepository.insert(any(JsonObject.class)))
+                .thenReturn(Future.failedFuture(new RuntimeException("connection reset")));
+        when(billingManager.releaseProject(TEST_ORG_ID)).thenReturn(Future.succeededFuture());
+
+        projectManager.createProject(new JsonObject().put("name", "New Project"), TEST_USER_ID, TEST_ORG_ID)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertEquals("connection reset", err.getMessage());
+                        verify(billingManager).releaseProject(TEST_ORG_ID);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void createProject_membershipFailureRemovesProject(Vertx vertx, VertxTestContext ctx) {
+        when(billingManager.reserveProject(TEST_ORG_ID)).thenReturn(Future.succeededFuture());
+        when(projectRepository.insert(any(JsonObject.class))).thenReturn(Future.succeededFuture("proj-123"));
+        when(membershipManager.addCreator("proj-123", TEST_ORG_ID, TEST_USER_ID))
+                .thenReturn(Future.failedFuture(new RuntimeException("connection reset")));
+        when(projectRepository.softDelete("proj-123", TEST_ORG_ID)).thenReturn(Future.succeededFuture(true));
+        when(billingManager.releaseProject(TEST_ORG_ID)).thenReturn(Future.succeededFuture());
+
+        projectManager.createProject(new JsonObject().put("name", "New Project"), TEST_USER_ID, TEST_ORG_ID)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertEquals("connection reset", err.getMessage());
+                        verify(projectRepository).softDelete("proj-123", TEST_ORG_ID);
+                        verify(billingManager).releaseProject(TEST_ORG_ID);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void addMember_otherOrganizationsProject(Vertx vertx, VertxTestContext ctx) {
+        String projectId = randomId();
+        when(projectRepository.findById(eq(projectId), eq(TEST_ORG_ID), any(FieldSet.class)))
+                .thenReturn(Future.succeededFuture(createTestProject(projectId, "other-org")));
+
+        projectManager.addMember(projectId, randomId(), TEST_ORG_ID, TEST_USER_ID)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.FORBIDDEN, ((AppException) err).getErrorCode());
+                        verifyNoInteractions(membershipManager);
                     });
                     ctx.completeNow();
                 }));
@@ -90,7 +196,8 @@ class ProjectManagerTest extends TestBase {
         String projectId = randomId();
         JsonObject projectDoc = createTestProject(projectId, TEST_ORG_ID);
 
-        when(projectRepository.findById(projectId)).thenReturn(Future.succeededFuture(projectDoc));
+        when(projectRepository.findById(projectId, TEST_ORG_ID, FieldSet.ALL))
+                .thenReturn(Future.succeededFuture(projectDoc));
 
         projectManager.getProject(projectId, TEST_ORG_ID)
                 .onComplete(ctx.succeeding(project -> {
@@ -105,7 +212,8 @@ class ProjectManagerTest extends TestBase {
 
     @Test
     void getProject_notFound(Vertx vertx, VertxTestContext ctx) {
-        when(projectRepository.findById("nonexistent")).thenReturn(Future.succeededFuture(null));
+        when(projectRepository.findById("nonexistent", TEST_ORG_ID, FieldSet.ALL))
+                .thenReturn(Future.succeededFuture(null));
 
         projectManager.getProject("nonexistent", TEST_ORG_ID)
                 .onComplete(ctx.failing(err -> {
@@ -122,7 +230,8 @@ class ProjectManagerTest extends TestBase {
         String projectId = randomId();
         JsonObject projectDoc = createTestProject(projectId, "other-org");
 
-        when(projectRepository.findById(projectId)).thenReturn(Future.succeededFuture(projectDoc));
+        when(projectRepository.findById(projectId, TEST_ORG_ID, FieldSet.ALL))
+                .thenReturn(Future.succeededFuture(projectDoc));
 
         projectManager.getProject(projectId, TEST_ORG_ID)
                 .onComplete(ctx.failing(err -> {
@@ -140,10 +249,10 @@ class ProjectManagerTest extends TestBase {
                 createTestProject(randomId(), TEST_ORG_ID),
                 createTestProject(randomId(), TEST_ORG_ID)
         );
-        when(projectRepository.findByOrganization(TEST_ORG_ID, 0, 20))
+        when(projectRepository.findByOrganization(TEST_ORG_ID, 0, 20, Project.LIST_FIELDS))
                 .thenReturn(Future.succeededFuture(docs));
 
-        projectManager.listProjects(TEST_ORG_ID, 0, 20)
+        projectManager.listProjects(TEST_ORG_ID, 0, 20, Project.LIST_FIELDS)
                 .onComplete(ctx.succeeding(projects -> {
                     ctx.verify(() -> {
                         assertEquals(2, projects.size());
@@ -152,34 +261,100 @@ class ProjectManagerTest extends TestBase {
                 }));
     }
 
+    @Test
+    void patchProject_unsetsDescription(Vertx vertx, VertxTestContext ctx) {
+        String projectId = randomId();
+        JsonObject updatedDoc = createTestProject(projectId, TEST_ORG_ID).put("name", "Renamed");
+        updatedDoc.remove("description");
+        JsonArray patch = new JsonArray()
+                .add(new JsonObject().put("op", "replace").put("path", "/name").put("value", "Renamed"))
+                .add(new JsonObject().put("op", "remove").put("path", "/description"));
+
+        ArgumentCaptor<MongoUpdate> update = ArgumentCaptor.forClass(MongoUpdate.class);
+        when(projectRepository.updateAndGet(eq(projectId), eq(TEST_ORG_ID),
+                eq(new JsonObject().put("organizationId", TEST_ORG_ID)), update.capture(), isNull()))
+                .thenReturn(Future.succeededFuture(updatedDoc));
+
+        projectManager.patchProject(projectId, patch, TEST_ORG_ID)
+                .onComplete(ctx.succeeding(project -> {
+                    ctx.verify(() -> {
+                        assertEquals("Renamed", project.getName());
+                        JsonObject sent = update.getValue().toJson();
+                        assertEquals("Renamed", sent.getJsonObject("$set").getString("name"));
+                        assertEquals(new JsonObject().put("description", ""), sent.getJsonObject("$unset"));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
     @Test
     void archiveProject_success(Vertx vertx, VertxTestContext ctx) {
         String projectId = randomId();
         JsonObject projectDoc = createTestProject(projectId, TEST_ORG_ID);
-        JsonObject archivedDoc = projectDoc.copy().put("status", "ARCHIVED");
+        JsonObject archivedDoc = projectDoc.copy().put("status", "ARCHIVED").put("tasksArchived", false);
+        JsonObject coldDoc = archivedDoc.copy().put("tasksArchived", true);
+        JsonObject markArchived = new JsonObject().put("status", "ARCHIVED").put("tasksArchived", false);
+        JsonObject markTasksArchived = new JsonObject().put("tasksArchived", true);
 
-        when(projectRepository.findById(projectId))
-                .thenReturn(Future.succeededFuture(projectDoc))
+        when(projectRepository.updateAndGet(eq(projectId), eq(TEST_ORG_ID), any(JsonObject.class),
+                eq(markArchived), isNull()))
                 .thenReturn(Future.succeededFuture(archivedDoc));
-        when(projectRepository.update(eq(projectId), any(JsonObject.class)))
-                .thenReturn(Future.succeededFuture());
+        when(taskArchiveRepository.archiveProject(TEST_ORG_ID, projectId)).thenReturn(Future.succeededFuture(42L));
+        when(projectRepository.updateAndGet(eq(projectId), eq(TEST_ORG_ID), any(JsonObject.class),
+                eq(markTasksArchived), isNull()))
+                .thenReturn(Future.succeededFuture(coldDoc));
 
         projectManager.archiveProject(projectId, TEST_ORG_ID)
                 .onComplete(ctx.succeeding(project -> {
                     ctx.verify(() -> {
                         assertEquals(Project.Status.ARCHIVED, project.getStatus());
-                        verify(projectRepository).update(eq(projectId), any(JsonObject.class));
+                        assertTrue(project.isTasksArchived());
+                        ArgumentCaptor<JsonObject> predicate = ArgumentCaptor.forClass(JsonObject.class);
+                        verify(projectRepository).updateAndGet(eq(projectId), eq(TEST_ORG_ID), predicate.capture(),
+                                eq(markArchived), isNull());
+                        assertEquals(TEST_ORG_ID, predicate.getValue().getString("organizationId"));
+                        verify(taskArchiveRepository).archiveProject(TEST_ORG_ID, projectId);
+                        verify(projectRepository, never()).findById(anyString(), anyString(), any(FieldSet.class));
                     });
                     ctx.completeNow();
                 }));
     }
 
     @Test
-    void archiveProject_alreadyArchived(Vertx vertx, VertxTestContext ctx) {
+    void archiveProject_resumesUnfinishedMove(Vertx vertx, VertxTestContext ctx) {
         String projectId = randomId();
         JsonObject projectDoc = createTestProject(projectId, TEST_ORG_ID).put("status", "ARCHIVED");
 
-        when(projectRepository.findById(projectId)).thenReturn(Future.succeededFuture(projectDoc));
+        when(projectRepository.updateAndGet(eq(projectId), eq(TEST_ORG_ID), any(JsonObject.class),
+                any(JsonObject.class), isNull()))
+                .thenReturn(Future.succeededFuture(null))
+                .thenReturn(Future.succeededFuture(projectDoc.copy().put("tasksArchived", true)));
+        when(projectRepository.findById(projectId, TEST_ORG_ID, FieldSet.ALL))
+                .thenReturn(Future.succeededFuture(projectDoc));
+        when(taskArchiveRepository.archiveProject(TEST_ORG_ID, projectId)).thenReturn(Future.succeededFuture(7L));
+
+        projectManager.archiveProject(projectId, TEST_ORG_ID)
+                .onComplete(ctx.succeeding(project -> {
+                    ctx.verify(() -> {
+                        assertTrue(project.isTasksArchived());
+                        verify(taskArchiveRepository).archiveProject(TEST_ORG_ID, projectId);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void archiveProject_alreadyArchived(Vertx vertx, VertxTestContext ctx) {
+        String projectId = randomId();
+        JsonObject projectDoc = createTestProject(projectId, TEST_ORG_ID)
+                .put("status", "ARCHIVED")
+                .put("tasksArchived", true);
+
+        when(projectRepository.updateAndGet(eq(projectId), eq(TEST_ORG_ID), any(JsonObject.class),
+                any(JsonObject.class), isNull()))
+                .thenReturn(Future.succeededFuture(null));
+        when(projectRepository.findById(projectId, TEST_ORG_ID, FieldSet.ALL))
+                .thenReturn(Future.succeededFuture(projectDoc));
 
         projectManager.archiveProject(projectId, TEST_ORG_ID)
                 .onComplete(ctx.failing(err -> {
@@ -198,16 +373,16 @@ class ProjectManagerTest extends TestBase {
         JsonObject projectDoc = createTestProject(projectId, TEST_ORG_ID).put("status", "ARCHIVED");
         JsonObject activeDoc = projectDoc.copy().put("status", "ACTIVE");
 
-        when(projectRepository.findById(projectId))
-                .thenReturn(Future.succeededFuture(projectDoc))
+        when(taskArchiveRepository.restoreProject(TEST_ORG_ID, projectId)).thenReturn(Future.succeededFuture(42L));
+        when(projectRepository.updateAndGet(eq(projectId), eq(TEST_ORG_ID), any(JsonObject.class),
+                any(JsonObject.class), isNull()))
                 .thenReturn(Future.succeededFuture(activeDoc));
-        when(projectRepository.update(eq(projectId), any(JsonObject.class)))
-                .thenReturn(Future.succeededFuture());
 
         projectManager.unarchiveProject(projectId, TEST_ORG_ID)
                 .onComplete(ctx.succeeding(project -> {
                     ctx.verify(() -> {
                         assertEquals(Project.Status.ACTIVE, project.getStatus());
+                        verify(taskArchiveRepository).restoreProject(TEST_ORG_ID, projectId);
                     });
                     ctx.completeNow();
                 }));
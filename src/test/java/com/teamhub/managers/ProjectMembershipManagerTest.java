@@ -0,0 +1,123 @@
+package com.teamhub.managers;
+
+import com.teamhub.TestBase;
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.migrations.ProjectMembershipMigration;
+import com.teamhub.repositories.MemberRepository;
+import com.teamhub.repositories.ProjectMembershipRepository;
+import com.teamhub.repositories.ProjectRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class ProjectMembershipManagerTest extends TestBase {
+
+    private static final String PROJECT_ID = "project-1";
+
+    @Mock
+    private ProjectMembershipRepository membershipRepository;
+    @Mock
+    private ProjectRepository projectRepository;
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private ProjectMembershipMigration migration;
+
+    private ProjectMembershipManager membershipManager;
+
+    @BeforeEach
+    void setUp(Vertx vertx) {
+        membershipManager = new ProjectMembershipManager(vertx, membershipRepository, projectRepository,
+                memberRepository, migration);
+    }
+
+    @Test
+    void isMember_cachesProjectMembers(Vertx vertx, VertxTestContext ctx) {
+        when(membershipRepository.findMemberIds(TEST_ORG_ID, PROJECT_ID))
+                .thenReturn(Future.succeededFuture(List.of(TEST_USER_ID, "member-2")));
+        when(migration.isComplete()).thenReturn(true);
+
+        membershipManager.isMember(PROJECT_ID, TEST_ORG_ID, TEST_USER_ID)
+                .compose(first -> membershipManager.isMember(PROJECT_ID, TEST_ORG_ID, "stranger")
+                        .map(second -> first && !second))
+                .onComplete(ctx.succeeding(result -> {
+                    ctx.verify(() -> {
+                        assertTrue(result);
+                        verify(membershipRepository, times(1)).findMemberIds(TEST_ORG_ID, PROJECT_ID);
+                        verifyNoInteractions(projectRepository);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void isMember_readsLegacyArrayUntilMigrated(Vertx vertx, VertxTestContext ctx) {
+        when(membershipRepository.findMemberIds(TEST_ORG_ID, PROJECT_ID))
+                .thenReturn(Future.succeededFuture(List.of()));
+        when(migration.isComplete()).thenReturn(false);
+        when(projectRepository.findById(eq(PROJECT_ID), eq(TEST_ORG_ID), any(FieldSet.class)))
+                .thenReturn(Future.succeededFuture(createTestProject(PROJECT_ID, TEST_ORG_ID)
+                        .put("memberIds", new JsonArray().add(TEST_USER_ID))));
+
+        membershipManager.isMember(PROJECT_ID, TEST_ORG_ID, TEST_USER_ID)
+                .onComplete(ctx.succeeding(member -> {
+                    ctx.verify(() -> assertTrue(member));
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void addMember_reloadsAfterwards(Vertx vertx, VertxTestContext ctx) {
+        when(membershipRepository.findMemberIds(TEST_ORG_ID, PROJECT_ID))
+                .thenReturn(Future.succeededFuture(List.of()))
+                .thenReturn(Future.succeededFuture(List.of("member-2")));
+        when(migration.isComplete()).thenReturn(true);
+        when(memberRepository.findById("member-2", TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture(createTestMember("member-2", TEST_ORG_ID, "MEMBER")));
+        when(membershipRepository.add(TEST_ORG_ID, PROJECT_ID, "member-2", TEST_USER_ID))
+                .thenReturn(Future.succeededFuture("membership-1"));
+        when(projectRepository.adjustMemberCount(TEST_ORG_ID, PROJECT_ID, 1)).thenReturn(Future.succeededFuture());
+
+        membershipManager.isMember(PROJECT_ID, TEST_ORG_ID, "member-2")
+                .compose(before -> membershipManager.addMember(PROJECT_ID, TEST_ORG_ID, "member-2", TEST_USER_ID))
+                .compose(added -> membershipManager.isMember(PROJECT_ID, TEST_ORG_ID, "member-2"))
+                .onComplete(ctx.succeeding(member -> {
+                    ctx.verify(() -> {
+                        assertTrue(member);
+                        verify(membershipRepository, times(2)).findMemberIds(TEST_ORG_ID, PROJECT_ID);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void addMember_unknownMember(Vertx vertx, VertxTestContext ctx) {
+        when(memberRepository.findById("member-2", TEST_ORG_ID)).thenReturn(Future.succeededFuture(null));
+
+        membershipManager.addMember(PROJECT_ID, TEST_ORG_ID, "member-2", TEST_USER_ID)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.NOT_FOUND, ((AppException) err).getErrorCode());
+                        verify(membershipRepository, never()).add(anyString(), anyString(), anyString(), anyString());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+}
@@ -3,6 +3,10 @@ package com.teamhub.managers;
 import com.teamhub.TestBase;
 import com.teamhub.common.AppException;
 import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.DataLoaders;
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.MongoUpdate;
+import com.teamhub.migrations.TaskOrganizationBackfill;
 import com.teamhub.models.Project;
 import com.teamhub.models.Task;
 import com.teamhub.repositories.TaskRepository;
@@ -15,9 +19,11 @@ import io.vertx.junit5.VertxTestContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,12 +37,16 @@ class TaskManagerTest extends TestBase {
     private TaskRepository taskRepository;
     @Mock
     private ProjectManager projectManager;
+    @Mock
+    private ProjectMembershipManager membershipManager;
+    @Mock
+    private TaskOrganizationBackfill organizationBackfill;
 
     private TaskManager taskManager;
 
     @BeforeEach
     void setUp() {
-        taskManager = new TaskManager(taskRepository, projectManager);
+        taskManager = new TaskManager(taskRepository, projectManager, membershipManager, organizationBackfill);
     }
 
     @Test
@@ -44,8 +54,10 @@ class TaskManagerTest extends TestBase {
         String projectId = randomId();
         Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
 
-        when(projectManager.getProject(projectId, TEST_ORG_ID))
+        when(projectManager.getProject(eq(projectId), eq(TEST_ORG_ID), any(FieldSet.class)))
                 .thenReturn(Future.succeededFuture(project));
+        when(membershipManager.isMember(projectId, TEST_ORG_ID, TEST_USER_ID))
+                .thenReturn(Future.succeededFuture(true));
         when(taskRepository.insert(any(JsonObject.class)))
                 .thenReturn(Future.succeededFuture("task-123"));
 
@@ -60,19 +72,55 @@ class TaskManagerTest extends TestBase {
                         assertNotNull(task);
                         assertEquals("New Task", task.getTitle());
                         assertEquals(Task.Status.TODO, task.getStatus());
+                        assertEquals(TEST_ORG_ID, task.getOrganizationId());
                         verify(taskRepository).insert(any(JsonObject.class));
                     });
                     ctx.completeNow();
                 }));
     }
 
+    @Test
+    void createTask_skipsKeysStillHeldByPurgedProjectsTasks(Vertx vertx, VertxTestContext ctx) {
+        // A purged project had the key WEB; its tasks still hold WEB-1..WEB-40, and the new project's
+        // counter starts again at 1
+        String projectId = randomId();
+        Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID).put("key", "WEB"));
+        List<String> insertedKeys = new ArrayList<>();
+
+        when(projectManager.getProject(eq(projectId), eq(TEST_ORG_ID), any(FieldSet.class)))
+                .thenReturn(Future.succeededFuture(project));
+        when(projectManager.nextTaskKey(projectId, TEST_ORG_ID, "WEB"))
+                .thenReturn(Future.succeededFuture("WEB-1"), Future.succeededFuture("WEB-41"));
+        when(taskRepository.findHighestKeyNumber(TEST_ORG_ID, "WEB")).thenReturn(Future.succeededFuture(40L));
+        when(projectManager.skipTaskNumbers(projectId, TEST_ORG_ID, 40L)).thenReturn(Future.succeededFuture());
+        when(taskRepository.insert(any(JsonObject.class))).thenAnswer(invocation -> {
+            insertedKeys.add(invocation.<JsonObject>getArgument(0).getString("key"));
+            return insertedKeys.size() == 1
+                    ? Future.failedFuture(new AppException(ErrorCode.CONFLICT, "A task with this key already exists"))
+                    : Future.succeededFuture("task-123");
+        });
+
+        taskManager.createTask(new JsonObject().put("title", "New Task").put("projectId", projectId),
+                        TEST_USER_ID, TEST_ORG_ID)
+                .onComplete(ctx.succeeding(task -> {
+                    ctx.verify(() -> {
+                        assertEquals("WEB-41", task.getKey());
+                        assertEquals(List.of("WEB-1", "WEB-41"), insertedKeys);
+                        verify(projectManager).skipTaskNumbers(projectId, TEST_ORG_ID, 40L);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
     @Test
     void createTask_invalidAssignee(Vertx vertx, VertxTestContext ctx) {
         String projectId = randomId();
         Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
 
-        when(projectManager.getProject(projectId, TEST_ORG_ID))
+        when(projectManager.getProject(eq(projectId), eq(TEST_ORG_ID), any(FieldSet.class)))
                 .thenReturn(Future.succeededFuture(project));
+        when(membershipManager.isMember(projectId, TEST_ORG_ID, "nonexistent-user"))
+                .thenReturn(Future.succeededFuture(false));
 
         JsonObject body = new JsonObject()
                 .put("title", "New Task")
@@ -85,6 +133,30 @@ class TaskManagerTest extends TestBase {
                         assertInstanceOf(AppException.class, err);
                         assertEquals(ErrorCode.BAD_REQUEST, ((AppException) err).getErrorCode());
                         assertTrue(err.getMessage().contains("not a member"));
+                        verify(taskRepository, never()).insert(any(JsonObject.class));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void createTask_archivedProject(Vertx vertx, VertxTestContext ctx) {
+        String projectId = randomId();
+        Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID).put("status", "ARCHIVED"));
+
+        when(projectManager.getProject(eq(projectId), eq(TEST_ORG_ID), any(FieldSet.class)))
+                .thenReturn(Future.succeededFuture(project));
+
+        JsonObject body = new JsonObject()
+                .put("title", "New Task")
+                .put("projectId", projectId);
+
+        taskManager.createTask(body, TEST_USER_ID, TEST_ORG_ID)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.BAD_REQUEST, ((AppException) err).getErrorCode());
+                        verifyNoInteractions(taskRepository, membershipManager);
                     });
                     ctx.completeNow();
                 }));
@@ -92,7 +164,7 @@ class TaskManagerTest extends TestBase {
 
     @Test
     void createTask_projectNotFound(Vertx vertx, VertxTestContext ctx) {
-        when(projectManager.getProject("bad-project", TEST_ORG_ID))
+        when(projectManager.getProject(eq("bad-project"), eq(TEST_ORG_ID), any(FieldSet.class)))
                 .thenReturn(Future.failedFuture(new AppException(ErrorCode.NOT_FOUND, "Project not found")));
 
         JsonObject body = new JsonObject()
@@ -116,8 +188,8 @@ class TaskManagerTest extends TestBase {
         JsonObject taskDoc = createTestTask(taskId, projectId);
         Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
 
-        when(taskRepository.findById(taskId)).thenReturn(Future.succeededFuture(taskDoc));
-        when(projectManager.getProject(projectId, TEST_ORG_ID))
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(taskDoc));
+        when(projectManager.getProject(eq(projectId), eq(TEST_ORG_ID), any(FieldSet.class)))
                 .thenReturn(Future.succeededFuture(project));
 
         taskManager.getTask(taskId, TEST_ORG_ID)
@@ -130,29 +202,193 @@ class TaskManagerTest extends TestBase {
                 }));
     }
 
+    @Test
+    void getTasks_keepsRequestedOrderAndDropsInvisible(Vertx vertx, VertxTestContext ctx) {
+        String projectId = randomId();
+        JsonObject ownTask = createTestTask("task-a", projectId).put("organizationId", TEST_ORG_ID);
+        JsonObject legacyTask = createTestTask("task-b", projectId);
+        JsonObject foreignTask = createTestTask("task-c", randomId()).put("organizationId", "org-other");
+        Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
+        DataLoaders loaders = new DataLoaders(vertx.getOrCreateContext(), TEST_ORG_ID);
+
+        when(taskRepository.findByIds(List.of("task-c", "task-b", "task-d", "task-a"), TEST_ORG_ID))
+                .thenReturn(Future.succeededFuture(java.util.Arrays.asList(foreignTask, legacyTask, null, ownTask)));
+        when(projectManager.getProjects(List.of(projectId), TEST_ORG_ID, loaders))
+                .thenReturn(Future.succeededFuture(List.of(project)));
+
+        // Loads are batched per event-loop tick, so issue them from the loaders' context
+        vertx.runOnContext(v -> taskManager.getTasks(List.of("task-c", "task-b", "task-d", "task-a"), TEST_ORG_ID, loaders)
+                .onComplete(ctx.succeeding(tasks -> {
+                    ctx.verify(() -> assertEquals(List.of("task-b", "task-a"), tasks.stream().map(Task::getId).toList()));
+                    ctx.completeNow();
+                })));
+    }
+
+    @Test
+    void getTask_usesStoredOrganization(Vertx vertx, VertxTestContext ctx) {
+        String taskId = randomId();
+        JsonObject taskDoc = createTestTask(taskId, randomId()).put("organizationId", TEST_ORG_ID);
+
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(taskDoc));
+
+        taskManager.getTask(taskId, TEST_ORG_ID)
+                .onComplete(ctx.succeeding(task -> {
+                    ctx.verify(() -> {
+                        assertEquals(taskId, task.getId());
+                        verifyNoInteractions(projectManager);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void getTask_otherOrganization(Vertx vertx, VertxTestContext ctx) {
+        String taskId = randomId();
+        JsonObject taskDoc = createTestTask(taskId, randomId()).put("organizationId", "other-org");
+
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(taskDoc));
+
+        taskManager.getTask(taskId, TEST_ORG_ID)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.FORBIDDEN, ((AppException) err).getErrorCode());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void listTasks_orgWide_queriesByOrganization(Vertx vertx, VertxTestContext ctx) {
+        JsonObject filters = new JsonObject().put("status", "TODO");
+        when(organizationBackfill.isComplete()).thenReturn(true);
+        when(taskRepository.findByOrganization(TEST_ORG_ID, filters, 0, 20, FieldSet.ALL))
+                .thenReturn(Future.succeededFuture(List.of(createTestTask(randomId(), randomId()))));
+
+        taskManager.listTasks(null, TEST_ORG_ID, filters, 0, 20, FieldSet.ALL)
+                .onComplete(ctx.succeeding(tasks -> {
+                    ctx.verify(() -> {
+                        assertEquals(1, tasks.size());
+                        verifyNoInteractions(projectManager);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void countTasks_orgWide_fallsBackToProjectsBeforeBackfill(Vertx vertx, VertxTestContext ctx) {
+        JsonObject filters = new JsonObject();
+        List<String> projectIds = List.of(randomId(), randomId());
+        when(organizationBackfill.isComplete()).thenReturn(false);
+        when(projectManager.getProjectIds(TEST_ORG_ID)).thenReturn(Future.succeededFuture(projectIds));
+        when(taskRepository.countByProjects(TEST_ORG_ID, projectIds, filters)).thenReturn(Future.succeededFuture(7L));
+
+        taskManager.countTasks(null, TEST_ORG_ID, filters)
+                .onComplete(ctx.succeeding(count -> {
+                    ctx.verify(() -> {
+                        assertEquals(7L, count);
+                        verify(taskRepository, never()).countByOrganization(anyString(), any());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
     @Test
     void updateTask_success(Vertx vertx, VertxTestContext ctx) {
         String projectId = randomId();
         String taskId = randomId();
-        JsonObject taskDoc = createTestTask(taskId, projectId);
-        JsonObject updatedDoc = taskDoc.copy().put("title", "Updated Title");
-        Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
+        JsonObject updatedDoc = createTestTask(taskId, projectId)
+                .put("organizationId", TEST_ORG_ID)
+                .put("title", "Updated Title")
+                .put("version", 4L);
 
-        when(taskRepository.findById(taskId))
-                .thenReturn(Future.succeededFuture(taskDoc))
+        when(taskRepository.updateAndGet(eq(taskId), eq(TEST_ORG_ID),
+                eq(new JsonObject().put("organizationId", TEST_ORG_ID)), any(JsonObject.class), eq(3L)))
                 .thenReturn(Future.succeededFuture(updatedDoc));
-        when(projectManager.getProject(projectId, TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(project));
-        when(taskRepository.update(eq(taskId), any(JsonObject.class)))
-                .thenReturn(Future.succeededFuture());
 
         JsonObject body = new JsonObject().put("title", "Updated Title");
 
-        taskManager.updateTask(taskId, body, TEST_ORG_ID)
+        taskManager.updateTask(taskId, body, TEST_ORG_ID, 3L)
+                .onComplete(ctx.succeeding(task -> {
+                    ctx.verify(() -> {
+                        assertEquals("Updated Title", task.getTitle());
+                        assertEquals(4L, task.getVersion());
+                        verify(taskRepository, never()).findById(anyString(), anyString(), any(FieldSet.class));
+                        verifyNoInteractions(projectManager);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void updateTask_staleVersion(Vertx vertx, VertxTestContext ctx) {
+        String taskId = randomId();
+        JsonObject currentDoc = createTestTask(taskId, randomId())
+                .put("organizationId", TEST_ORG_ID)
+                .put("version", 5L);
+
+        when(taskRepository.updateAndGet(eq(taskId), eq(TEST_ORG_ID), any(JsonObject.class), any(JsonObject.class),
+                eq(3L)))
+                .thenReturn(Future.succeededFuture(null));
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(currentDoc));
+
+        taskManager.updateTask(taskId, new JsonObject().put("title", "Mine"), TEST_ORG_ID, 3L)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.CONFLICT, ((AppException) err).getErrorCode());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void updateTask_otherOrganization(Vertx vertx, VertxTestContext ctx) {
+        String taskId = randomId();
+        JsonObject foreignDoc = createTestTask(taskId, randomId()).put("organizationId", "org-002");
+
+        when(taskRepository.updateAndGet(eq(taskId), eq(TEST_ORG_ID), any(JsonObject.class), any(JsonObject.class),
+                isNull()))
+                .thenReturn(Future.succeededFuture(null));
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(foreignDoc));
+
+        taskManager.updateTask(taskId, new JsonObject().put("title", "Mine"), TEST_ORG_ID, null)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.FORBIDDEN, ((AppException) err).getErrorCode());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void updateTask_notYetBackfilled(Vertx vertx, VertxTestContext ctx) {
+        String projectId = randomId();
+        String taskId = randomId();
+        JsonObject legacyDoc = createTestTask(taskId, projectId);
+        JsonObject updatedDoc = legacyDoc.copy().put("organizationId", TEST_ORG_ID).put("title", "Updated Title");
+        Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
+        JsonObject legacyPredicate = new JsonObject().put("organizationId", new JsonObject().put("$exists", false));
+
+        when(taskRepository.updateAndGet(eq(taskId), eq(TEST_ORG_ID),
+                eq(new JsonObject().put("organizationId", TEST_ORG_ID)), any(JsonObject.class), isNull()))
+                .thenReturn(Future.succeededFuture(null));
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(legacyDoc));
+        when(projectManager.getProject(eq(projectId), eq(TEST_ORG_ID), any(FieldSet.class)))
+                .thenReturn(Future.succeededFuture(project));
+        when(taskRepository.updateAndGet(eq(taskId), eq(TEST_ORG_ID), eq(legacyPredicate), any(JsonObject.class),
+                isNull()))
+                .thenReturn(Future.succeededFuture(updatedDoc));
+
+        taskManager.updateTask(taskId, new JsonObject().put("title", "Updated Title"), TEST_ORG_ID, null)
                 .onComplete(ctx.succeeding(task -> {
                     ctx.verify(() -> {
                         assertEquals("Updated Title", task.getTitle());
-                        verify(taskRepository).update(eq(taskId), any(JsonObject.class));
+                        ArgumentCaptor<JsonObject> update = ArgumentCaptor.forClass(JsonObject.class);
+                        verify(taskRepository).updateAndGet(eq(taskId), eq(TEST_ORG_ID), eq(legacyPredicate),
+                                update.capture(), isNull());
+                        assertEquals(TEST_ORG_ID, update.getValue().getString("organizationId"));
                     });
                     ctx.completeNow();
                 }));
@@ -165,10 +401,10 @@ class TaskManagerTest extends TestBase {
         JsonObject taskDoc = createTestTask(taskId, projectId);
         Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
 
-        when(taskRepository.findById(taskId)).thenReturn(Future.succeededFuture(taskDoc));
-        when(projectManager.getProject(projectId, TEST_ORG_ID))
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(taskDoc));
+        when(projectManager.getProject(eq(projectId), eq(TEST_ORG_ID), any(FieldSet.class)))
                 .thenReturn(Future.succeededFuture(project));
-        when(taskRepository.softDelete(taskId)).thenReturn(Future.succeededFuture());
+        when(taskRepository.softDelete(taskId, TEST_ORG_ID)).thenReturn(Future.succeededFuture(true));
 
         taskManager.deleteTask(taskId, TEST_ORG_ID)
                 .onComplete(ctx.succeeding(v -> {
@@ -183,19 +419,15 @@ class TaskManagerTest extends TestBase {
     void updateStatus_success(Vertx vertx, VertxTestContext ctx) {
         String projectId = randomId();
         String taskId = randomId();
-        JsonObject taskDoc = createTestTask(taskId, projectId);
-        JsonObject updatedDoc = taskDoc.copy().put("status", "IN_PROGRESS");
-        Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
+        JsonObject updatedDoc = createTestTask(taskId, projectId)
+                .put("organizationId", TEST_ORG_ID)
+                .put("status", "IN_PROGRESS");
 
-        when(taskRepository.findById(taskId))
-                .thenReturn(Future.succeededFuture(taskDoc))
+        when(taskRepository.updateAndGet(eq(taskId), eq(TEST_ORG_ID), any(JsonObject.class),
+                eq(new JsonObject().put("status", "IN_PROGRESS")), isNull()))
                 .thenReturn(Future.succeededFuture(updatedDoc));
-        when(projectManager.getProject(projectId, TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(project));
-        when(taskRepository.update(eq(taskId), any(JsonObject.class)))
-                .thenReturn(Future.succeededFuture());
 
-        taskManager.updateStatus(taskId, "IN_PROGRESS", TEST_ORG_ID)
+        taskManager.updateStatus(taskId, "IN_PROGRESS", TEST_ORG_ID, null)
                 .onComplete(ctx.succeeding(task -> {
                     ctx.verify(() -> {
                         assertEquals(Task.Status.IN_PROGRESS, task.getStatus());
@@ -206,20 +438,105 @@ class TaskManagerTest extends TestBase {
 
     @Test
     void updateStatus_invalidStatus(Vertx vertx, VertxTestContext ctx) {
-        String projectId = randomId();
         String taskId = randomId();
-        JsonObject taskDoc = createTestTask(taskId, projectId);
-        Project project = Project.fromJson(createTestProject(projectId, TEST_ORG_ID));
-
-        when(taskRepository.findById(taskId)).thenReturn(Future.succeededFuture(taskDoc));
-        when(projectManager.getProject(projectId, TEST_ORG_ID))
-                .thenReturn(Future.succeededFuture(project));
 
-        taskManager.updateStatus(taskId, "INVALID_STATUS", TEST_ORG_ID)
+        taskManager.updateStatus(taskId, "INVALID_STATUS", TEST_ORG_ID, null)
                 .onComplete(ctx.failing(err -> {
                     ctx.verify(() -> {
                         assertInstanceOf(AppException.class, err);
                         assertEquals(ErrorCode.VALIDATION_ERROR, ((AppException) err).getErrorCode());
+                        verifyNoInteractions(taskRepository);
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void updateStatusCoalesced_success(Vertx vertx, VertxTestContext ctx) {
+        String taskId = randomId();
+
+        when(taskRepository.updateCoalesced(eq(taskId), eq(TEST_ORG_ID),
+                eq(new JsonObject().put("organizationId", TEST_ORG_ID)),
+                eq(new JsonObject().put("status", "DONE")), eq(2L)))
+                .thenReturn(Future.succeededFuture(true));
+
+        taskManager.updateStatusCoalesced(taskId, "DONE", TEST_ORG_ID, 2L)
+                .onComplete(ctx.succeeding(v -> {
+                    ctx.verify(() -> verify(taskRepository, never())
+                            .findById(anyString(), anyString(), any(FieldSet.class)));
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void updateStatusCoalesced_staleVersion(Vertx vertx, VertxTestContext ctx) {
+        String taskId = randomId();
+        JsonObject currentDoc = createTestTask(taskId, randomId())
+                .put("organizationId", TEST_ORG_ID)
+                .put("version", 5L);
+
+        when(taskRepository.updateCoalesced(eq(taskId), eq(TEST_ORG_ID), any(JsonObject.class), any(JsonObject.class),
+                eq(3L)))
+                .thenReturn(Future.succeededFuture(false));
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(currentDoc));
+
+        taskManager.updateStatusCoalesced(taskId, "DONE", TEST_ORG_ID, 3L)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.CONFLICT, ((AppException) err).getErrorCode());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void patchTask_appliesWithoutReading(Vertx vertx, VertxTestContext ctx) {
+        String taskId = randomId();
+        JsonObject updatedDoc = createTestTask(taskId, randomId())
+                .put("organizationId", TEST_ORG_ID)
+                .put("tags", new JsonArray().add("urgent"));
+        JsonArray patch = new JsonArray()
+                .add(new JsonObject().put("op", "test").put("path", "/version").put("value", 2))
+                .add(new JsonObject().put("op", "add").put("path", "/tags/-").put("value", "urgent"));
+
+        ArgumentCaptor<MongoUpdate> update = ArgumentCaptor.forClass(MongoUpdate.class);
+        when(taskRepository.updateAndGet(eq(taskId), eq(TEST_ORG_ID),
+                eq(new JsonObject().put("organizationId", TEST_ORG_ID)), update.capture(), eq(2L)))
+                .thenReturn(Future.succeededFuture(updatedDoc));
+
+        taskManager.patchTask(taskId, patch, TEST_ORG_ID)
+                .onComplete(ctx.succeeding(task -> {
+                    ctx.verify(() -> {
+                        assertEquals(List.of("urgent"), task.getTags());
+                        assertTrue(update.getValue().toJson().containsKey("$addToSet"));
+                        verify(taskRepository, never()).findById(anyString(), anyString(), any(FieldSet.class));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void patchTask_failedTestIsConflict(Vertx vertx, VertxTestContext ctx) {
+        String taskId = randomId();
+        JsonObject currentDoc = createTestTask(taskId, randomId())
+                .put("organizationId", TEST_ORG_ID)
+                .put("status", "DONE");
+        JsonArray patch = new JsonArray()
+                .add(new JsonObject().put("op", "test").put("path", "/status").put("value", "TODO"))
+                .add(new JsonObject().put("op", "replace").put("path", "/status").put("value", "IN_PROGRESS"));
+
+        when(taskRepository.updateAndGet(eq(taskId), eq(TEST_ORG_ID),
+                eq(new JsonObject().put("status", "TODO").put("organizationId", TEST_ORG_ID)),
+                any(MongoUpdate.class), isNull()))
+                .thenReturn(Future.succeededFuture(null));
+        when(taskRepository.findById(taskId, TEST_ORG_ID, FieldSet.ALL)).thenReturn(Future.succeededFuture(currentDoc));
+
+        taskManager.patchTask(taskId, patch, TEST_ORG_ID)
+                .onComplete(ctx.failing(err -> {
+                    ctx.verify(() -> {
+                        assertInstanceOf(AppException.class, err);
+                        assertEquals(ErrorCode.CONFLICT, ((AppException) err).getErrorCode());
                     });
                     ctx.completeNow();
                 }));
@@ -0,0 +1,125 @@
+package com.teamhub.managers;
+
+import com.teamhub.TestBase;
+import com.teamhub.repositories.RevokedTokenRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class TokenRevocationManagerTest extends TestBase {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationManager tokenRevocationManager;
+
+    @BeforeEach
+    void setUp(Vertx vertx) {
+        tokenRevocationManager = new TokenRevocationManager(vertx, revokedTokenRepository);
+    }
+
+    @Test
+    void isRevoked_unknownToken() {
+        assertFalse(tokenRevocationManager.isRevoked("jti-1", TEST_USER_ID, System.currentTimeMillis()));
+    }
+
+    @Test
+    void revokeToken_revokesOnlyThatToken(Vertx vertx, VertxTestContext ctx) {
+        when(revokedTokenRepository.insert(any(JsonObject.class)))
+                .thenReturn(Future.succeededFuture("rev-1"));
+
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        tokenRevocationManager.revokeToken("jti-1", TEST_USER_ID, expiresAt)
+                .onComplete(ctx.succeeding(v -> {
+                    ctx.verify(() -> {
+                        long now = System.currentTimeMillis();
+                        assertTrue(tokenRevocationManager.isRevoked("jti-1", TEST_USER_ID, now));
+                        assertFalse(tokenRevocationManager.isRevoked("jti-2", TEST_USER_ID, now));
+                        verify(revokedTokenRepository).insert(any(JsonObject.class));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void revokeSubject_revokesTokensIssuedBefore(Vertx vertx, VertxTestContext ctx) {
+        when(revokedTokenRepository.insert(any(JsonObject.class)))
+                .thenReturn(Future.succeededFuture("rev-1"));
+
+        long issuedBefore = System.currentTimeMillis() - 1000;
+        tokenRevocationManager.revokeSubject(TEST_USER_ID)
+                .onComplete(ctx.succeeding(v -> {
+                    ctx.verify(() -> {
+                        assertTrue(tokenRevocationManager.isRevoked("any-jti", TEST_USER_ID, issuedBefore));
+                        assertFalse(tokenRevocationManager.isRevoked("any-jti", TEST_USER_ID,
+                                System.currentTimeMillis() + 60_000));
+                        assertFalse(tokenRevocationManager.isRevoked("any-jti", "other-user", issuedBefore));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void isRevoked_coversTokensIssuedInTheSameSecond() {
+        long second = (System.currentTimeMillis() / 1000) * 1000;
+        long revokedAt = second + 500;
+        tokenRevocationManager.apply(new JsonObject()
+                .put("type", "SUBJECT")
+                .put("key", TEST_USER_ID)
+                .put("revokedAt", revokedAt)
+                .put("expiresAt", revokedAt + 60_000));
+
+        // iat is truncated to the second, so a token issued just before the revoke reads as issued at
+        // the start of it
+        assertTrue(tokenRevocationManager.isRevoked("any-jti", TEST_USER_ID, second));
+        assertTrue(tokenRevocationManager.isRevoked("any-jti", TEST_USER_ID, second - 1000));
+        assertFalse(tokenRevocationManager.isRevoked("any-jti", TEST_USER_ID, second + 1000));
+    }
+
+    @Test
+    void refresh_appliesRemoteRevocations(Vertx vertx, VertxTestContext ctx) {
+        JsonObject remote = new JsonObject()
+                .put("type", "TOKEN")
+                .put("key", "remote-jti")
+                .put("subject", TEST_USER_ID)
+                .put("revokedAt", System.currentTimeMillis())
+                .put("expiresAt", System.currentTimeMillis() + 60_000);
+
+        when(revokedTokenRepository.findRevokedSince(anyLong(), anyLong(), anyInt()))
+                .thenReturn(Future.succeededFuture(List.of(remote)));
+
+        tokenRevocationManager.refresh()
+                .onComplete(ctx.succeeding(v -> {
+                    ctx.verify(() -> assertTrue(tokenRevocationManager.isRevoked(
+                            "remote-jti", TEST_USER_ID, System.currentTimeMillis())));
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void apply_ignoresExpiredEntries() {
+        long now = System.currentTimeMillis();
+        tokenRevocationManager.apply(new JsonObject()
+                .put("type", "TOKEN")
+                .put("key", "expired")
+                .put("revokedAt", now - 10_000)
+                .put("expiresAt", now - 1));
+
+        assertEquals(0, tokenRevocationManager.size());
+        assertFalse(tokenRevocationManager.isRevoked("expired", null, now));
+    }
+}
@@ -0,0 +1,178 @@
+package com.teamhub.managers;
+
+import com.teamhub.TestBase;
+import com.teamhub.common.AppException;
+import com.teamhub.common.ErrorCode;
+import com.teamhub.common.mongo.IndexManager;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.migrations.ProjectMembershipMigration;
+import com.teamhub.repositories.BillingPlanRepository;
+import com.teamhub.repositories.MemberRepository;
+import com.teamhub.repositories.OrganizationRepository;
+import com.teamhub.repositories.ProjectMembershipRepository;
+import com.teamhub.repositories.ProjectRepository;
+import com.teamhub.repositories.TaskArchiveRepository;
+import com.teamhub.repositories.TaskRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Fires concurrent creates at a real mongod and checks that plan limits are never exceeded and that the
+ * usage counter always agrees with the number of documents actually stored.
+ *
+ * Needs a local mongod, so it only runs under the {@code mongo-integration} profile:
+ * {@code mvn test -Pmongo-integration -Dtest=UsageLimitConcurrencyTest}.
+ */
+@EnabledIfSystemProperty(named = "teamhub.mongoIntegration", matches = "true")
+class UsageLimitConcurrencyTest extends TestBase {
+
+    private static final String DATABASE = "teamhub_usage_limits";
+    private static final long TIMEOUT_SECONDS = 60;
+    private static final int CONCURRENT_REQUESTS = 100;
+    private static final int MAX_MEMBERS = 7;
+    private static final int MAX_PROJECTS = 3;
+
+    private static Vertx vertx;
+    private static MongoClient mongoClient;
+    private static List<MongoRepository> repositories;
+
+    private static OrganizationRepository organizationRepository;
+    private static ProjectRepository projectRepository;
+    private static MemberRepository memberRepository;
+    private static BillingManager billingManager;
+    private static ProjectManager projectManager;
+    private static MemberManager memberManager;
+
+    @BeforeAll
+    static void connect() {
+        vertx = Vertx.vertx();
+        mongoClient = MongoClient.createShared(vertx, new JsonObject()
+                .put("connection_string", System.getProperty("teamhub.mongoIntegration.mongo", "mongodb://localhost:27017"))
+                .put("db_name", DATABASE), "usage-limits");
+        organizationRepository = new OrganizationRepository(mongoClient);
+        projectRepository = new ProjectRepository(mongoClient);
+        memberRepository = new MemberRepository(mongoClient);
+        BillingPlanRepository billingPlanRepository = new BillingPlanRepository(mongoClient);
+        ProjectMembershipRepository membershipRepository = new ProjectMembershipRepository(mongoClient);
+        repositories = List.of(organizationRepository, projectRepository, memberRepository, billingPlanRepository,
+                membershipRepository);
+
+        billingManager = new BillingManager(billingPlanRepository, organizationRepository, memberRepository, projectRepository);
+        ProjectMembershipManager membershipManager = new ProjectMembershipManager(vertx, membershipRepository,
+                projectRepository, memberRepository, new ProjectMembershipMigration(membershipRepository));
+        memberManager = new MemberManager(memberRepository, billingManager, mock(PermissionManager.class),
+                membershipManager);
+        projectManager = new ProjectManager(projectRepository, billingManager, memberManager, membershipManager,
+                new TaskArchiveRepository(mongoClient, new TaskRepository(mongoClient)));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (vertx != null) {
+            await(vertx.close());
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        for (MongoRepository repository : repositories) {
+            await(mongoClient.dropCollection(repository.getCollectionName()).recover(err -> Future.succeededFuture()));
+        }
+        await(new IndexManager(mongoClient, repositories).ensureIndexes());
+        await(mongoClient.insert("billing_plans", createTestBillingPlan("FREE", MAX_MEMBERS, MAX_PROJECTS)));
+        await(mongoClient.insert("organizations", createTestOrganization(TEST_ORG_ID)
+                .put(OrganizationRepository.MEMBER_COUNT, 0)
+                .put(OrganizationRepository.PROJECT_COUNT, 0)
+                .put(OrganizationRepository.USAGE_SEEDED_AT, MongoDates.now())));
+    }
+
+    @Test
+    void concurrentProjectCreatesStopAtLimit() {
+        List<Future<?>> creates = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            creates.add(projectManager.createProject(new JsonObject().put("name", "Project " + i),
+                    TEST_USER_ID, TEST_ORG_ID));
+        }
+
+        assertEquals(MAX_PROJECTS, settle(creates));
+        assertEquals(MAX_PROJECTS, await(projectRepository.countByOrganization(TEST_ORG_ID)));
+        assertEquals(MAX_PROJECTS, counter(OrganizationRepository.PROJECT_COUNT));
+    }
+
+    @Test
+    void concurrentInvitesNeverExceedLimitAndReleaseDuplicates() {
+        List<Future<?>> invites = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            // Every other invite repeats an address, so the unique index rejects some after reserving
+            invites.add(memberManager.inviteMember(new JsonObject().put("email", "user" + (i / 2) + "@teamhub.com"),
+                    TEST_ORG_ID, TEST_USER_ID));
+        }
+
+        // A rejected duplicate may briefly hold a slot that a unique invite was refused for, so fewer than
+        // MAX_MEMBERS can succeed; the counter must still match what was stored
+        long created = settle(invites);
+        assertTrue(created > 0 && created <= MAX_MEMBERS, "Created " + created);
+        assertEquals(created, await(memberRepository.countByOrganization(TEST_ORG_ID)));
+        assertEquals(created, counter(OrganizationRepository.MEMBER_COUNT));
+    }
+
+    @Test
+    void deleteFreesSlot() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < MAX_PROJECTS; i++) {
+            ids.add(await(projectManager.createProject(new JsonObject().put("name", "Project " + i),
+                    TEST_USER_ID, TEST_ORG_ID)).getId());
+        }
+
+        // Deleting twice must only release once
+        await(Future.join(projectManager.deleteProject(ids.get(0), TEST_ORG_ID),
+                projectManager.deleteProject(ids.get(0), TEST_ORG_ID)).otherwiseEmpty());
+        assertEquals(MAX_PROJECTS - 1, counter(OrganizationRepository.PROJECT_COUNT));
+
+        await(projectManager.createProject(new JsonObject().put("name", "Replacement"),
+                TEST_USER_ID, TEST_ORG_ID));
+        assertEquals(MAX_PROJECTS, counter(OrganizationRepository.PROJECT_COUNT));
+    }
+
+    /**
+     * Waits for every future and returns how many succeeded; failures must be plan-limit or duplicate rejections.
+     */
+    private static long settle(List<Future<?>> futures) {
+        await(Future.join(new ArrayList<>(futures)).otherwiseEmpty());
+        for (Future<?> future : futures) {
+            if (future.failed()) {
+                AppException err = assertInstanceOf(AppException.class, future.cause());
+                assertTrue(err.getErrorCode() == ErrorCode.FORBIDDEN || err.getErrorCode() == ErrorCode.CONFLICT,
+                        "Unexpected failure: " + err.getMessage());
+            }
+        }
+        return futures.stream().filter(Future::succeeded).count();
+    }
+
+    private static long counter(String field) {
+        return await(organizationRepository.findById(TEST_ORG_ID)).getLong(field);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.toCompletionStage().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            return fail(e);
+        }
+    }
+}
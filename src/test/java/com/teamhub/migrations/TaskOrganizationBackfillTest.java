@@ -0,0 +1,78 @@
+package com.teamhub.migrations;
+
+import com.teamhub.TestBase;
+import com.teamhub.repositories.ProjectRepository;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+class TaskOrganizationBackfillTest extends TestBase {
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    private TaskOrganizationBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        backfill = new TaskOrganizationBackfill(projectRepository);
+    }
+
+    @Test
+    void apply_copiesProjectOrganizationOntoTasks(VertxTestContext ctx) {
+        when(projectRepository.findOrganizations(List.of("project-a", "project-b"))).thenReturn(Future.succeededFuture(List.of(
+                new JsonObject().put("_id", "project-a").put("organizationId", TEST_ORG_ID),
+                new JsonObject().put("_id", "project-b").put("organizationId", "org-002"))));
+
+        backfill.apply(List.of(
+                new JsonObject().put("_id", "task-1").put("projectId", "project-a"),
+                new JsonObject().put("_id", "task-2").put("projectId", "project-b"),
+                new JsonObject().put("_id", "task-3").put("projectId", "project-a")))
+                .onComplete(ctx.succeeding(operations -> {
+                    ctx.verify(() -> {
+                        assertEquals(3, operations.size());
+                        BulkOperation first = operations.get(0);
+                        assertEquals("task-1", first.getFilter().getString("_id"));
+                        assertFalse(first.getFilter().getJsonObject("organizationId").getBoolean("$exists"));
+                        assertEquals(TEST_ORG_ID,
+                                first.getDocument().getJsonObject("$set").getString("organizationId"));
+                        assertEquals("org-002",
+                                operations.get(1).getDocument().getJsonObject("$set").getString("organizationId"));
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void apply_skipsTasksWithoutKnownProject(VertxTestContext ctx) {
+        when(projectRepository.findOrganizations(List.of("project-gone"))).thenReturn(Future.succeededFuture(List.of()));
+
+        backfill.apply(List.of(
+                new JsonObject().put("_id", "task-1").put("projectId", "project-gone"),
+                new JsonObject().put("_id", "task-2")))
+                .onComplete(ctx.succeeding(operations -> {
+                    ctx.verify(() -> assertTrue(operations.isEmpty()));
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void onComplete_marksBackfillComplete() {
+        assertFalse(backfill.isComplete());
+        backfill.onComplete();
+        assertTrue(backfill.isComplete());
+    }
+}
@@ -0,0 +1,499 @@
+package com.teamhub.repositories;
+
+import com.teamhub.common.mongo.IndexManager;
+import com.teamhub.common.mongo.KeysetPage;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.MongoRepository;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.models.Project;
+import com.teamhub.models.Task;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.AdditionalAnswers;
+import org.mockito.invocation.Invocation;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs repository queries against a real mongod loaded with generated data and checks their
+ * explain plans: no collection scans, no in-memory sorts, and a bounded number of keys/documents
+ * examined per document returned.
+ *
+ * Needs a local mongod, so it only runs under the {@code query-plans} profile:
+ * {@code mvn test -Pquery-plans -Dtest=QueryPlanTest}. The database is dropped and regenerated on
+ * every run. Queries are captured by wrapping the client, so each check covers exactly what the
+ * repository method sends.
+ */
+@EnabledIfSystemProperty(named = "teamhub.queryPlans", matches = "true")
+class QueryPlanTest {
+
+    private static final String DATABASE = "teamhub_query_plans";
+    private static final long TIMEOUT_SECONDS = 120;
+
+    // Keys or documents examined per document returned before a query is considered unselective
+    private static final double MAX_EXAMINED_PER_RETURNED = 5.0;
+
+    private static final int ORGANIZATIONS = 10;
+    private static final int PROJECTS_PER_ORG = 20;
+    private static final int TASKS_PER_PROJECT = 100;
+    private static final int MEMBERS_PER_ORG = 100;
+    private static final int PAGE_SIZE = 20;
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String[] STATUSES = {"TODO", "IN_PROGRESS", "IN_REVIEW", "DONE"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "URGENT"};
+    private static final String[] ROLES = {"ADMIN", "MEMBER", "MEMBER", "VIEWER"};
+    private static final String[] WORDS = {"api", "billing", "deploy", "docs", "login",
+            "mobile", "onboarding", "reports", "search", "webhooks"};
+
+    private static Vertx vertx;
+    private static MongoClient mongoClient;
+    private static MongoClient recordingClient;
+
+    private static TaskRepository taskRepository;
+    private static ProjectRepository projectRepository;
+    private static MemberRepository memberRepository;
+    private static ProjectMembershipRepository projectMembershipRepository;
+    private static OrganizationRepository organizationRepository;
+    private static BillingPlanRepository billingPlanRepository;
+    private static RevokedTokenRepository revokedTokenRepository;
+
+    @BeforeAll
+    static void loadData() {
+        vertx = Vertx.vertx();
+        mongoClient = MongoClient.createShared(vertx, new JsonObject()
+                .put("connection_string", System.getProperty("teamhub.queryPlans.mongo", "mongodb://localhost:27017"))
+                .put("db_name", DATABASE), "query-plans");
+        recordingClient = mock(MongoClient.class, AdditionalAnswers.delegatesTo(mongoClient));
+
+        taskRepository = new TaskRepository(recordingClient);
+        projectRepository = new ProjectRepository(recordingClient);
+        memberRepository = new MemberRepository(recordingClient);
+        projectMembershipRepository = new ProjectMembershipRepository(recordingClient);
+        organizationRepository = new OrganizationRepository(recordingClient);
+        billingPlanRepository = new BillingPlanRepository(recordingClient);
+        revokedTokenRepository = new RevokedTokenRepository(recordingClient);
+        List<MongoRepository> repositories = List.of(taskRepository, projectRepository, memberRepository,
+                projectMembershipRepository, organizationRepository, billingPlanRepository, revokedTokenRepository);
+
+        for (MongoRepository repository : repositories) {
+            await(mongoClient.dropCollection(repository.getCollectionName()).recover(err -> Future.succeededFuture()));
+        }
+        generate();
+        JsonObject report = await(new IndexManager(mongoClient, repositories).ensureIndexes());
+        report.forEach(entry -> assertFalse(((JsonObject) entry.getValue()).getBoolean("failed"),
+                "Index creation failed on " + entry.getKey()));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (vertx != null) {
+            await(vertx.close());
+        }
+    }
+
+    @Test
+    void taskQueries() {
+        String organizationId = organizationId(0);
+        String projectId = projectId(0, 0);
+        List<String> orgProjects = new ArrayList<>();
+        for (int p = 0; p < PROJECTS_PER_ORG; p++) {
+            orgProjects.add(projectId(0, p));
+        }
+
+        assertPlans("tasks.findByProject",
+                () -> taskRepository.findByProject(organizationId, projectId, 0, PAGE_SIZE, Task.LIST_FIELDS));
+        assertKeysetPlans("tasks.findByProject(cursor)",
+                after -> taskRepository.findByProject(organizationId, projectId, after, PAGE_SIZE, Task.LIST_FIELDS));
+        assertPlans("tasks.countByProject", () -> taskRepository.countByProject(organizationId, projectId));
+        assertPlans("tasks.findByAssignee",
+                () -> taskRepository.findByAssignee(organizationId, memberId(0, 1), 0, PAGE_SIZE));
+        assertKeysetPlans("tasks.findByAssignee(cursor)",
+                after -> taskRepository.findByAssignee(organizationId, memberId(0, 1), after, PAGE_SIZE));
+        assertPlans("tasks.findByStatus",
+                () -> taskRepository.findByStatus(organizationId, projectId, "TODO", 0, PAGE_SIZE));
+        assertKeysetPlans("tasks.findByStatus(cursor)",
+                after -> taskRepository.findByStatus(organizationId, projectId, "TODO", after, PAGE_SIZE));
+        assertPlans("tasks.findByProjectAndStatus",
+                () -> taskRepository.findByProjectAndStatus(organizationId, projectId, "DONE", 0, PAGE_SIZE));
+        assertKeysetPlans("tasks.findByProjectAndStatus(cursor)",
+                after -> taskRepository.findByProjectAndStatus(organizationId, projectId, "DONE", after, PAGE_SIZE));
+        assertPlans("tasks.findByDateRange",
+                () -> taskRepository.findByDateRange(organizationId, projectId, "2025-01-01", "2025-06-30",
+                        0, PAGE_SIZE));
+        assertKeysetPlans("tasks.findByDateRange(cursor)",
+                after -> taskRepository.findByDateRange(organizationId, projectId, "2025-01-01", "2025-06-30",
+                        after, PAGE_SIZE));
+
+        assertPlans("tasks.findByOrganization",
+                () -> taskRepository.findByOrganization(organizationId, new JsonObject(), 0, PAGE_SIZE, Task.LIST_FIELDS));
+        assertKeysetPlans("tasks.findByOrganization(cursor)",
+                after -> taskRepository.findByOrganization(organizationId, new JsonObject(), after, PAGE_SIZE, Task.LIST_FIELDS));
+        assertPlans("tasks.findByOrganization(status)", () -> taskRepository.findByOrganization(
+                organizationId, new JsonObject().put("status", "IN_REVIEW"), 0, PAGE_SIZE, Task.LIST_FIELDS));
+        // Priority is not indexed: roughly one in four tasks read through the org index matches
+        assertPlans("tasks.findByOrganization(priority)", 8.0, () -> taskRepository.findByOrganization(
+                organizationId, new JsonObject().put("priority", "URGENT"), 0, PAGE_SIZE, Task.LIST_FIELDS));
+        // Free-text search is an unindexed regex by design; it only has to stay within the org's tasks
+        assertPlans("tasks.findByOrganization(search)", 20.0, () -> taskRepository.findByOrganization(
+                organizationId, new JsonObject().put("search", "billing"), 0, PAGE_SIZE, Task.LIST_FIELDS));
+        assertPlans("tasks.countByOrganization",
+                () -> taskRepository.countByOrganization(organizationId, new JsonObject().put("status", "TODO")));
+        // Pre-backfill fallback
+        assertPlans("tasks.findByProjects",
+                () -> taskRepository.findByProjects(organizationId, orgProjects, new JsonObject(), 0, PAGE_SIZE,
+                        Task.LIST_FIELDS));
+        assertPlans("tasks.findById", () -> taskRepository.findById(taskId(0, 0, 0), organizationId));
+    }
+
+    @Test
+    void projectQueries() {
+        String organizationId = organizationId(0);
+
+        assertPlans("projects.findByOrganization",
+                () -> projectRepository.findByOrganization(organizationId, 0, PAGE_SIZE, Project.LIST_FIELDS));
+        assertKeysetPlans("projects.findByOrganization(cursor)",
+                after -> projectRepository.findByOrganization(organizationId, after, 5, Project.LIST_FIELDS));
+        assertPlans("projects.countByOrganization", () -> projectRepository.countByOrganization(organizationId));
+        assertPlans("projects.findByStatus",
+                () -> projectRepository.findByStatus(organizationId, "ACTIVE", 0, PAGE_SIZE));
+        assertKeysetPlans("projects.findByStatus(cursor)",
+                after -> projectRepository.findByStatus(organizationId, "ACTIVE", after, 5));
+        assertPlans("projects.findById", () -> projectRepository.findById(projectId(0, 0), organizationId));
+    }
+
+    @Test
+    void projectMembershipQueries() {
+        String organizationId = organizationId(0);
+        String projectId = projectId(0, 0);
+
+        assertPlans("projectMemberships.findByProject",
+                () -> projectMembershipRepository.findByProject(organizationId, projectId, 0, PAGE_SIZE));
+        assertKeysetPlans("projectMemberships.findByProject(cursor)",
+                after -> projectMembershipRepository.findByProject(organizationId, projectId, after, 5));
+        assertPlans("projectMemberships.countByProject",
+                () -> projectMembershipRepository.countByProject(organizationId, projectId));
+        assertPlans("projectMemberships.findMemberIds",
+                () -> projectMembershipRepository.findMemberIds(organizationId, projectId));
+        assertPlans("projectMemberships.findProjectIds",
+                () -> projectMembershipRepository.findProjectIds(organizationId, memberId(0, 0)));
+    }
+
+    @Test
+    void memberQueries() {
+        String organizationId = organizationId(0);
+
+        assertPlans("members.findByOrganization",
+                () -> memberRepository.findByOrganization(organizationId, 0, PAGE_SIZE));
+        assertKeysetPlans("members.findByOrganization(cursor)",
+                after -> memberRepository.findByOrganization(organizationId, after, PAGE_SIZE));
+        assertPlans("members.countByOrganization", () -> memberRepository.countByOrganization(organizationId));
+        assertPlans("members.findByEmail", () -> memberRepository.findByEmail(email(0, 3), organizationId));
+        assertPlans("members.findByRole", () -> memberRepository.findByRole(organizationId, "MEMBER", 0, PAGE_SIZE));
+        assertKeysetPlans("members.findByRole(cursor)",
+                after -> memberRepository.findByRole(organizationId, "MEMBER", after, PAGE_SIZE));
+        assertPlans("members.findById", () -> memberRepository.findById(memberId(0, 0), organizationId));
+    }
+
+    @Test
+    void lookupQueries() {
+        assertPlans("organizations.findBySlug", () -> organizationRepository.findBySlug("org-3"));
+        assertPlans("billing_plans.findByTier", () -> billingPlanRepository.findByTier("PRO"));
+        long now = System.currentTimeMillis();
+        assertPlans("revoked_tokens.findRevokedSince",
+                () -> revokedTokenRepository.findRevokedSince(now - 60_000, now, 5000));
+    }
+
+    // -- Plan checks --
+
+    private void assertPlans(String name, Supplier<Future<?>> call) {
+        assertPlans(name, MAX_EXAMINED_PER_RETURNED, call);
+    }
+
+    private void assertPlans(String name, double maxExaminedPerReturned, Supplier<Future<?>> call) {
+        clearInvocations(recordingClient);
+        await(call.get());
+        List<JsonObject> commands = capturedCommands();
+        assertFalse(commands.isEmpty(), name + ": no query was captured");
+        for (JsonObject command : commands) {
+            QueryPlan plan = QueryPlan.of(await(mongoClient.runCommand("explain", new JsonObject()
+                    .put("explain", command)
+                    .put("verbosity", "executionStats"))));
+            String context = name + " " + command.encode() + " -> " + plan;
+            assertFalse(plan.stages().contains("COLLSCAN"), "Collection scan: " + context);
+            assertFalse(plan.stages().contains("SORT"), "In-memory sort: " + context);
+            if (!command.containsKey("count")) {
+                assertTrue(plan.examinedPerReturned() <= maxExaminedPerReturned,
+                        "Examined/returned over budget " + maxExaminedPerReturned + ": " + context);
+            }
+        }
+    }
+
+    /**
+     * Checks both the first page and the page after it, since the cursor page adds the seek predicate.
+     */
+    private void assertKeysetPlans(String name,
+                                   Function<PageCursor, Future<KeysetPage<JsonObject>>> call) {
+        assertPlans(name + " first page", () -> call.apply(null));
+        KeysetPage<JsonObject> first = await(call.apply(null));
+        assertNotNull(first.nextCursor(), name + ": generated data should span more than one page");
+        assertPlans(name + " next page", () -> call.apply(PageCursor.decode(first.nextCursor())));
+    }
+
+    /**
+     * Rebuilds the server-side command for every read the repository issued since the last clear.
+     */
+    private List<JsonObject> capturedCommands() {
+        List<JsonObject> commands = new ArrayList<>();
+        for (Invocation invocation : mockingDetails(recordingClient).getInvocations()) {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "findWithOptions" -> {
+                    FindOptions options = (FindOptions) args[2];
+                    JsonObject find = new JsonObject()
+                            .put("find", args[0])
+                            .put("filter", args[1]);
+                    if (options.getSort() != null && !options.getSort().isEmpty()) {
+                        find.put("sort", options.getSort());
+                    }
+                    if (options.getSkip() > 0) {
+                        find.put("skip", options.getSkip());
+                    }
+                    if (options.getLimit() > 0) {
+                        find.put("limit", options.getLimit());
+                    }
+                    if (options.getHintString() != null && !options.getHintString().isEmpty()) {
+                        find.put("hint", options.getHintString());
+                    } else if (options.getHint() != null && !options.getHint().isEmpty()) {
+                        find.put("hint", options.getHint());
+                    }
+                    commands.add(find);
+                }
+                case "find" -> commands.add(new JsonObject()
+                        .put("find", args[0])
+                        .put("filter", args[1]));
+                case "findOne" -> commands.add(new JsonObject()
+                        .put("find", args[0])
+                        .put("filter", args[1])
+                        .put("limit", 1));
+                case "count" -> commands.add(new JsonObject()
+                        .put("count", args[0])
+                        .put("query", args[1]));
+                default -> {
+                    // Writes and metadata calls are not part of the read-path budget
+                }
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * The parts of an {@code executionStats} explain the checks need.
+     */
+    record QueryPlan(List<String> stages, long keysExamined, long docsExamined, long returned) {
+
+        static QueryPlan of(JsonObject explain) {
+            JsonObject winning = explain.getJsonObject("queryPlanner").getJsonObject("winningPlan");
+            // Slot-based engine plans nest the classic plan tree under queryPlan
+            if (winning.containsKey("queryPlan")) {
+                winning = winning.getJsonObject("queryPlan");
+            }
+            List<String> stages = new ArrayList<>();
+            collectStages(winning, stages);
+            JsonObject stats = explain.getJsonObject("executionStats", new JsonObject());
+            return new QueryPlan(stages,
+                    stats.getLong("totalKeysExamined", 0L),
+                    stats.getLong("totalDocsExamined", 0L),
+                    stats.getLong("nReturned", 0L));
+        }
+
+        private static void collectStages(JsonObject stage, List<String> out) {
+            if (stage == null) {
+                return;
+            }
+            out.add(stage.getString("stage", "").toUpperCase());
+            collectStages(stage.getJsonObject("inputStage"), out);
+            collectStages(stage.getJsonObject("innerStage"), out);
+            collectStages(stage.getJsonObject("outerStage"), out);
+            JsonArray inputs = stage.getJsonArray("inputStages");
+            if (inputs != null) {
+                for (int i = 0; i < inputs.size(); i++) {
+                    collectStages(inputs.getJsonObject(i), out);
+                }
+            }
+        }
+
+        double examinedPerReturned() {
+            return (double) Math.max(keysExamined, docsExamined) / Math.max(1L, returned);
+        }
+    }
+
+    // -- Data generation --
+
+    private static void generate() {
+        Random random = new Random(42);
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        LocalDate firstDue = LocalDate.parse("2025-01-01");
+        List<BulkOperation> organizations = new ArrayList<>();
+        List<BulkOperation> projects = new ArrayList<>();
+        List<BulkOperation> tasks = new ArrayList<>();
+        List<BulkOperation> members = new ArrayList<>();
+        List<BulkOperation> memberships = new ArrayList<>();
+
+        for (int o = 0; o < ORGANIZATIONS; o++) {
+            organizations.add(BulkOperation.createInsert(new JsonObject()
+                    .put("_id", organizationId(o))
+                    .put("name", "Organization " + o)
+                    .put("slug", "org-" + o)
+                    .put("billingPlanId", "pro")
+                    .put("createdAt", MongoDates.toBson(base))
+                    .put("updatedAt", MongoDates.toBson(base))
+                    .put("deletedAt", deletedAt(random, base))));
+
+            for (int m = 0; m < MEMBERS_PER_ORG; m++) {
+                Instant joined = base.plus(o * MEMBERS_PER_ORG + m, ChronoUnit.HOURS);
+                members.add(BulkOperation.createInsert(new JsonObject()
+                        .put("_id", memberId(o, m))
+                        .put("email", email(o, m))
+                        .put("name", "Member " + m)
+                        .put("role", m == 0 ? "OWNER" : ROLES[m % ROLES.length])
+                        .put("organizationId", organizationId(o))
+                        .put("invitedAt", MongoDates.toBson(joined))
+                        .put("joinedAt", MongoDates.toBson(joined))
+                        .put("deletedAt", deletedAt(random, joined))));
+            }
+
+            for (int p = 0; p < PROJECTS_PER_ORG; p++) {
+                Instant created = base.plus(o * PROJECTS_PER_ORG + p, ChronoUnit.HOURS);
+                int memberCount = 0;
+                for (int m = 0; m < MEMBERS_PER_ORG; m += 1 + random.nextInt(4)) {
+                    memberCount++;
+                    memberships.add(BulkOperation.createInsert(new JsonObject()
+                            .put("_id", projectId(o, p) + "-" + memberId(o, m))
+                            .put("organizationId", organizationId(o))
+                            .put("projectId", projectId(o, p))
+                            .put("memberId", memberId(o, m))
+                            .put("addedBy", memberId(o, 0))
+                            .put("createdAt", MongoDates.toBson(created))
+                            .put("updatedAt", MongoDates.toBson(created))
+                            .put("deletedAt", deletedAt(random, created))));
+                }
+                projects.add(BulkOperation.createInsert(new JsonObject()
+                        .put("_id", projectId(o, p))
+                        .put("name", "Project " + p)
+                        .put("organizationId", organizationId(o))
+                        .put("status", p % 5 == 0 ? "ARCHIVED" : "ACTIVE")
+                        .put(ProjectRepository.MEMBER_COUNT, memberCount)
+                        .put("createdBy", memberId(o, 0))
+                        .put("createdAt", MongoDates.toBson(created))
+                        .put("updatedAt", MongoDates.toBson(created))
+                        .put("deletedAt", deletedAt(random, created))));
+
+                for (int t = 0; t < TASKS_PER_PROJECT; t++) {
+                    Instant taskCreated = created.plus(t, ChronoUnit.MINUTES);
+                    Instant taskUpdated = taskCreated.plus(random.nextInt(10_000), ChronoUnit.MINUTES);
+                    tasks.add(BulkOperation.createInsert(new JsonObject()
+                            .put("_id", taskId(o, p, t))
+                            .put("title", "Task " + t + " " + WORDS[random.nextInt(WORDS.length)])
+                            .put("projectId", projectId(o, p))
+                            .put("organizationId", organizationId(o))
+                            .put("assigneeId", memberId(o, random.nextInt(MEMBERS_PER_ORG)))
+                            .put("status", STATUSES[random.nextInt(STATUSES.length)])
+                            .put("priority", PRIORITIES[random.nextInt(PRIORITIES.length)])
+                            .put("dueDate", MongoDates.parse(firstDue.plusDays(random.nextInt(365)).toString()))
+                            .put("createdBy", memberId(o, 0))
+                            .put("createdAt", MongoDates.toBson(taskCreated))
+                            .put("updatedAt", MongoDates.toBson(taskUpdated))
+                            .put("deletedAt", deletedAt(random, taskUpdated))));
+                }
+            }
+        }
+
+        List<BulkOperation> plans = new ArrayList<>();
+        for (String tier : List.of("FREE", "PRO", "ENTERPRISE")) {
+            plans.add(BulkOperation.createInsert(new JsonObject()
+                    .put("_id", tier.toLowerCase())
+                    .put("tier", tier)
+                    .put("deletedAt", (Object) null)));
+        }
+
+        List<BulkOperation> revocations = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 2000; i++) {
+            revocations.add(BulkOperation.createInsert(new JsonObject()
+                    .put("type", "TOKEN")
+                    .put("key", "jti-" + i)
+                    .put("subject", memberId(i % ORGANIZATIONS, i % MEMBERS_PER_ORG))
+                    .put("revokedAt", now - (2000 - i) * 60_000L)
+                    .put("expiresAt", now + 86_400_000L)
+                    .put("deletedAt", (Object) null)));
+        }
+
+        insert("organizations", organizations);
+        insert("members", members);
+        insert("projects", projects);
+        insert("project_memberships", memberships);
+        insert("tasks", tasks);
+        insert("billing_plans", plans);
+        insert("revoked_tokens", revocations);
+    }
+
+    private static void insert(String collection, List<BulkOperation> operations) {
+        for (int i = 0; i < operations.size(); i += BATCH_SIZE) {
+            await(mongoClient.bulkWrite(collection, operations.subList(i, Math.min(operations.size(), i + BATCH_SIZE))));
+        }
+    }
+
+    // About 5% of documents are soft-deleted so partial indexes are exercised
+    private static JsonObject deletedAt(Random random, Instant after) {
+        return random.nextInt(20) == 0 ? MongoDates.toBson(after.plus(1, ChronoUnit.DAYS)) : null;
+    }
+
+    private static String organizationId(int o) {
+        return "org-" + o;
+    }
+
+    private static String projectId(int o, int p) {
+        return "project-" + o + "-" + p;
+    }
+
+    private static String taskId(int o, int p, int t) {
+        return "task-" + o + "-" + p + "-" + t;
+    }
+
+    private static String memberId(int o, int m) {
+        return "member-" + o + "-" + m;
+    }
+
+    private static String email(int o, int m) {
+        return "member" + m + "@org" + o + ".example.com";
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.toCompletionStage().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            return fail(e);
+        }
+    }
+}
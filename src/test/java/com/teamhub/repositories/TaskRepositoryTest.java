@@ -0,0 +1,94 @@
+package com.teamhub.repositories;
+
+import com.teamhub.common.mongo.FieldSet;
+import com.teamhub.common.mongo.MongoDates;
+import com.teamhub.common.mongo.PageCursor;
+import com.teamhub.common.mongo.memory.InMemoryMongoClient;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class TaskRepositoryTest {
+
+    private static final String ORG_ID = "org1";
+    private static final String PROJECT_ID = "proj1";
+
+    private MongoClient client;
+    private TaskRepository repository;
+
+    @BeforeEach
+    void setUp(Vertx vertx) {
+        client = InMemoryMongoClient.create(vertx);
+        repository = new TaskRepository(client);
+    }
+
+    @Test
+    void findByProject_listsLegacyIdsByCreationTime(VertxTestContext ctx) {
+        JsonObject created = MongoDates.toBson(Instant.now().minus(1, ChronoUnit.DAYS));
+        JsonObject legacy = new JsonObject()
+                .put("_id", "task_001")
+                .put("organizationId", ORG_ID)
+                .put("projectId", PROJECT_ID)
+                .put("title", "Legacy")
+                .put("createdAt", created)
+                .put("updatedAt", created.copy())
+                .put("deletedAt", (Object) null);
+        JsonObject generated = new JsonObject()
+                .put("organizationId", ORG_ID)
+                .put("projectId", PROJECT_ID)
+                .put("title", "Generated");
+
+        client.insert("tasks", legacy)
+                .compose(id -> repository.insert(generated))
+                .compose(id -> repository.findByProject(ORG_ID, PROJECT_ID, null, 1, FieldSet.ALL))
+                .compose(first -> repository.findByProject(ORG_ID, PROJECT_ID,
+                                PageCursor.decode(first.nextCursor()), 1, FieldSet.ALL)
+                        .map(second -> List.of(first.items().get(0).getString("title"),
+                                second.items().get(0).getString("title"))))
+                .onComplete(ctx.succeeding(titles -> {
+                    ctx.verify(() -> assertEquals(List.of("Generated", "Legacy"), titles));
+                    ctx.completeNow();
+                }));
+    }
+
+    @Test
+    void findHighestKeyNumber_countsDeletedTasksAndOnlyThatProjectKey(VertxTestContext ctx) {
+        List<JsonObject> tasks = List.of(
+                task("WEB-9", ORG_ID),
+                task("WEB-10", ORG_ID),
+                task("WEB-12", ORG_ID).put("deletedAt", MongoDates.now()),
+                task("WEBX-50", ORG_ID),
+                task("WEB-99", "org2"),
+                task(null, ORG_ID));
+
+        Future.all(tasks.stream().map(doc -> client.insert("tasks", doc)).toList())
+                .compose(inserted -> repository.findHighestKeyNumber(ORG_ID, "WEB"))
+                .compose(highest -> repository.findHighestKeyNumber(ORG_ID, "MOB")
+                        .map(none -> List.of(highest, none)))
+                .onComplete(ctx.succeeding(highest -> {
+                    ctx.verify(() -> assertEquals(List.of(12L, 0L), highest));
+                    ctx.completeNow();
+                }));
+    }
+
+    private static JsonObject task(String key, String organizationId) {
+        JsonObject task = new JsonObject()
+                .put("organizationId", organizationId)
+                .put("projectId", PROJECT_ID)
+                .put("deletedAt", (Object) null);
+        return key == null ? task : task.put("key", key);
+    }
+}
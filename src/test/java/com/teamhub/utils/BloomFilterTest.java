@@ -0,0 +1,49 @@
+package com.teamhub.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_insertedKeys() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("key-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("key-" + i));
+        }
+    }
+
+    @Test
+    void mightContain_emptyFilter() {
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        assertFalse(filter.mightContain("anything"));
+    }
+
+    @Test
+    void falsePositiveRate_withinBudget() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("present-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        // Allow generous slack over the 1% target
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void create_capacityAndSize() {
+        BloomFilter filter = BloomFilter.create(1024, 0.01);
+        assertEquals(1024, filter.capacity());
+        assertTrue(filter.bitSize() >= 9 * 1024);
+        assertEquals(0, filter.bitSize() % 64);
+    }
+}
@@ -0,0 +1,64 @@
+package com.teamhub.utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void get_loadsOnceUntilExpired() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(100, 10, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", () -> Future.succeededFuture("v" + loads.incrementAndGet())).result());
+        assertEquals("v1", cache.get("k", () -> Future.succeededFuture("v" + loads.incrementAndGet())).result());
+        now.addAndGet(100);
+        assertEquals("v2", cache.get("k", () -> Future.succeededFuture("v" + loads.incrementAndGet())).result());
+    }
+
+    @Test
+    void get_doesNotCacheNullOrFailedLoads() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(100, 10, now::get);
+
+        assertNull(cache.get("k", () -> Future.succeededFuture(null)).result());
+        assertTrue(cache.get("k", () -> Future.failedFuture("down")).failed());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidate_discardsLoadStillInFlight() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(100, 10, now::get);
+        Promise<String> stale = Promise.promise();
+
+        Future<String> first = cache.get("k", stale::future);
+        cache.invalidate("k");
+        stale.complete("ADMIN");
+
+        assertEquals("ADMIN", first.result());
+        assertEquals("MEMBER", cache.get("k", () -> Future.succeededFuture("MEMBER")).result());
+    }
+
+    @Test
+    void get_whenFullEvictsOldestRatherThanEverything() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(1_000, 10, now::get);
+        for (int i = 0; i < 10; i++) {
+            int key = i;
+            cache.get(key, () -> Future.succeededFuture(key));
+            now.incrementAndGet();
+        }
+
+        cache.get(10, () -> Future.succeededFuture(10));
+
+        assertEquals(10, cache.size());
+        assertEquals(-1, cache.get(0, () -> Future.succeededFuture(-1)).result());
+        assertEquals(9, cache.get(9, () -> Future.succeededFuture(-1)).result());
+    }
+}
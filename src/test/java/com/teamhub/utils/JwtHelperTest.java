@@ -78,6 +78,15 @@ class JwtHelperTest {
         assertNull(claims);
     }
 
+    @Test
+    void generateToken_uniqueTokenIds() {
+        JWTClaimsSet first = JwtHelper.validateToken(JwtHelper.generateToken("user-1", "user@test.com", "org-1"));
+        JWTClaimsSet second = JwtHelper.validateToken(JwtHelper.generateToken("user-1", "user@test.com", "org-1"));
+
+        assertNotNull(first.getJWTID());
+        assertNotEquals(first.getJWTID(), second.getJWTID());
+    }
+
     @Test
     void extractClaim_existingClaim() {
         String token = JwtHelper.generateToken("user-1", "user@test.com", "org-1");
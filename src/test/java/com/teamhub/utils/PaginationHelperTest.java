@@ -76,4 +76,30 @@ class PaginationHelperTest {
         assertEquals(50L, meta.getLong("totalItems"));
         assertEquals(3, meta.getInteger("totalPages"));
     }
+
+    @Test
+    void buildPaginationMeta_withNextCursor() {
+        JsonObject meta = PaginationHelper.buildPaginationMeta(1, 20, 50, "abc");
+
+        assertEquals(1, meta.getInteger("page"));
+        assertEquals(3, meta.getInteger("totalPages"));
+        assertEquals("abc", meta.getString("nextCursor"));
+    }
+
+    @Test
+    void buildCursorMeta_hasMore() {
+        JsonObject meta = PaginationHelper.buildCursorMeta(20, "abc");
+
+        assertEquals(20, meta.getInteger("pageSize"));
+        assertEquals("abc", meta.getString("nextCursor"));
+        assertTrue(meta.getBoolean("hasMore"));
+    }
+
+    @Test
+    void buildCursorMeta_lastPage() {
+        JsonObject meta = PaginationHelper.buildCursorMeta(20, null);
+
+        assertNull(meta.getString("nextCursor"));
+        assertFalse(meta.getBoolean("hasMore"));
+    }
 }